@@ -0,0 +1,440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.afp.util.SpoolOutputStream;
+import org.apache.fop.util.BoundedCache;
+
+/**
+ * Thread-safe cache of the encoded bytes of external resources copied into resource groups:
+ * page segments, overlays, form maps and embedded fonts. A resource is identified by its
+ * absolute URI, its resource level, its name and its resource object type, so documents
+ * including the same resource don't have to load and parse it again.
+ * <p>
+ * Resources are held in memory. Large resources can be spooled to temporary files instead,
+ * from which they are copied to the resource group through the file channel. Memory and spool
+ * files have separate limits, beyond which the least recently used resources are evicted.
+ * <p>
+ * An instance is held by the {@link org.apache.fop.apps.FopFactory}. Resources loaded from
+ * files are loaded again when the last modification time or the length of the file changes.
+ * Resources from other sources are not checked for changes, so the cache must be cleared
+ * when they change.
+ */
+public final class AFPResourceCache {
+
+    private static final Log LOG = LogFactory.getLog(AFPResourceCache.class);
+
+    /** The default maximum number of bytes held in memory by all cached resources. */
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    /** The default maximum number of bytes held in spool files by all cached resources. */
+    public static final long DEFAULT_MAX_SPOOL_SIZE = 1024L * 1024 * 1024;
+
+    /** The default size from which resources are spooled to files, if spooling is requested. */
+    public static final int DEFAULT_SPOOL_THRESHOLD = 256 * 1024;
+
+    private final EntryCache memoryCache;
+
+    private final EntryCache spoolCache;
+
+    private final int spoolThreshold;
+
+    /** the entries whose spool files haven't been deleted yet */
+    private final Set<Entry> spooledEntries
+            = Collections.newSetFromMap(new ConcurrentHashMap<Entry, Boolean>());
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /** Creates a new cache with the default limits. */
+    public AFPResourceCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_MAX_SPOOL_SIZE, DEFAULT_SPOOL_THRESHOLD);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of bytes held in memory by all cached resources
+     * @param maxSpoolSize the maximum number of bytes held in spool files by all cached resources
+     * @param spoolThreshold the size from which resources are spooled to files, if requested
+     */
+    public AFPResourceCache(long maxSize, long maxSpoolSize, int spoolThreshold) {
+        this.memoryCache = new EntryCache(maxSize);
+        this.spoolCache = new EntryCache(maxSpoolSize);
+        this.spoolThreshold = spoolThreshold;
+    }
+
+    /**
+     * Creates the key identifying a resource. For a file, the key includes its last
+     * modification time and length, so a changed file is not served from the cache.
+     * @param uri the absolute URI the resource is loaded from
+     * @param level the resource level
+     * @param name the name of the resource
+     * @param resourceObjectType the resource object type
+     * ({@link org.apache.fop.afp.modca.ResourceObject}.*)
+     * @return the key
+     */
+    public static Key createKey(URI uri, AFPResourceLevel level, String name, byte resourceObjectType) {
+        long lastModified = 0;
+        long length = -1;
+        if ("file".equals(uri.getScheme())) {
+            try {
+                File file = new File(uri);
+                lastModified = file.lastModified();
+                length = file.length();
+            } catch (IllegalArgumentException iae) {
+                //not a hierarchical file URI; only identified by the URI
+            }
+        }
+        return new Key(uri, lastModified, length, level, name, resourceObjectType);
+    }
+
+    /**
+     * Looks up a resource. The entry is retained for the caller, who must call
+     * {@link Entry#release()} once the resource has been written.
+     * @param key the key identifying the resource
+     * @return the cached resource, or null if it is not cached
+     */
+    public Entry get(Key key) {
+        Entry entry = retain(memoryCache.get(key));
+        if (entry == null) {
+            entry = retain(spoolCache.get(key));
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return entry;
+    }
+
+    private static Entry retain(Entry entry) {
+        return (entry != null && entry.retain()) ? entry : null;
+    }
+
+    /**
+     * Adds a resource to the cache. The returned entry is retained for the caller, who must
+     * call {@link Entry#release()} once the resource has been written.
+     * @param key the key identifying the resource
+     * @param data the encoded resource
+     * @param spool true if the resource should be spooled to a file when it is large
+     * @return the cache entry for the resource, or the entry already cached by another
+     * thread; if the resource is too large, the entry is returned but not cached
+     * @throws IOException if an I/O error occurs while spooling the resource
+     */
+    public Entry put(Key key, byte[] data, boolean spool) throws IOException {
+        EntryCache cache;
+        Entry entry;
+        if (spool && data.length >= spoolThreshold && spoolCache.fits(data.length)) {
+            cache = spoolCache;
+            entry = new Entry(this, createSpoolFile(data), data.length);
+            spooledEntries.add(entry);
+        } else if (memoryCache.fits(data.length)) {
+            cache = memoryCache;
+            entry = new Entry(data);
+        } else {
+            return new Entry(data);
+        }
+        //the reference held by the cache
+        entry.retain();
+        Entry existing = cache.putIfAbsent(key, entry);
+        if (existing != null) {
+            entry.release();
+            if (existing.retain()) {
+                entry.release();
+                return existing;
+            }
+        }
+        return entry;
+    }
+
+    private static File createSpoolFile(byte[] data) throws IOException {
+        File file = File.createTempFile("fop-afp-resource", ".tmp");
+        boolean written = false;
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+            written = true;
+        } finally {
+            out.close();
+            if (!written) {
+                file.delete();
+            }
+        }
+        return file;
+    }
+
+    /** @return the number of lookups that found a cached resource */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /** @return the number of lookups that did not find a cached resource */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /** @return the number of cached resources */
+    public int size() {
+        return memoryCache.size() + spoolCache.size();
+    }
+
+    /** @return the number of bytes held in memory by the cached resources */
+    public long getMemoryUsage() {
+        return memoryCache.getWeight();
+    }
+
+    /** @return the number of bytes held in spool files by the cached resources */
+    public long getSpoolUsage() {
+        return spoolCache.getWeight();
+    }
+
+    /**
+     * Removes all cached resources and resets the statistics. The spool files are deleted
+     * once the documents currently including them have been written.
+     */
+    public void clear() {
+        memoryCache.clear();
+        spoolCache.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Removes all cached resources and deletes all spool files, including those of resources
+     * still retained by documents which have failed. This is called when the factory is shut
+     * down, and must not be called while AFP documents are being rendered.
+     */
+    public void shutdown() {
+        clear();
+        for (Entry entry : spooledEntries) {
+            entry.deleteSpoolFile();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "AFPResourceCache[size=" + size() + ", bytes=" + getMemoryUsage()
+                + ", spooled=" + getSpoolUsage() + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + "]";
+    }
+
+    /**
+     * Holds either the resources in memory or the spooled ones. Resources are looked up once
+     * per document, so a single segment is enough and lets one resource use the whole limit.
+     */
+    private static final class EntryCache extends BoundedCache<Key, Entry> {
+
+        private EntryCache(long maxSize) {
+            super(maxSize, 1);
+        }
+
+        /** {@inheritDoc} */
+        protected int weigh(Key key, Entry entry) {
+            return (int) entry.length;
+        }
+
+        /** {@inheritDoc} */
+        protected void evicted(Key key, Entry entry) {
+            entry.release();
+        }
+    }
+
+    /**
+     * A cached resource, held in memory or in a spool file. The spool file is deleted when
+     * neither the cache nor a document holds a reference to the entry any longer.
+     */
+    public static final class Entry {
+
+        private final AFPResourceCache cache;
+
+        private final byte[] data;
+
+        private final File spoolFile;
+
+        private final long length;
+
+        /** the references held by the cache and by the documents including the resource */
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Entry(byte[] data) {
+            this.cache = null;
+            this.data = data;
+            this.spoolFile = null;
+            this.length = data.length;
+        }
+
+        private Entry(AFPResourceCache cache, File spoolFile, long length) {
+            this.cache = cache;
+            this.data = null;
+            this.spoolFile = spoolFile;
+            this.length = length;
+        }
+
+        /** @return the number of bytes of the encoded resource */
+        public long getLength() {
+            return length;
+        }
+
+        /** @return true if the resource is held in a spool file rather than in memory */
+        public boolean isSpooled() {
+            return spoolFile != null;
+        }
+
+        /** @return the spool file, or null if the resource is held in memory */
+        File getSpoolFile() {
+            return spoolFile;
+        }
+
+        /**
+         * Returns the encoded resource, reading it from the spool file if necessary.
+         * @return the encoded resource; the array must not be modified
+         * @throws IOException if an I/O error occurs while reading the spool file
+         */
+        public byte[] getData() throws IOException {
+            if (data != null) {
+                return data;
+            }
+            InputStream in = new FileInputStream(spoolFile);
+            try {
+                return IOUtils.toByteArray(in);
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+         * Writes the encoded resource to the given stream. A spooled resource is transferred
+         * through the file channel.
+         * @param out the destination
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            if (data != null) {
+                out.write(data);
+            } else {
+                FileInputStream in = new FileInputStream(spoolFile);
+                try {
+                    SpoolOutputStream.transfer(in.getChannel(), 0, length, out);
+                } finally {
+                    in.close();
+                }
+            }
+        }
+
+        private boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    //already released, the spool file may be gone
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * Releases a reference obtained through {@link AFPResourceCache#get(Key)} or
+         * {@link AFPResourceCache#put(Key, byte[], boolean)}. The entry must not be used
+         * afterwards.
+         */
+        public void release() {
+            if (references.decrementAndGet() == 0 && spoolFile != null) {
+                deleteSpoolFile();
+            }
+        }
+
+        private void deleteSpoolFile() {
+            if (cache.spooledEntries.remove(this) && !spoolFile.delete()) {
+                LOG.warn("Could not delete spool file " + spoolFile);
+            }
+        }
+    }
+
+    /** The key identifying a resource. */
+    public static final class Key {
+
+        private final URI uri;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final AFPResourceLevel level;
+
+        private final String name;
+
+        private final byte resourceObjectType;
+
+        private final int hash;
+
+        private Key(URI uri, long lastModified, long length, AFPResourceLevel level, String name,
+                byte resourceObjectType) {
+            this.uri = uri;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.level = level;
+            this.name = name;
+            this.resourceObjectType = resourceObjectType;
+            int h = uri.hashCode();
+            h = 31 * h + (int) (lastModified ^ (lastModified >>> 32));
+            h = 31 * h + (int) (length ^ (length >>> 32));
+            h = 31 * h + level.hashCode();
+            h = 31 * h + (name != null ? name.hashCode() : 0);
+            this.hash = 31 * h + resourceObjectType;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && resourceObjectType == other.resourceObjectType
+                    && lastModified == other.lastModified && length == other.length
+                    && uri.equals(other.uri) && level.equals(other.level)
+                    && (name == null ? other.name == null : name.equals(other.name));
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.apache.fop.afp;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -63,6 +64,9 @@ public class AFPResourceManager {
     /** logging instance */
     private static Log log = LogFactory.getLog(AFPResourceManager.class);
 
+    /** The cache type of resources extracted by name from an external file, whatever their type */
+    private static final byte TYPE_NAMED_RESOURCE = 0;
+
     /** The AFP datastream (document tree) */
     private DataStream dataStream;
 
@@ -84,6 +88,11 @@ public class AFPResourceManager {
 
     protected boolean includeCached = true;
 
+    /** The cache of external resources shared between documents, may be null */
+    private AFPResourceCache resourceCache;
+
+    private boolean resourceGroupSpooling;
+
     /**
      * Main constructor
      *
@@ -138,6 +147,28 @@ public class AFPResourceManager {
         streamer.setDefaultResourceGroupUri(uri);
     }
 
+    /**
+     * Sets the cache of external resources shared between documents. Included resources are
+     * loaded from the cache rather than from their external files.
+     *
+     * @param resourceCache the resource cache, or null to load the resources for each document
+     */
+    public void setResourceCache(AFPResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
+    /**
+     * Controls whether the print-file resource group is spooled to a temporary file until the
+     * end of the document. Large cached resources are then spooled to files, too, and copied
+     * into the resource group through the file channels.
+     *
+     * @param resourceGroupSpooling true to spool the print-file resource group
+     */
+    public void setResourceGroupSpooling(boolean resourceGroupSpooling) {
+        this.resourceGroupSpooling = resourceGroupSpooling;
+        streamer.setResourceGroupSpooling(resourceGroupSpooling);
+    }
+
     /**
      * Tries to create an include of a data object that has been previously added to the
      * AFP data stream. If no such object was available, the method returns false which serves
@@ -418,6 +449,8 @@ public class AFPResourceManager {
             }
 
             ResourceGroup resourceGroup = streamer.getResourceGroup(resourceLevel);
+            AFPResourceCache.Key key = createCacheKey(accessor, uri, resourceLevel, resourceName,
+                    resourceObjectType);
 
             if (truetype) {
                 ResourceObject res = factory.createResource();
@@ -426,12 +459,25 @@ public class AFPResourceManager {
                 ActiveEnvironmentGroup.setupTruetypeMDR(res, false);
 
                 ObjectContainer oc = factory.createObjectContainer();
-                InputStream is = accessor.createInputStream(uri);
-
-                if (ttc != null) {
-                    oc.setData(extractTTC(ttc, is));
+                //The font file is cached rather than the resource object, whose name is generated
+                AFPResourceCache.Entry cached = getCachedResource(key);
+                if (cached != null) {
+                    try {
+                        oc.setData(cached.getData());
+                    } finally {
+                        cached.release();
+                    }
                 } else {
-                    oc.setData(IOUtils.toByteArray(is));
+                    InputStream is = accessor.createInputStream(uri);
+                    try {
+                        byte[] data = (ttc != null) ? extractTTC(ttc, is) : IOUtils.toByteArray(is);
+                        if (key != null) {
+                            resourceCache.put(key, data, false).release();
+                        }
+                        oc.setData(data);
+                    } finally {
+                        IOUtils.closeQuietly(is);
+                    }
                 }
 
                 ActiveEnvironmentGroup.setupTruetypeMDR(oc, true);
@@ -444,11 +490,15 @@ public class AFPResourceManager {
                 res.setDataObject(oc);
                 resourceGroup.addObject(res);
             } else {
-                ResourceObject resourceObject = factory.createResource(resourceName);
-                IncludedResourceObject resourceContent = new IncludedResourceObject(
-                        resourceName, accessor, uri);
-                resourceObject.setDataObject(resourceContent);
-                resourceObject.setType(resourceObjectType);
+                AbstractNamedAFPObject resourceObject = getCachedResourceObject(resourceName, key);
+                if (resourceObject == null) {
+                    ResourceObject newResourceObject = factory.createResource(resourceName);
+                    IncludedResourceObject resourceContent = new IncludedResourceObject(
+                            resourceName, accessor, uri);
+                    newResourceObject.setDataObject(resourceContent);
+                    newResourceObject.setType(resourceObjectType);
+                    resourceObject = cacheResourceObject(newResourceObject, key);
+                }
                 resourceGroup.addObject(resourceObject);
             }
 
@@ -499,30 +549,35 @@ public class AFPResourceManager {
         List<AbstractCachedObject> resource = includeObjectCache.get(resourceInfo);
         if (resource == null) {
             ResourceGroup resourceGroup = streamer.getResourceGroup(resourceLevel);
-
-            //resourceObject delegates write commands to copyNamedResource()
-            //The included resource may already be wrapped in a resource object
-            AbstractNamedAFPObject resourceObject = new AbstractNamedAFPObject(null) {
-
-                @Override
-                protected void writeContent(OutputStream os) throws IOException {
-                    InputStream inputStream = null;
-                    try {
-                        inputStream = accessor.createInputStream(uri);
-                        BufferedInputStream bin = new BufferedInputStream(inputStream);
-                        AFPResourceUtil.copyNamedResource(resourceName, bin, os);
-                    } finally {
-                        IOUtils.closeQuietly(inputStream);
+            AFPResourceCache.Key key = createCacheKey(accessor, uri, resourceLevel, resourceName,
+                    TYPE_NAMED_RESOURCE);
+            AbstractNamedAFPObject resourceObject = getCachedResourceObject(resourceName, key);
+            if (resourceObject == null) {
+                //resourceObject delegates write commands to copyNamedResource()
+                //The included resource may already be wrapped in a resource object
+                AbstractNamedAFPObject newResourceObject = new AbstractNamedAFPObject(null) {
+
+                    @Override
+                    protected void writeContent(OutputStream os) throws IOException {
+                        InputStream inputStream = null;
+                        try {
+                            inputStream = accessor.createInputStream(uri);
+                            BufferedInputStream bin = new BufferedInputStream(inputStream);
+                            AFPResourceUtil.copyNamedResource(resourceName, bin, os);
+                        } finally {
+                            IOUtils.closeQuietly(inputStream);
+                        }
                     }
-                }
 
-                //bypass super.writeStart
-                @Override
-                protected void writeStart(OutputStream os) throws IOException { }
-                //bypass super.writeEnd
-                @Override
-                protected void writeEnd(OutputStream os) throws IOException { }
-            };
+                    //bypass super.writeStart
+                    @Override
+                    protected void writeStart(OutputStream os) throws IOException { }
+                    //bypass super.writeEnd
+                    @Override
+                    protected void writeEnd(OutputStream os) throws IOException { }
+                };
+                resourceObject = cacheResourceObject(newResourceObject, key);
+            }
             resourceGroup.addObject(resourceObject);
             CachedObject newresource = new CachedObject(resourceName, null);
             addToCache(resourceInfo, newresource);
@@ -530,6 +585,66 @@ public class AFPResourceManager {
     }
 
 
+    private AFPResourceCache.Key createCacheKey(AFPResourceAccessor accessor, URI uri,
+            AFPResourceLevel resourceLevel, String resourceName, byte resourceObjectType) {
+        if (resourceCache == null) {
+            return null;
+        }
+        return AFPResourceCache.createKey(accessor.getAbsoluteURI(uri), resourceLevel, resourceName,
+                resourceObjectType);
+    }
+
+    private AFPResourceCache.Entry getCachedResource(AFPResourceCache.Key key) {
+        return (key != null) ? resourceCache.get(key) : null;
+    }
+
+    private AbstractNamedAFPObject getCachedResourceObject(String resourceName, AFPResourceCache.Key key) {
+        AFPResourceCache.Entry cached = getCachedResource(key);
+        return (cached != null) ? new CachedResourceObject(resourceName, cached) : null;
+    }
+
+    /**
+     * Encodes a resource object and adds it to the resource cache.
+     * @return the cached resource object, or the given one if there is no resource cache
+     */
+    private AbstractNamedAFPObject cacheResourceObject(AbstractNamedAFPObject resourceObject,
+            AFPResourceCache.Key key) throws IOException {
+        if (key == null) {
+            return resourceObject;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resourceObject.writeToStream(out);
+        AFPResourceCache.Entry cached = resourceCache.put(key, out.toByteArray(), resourceGroupSpooling);
+        return new CachedResourceObject(resourceObject.getName(), cached);
+    }
+
+    /**
+     * A resource object written from the resource cache. The cache entry is released once it
+     * has been written, so an evicted spool file is kept until then.
+     */
+    private static final class CachedResourceObject extends AbstractNamedAFPObject {
+
+        private AFPResourceCache.Entry cached;
+
+        private CachedResourceObject(String name, AFPResourceCache.Entry cached) {
+            super(name);
+            this.cached = cached;
+        }
+
+        @Override
+        public void writeToStream(OutputStream os) throws IOException {
+            if (cached == null) {
+                throw new IllegalStateException("Cached resource " + getName() + " already written");
+            }
+            try {
+                cached.writeTo(os);
+            } finally {
+                cached.release();
+                cached = null;
+            }
+        }
+    }
+
     /**
      * Sets resource level defaults. The existing defaults over merged with the ones passed in
      * as parameter.
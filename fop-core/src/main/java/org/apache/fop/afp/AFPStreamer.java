@@ -20,6 +20,7 @@
 package org.apache.fop.afp;
 
 import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -35,6 +36,7 @@ import org.apache.xmlgraphics.io.TempResourceURIGenerator;
 
 import org.apache.fop.afp.modca.ResourceGroup;
 import org.apache.fop.afp.modca.StreamedResourceGroup;
+import org.apache.fop.afp.util.SpoolOutputStream;
 import org.apache.fop.apps.io.InternalResourceResolver;
 
 /**
@@ -58,6 +60,12 @@ public class AFPStreamer implements Streamable {
 
     private StreamedResourceGroup printFileResourceGroup;
 
+    /** Whether the print-file resource group is spooled until the end of the document */
+    private boolean resourceGroupSpooling;
+
+    /** The spool of the print-file resource group, if spooling */
+    private SpoolOutputStream resourceGroupSpool;
+
     /** Sets the default resource group file path */
     private URI defaultResourceGroupUri;
 
@@ -107,6 +115,16 @@ public class AFPStreamer implements Streamable {
         this.defaultResourceGroupUri = uri;
     }
 
+    /**
+     * Controls whether the print-file resource group is spooled to a temporary file and copied
+     * to the final outputstream at the end of the document, rather than written to it directly.
+     *
+     * @param resourceGroupSpooling true to spool the print-file resource group
+     */
+    public void setResourceGroupSpooling(boolean resourceGroupSpooling) {
+        this.resourceGroupSpooling = resourceGroupSpooling;
+    }
+
     /**
      * Returns the resource group for a given resource info
      *
@@ -141,8 +159,20 @@ public class AFPStreamer implements Streamable {
             }
         } else if (level.isPrintFile()) {
             if (printFileResourceGroup == null) {
-                // use final outputstream for print-file resource group
-                printFileResourceGroup = factory.createStreamedResourceGroup(outputStream);
+                OutputStream os = outputStream;
+                if (resourceGroupSpooling) {
+                    try {
+                        File spoolFile = File.createTempFile("fop-afp-resources", ".tmp");
+                        spoolFile.deleteOnExit();
+                        resourceGroupSpool = new SpoolOutputStream(spoolFile);
+                        os = resourceGroupSpool;
+                    } catch (IOException ioe) {
+                        LOG.warn("Failed to create spool file for the print-file resource group,"
+                                + " writing it directly: " + ioe.getMessage());
+                    }
+                }
+                // use final outputstream for print-file resource group, unless spooling
+                printFileResourceGroup = factory.createStreamedResourceGroup(os);
             }
             resourceGroup = printFileResourceGroup;
         } else {
@@ -167,6 +197,10 @@ public class AFPStreamer implements Streamable {
         // close any open print-file resource group
         if (printFileResourceGroup != null) {
             printFileResourceGroup.close();
+            if (resourceGroupSpool != null) {
+                resourceGroupSpool.transferTo(outputStream);
+                resourceGroupSpool.delete();
+            }
         }
         // write out document
         writeToStream(outputStream);
@@ -21,6 +21,7 @@ package org.apache.fop.afp;
 
 import java.awt.Color;
 import java.awt.Point;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
@@ -95,6 +96,9 @@ public class DataStream {
     /** the afp painting state */
     private final AFPPaintingState paintingState;
 
+    /** Buffer for the content of the current page, reused for every page */
+    private final ByteArrayOutputStream pageContentBuffer = new ByteArrayOutputStream(16384);
+
     /**
      * Default constructor for the AFPDocumentStream.
      *
@@ -206,6 +210,7 @@ public class DataStream {
             int pageWidthRes, int pageHeightRes) {
         currentPageObject = factory.createPage(pageWidth, pageHeight,
                 pageRotation, pageWidthRes, pageHeightRes);
+        currentPageObject.setContentBuffer(pageContentBuffer);
         currentPage = currentPageObject;
         currentOverlay = null;
     }
@@ -260,6 +265,7 @@ public class DataStream {
      */
     public PageObject savePage() {
         PageObject pageObject = currentPageObject;
+        pageObject.releaseContentBuffer();
         if (currentPageGroup != null) {
             currentPageGroup.addPage(currentPageObject);
         } else {
@@ -296,6 +302,7 @@ public class DataStream {
                 document.addPage(currentPageObject);
                 document.writeToStream(this.outputStream);
             }
+            currentPageObject.releaseContentBuffer();
             currentPageObject = null;
             currentPage = null;
         }
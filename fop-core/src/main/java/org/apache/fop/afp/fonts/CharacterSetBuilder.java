@@ -20,18 +20,19 @@
 package org.apache.fop.afp.fonts;
 
 import java.awt.Rectangle;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -104,13 +105,14 @@ public abstract class CharacterSetBuilder {
         (byte) 0xD3, (byte) 0x8C, (byte) 0x89 };
 
     /**
-     * The collection of code pages
+     * The collection of code pages, by their absolute URI and encoding. The values are held
+     * softly, as the builders are shared by all factories in the JVM.
      */
-    private final Map<String, Map<String, String>> codePagesCache
-            = Collections.synchronizedMap(new WeakHashMap<String, Map<String, String>>());
+    private final SoftMapCache codePagesCache = new SoftMapCache(true);
 
     /**
-     * Cache of charactersets
+     * Cache of charactersets, by the absolute URIs of the character set and code page and
+     * the encoding
      */
     private final SoftMapCache characterSetsCache = new SoftMapCache(true);
 
@@ -242,16 +244,97 @@ public abstract class CharacterSetBuilder {
             CharacterSetType charsetType, AFPResourceAccessor accessor, AFPEventProducer eventProducer)
             throws IOException {
         // check for cached version of the characterset
-        URI charSetURI = accessor.resolveURI(characterSetName);
-        String cacheKey = charSetURI.toASCIIString() + "_" + characterSetName + "_" + codePageName;
+        String cacheKey = accessor.getAbsoluteURI(characterSetName).toASCIIString() + "_"
+                + createCodePageKey(codePageName, encoding, accessor);
         CharacterSet characterSet = (CharacterSet) characterSetsCache.get(cacheKey);
         if (characterSet != null) {
             return characterSet;
         }
 
         // characterset not in the cache, so recreating
-        characterSet = new CharacterSet(codePageName, encoding, charsetType, characterSetName,
+        characterSet = loadCompiledCharacterSet(characterSetName, codePageName, encoding,
+                charsetType, accessor, eventProducer);
+        if (characterSet == null) {
+            characterSet = parseFont(characterSetName, codePageName, encoding, charsetType,
+                    accessor, eventProducer);
+        }
+        characterSetsCache.put(cacheKey, characterSet);
+        return characterSet;
+    }
+
+    private static String createCodePageKey(String codePageName, String encoding,
+            AFPResourceAccessor accessor) {
+        return accessor.getAbsoluteURI(codePageName).toASCIIString() + "_" + encoding;
+    }
+
+    /**
+     * Loads the character set from a compiled metrics file next to the character set file, if
+     * there is one (see {@link CompiledCharacterSet}).
+     * @return the character set, or null if there is no usable compiled metrics file
+     */
+    private CharacterSet loadCompiledCharacterSet(String characterSetName, String codePageName,
+            String encoding, CharacterSetType charsetType, AFPResourceAccessor accessor,
+            AFPEventProducer eventProducer) {
+        String fileName = CompiledCharacterSet.getFileName(characterSetName, codePageName);
+        InputStream inputStream;
+        try {
+            inputStream = openInputStream(accessor, fileName, eventProducer);
+        } catch (IOException ioe) {
+            //No compiled metrics, which is the usual case
+            return null;
+        }
+        URI uri = accessor.getAbsoluteURI(fileName);
+        try {
+            ByteBuffer buffer;
+            if ("file".equals(uri.getScheme())) {
+                buffer = CompiledCharacterSet.map(new File(uri));
+            } else {
+                buffer = ByteBuffer.wrap(IOUtils.toByteArray(inputStream));
+            }
+            CharacterSet characterSet = CompiledCharacterSet.read(buffer, characterSetName,
+                    codePageName, encoding, charsetType, accessor, eventProducer);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Using compiled metrics " + uri);
+            }
+            return characterSet;
+        } catch (IOException ioe) {
+            LOG.warn("Ignoring compiled metrics " + uri + ": " + ioe.getMessage());
+            return null;
+        } catch (RuntimeException re) {
+            //BufferUnderflowException or IllegalArgumentException for a truncated or corrupt file
+            LOG.warn("Ignoring compiled metrics " + uri + ": " + re);
+            return null;
+        } finally {
+            closeInputStream(inputStream);
+        }
+    }
+
+    /**
+     * Parses a single byte character set and its code page, bypassing the cache and any
+     * compiled metrics.
+     */
+    CharacterSet parseSBCS(String characterSetName, String codePageName, String encoding,
+            AFPResourceAccessor accessor, AFPEventProducer eventProducer) throws IOException {
+        return parseFont(characterSetName, codePageName, encoding, CharacterSetType.SINGLE_BYTE,
                 accessor, eventProducer);
+    }
+
+    /**
+     * Parses a double byte character set and its code page, bypassing the cache and any
+     * compiled metrics.
+     */
+    CharacterSet parseDBCS(String characterSetName, String codePageName, String encoding,
+            CharacterSetType charsetType, AFPResourceAccessor accessor, AFPEventProducer eventProducer)
+            throws IOException {
+        return parseFont(characterSetName, codePageName, encoding, charsetType, accessor,
+                eventProducer);
+    }
+
+    private CharacterSet parseFont(String characterSetName, String codePageName, String encoding,
+            CharacterSetType charsetType, AFPResourceAccessor accessor, AFPEventProducer eventProducer)
+            throws IOException {
+        CharacterSet characterSet = new CharacterSet(codePageName, encoding, charsetType,
+                characterSetName, accessor, eventProducer);
 
         InputStream inputStream = null;
 
@@ -262,16 +345,12 @@ public abstract class CharacterSetBuilder {
              * information to map the unicode character id to the graphic
              * chracter global identifier.
              */
-            Map<String, String> codePage;
-            // TODO: This could have performance implications if several threads want to use the
-            // codePagesCache to retrieve different codepages.
-            synchronized (codePagesCache) {
-                codePage = codePagesCache.get(codePageName);
-
-                if (codePage == null) {
-                    codePage = loadCodePage(codePageName, encoding, accessor, eventProducer);
-                    codePagesCache.put(codePageName, codePage);
-                }
+            String codePageKey = createCodePageKey(codePageName, encoding, accessor);
+            @SuppressWarnings("unchecked")
+            Map<String, String> codePage = (Map<String, String>) codePagesCache.get(codePageKey);
+            if (codePage == null) {
+                codePage = loadCodePage(codePageName, encoding, accessor, eventProducer);
+                codePagesCache.put(codePageKey, codePage);
             }
 
             inputStream = openInputStream(accessor, characterSetName, eventProducer);
@@ -313,7 +392,6 @@ public abstract class CharacterSetBuilder {
         } finally {
             closeInputStream(inputStream);
         }
-        characterSetsCache.put(cacheKey, characterSet);
         return characterSet;
     }
 
@@ -56,10 +56,28 @@ public class CharacterSetOrientation {
      */
     private int capHeight;
 
+    /** The number of characters in a page of {@link #metricPages} */
+    static final int PAGE_SIZE = 256;
+
+    /** The number of pages needed to cover all Unicode characters */
+    static final int PAGE_COUNT = (Character.MAX_VALUE + 1) / PAGE_SIZE;
+
+    /** The number of values stored for every character in a page of {@link #metricPages} */
+    static final int METRICS_SIZE = 6;
+
+    /** Value of the first metrics field for a character without metrics */
+    private static final int UNDEFINED = 0;
+    /** Value of the first metrics field for a character without character box */
+    private static final int WIDTH_ONLY = 1;
+    /** Value of the first metrics field for a character with width and character box */
+    private static final int WIDTH_AND_BOX = 2;
+
     /**
-     * The character widths in the character set (indexed using Unicode codepoints)
+     * The character metrics in the character set, indexed by the high byte of the Unicode
+     * character; every page holds {@link #METRICS_SIZE} values per character: a flag, the
+     * width and the x, y, width and height of the character box
      */
-    private IntegerKeyStore<CharacterMetrics> characterMetrics;
+    private final int[][] metricPages = new int[PAGE_COUNT][];
 
     /**
      * The height of lowercase letters
@@ -94,7 +112,6 @@ public class CharacterSetOrientation {
         this.spaceIncrement = spaceIncrement;
         this.emSpaceIncrement = emSpaceIncrement;
         this.nomCharIncrement = nomCharIncrement;
-        this.characterMetrics = new IntegerKeyStore<CharacterMetrics>();
     }
 
     /**
@@ -174,12 +191,9 @@ public class CharacterSetOrientation {
      * @return the widths of the character
      */
     public int getWidth(char character, int size) {
-        CharacterMetrics cm = getCharacterMetrics(character);
-        return cm == null ? -1 : size * cm.width;
-    }
-
-    private CharacterMetrics getCharacterMetrics(char character) {
-        return characterMetrics.get((int) character);
+        int[] page = metricPages[character / PAGE_SIZE];
+        int offset = (character % PAGE_SIZE) * METRICS_SIZE;
+        return page == null || page[offset] == UNDEFINED ? -1 : size * page[offset + 1];
     }
 
     /**
@@ -190,17 +204,21 @@ public class CharacterSetOrientation {
      * @return the character box
      */
     public Rectangle getCharacterBox(char character, int size) {
-        CharacterMetrics cm = getCharacterMetrics(character);
-        return scale(cm == null ? getFallbackCharacterBox() : cm.characterBox, size);
+        int[] page = metricPages[character / PAGE_SIZE];
+        int offset = (character % PAGE_SIZE) * METRICS_SIZE;
+        if (page == null || page[offset] == UNDEFINED) {
+            return scale(getFallbackCharacterBox(), size);
+        } else if (page[offset] == WIDTH_ONLY) {
+            return null;
+        } else {
+            return new Rectangle(size * page[offset + 2], size * page[offset + 3],
+                    size * page[offset + 4], size * page[offset + 5]);
+        }
     }
 
     private static Rectangle scale(Rectangle rectangle, int size) {
-        if (rectangle == null) {
-            return null;
-        } else {
         return new Rectangle((int) (size * rectangle.getX()), (int) (size * rectangle.getY()),
                 (int) (size * rectangle.getWidth()), (int) (size * rectangle.getHeight()));
-        }
     }
 
     private Rectangle getFallbackCharacterBox() {
@@ -268,7 +286,43 @@ public class CharacterSetOrientation {
      * @param   characterBox    the character box
      */
     public void setCharacterMetrics(char character, int width, Rectangle characterBox) {
-        characterMetrics.put((int) character, new CharacterMetrics(width, characterBox));
+        int[] page = metricPages[character / PAGE_SIZE];
+        if (page == null) {
+            page = new int[PAGE_SIZE * METRICS_SIZE];
+            metricPages[character / PAGE_SIZE] = page;
+        }
+        int offset = (character % PAGE_SIZE) * METRICS_SIZE;
+        page[offset + 1] = width;
+        if (characterBox != null) {
+            page[offset] = WIDTH_AND_BOX;
+            page[offset + 2] = characterBox.x;
+            page[offset + 3] = characterBox.y;
+            page[offset + 4] = characterBox.width;
+            page[offset + 5] = characterBox.height;
+        } else {
+            page[offset] = WIDTH_ONLY;
+        }
+    }
+
+    /**
+     * Returns a page of character metrics, as stored in compiled metrics files.
+     * @param index the index of the page (the high byte of the Unicode characters)
+     * @return the metrics of {@link #PAGE_SIZE} characters, or null if none of them is defined
+     */
+    int[] getMetricsPage(int index) {
+        return metricPages[index];
+    }
+
+    /**
+     * Sets a page of character metrics, as read from a compiled metrics file.
+     * @param index the index of the page (the high byte of the Unicode characters)
+     * @param page the metrics of {@link #PAGE_SIZE} characters
+     */
+    void setMetricsPage(int index, int[] page) {
+        if (page.length != PAGE_SIZE * METRICS_SIZE) {
+            throw new IllegalArgumentException("Invalid metrics page length: " + page.length);
+        }
+        metricPages[index] = page;
     }
 
     /**
@@ -303,16 +357,4 @@ public class CharacterSetOrientation {
     public int getNominalCharIncrement() {
         return this.nomCharIncrement;
     }
-
-    private static class CharacterMetrics {
-
-        public final int width;
-
-        public final Rectangle characterBox;
-
-        public CharacterMetrics(int width, Rectangle characterBox) {
-            this.width = width;
-            this.characterBox = characterBox;
-        }
-    }
 }
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp.fonts;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.afp.AFPEventProducer;
+import org.apache.fop.afp.util.AFPResourceAccessor;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.events.DefaultEventBroadcaster;
+import org.apache.fop.events.LoggingEventListener;
+
+/**
+ * Reads and writes the metrics of an AFP character set in a compact binary form. Parsing the
+ * code page and font character set files is comparatively expensive; a compiled metrics file
+ * holds the resulting character widths and boxes as tables of integers that can be mapped
+ * into memory and copied into a {@link CharacterSet} as they are.
+ * <p>
+ * Compiled metrics files are created offline with the {@link #main(String[])} method and
+ * placed next to the character set, using the name returned by
+ * {@link #getFileName(String, String)}. {@link CharacterSetBuilder} picks them up instead of
+ * the AFP font files when present.
+ */
+public final class CompiledCharacterSet {
+
+    /** The file name extension of compiled metrics files */
+    public static final String FILE_EXTENSION = ".metrics";
+
+    /** logging instance */
+    private static final Log LOG = LogFactory.getLog(CompiledCharacterSet.class);
+
+    /** "FOPA" */
+    private static final int MAGIC = 0x464F5041;
+
+    private static final int VERSION = 1;
+
+    private CompiledCharacterSet() {
+    }
+
+    /**
+     * Returns the name of the compiled metrics file for a character set and code page.
+     * @param characterSetName the name of the character set
+     * @param codePageName the name of the code page
+     * @return the file name
+     */
+    public static String getFileName(String characterSetName, String codePageName) {
+        return characterSetName.trim() + "." + codePageName.trim() + FILE_EXTENSION;
+    }
+
+    /**
+     * Writes the metrics of a character set.
+     * @param characterSet the character set
+     * @param out the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(CharacterSet characterSet, OutputStream out) throws IOException {
+        CharacterSetOrientation cso = characterSet.getCharacterSetOrientation();
+        if (cso == null) {
+            throw new IOException("Character set " + characterSet.getName()
+                    + " has no metrics for orientation " + CharacterSet.SUPPORTED_ORIENTATION);
+        }
+        DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        writeString(dout, characterSet.getEncoding());
+        dout.writeInt(characterSet.getNominalVerticalSize());
+        dout.writeInt(cso.getOrientation());
+        dout.writeInt(cso.getSpaceIncrement());
+        dout.writeInt(cso.getEmSpaceIncrement());
+        dout.writeInt(cso.getNominalCharIncrement());
+        dout.writeInt(cso.getAscender());
+        dout.writeInt(cso.getDescender());
+        dout.writeInt(cso.getCapHeight());
+        dout.writeInt(cso.getXHeight());
+        dout.writeInt(cso.getUnderscoreWidth());
+        dout.writeInt(cso.getUnderscorePosition());
+        int pageCount = 0;
+        for (int i = 0; i < CharacterSetOrientation.PAGE_COUNT; i++) {
+            if (cso.getMetricsPage(i) != null) {
+                pageCount++;
+            }
+        }
+        dout.writeInt(pageCount);
+        for (int i = 0; i < CharacterSetOrientation.PAGE_COUNT; i++) {
+            int[] page = cso.getMetricsPage(i);
+            if (page != null) {
+                dout.writeInt(i);
+                for (int value : page) {
+                    dout.writeInt(value);
+                }
+            }
+        }
+        dout.flush();
+    }
+
+    private static void writeString(DataOutputStream dout, String s) throws IOException {
+        byte[] bytes = s.getBytes("UTF-8");
+        dout.writeInt(bytes.length);
+        dout.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Creates a character set from compiled metrics.
+     * @param buffer the compiled metrics
+     * @param characterSetName the name of the character set
+     * @param codePageName the name of the code page
+     * @param encoding the encoding of the code page, which must match the encoding the
+     * metrics were compiled with
+     * @param charsetType the character set type
+     * @param accessor the resource accessor
+     * @param eventProducer for handling AFP related events
+     * @return the character set
+     * @throws IOException if the compiled metrics are invalid or were compiled for another
+     * encoding
+     */
+    static CharacterSet read(ByteBuffer buffer, String characterSetName, String codePageName,
+            String encoding, CharacterSetType charsetType, AFPResourceAccessor accessor,
+            AFPEventProducer eventProducer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a compiled metrics file (version " + VERSION + ")");
+        }
+        String compiledEncoding = readString(buffer);
+        if (!compiledEncoding.equals(encoding)) {
+            throw new IOException("Metrics compiled for encoding " + compiledEncoding
+                    + " but " + encoding + " is configured");
+        }
+        CharacterSet characterSet = new CharacterSet(codePageName, encoding, charsetType,
+                characterSetName, accessor, eventProducer);
+        characterSet.setNominalVerticalSize(buffer.getInt());
+        CharacterSetOrientation cso = new CharacterSetOrientation(buffer.getInt(),
+                buffer.getInt(), buffer.getInt(), buffer.getInt());
+        cso.setAscender(buffer.getInt());
+        cso.setDescender(buffer.getInt());
+        cso.setCapHeight(buffer.getInt());
+        cso.setXHeight(buffer.getInt());
+        cso.setUnderscoreWidth(buffer.getInt());
+        cso.setUnderscorePosition(buffer.getInt());
+        int pageCount = buffer.getInt();
+        for (int i = 0; i < pageCount; i++) {
+            int index = buffer.getInt();
+            int[] page = new int[CharacterSetOrientation.PAGE_SIZE
+                    * CharacterSetOrientation.METRICS_SIZE];
+            IntBuffer values = buffer.asIntBuffer();
+            values.get(page);
+            buffer.position(buffer.position() + page.length * 4);
+            cso.setMetricsPage(index, page);
+        }
+        characterSet.addCharacterSetOrientation(cso);
+        return characterSet;
+    }
+
+    /**
+     * Maps a compiled metrics file into memory.
+     * @param file the file
+     * @return the content of the file
+     * @throws IOException if an I/O error occurs
+     */
+    static ByteBuffer map(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Compiles the metrics of an AFP character set.
+     * <p>
+     * Usage: java org.apache.fop.afp.fonts.CompiledCharacterSet [-e encoding] [-dbcs]
+     * font-directory characterset codepage [output-directory]
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        String encoding = CharacterSet.DEFAULT_ENCODING;
+        boolean dbcs = false;
+        List<String> arguments = new java.util.ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-e".equals(args[i]) && i + 1 < args.length) {
+                encoding = args[++i];
+            } else if ("-dbcs".equals(args[i])) {
+                dbcs = true;
+            } else {
+                arguments.add(args[i]);
+            }
+        }
+        if (arguments.size() < 3 || arguments.size() > 4) {
+            System.out.println("Usage: java " + CompiledCharacterSet.class.getName()
+                    + " [-e encoding] [-dbcs] font-directory characterset codepage"
+                    + " [output-directory]");
+            System.exit(-1);
+        }
+        File fontDir = new File(arguments.get(0));
+        String characterSetName = arguments.get(1);
+        String codePageName = arguments.get(2);
+        File outDir = arguments.size() > 3 ? new File(arguments.get(3)) : fontDir;
+        try {
+            AFPResourceAccessor accessor = new AFPResourceAccessor(
+                    ResourceResolverFactory.createDefaultInternalResourceResolver(fontDir.toURI()));
+            DefaultEventBroadcaster broadcaster = new DefaultEventBroadcaster();
+            broadcaster.addEventListener(new LoggingEventListener(LOG));
+            AFPEventProducer eventProducer = AFPEventProducer.Provider.get(broadcaster);
+            CharacterSet characterSet;
+            if (dbcs) {
+                characterSet = CharacterSetBuilder.getDoubleByteInstance().parseDBCS(
+                        characterSetName, codePageName, encoding, CharacterSetType.DOUBLE_BYTE,
+                        accessor, eventProducer);
+            } else {
+                characterSet = CharacterSetBuilder.getSingleByteInstance().parseSBCS(
+                        characterSetName, codePageName, encoding, accessor, eventProducer);
+            }
+            File outFile = new File(outDir, getFileName(characterSetName, codePageName));
+            OutputStream out = new FileOutputStream(outFile);
+            try {
+                write(characterSet, out);
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+            LOG.info("Compiled metrics written to " + outFile);
+        } catch (IOException ioe) {
+            LOG.error("Error while compiling metrics", ioe);
+            System.exit(-1);
+        }
+    }
+}
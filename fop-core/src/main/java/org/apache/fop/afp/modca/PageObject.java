@@ -19,9 +19,12 @@
 
 package org.apache.fop.afp.modca;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Iterator;
 
+import org.apache.fop.afp.Completable;
 import org.apache.fop.afp.Factory;
 import org.apache.fop.afp.ioca.ImageCellPosition;
 import org.apache.fop.afp.ioca.ImageInputDescriptor;
@@ -51,6 +54,9 @@ import org.apache.fop.afp.ioca.ImageRasterPattern;
  */
 public class PageObject extends AbstractResourceGroupContainer {
 
+    /** Buffer receiving the structured fields of the objects that are done (may be null) */
+    private ByteArrayOutputStream contentBuffer;
+
     /**
      * Construct a new page object for the specified name argument, the page
      * name should be an 8 character identifier.
@@ -172,6 +178,34 @@ public class PageObject extends AbstractResourceGroupContainer {
         addObject(imImageObject);
     }
 
+    /**
+     * Sets the buffer the objects on this page are written to as soon as the next object
+     * is added, so the object graph doesn't have to be kept until the end of the page. The
+     * structured fields are copied to the output after the active environment group, which
+     * can only be written once the page is complete. The buffer may be reused by the next
+     * page after {@link #releaseContentBuffer()} has been called.
+     *
+     * @param contentBuffer an empty buffer
+     */
+    public void setContentBuffer(ByteArrayOutputStream contentBuffer) {
+        this.contentBuffer = contentBuffer;
+    }
+
+    /**
+     * Stops using the buffer set with {@link #setContentBuffer(ByteArrayOutputStream)}. If
+     * the page hasn't been written yet, its buffered content is moved to a private buffer.
+     */
+    public void releaseContentBuffer() {
+        if (contentBuffer != null && contentBuffer.size() > 0) {
+            byte[] content = contentBuffer.toByteArray();
+            contentBuffer.reset();
+            contentBuffer = new ByteArrayOutputStream(content.length);
+            contentBuffer.write(content, 0, content.length);
+        } else {
+            contentBuffer = null;
+        }
+    }
+
     /** {@inheritDoc} */
     protected void writeStart(OutputStream os) throws IOException {
         byte[] data = new byte[17];
@@ -185,6 +219,10 @@ public class PageObject extends AbstractResourceGroupContainer {
 
         getActiveEnvironmentGroup().writeToStream(os);
 
+        if (contentBuffer != null) {
+            contentBuffer.writeTo(os);
+            contentBuffer.reset();
+        }
         writeObjects(objects, os);
     }
 
@@ -202,9 +240,33 @@ public class PageObject extends AbstractResourceGroupContainer {
      */
     public void addObject(Object obj) {
         endPresentationObject();
+        if (contentBuffer != null) {
+            try {
+                bufferFinishedObjects();
+            } catch (IOException ioe) {
+                //"Unexpected" since we're dealing with a ByteArrayOutputStream here.
+                throw new RuntimeException("Unexpected I/O error: " + ioe.getMessage(), ioe);
+            }
+        }
         super.addObject(obj);
     }
 
+    /**
+     * Writes the objects that won't change anymore to the content buffer. The presentation
+     * text object has just been ended, so only data objects still being built are kept.
+     */
+    private void bufferFinishedObjects() throws IOException {
+        Iterator it = objects.iterator();
+        while (it.hasNext()) {
+            AbstractAFPObject ao = (AbstractAFPObject) it.next();
+            if (ao instanceof Completable && !((Completable) ao).isComplete()) {
+                break;
+            }
+            ao.writeToStream(contentBuffer);
+            it.remove();
+        }
+    }
+
     /** {@inheritDoc} */
     public String toString() {
         return this.getName();
@@ -100,6 +100,26 @@ public final class AFPResourceAccessor {
         return uriResolver.resolveURI(uri);
     }
 
+    /**
+     * Returns the absolute URI a resource is loaded from, given the URI of a resource.
+     *
+     * @param uri the resource URI
+     * @return the absolute URI
+     */
+    public URI getAbsoluteURI(String uri) {
+        return resourceResolver.resolveFromBase(resolveURI(uri));
+    }
+
+    /**
+     * Returns the absolute URI a resource is loaded from, given the URI of a resource.
+     *
+     * @param uri the resource URI
+     * @return the absolute URI
+     */
+    public URI getAbsoluteURI(URI uri) {
+        return resourceResolver.resolveFromBase(uriResolver.resolveURI(uri));
+    }
+
     private interface URIResolver {
         URI resolveURI(URI uri);
 
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A buffered output stream writing to a spool file. The spooled data can be transferred to
+ * another stream through the file channel, so the operating system copies it directly when
+ * the other stream also writes to a file.
+ */
+public class SpoolOutputStream extends BufferedOutputStream {
+
+    private static final int BUFFER_SIZE = 32768;
+
+    private final File file;
+
+    private final FileOutputStream fileOut;
+
+    /**
+     * Creates a new spool stream, overwriting the given file.
+     * @param file the spool file
+     * @throws IOException if the file cannot be opened
+     */
+    public SpoolOutputStream(File file) throws IOException {
+        this(file, new FileOutputStream(file));
+    }
+
+    private SpoolOutputStream(File file, FileOutputStream fileOut) {
+        super(fileOut, BUFFER_SIZE);
+        this.file = file;
+        this.fileOut = fileOut;
+    }
+
+    /**
+     * Returns the channel of the spool file, after writing any buffered data to it.
+     * @return the file channel, positioned at the end of the spooled data
+     * @throws IOException if an I/O error occurs
+     */
+    public FileChannel getChannel() throws IOException {
+        flush();
+        return fileOut.getChannel();
+    }
+
+    /**
+     * Writes all data spooled so far to the given stream.
+     * @param out the destination
+     * @throws IOException if an I/O error occurs
+     */
+    public void transferTo(OutputStream out) throws IOException {
+        long length = getChannel().position();
+        FileInputStream in = new FileInputStream(file);
+        try {
+            transfer(in.getChannel(), 0, length, out);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Closes this stream and deletes the spool file.
+     * @throws IOException if an I/O error occurs while closing the stream
+     */
+    public void delete() throws IOException {
+        close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Transfers a region of a file to the given stream. If the stream writes to a file, the data
+     * is transferred between the two file channels, otherwise it is written through the stream.
+     * @param source the file channel to read from
+     * @param position the position of the region in the file
+     * @param count the number of bytes to transfer
+     * @param out the destination
+     * @throws IOException if an I/O error occurs
+     */
+    public static void transfer(FileChannel source, long position, long count, OutputStream out)
+            throws IOException {
+        WritableByteChannel target;
+        if (out instanceof SpoolOutputStream) {
+            target = ((SpoolOutputStream) out).getChannel();
+        } else if (out instanceof FileOutputStream) {
+            target = ((FileOutputStream) out).getChannel();
+        } else {
+            //Not closed, as this would close the stream
+            target = Channels.newChannel(out);
+        }
+        long pos = position;
+        long remaining = count;
+        while (remaining > 0) {
+            long transferred = source.transferTo(pos, remaining, target);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of file: " + remaining + " bytes missing");
+            }
+            pos += transferred;
+            remaining -= transferred;
+        }
+    }
+}
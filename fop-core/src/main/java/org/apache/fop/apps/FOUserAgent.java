@@ -46,6 +46,7 @@ import org.apache.fop.Version;
 import org.apache.fop.accessibility.Accessibility;
 import org.apache.fop.accessibility.DummyStructureTreeEventHandler;
 import org.apache.fop.accessibility.StructureTreeEventHandler;
+import org.apache.fop.afp.AFPResourceCache;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.events.DefaultEventBroadcaster;
 import org.apache.fop.events.Event;
@@ -55,8 +56,13 @@ import org.apache.fop.events.FOPEventListenerProxy;
 import org.apache.fop.events.LoggingEventListener;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.expr.PropertyExpressionCache;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.hyphenation.HyphenationCache;
+import org.apache.fop.hyphenation.HyphenationTreeCache;
+import org.apache.fop.image.ImagePrefetcher;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.layoutmgr.inline.LineBreakCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererConfig;
@@ -104,10 +110,12 @@ public class FOUserAgent {
     private FOEventHandler foEventHandlerOverride;
     private boolean locatorEnabled = true; // true by default (for error messages).
     private boolean conserveMemoryPolicy;
+    private int layoutPipelineDepth;
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler
             = DummyStructureTreeEventHandler.INSTANCE;
     private boolean pdfUAEnabled;
+    private MetricsCollector metricsCollector;
 
     /** Producer:  Metadata element for the system/software that produces
      * the document. (Some renderers can store this in the document.)
@@ -134,6 +142,7 @@ public class FOUserAgent {
     protected String keywords;
 
     private final ImageSessionContext imageSessionContext;
+    private final ImagePrefetcher imagePrefetcher;
     private final SoftMapCache pdfObjectCache = new SoftMapCache(true);
 
     /**
@@ -162,6 +171,8 @@ public class FOUserAgent {
                 return FOUserAgent.this.resolveURI(uri);
             }
         };
+        imagePrefetcher = new ImagePrefetcher(this, factory.getImagePrefetchExecutor(),
+                factory.getFallbackResolver());
     }
 
     /**
@@ -483,6 +494,15 @@ public class FOUserAgent {
         return this.imageSessionContext;
     }
 
+    /**
+     * Returns the image prefetcher which loads the information about the images referenced
+     * from the document in the background while the FO tree is being built.
+     * @return the image prefetcher for this rendering run
+     */
+    public ImagePrefetcher getImagePrefetcher() {
+        return this.imagePrefetcher;
+    }
+
     // ---------------------------------------------- environment-level stuff
     //                                                (convenience access to FopFactory methods)
 
@@ -593,22 +613,28 @@ public class FOUserAgent {
 
     private class FOPEventBroadcaster extends DefaultEventBroadcaster {
 
-        private EventListener rootListener;
+        private volatile EventListener rootListener;
 
         public FOPEventBroadcaster() {
             //Install a temporary event listener that catches the first event to
             //do some initialization.
             this.rootListener = new EventListener() {
                 public void processEvent(Event event) {
-                    if (!listeners.hasEventListeners()) {
-                        //Backwards-compatibility: Make sure at least the LoggingEventListener is
-                        //plugged in so no events are just silently swallowed.
-                        addEventListener(
-                                new LoggingEventListener(LogFactory.getLog(FOUserAgent.class)));
+                    //The first events may come from different threads if the layout is pipelined
+                    synchronized (FOPEventBroadcaster.this) {
+                        if (rootListener == this) {
+                            if (!listeners.hasEventListeners()) {
+                                //Backwards-compatibility: Make sure at least the
+                                //LoggingEventListener is plugged in so no events are just
+                                //silently swallowed.
+                                addEventListener(new LoggingEventListener(
+                                        LogFactory.getLog(FOUserAgent.class)));
+                            }
+                            //Replace with final event listener
+                            rootListener = new FOPEventListenerProxy(
+                                    listeners, FOUserAgent.this);
+                        }
                     }
-                    //Replace with final event listener
-                    rootListener = new FOPEventListenerProxy(
-                            listeners, FOUserAgent.this);
                     rootListener.processEvent(event);
                 }
             };
@@ -639,6 +665,57 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Returns the number of parsed page-sequences whose layout may be pending if the layout
+     * runs on a separate thread.
+     *
+     * @return the depth of the layout pipeline, 0 if the layout runs on the parsing thread
+     */
+    public int getLayoutPipelineDepth() {
+        return this.layoutPipelineDepth;
+    }
+
+    /**
+     * Runs the layout and rendering on a separate thread. The FO tree is built on the thread
+     * that delivers the SAX events, for example the thread of an XSLT transformation, and
+     * each completed page-sequence is handed over to the layout thread. Parsing blocks while
+     * the layout of the given number of page-sequences hasn't finished, which limits the
+     * memory used for the FO tree. The default is 0: each page-sequence is laid out and
+     * rendered on the parsing thread as soon as it has been parsed.
+     * <p>
+     * The layout stays on the parsing thread if accessibility is enabled or a
+     * {@link MetricsListener} is registered, and for output formats that don't use the
+     * layout engine, like RTF.
+     *
+     * @param depth the maximum number of page-sequences whose layout is pending
+     */
+    public void setLayoutPipelineDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("The pipeline depth must not be negative");
+        }
+        this.layoutPipelineDepth = depth;
+    }
+
+    /**
+     * Registers a listener that receives timings and counters for each page-sequence and
+     * for the whole document. Collecting metrics is disabled by default. The listener must be
+     * set before the {@link Fop} instance is created.
+     *
+     * @param listener the listener, or null to disable the collection of metrics
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        this.metricsCollector = (listener != null ? new MetricsCollector(listener) : null);
+    }
+
+    /**
+     * Returns the collector for the processing metrics of the document.
+     *
+     * @return the collector, or null if no {@link MetricsListener} has been registered
+     */
+    public MetricsCollector getMetricsCollector() {
+        return this.metricsCollector;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
@@ -801,6 +878,36 @@ public class FOUserAgent {
         return factory.getColorSpaceCache();
     }
 
+    /** @return the cache of parsed property expressions, null if property caching is disabled */
+    public PropertyExpressionCache getPropertyExpressionCache() {
+        return factory.getPropertyExpressionCache();
+    }
+
+    /** @return the cache of hyphenation trees */
+    public HyphenationTreeCache getHyphenationTreeCache() {
+        return factory.getHyphenationTreeCache();
+    }
+
+    /** @return the cache of hyphenated words */
+    public HyphenationCache getHyphenationCache() {
+        return factory.getHyphenationCache();
+    }
+
+    /** @return the cache of line breaking results, null if it is disabled */
+    public LineBreakCache getLineBreakCache() {
+        return factory.getLineBreakCache();
+    }
+
+    /** @return true if laid out static content is reused on the following pages */
+    public boolean isStaticContentCacheEnabled() {
+        return factory.isStaticContentCacheEnabled();
+    }
+
+    /** @return the cache of external AFP resources */
+    public AFPResourceCache getAFPResourceCache() {
+        return factory.getAFPResourceCache();
+    }
+
     /** @see FopFactory#getHyphenationPatternNames() */
     public Map<String, String> getHyphenationPatternNames() {
         return factory.getHyphenationPatternNames();
@@ -25,7 +25,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -251,6 +253,40 @@ public class FopConfParser {
 
         setHyphenationBase(cfg, resourceResolver, baseURI, fopFactoryBuilder);
         setHyphPatNames(cfg, fopFactoryBuilder, strict);
+        setHyphenationPreloadLanguages(cfg, fopFactoryBuilder, strict);
+
+        if (cfg.getChild("image-prefetch-threads", false) != null) {
+            try {
+                int threads = cfg.getChild("image-prefetch-threads").getValueAsInteger();
+                if (threads < 0) {
+                    LogUtil.handleError(log, "The value of image-prefetch-threads must not be"
+                            + " negative (" + cfg.getChild("image-prefetch-threads").getLocation()
+                            + ")", strict);
+                } else {
+                    fopFactoryBuilder.setImagePrefetchThreads(threads);
+                }
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
+        if (cfg.getChild("line-break-cache", false) != null) {
+            try {
+                fopFactoryBuilder.setLineBreakCacheEnabled(
+                        cfg.getChild("line-break-cache").getValueAsBoolean());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
+        if (cfg.getChild("static-content-cache", false) != null) {
+            try {
+                fopFactoryBuilder.setStaticContentCacheEnabled(
+                        cfg.getChild("static-content-cache").getValueAsBoolean());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
 
         // prefer Renderer over IFDocumentHandler
         if (cfg.getChild(PREFER_RENDERER, false) != null) {
@@ -356,6 +392,35 @@ public class FopConfParser {
         }
     }
 
+    private void setHyphenationPreloadLanguages(Configuration cfg, FopFactoryBuilder builder,
+            boolean strict) throws FOPException {
+        Configuration[] preloadConfig = cfg.getChildren("hyphenation-preload");
+        if (preloadConfig.length != 0) {
+            List<String> languages = new ArrayList<String>();
+            for (Configuration aPreloadConfig : preloadConfig) {
+                String location = aPreloadConfig.getLocation();
+                String lang = aPreloadConfig.getAttribute("lang", null);
+                if (lang == null || !lang.matches("[a-zA-Z]{2}")) {
+                    LogUtil.handleError(log, "The lang attribute of a hyphenation-preload"
+                            + " configuration element must consist of exactly two letters ("
+                            + location + ")", strict);
+                    continue;
+                }
+                String country = aPreloadConfig.getAttribute("country", null);
+                if (country != null && !country.matches("[a-zA-Z]{2}")) {
+                    LogUtil.handleError(log, "The country attribute of a hyphenation-preload"
+                            + " configuration element must consist of exactly two letters ("
+                            + location + ")", strict);
+                    continue;
+                }
+                languages.add(HyphenationTreeCache.constructLlccKey(
+                        lang.toLowerCase(Locale.getDefault()),
+                        (country != null) ? country.toUpperCase(Locale.getDefault()) : null));
+            }
+            builder.setHyphenationPreloadLanguages(languages);
+        }
+    }
+
     private static void addError(String message, StringBuffer error) {
         if (error.length() != 0) {
             error.append(". ");
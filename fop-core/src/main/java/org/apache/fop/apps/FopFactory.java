@@ -24,9 +24,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import org.xml.sax.SAXException;
 
@@ -39,12 +42,18 @@ import org.apache.xmlgraphics.image.loader.ImageManager;
 import org.apache.xmlgraphics.image.loader.impl.AbstractImageSessionContext.FallbackResolver;
 import org.apache.xmlgraphics.util.UnitConv;
 
+import org.apache.fop.afp.AFPResourceCache;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.fo.ElementMapping;
 import org.apache.fop.fo.ElementMappingRegistry;
+import org.apache.fop.fo.expr.PropertyExpressionCache;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.hyphenation.HyphenationCache;
+import org.apache.fop.hyphenation.HyphenationTreeCache;
+import org.apache.fop.image.ImagePrefetcher;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.layoutmgr.inline.LineBreakCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.RendererConfig;
 import org.apache.fop.render.RendererConfig.RendererConfigParser;
@@ -82,18 +91,40 @@ public final class FopFactory implements ImageContext {
 
     private final ColorSpaceCache colorSpaceCache;
 
+    private volatile PropertyExpressionCache propertyExpressionCache;
+
+    private final HyphenationTreeCache hyphenationTreeCache;
+
+    private volatile boolean hyphenationPreloadStarted;
+
+    /** The executor preloading hyphenation patterns, guarded by this */
+    private ExecutorService hyphenationPreloadExecutor;
+
+    private volatile HyphenationCache hyphenationCache;
+
+    private volatile LineBreakCache lineBreakCache;
+
+    private volatile AFPResourceCache afpResourceCache;
+
+    private final ExecutorService imagePrefetchExecutor;
+
     private final FopFactoryConfig config;
 
+    private final FopFactoryTuning tuning;
+
     private final InternalResourceResolver resolver;
 
     private final Map<String, RendererConfig> rendererConfig;
 
     private FopFactory(FopFactoryConfig config) {
         this.config = config;
+        this.tuning = getTuning(config);
         this.resolver = ResourceResolverFactory.createInternalResourceResolver(config.getBaseURI(),
                 config.getResourceResolver());
         this.elementMappingRegistry = new ElementMappingRegistry(this);
         this.colorSpaceCache = new ColorSpaceCache(resolver);
+        this.hyphenationTreeCache = new HyphenationTreeCache();
+        this.imagePrefetchExecutor = ImagePrefetcher.createExecutor(tuning.getImagePrefetchThreads());
         this.rendererFactory = new RendererFactory(config.preferRenderer());
         this.xmlHandlers = new XMLHandlerRegistry();
         this.imageHandlers = new ImageHandlerRegistry();
@@ -119,6 +150,16 @@ public final class FopFactory implements ImageContext {
         return new FopFactory(config);
     }
 
+    /**
+     * Returns the settings tuning the caches and background threads of a factory, the defaults
+     * if the configuration doesn't provide any.
+     * @param config the configuration
+     * @return the tuning settings
+     */
+    static FopFactoryTuning getTuning(FopFactoryConfig config) {
+        return (config instanceof FopFactoryTuning) ? (FopFactoryTuning) config : FopFactoryTuning.DEFAULT;
+    }
+
     /**
      * Returns a new FopFactory instance that is configured using the {@link FopFactoryConfig} object that
      * is created when the fopConf is parsed.
@@ -173,6 +214,10 @@ public final class FopFactory implements ImageContext {
         return config.isComplexScriptFeaturesEnabled();
     }
 
+    boolean isStaticContentCacheEnabled() {
+        return tuning.isStaticContentCacheEnabled();
+    }
+
     /**
      * Returns a new {@link Fop} instance. FOP will be configured with a default user agent
      * instance.
@@ -427,6 +472,11 @@ public final class FopFactory implements ImageContext {
         return config.getFallbackResolver();
     }
 
+    /** @return the executor loading images in the background, null if prefetching is disabled */
+    Executor getImagePrefetchExecutor() {
+        return this.imagePrefetchExecutor;
+    }
+
     /**
      * Returns the color space cache for this instance.
      * <p>
@@ -436,4 +486,145 @@ public final class FopFactory implements ImageContext {
     public ColorSpaceCache getColorSpaceCache() {
         return this.colorSpaceCache;
     }
+
+    /**
+     * Returns the cache of parsed property expressions for this instance, creating it on
+     * first use.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the property expression cache, or null if property caching is disabled
+     */
+    public PropertyExpressionCache getPropertyExpressionCache() {
+        PropertyExpressionCache cache = this.propertyExpressionCache;
+        if (cache == null && PropertyExpressionCache.isEnabled()) {
+            synchronized (this) {
+                if (this.propertyExpressionCache == null) {
+                    this.propertyExpressionCache = new PropertyExpressionCache();
+                }
+                cache = this.propertyExpressionCache;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the cache of hyphenation trees for this instance. It can be used to find out
+     * whether the hyphenation patterns configured for preloading are available and how much
+     * memory the loaded patterns use. Preloading starts with the first call to this method
+     * unless {@link #preloadHyphenationPatterns()} has been called before, as
+     * {@link FopFactoryBuilder#build()} does.
+     * @return the hyphenation tree cache
+     */
+    public HyphenationTreeCache getHyphenationTreeCache() {
+        if (!hyphenationPreloadStarted) {
+            preloadHyphenationPatterns();
+        }
+        return this.hyphenationTreeCache;
+    }
+
+    /**
+     * Starts loading the hyphenation patterns of the languages configured for preloading in
+     * the background, so the first documents don't wait for them. This is called by
+     * {@link FopFactoryBuilder#build()}; for factories created from a {@link FopFactoryConfig}
+     * directly, preloading starts when the first paragraph is hyphenated unless this is called
+     * before. Calling this method again has no effect.
+     * @see FopFactoryBuilder#setHyphenationPreloadLanguages(java.util.Collection)
+     */
+    public synchronized void preloadHyphenationPatterns() {
+        if (hyphenationPreloadStarted) {
+            return;
+        }
+        hyphenationPreloadStarted = true;
+        Collection<String> languages = tuning.getHyphenationPreloadLanguages();
+        if (!languages.isEmpty()) {
+            hyphenationPreloadExecutor = HyphenationTreeCache.createPreloadExecutor(languages.size());
+            hyphenationTreeCache.preload(languages, config.getHyphenationResourceResolver(),
+                    config.getHyphenationPatternNames(), hyphenationPreloadExecutor);
+            //the threads end once the patterns have been loaded
+            hyphenationPreloadExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Stops the background threads of this factory and deletes its temporary files.
+     * Hyphenation patterns which are still being preloaded are loaded when they are first
+     * needed instead, images are no longer prefetched and the spool files of cached AFP
+     * resources are deleted. This must not be called while documents are being rendered.
+     * Documents can still be processed afterwards, but not as fast.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            //no preloading once the factory is shut down
+            hyphenationPreloadStarted = true;
+            if (hyphenationPreloadExecutor != null) {
+                hyphenationPreloadExecutor.shutdownNow();
+            }
+        }
+        hyphenationTreeCache.cancelPreload();
+        if (imagePrefetchExecutor != null) {
+            imagePrefetchExecutor.shutdown();
+        }
+        AFPResourceCache cache = this.afpResourceCache;
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    /**
+     * Returns the cache of hyphenated words for this instance. It is created when the first
+     * paragraph is hyphenated.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the hyphenation cache
+     */
+    public HyphenationCache getHyphenationCache() {
+        HyphenationCache cache = this.hyphenationCache;
+        if (cache == null) {
+            synchronized (this) {
+                if (this.hyphenationCache == null) {
+                    this.hyphenationCache = new HyphenationCache();
+                }
+                cache = this.hyphenationCache;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the cache of line breaking results for this instance, creating it on first use.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the line break cache, or null if it is disabled in the configuration
+     */
+    public LineBreakCache getLineBreakCache() {
+        LineBreakCache cache = this.lineBreakCache;
+        if (cache == null && tuning.isLineBreakCacheEnabled()) {
+            synchronized (this) {
+                if (this.lineBreakCache == null) {
+                    this.lineBreakCache = new LineBreakCache();
+                }
+                cache = this.lineBreakCache;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the cache of external AFP resources for this instance, creating it when the
+     * first AFP document is rendered. It must be cleared when page segments, overlays, form
+     * maps or fonts included by AFP documents change and are not loaded from files.
+     * @return the AFP resource cache
+     */
+    public AFPResourceCache getAFPResourceCache() {
+        AFPResourceCache cache = this.afpResourceCache;
+        if (cache == null) {
+            synchronized (this) {
+                if (this.afpResourceCache == null) {
+                    this.afpResourceCache = new AFPResourceCache();
+                }
+                cache = this.afpResourceCache;
+            }
+        }
+        return cache;
+    }
 }
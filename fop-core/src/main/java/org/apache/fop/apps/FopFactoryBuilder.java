@@ -20,6 +20,7 @@
 package org.apache.fop.apps;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -115,12 +116,15 @@ public final class FopFactoryBuilder {
     }
 
     /**
-     * Builds an instance of the the {@link FopFactory}.
+     * Builds an instance of the the {@link FopFactory}. The hyphenation patterns configured for
+     * preloading start loading in the background.
      *
      * @return the FopFactory instance
      */
     public FopFactory build() {
-        return FopFactory.newInstance(buildConfiguration());
+        FopFactory fopFactory = FopFactory.newInstance(buildConfiguration());
+        fopFactory.preloadHyphenationPatterns();
+        return fopFactory;
     }
 
     /**
@@ -323,7 +327,60 @@ public final class FopFactoryBuilder {
         return this;
     }
 
-    public static class FopFactoryConfigImpl implements FopFactoryConfig {
+    /**
+     * Sets the languages whose hyphenation patterns are loaded in the background, together,
+     * rather than one after the other when they are first needed. Loading starts when the
+     * factory is built, without delaying {@link #build()}.
+     *
+     * @param languages the language keys (ex. "de_CH" or "en")
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setHyphenationPreloadLanguages(Collection<String> languages) {
+        fopFactoryConfigBuilder.setHyphenationPreloadLanguages(languages);
+        return this;
+    }
+
+    /**
+     * Sets the number of threads that load the information about external graphics and
+     * background images in the background while the FO tree is being built. The layout then
+     * only waits for images that haven't been loaded yet. This helps with documents that
+     * reference many images on remote or slow storage. The threads are shared by all documents
+     * processed with the factory. The default is 0 which loads each image when it is needed.
+     *
+     * @param threads the number of threads
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setImagePrefetchThreads(int threads) {
+        fopFactoryConfigBuilder.setImagePrefetchThreads(threads);
+        return this;
+    }
+
+    /**
+     * Sets whether the line breaks found for a paragraph are reused for identical paragraphs,
+     * across all documents processed with the factory. This is enabled by default.
+     *
+     * @param enableCache true to cache line breaking results
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setLineBreakCacheEnabled(boolean enableCache) {
+        fopFactoryConfigBuilder.setLineBreakCacheEnabled(enableCache);
+        return this;
+    }
+
+    /**
+     * Sets whether the areas laid out for a static-content are copied to the following pages
+     * of a page-sequence instead of laying it out again, when the content doesn't change from
+     * page to page. This is enabled by default.
+     *
+     * @param enableCache true to cache laid out static content
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setStaticContentCacheEnabled(boolean enableCache) {
+        fopFactoryConfigBuilder.setStaticContentCacheEnabled(enableCache);
+        return this;
+    }
+
+    public static class FopFactoryConfigImpl implements FopFactoryConfig, FopFactoryTuning {
 
         private final EnvironmentProfile enviro;
 
@@ -362,6 +419,14 @@ public final class FopFactoryBuilder {
 
         private Map<String, String> hyphPatNames;
 
+        private Collection<String> hyphPreloadLanguages = Collections.emptyList();
+
+        private int imagePrefetchThreads;
+
+        private boolean lineBreakCache = true;
+
+        private boolean staticContentCache = true;
+
         private static final class ImageContextImpl implements ImageContext {
 
             private final FopFactoryConfig config;
@@ -478,6 +543,22 @@ public final class FopFactoryBuilder {
             return hyphPatNames;
         }
 
+        public Collection<String> getHyphenationPreloadLanguages() {
+            return hyphPreloadLanguages;
+        }
+
+        public int getImagePrefetchThreads() {
+            return imagePrefetchThreads;
+        }
+
+        public boolean isLineBreakCacheEnabled() {
+            return lineBreakCache;
+        }
+
+        public boolean isStaticContentCacheEnabled() {
+            return staticContentCache;
+        }
+
         public FallbackResolver getFallbackResolver() {
             return enviro.getFallbackResolver();
         }
@@ -518,6 +599,14 @@ public final class FopFactoryBuilder {
         void setComplexScriptFeaturesEnabled(boolean csf);
 
         void setHyphPatNames(Map<String, String> hyphPatNames);
+
+        void setHyphenationPreloadLanguages(Collection<String> languages);
+
+        void setImagePrefetchThreads(int threads);
+
+        void setLineBreakCacheEnabled(boolean enableCache);
+
+        void setStaticContentCacheEnabled(boolean enableCache);
     }
 
     private static final class CompletedFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -599,6 +688,22 @@ public final class FopFactoryBuilder {
             throwIllegalStateException();
         }
 
+        public void setHyphenationPreloadLanguages(Collection<String> languages) {
+            throwIllegalStateException();
+        }
+
+        public void setImagePrefetchThreads(int threads) {
+            throwIllegalStateException();
+        }
+
+        public void setLineBreakCacheEnabled(boolean enableCache) {
+            throwIllegalStateException();
+        }
+
+        public void setStaticContentCacheEnabled(boolean enableCache) {
+            throwIllegalStateException();
+        }
+
     }
 
     private static final class ActiveFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -679,6 +784,25 @@ public final class FopFactoryBuilder {
         public void setHyphPatNames(Map<String, String> hyphPatNames) {
             config.hyphPatNames = hyphPatNames;
         }
+
+        public void setHyphenationPreloadLanguages(Collection<String> languages) {
+            config.hyphPreloadLanguages = new ArrayList<String>(languages);
+        }
+
+        public void setImagePrefetchThreads(int threads) {
+            if (threads < 0) {
+                throw new IllegalArgumentException("The number of threads must not be negative");
+            }
+            config.imagePrefetchThreads = threads;
+        }
+
+        public void setLineBreakCacheEnabled(boolean enableCache) {
+            config.lineBreakCache = enableCache;
+        }
+
+        public void setStaticContentCacheEnabled(boolean enableCache) {
+            config.staticContentCache = enableCache;
+        }
     }
 
 }
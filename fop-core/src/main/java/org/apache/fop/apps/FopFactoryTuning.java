@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The settings of a {@link FopFactory} which tune its caches and background threads. They are
+ * kept out of {@link FopFactoryConfig} so existing implementations of that interface remain
+ * valid; a configuration which doesn't also implement this interface gets {@link #DEFAULT}.
+ */
+interface FopFactoryTuning {
+
+    /** The settings used for configurations which don't provide any. */
+    FopFactoryTuning DEFAULT = new FopFactoryTuning() {
+
+        public Collection<String> getHyphenationPreloadLanguages() {
+            return Collections.emptyList();
+        }
+
+        public int getImagePrefetchThreads() {
+            return 0;
+        }
+
+        public boolean isLineBreakCacheEnabled() {
+            return true;
+        }
+
+        public boolean isStaticContentCacheEnabled() {
+            return true;
+        }
+    };
+
+    /**
+     * Returns the languages whose hyphenation patterns are loaded in the background.
+     * @return the language keys (ex. "de_CH" or "en"), may be empty
+     */
+    Collection<String> getHyphenationPreloadLanguages();
+
+    /**
+     * Returns the number of threads that load the information about the images referenced
+     * from a document in the background while the FO tree is being built.
+     * @return the number of threads, 0 if images are loaded when they are needed
+     */
+    int getImagePrefetchThreads();
+
+    /**
+     * Indicates whether the line breaks found for a paragraph are reused for identical
+     * paragraphs.
+     * @return true if line breaking results are cached
+     */
+    boolean isLineBreakCacheEnabled();
+
+    /**
+     * Indicates whether the areas laid out for a static-content are reused on the following
+     * pages of a page-sequence if the content is the same.
+     * @return true if laid out static content is cached
+     */
+    boolean isStaticContentCacheEnabled();
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.util.Arrays;
+
+import org.apache.fop.apps.ProcessingMetrics.Phase;
+
+/**
+ * Collects the processing metrics of a document and hands them to a {@link MetricsListener}
+ * at the end of each page-sequence and at the end of the document. An instance is only
+ * available from {@link FOUserAgent#getMetricsCollector()} if a listener has been registered,
+ * so the processing code only pays for a null check when metrics are not requested.
+ * <p>
+ * Phases can be nested: starting a phase suspends the timing of the current one until the
+ * nested phase ends. This class is not thread-safe, like the processing of a document.
+ */
+public final class MetricsCollector {
+
+    private static final int PHASE_COUNT = Phase.values().length;
+
+    private final MetricsListener listener;
+
+    private Phase[] phases = new Phase[8];
+    private int depth;
+    private long timestamp;
+
+    private final long[] times = new long[PHASE_COUNT];
+    private long knuthElementCount;
+    private long activeNodeCount;
+    private long propertyCount;
+    private long glyphLookupCount;
+    private int retainedPages;
+    private int peakRetainedPages;
+
+    private final long[] documentTimes = new long[PHASE_COUNT];
+    private long documentKnuthElementCount;
+    private long documentActiveNodeCount;
+    private long documentPropertyCount;
+    private long documentGlyphLookupCount;
+    private int documentPeakRetainedPages;
+
+    /**
+     * Creates a new collector.
+     * @param listener the listener receiving the metrics
+     */
+    public MetricsCollector(MetricsListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener must not be null");
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * Starts collecting the metrics of a new document. The FO tree building phase is timed
+     * whenever no other phase is active.
+     */
+    public void startDocument() {
+        depth = 0;
+        resetPageSequence();
+        peakRetainedPages = 0;
+        retainedPages = 0;
+        Arrays.fill(documentTimes, 0);
+        documentKnuthElementCount = 0;
+        documentActiveNodeCount = 0;
+        documentPropertyCount = 0;
+        documentGlyphLookupCount = 0;
+        documentPeakRetainedPages = 0;
+        startPhase(Phase.FO_TREE);
+    }
+
+    /**
+     * Starts timing a phase, suspending the current phase until {@link #endPhase()} is called.
+     * @param phase the phase
+     */
+    public void startPhase(Phase phase) {
+        long now = System.nanoTime();
+        if (depth > 0) {
+            times[phases[depth - 1].ordinal()] += now - timestamp;
+        }
+        if (depth == phases.length) {
+            Phase[] newPhases = new Phase[depth * 2];
+            System.arraycopy(phases, 0, newPhases, 0, depth);
+            phases = newPhases;
+        }
+        phases[depth++] = phase;
+        timestamp = now;
+    }
+
+    /** Ends the phase started last and resumes the timing of the enclosing phase. */
+    public void endPhase() {
+        if (depth == 0) {
+            throw new IllegalStateException("No phase has been started");
+        }
+        long now = System.nanoTime();
+        times[phases[--depth].ordinal()] += now - timestamp;
+        timestamp = now;
+    }
+
+    /**
+     * Adds to the number of Knuth elements processed by a breaking algorithm.
+     * @param count the number of elements
+     */
+    public void addKnuthElements(int count) {
+        knuthElementCount += count;
+    }
+
+    /** Counts an active node created by a breaking algorithm. */
+    public void addActiveNode() {
+        activeNodeCount++;
+    }
+
+    /** Counts a property value created. */
+    public void addProperty() {
+        propertyCount++;
+    }
+
+    /** Counts a character to glyph lookup. */
+    public void addGlyphLookup() {
+        glyphLookupCount++;
+    }
+
+    /**
+     * Records the number of laid out pages currently retained in memory.
+     * @param count the number of pages
+     */
+    public void setRetainedPages(int count) {
+        this.retainedPages = count;
+        peakRetainedPages = Math.max(peakRetainedPages, count);
+    }
+
+    /**
+     * Reports the metrics collected since the last page-sequence was finished to the listener.
+     * @param id the id of the page-sequence (may be null)
+     * @param pageCount the number of pages generated for the page-sequence
+     */
+    public void endPageSequence(String id, int pageCount) {
+        updateCurrentPhase();
+        ProcessingMetrics metrics = new ProcessingMetrics(
+                (id != null && id.length() > 0 ? id : null), pageCount, times,
+                knuthElementCount, activeNodeCount, propertyCount, glyphLookupCount,
+                peakRetainedPages);
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            documentTimes[i] += times[i];
+        }
+        documentKnuthElementCount += knuthElementCount;
+        documentActiveNodeCount += activeNodeCount;
+        documentPropertyCount += propertyCount;
+        documentGlyphLookupCount += glyphLookupCount;
+        documentPeakRetainedPages = Math.max(documentPeakRetainedPages, peakRetainedPages);
+        resetPageSequence();
+        listener.pageSequenceFinished(metrics);
+    }
+
+    private void resetPageSequence() {
+        Arrays.fill(times, 0);
+        knuthElementCount = 0;
+        activeNodeCount = 0;
+        propertyCount = 0;
+        glyphLookupCount = 0;
+        peakRetainedPages = retainedPages;
+    }
+
+    /**
+     * Ends all phases and reports the metrics for the whole document to the listener.
+     * @param pageCount the number of pages in the document
+     */
+    public void endDocument(int pageCount) {
+        updateCurrentPhase();
+        depth = 0;
+        long[] totalTimes = new long[PHASE_COUNT];
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            totalTimes[i] = documentTimes[i] + times[i];
+        }
+        listener.documentFinished(new ProcessingMetrics(null, pageCount, totalTimes,
+                documentKnuthElementCount + knuthElementCount,
+                documentActiveNodeCount + activeNodeCount,
+                documentPropertyCount + propertyCount,
+                documentGlyphLookupCount + glyphLookupCount,
+                Math.max(documentPeakRetainedPages, peakRetainedPages)));
+    }
+
+    private void updateCurrentPhase() {
+        if (depth > 0) {
+            long now = System.nanoTime();
+            times[phases[depth - 1].ordinal()] += now - timestamp;
+            timestamp = now;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+/**
+ * Receives the processing metrics of a document. Register an instance with
+ * {@link FOUserAgent#setMetricsListener(MetricsListener)} to enable the collection of metrics.
+ * The methods are called on the thread processing the document.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called when a page-sequence (or external document) has been laid out.
+     * @param metrics the metrics collected since the previous page-sequence was finished
+     */
+    void pageSequenceFinished(ProcessingMetrics metrics);
+
+    /**
+     * Called when the document has been processed completely.
+     * @param metrics the metrics for the whole document
+     */
+    void documentFinished(ProcessingMetrics metrics);
+}
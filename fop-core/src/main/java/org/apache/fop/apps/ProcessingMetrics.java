@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+/**
+ * Timings and counters collected while processing a page-sequence or a whole document.
+ * @see MetricsListener
+ */
+public final class ProcessingMetrics {
+
+    /** The processing phases that are timed. */
+    public enum Phase {
+        /** Building the FO tree (parsing, property evaluation) */
+        FO_TREE,
+        /** Generating the Knuth element lists, including line breaking */
+        ELEMENT_LIST,
+        /** Finding the page breaks */
+        PAGE_BREAKING,
+        /** Adding the areas to the area tree */
+        AREA_TREE,
+        /** Rendering the finished pages */
+        RENDERING
+    }
+
+    private final String id;
+    private final int pageCount;
+    private final long[] times;
+    private final long knuthElementCount;
+    private final long activeNodeCount;
+    private final long propertyCount;
+    private final long glyphLookupCount;
+    private final int peakRetainedPages;
+
+    ProcessingMetrics(String id, int pageCount, long[] times, long knuthElementCount,
+            long activeNodeCount, long propertyCount, long glyphLookupCount,
+            int peakRetainedPages) {
+        this.id = id;
+        this.pageCount = pageCount;
+        this.times = times.clone();
+        this.knuthElementCount = knuthElementCount;
+        this.activeNodeCount = activeNodeCount;
+        this.propertyCount = propertyCount;
+        this.glyphLookupCount = glyphLookupCount;
+        this.peakRetainedPages = peakRetainedPages;
+    }
+
+    /**
+     * Returns the id of the page-sequence.
+     * @return the id, or null for the whole document or a page-sequence without id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /** @return the number of pages generated */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Returns the time spent in a processing phase. The time spent in nested phases (for
+     * example, rendering a page while adding the areas of the next one) is only counted for
+     * the nested phase.
+     * @param phase the phase
+     * @return the time in nanoseconds
+     */
+    public long getTime(Phase phase) {
+        return times[phase.ordinal()];
+    }
+
+    /** @return the total time spent in all phases in nanoseconds */
+    public long getTotalTime() {
+        long total = 0;
+        for (long time : times) {
+            total += time;
+        }
+        return total;
+    }
+
+    /** @return the number of Knuth elements processed by the line and page breaking algorithms */
+    public long getKnuthElementCount() {
+        return knuthElementCount;
+    }
+
+    /** @return the number of active nodes created by the line and page breaking algorithms */
+    public long getActiveNodeCount() {
+        return activeNodeCount;
+    }
+
+    /** @return the number of property values created */
+    public long getPropertyCount() {
+        return propertyCount;
+    }
+
+    /** @return the number of character to glyph lookups */
+    public long getGlyphLookupCount() {
+        return glyphLookupCount;
+    }
+
+    /** @return the highest number of laid out pages retained in memory, waiting to be rendered */
+    public int getPeakRetainedPages() {
+        return peakRetainedPages;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        StringBuffer sb = new StringBuffer("ProcessingMetrics: ");
+        if (id != null) {
+            sb.append("id=").append(id).append(", ");
+        }
+        sb.append("pages=").append(pageCount);
+        for (Phase phase : Phase.values()) {
+            sb.append(", ").append(phase.name().toLowerCase()).append('=')
+                    .append(getTime(phase) / 1000000).append("ms");
+        }
+        sb.append(", knuth-elements=").append(knuthElementCount);
+        sb.append(", active-nodes=").append(activeNodeCount);
+        sb.append(", properties=").append(propertyCount);
+        sb.append(", glyph-lookups=").append(glyphLookupCount);
+        sb.append(", peak-retained-pages=").append(peakRetainedPages);
+        return sb.toString();
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.apps.MetricsCollector;
 import org.apache.fop.datatypes.Numeric;
 import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.fo.extensions.ExtensionAttachment;
@@ -67,6 +68,9 @@ public class AreaTreeHandler extends FOEventHandler {
     // Recorder of debug statistics
     private Statistics statistics;
 
+    // Collector of the processing metrics, if requested
+    private final MetricsCollector metricsCollector;
+
     // The LayoutManager maker
     private LayoutManagerMaker lmMaker;
 
@@ -102,6 +106,7 @@ public class AreaTreeHandler extends FOEventHandler {
             OutputStream stream) throws FOPException {
         super(userAgent);
 
+        this.metricsCollector = userAgent.getMetricsCollector();
         setupModel(userAgent, outputFormat, stream);
 
         this.lmMaker = userAgent.getLayoutManagerMakerOverride();
@@ -195,6 +200,9 @@ public class AreaTreeHandler extends FOEventHandler {
         if (statistics != null) {
             statistics.start();
         }
+        if (metricsCollector != null) {
+            metricsCollector.startDocument();
+        }
     }
 
     @Override
@@ -303,6 +311,9 @@ public class AreaTreeHandler extends FOEventHandler {
     public void notifyPageSequenceFinished(AbstractPageSequence pageSequence,
             int pageCount) {
         this.results.haveFormattedPageSequence(pageSequence, pageCount);
+        if (metricsCollector != null) {
+            metricsCollector.endPageSequence(pageSequence.getId(), pageCount);
+        }
         if (log.isDebugEnabled()) {
             log.debug("Last page-sequence produced " + pageCount + " pages.");
         }
@@ -344,6 +355,9 @@ public class AreaTreeHandler extends FOEventHandler {
         if (statistics != null) {
             statistics.logResults();
         }
+        if (metricsCollector != null) {
+            metricsCollector.endDocument(results.getPageCount());
+        }
     }
 
     /**
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.xml.sax.SAXException;
+
+import org.apache.fop.fo.DelegatingFOEventHandler;
+import org.apache.fop.fo.extensions.ExternalDocument;
+import org.apache.fop.fo.pagination.PageSequence;
+
+/**
+ * Runs the layout and rendering of an {@link AreaTreeHandler} on a separate thread. The
+ * page-sequences are handed over to the layout thread once they have been parsed completely,
+ * in document order, so the FO tree of the next page-sequence can be built while the previous
+ * one is laid out. All other events are passed on to the area tree handler right away.
+ * <p>
+ * A failure during the layout is thrown on the parsing thread by the next page-sequence that
+ * is handed over, or at the end of the document at the latest.
+ */
+public class PipelinedAreaTreeHandler extends DelegatingFOEventHandler {
+
+    /** Seconds an idle layout thread is kept before it exits */
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+    private final AreaTreeHandler areaTreeHandler;
+
+    /** Executes the layout tasks one after the other, in the order they are submitted */
+    private final ThreadPoolExecutor executor;
+
+    /** Limits the number of page-sequences handed over but not yet laid out */
+    private final Semaphore pending;
+
+    /** The first failure of a layout task; once set, the remaining tasks are skipped */
+    private volatile RuntimeException failure;
+
+    private volatile Error error;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param areaTreeHandler the area tree handler doing the layout
+     * @param depth the maximum number of page-sequences handed over but not laid out yet
+     */
+    public PipelinedAreaTreeHandler(AreaTreeHandler areaTreeHandler, int depth) {
+        super(areaTreeHandler);
+        if (depth < 1) {
+            throw new IllegalArgumentException("The pipeline depth must be at least 1");
+        }
+        this.areaTreeHandler = areaTreeHandler;
+        this.pending = new Semaphore(depth);
+        this.executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "FOP layout");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        //Let the thread go away while the parser is busy, or if the document is abandoned
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startPageSequence(PageSequence pageSeq) {
+        //Passed on to the layout thread with endPageSequence()
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endPageSequence(final PageSequence pageSeq) {
+        //Markers are cloned during the layout, separately from the FO tree still being built
+        pageSeq.detachBuilderContext();
+        submit(new Runnable() {
+            public void run() {
+                areaTreeHandler.startPageSequence(pageSeq);
+                areaTreeHandler.endPageSequence(pageSeq);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startExternalDocument(ExternalDocument externalDocument) {
+        //Passed on to the layout thread with endExternalDocument()
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endExternalDocument(final ExternalDocument externalDocument) {
+        submit(new Runnable() {
+            public void run() {
+                areaTreeHandler.startExternalDocument(externalDocument);
+                areaTreeHandler.endExternalDocument(externalDocument);
+            }
+        });
+    }
+
+    /**
+     * Waits until all page-sequences have been laid out and finishes the document on the
+     * layout thread.
+     * {@inheritDoc}
+     */
+    @Override
+    public void endDocument() throws SAXException {
+        FutureTask<Void> end = new FutureTask<Void>(new Callable<Void>() {
+            public Void call() throws SAXException {
+                if (failure == null && error == null) {
+                    areaTreeHandler.endDocument();
+                }
+                return null;
+            }
+        });
+        try {
+            executor.execute(end);
+            end.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SAXException("Interrupted while waiting for the layout to finish", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new SAXException((Exception) cause);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        checkFailure();
+    }
+
+    private void submit(final Runnable layout) {
+        checkFailure();
+        try {
+            pending.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the layout thread");
+        }
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    if (failure == null && error == null) {
+                        layout.run();
+                    }
+                } catch (RuntimeException re) {
+                    failure = re;
+                } catch (Error e) {
+                    error = e;
+                } finally {
+                    pending.release();
+                }
+            }
+        });
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw failure;
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
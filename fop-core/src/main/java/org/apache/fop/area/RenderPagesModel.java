@@ -30,6 +30,8 @@ import org.xml.sax.SAXException;
 
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MetricsCollector;
+import org.apache.fop.apps.ProcessingMetrics;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererEventProducer;
@@ -56,6 +58,8 @@ public class RenderPagesModel extends AreaTreeModel {
     private List<OffDocumentItem> pendingODI = new java.util.ArrayList<OffDocumentItem>();
     private List<OffDocumentItem> endDocODI = new java.util.ArrayList<OffDocumentItem>();
 
+    private final MetricsCollector metricsCollector;
+
     /**
      * Create a new render pages model with the given renderer.
      * @param userAgent FOUserAgent object for process
@@ -68,6 +72,7 @@ public class RenderPagesModel extends AreaTreeModel {
         FontInfo fontInfo, OutputStream stream) throws FOPException {
 
         super();
+        this.metricsCollector = userAgent.getMetricsCollector();
         this.renderer = userAgent.getRendererFactory().createRenderer(
                 userAgent, outputFormat);
 
@@ -119,6 +124,7 @@ public class RenderPagesModel extends AreaTreeModel {
             if (!renderer.supportsOutOfOrder() && page.getPageSequence().isFirstPage(page)) {
                 renderer.startPageSequence(getCurrentPageSequence());
             }
+            startRendering();
             try {
                 renderer.renderPage(page);
             } catch (RuntimeException re) {
@@ -135,6 +141,8 @@ public class RenderPagesModel extends AreaTreeModel {
                 log.error(err, e);
                 throw new IllegalStateException("Fatal error occurred. Cannot continue. "
                         + e.getClass().getName() + ": " + err);
+            } finally {
+                endRendering();
             }
             page.clear();
         } else {
@@ -144,6 +152,9 @@ public class RenderPagesModel extends AreaTreeModel {
 
         // check prepared pages
         boolean cont = checkPreparedPages(page, false);
+        if (metricsCollector != null) {
+            metricsCollector.setRetainedPages(prepared.size());
+        }
 
         if (cont) {
             processOffDocumentItems(pendingODI);
@@ -189,6 +200,7 @@ public class RenderPagesModel extends AreaTreeModel {
      * @param pageViewport the page to be rendered.
      */
     protected void renderPage(PageViewport pageViewport) {
+        startRendering();
         try {
             renderer.renderPage(pageViewport);
             if (!pageViewport.isResolved()) {
@@ -208,6 +220,20 @@ public class RenderPagesModel extends AreaTreeModel {
             if (e instanceof RuntimeException) {
                 throw (RuntimeException)e;
             }
+        } finally {
+            endRendering();
+        }
+    }
+
+    private void startRendering() {
+        if (metricsCollector != null) {
+            metricsCollector.startPhase(ProcessingMetrics.Phase.RENDERING);
+        }
+    }
+
+    private void endRendering() {
+        if (metricsCollector != null) {
+            metricsCollector.endPhase();
         }
     }
 
@@ -222,6 +248,9 @@ public class RenderPagesModel extends AreaTreeModel {
             renderer.preparePage(page);
         }
         prepared.add(page);
+        if (metricsCollector != null) {
+            metricsCollector.setRetainedPages(prepared.size());
+        }
     }
 
     /** {@inheritDoc} */
@@ -256,15 +285,21 @@ public class RenderPagesModel extends AreaTreeModel {
     public void endDocument() throws SAXException {
         // render any pages that had unresolved ids
         checkPreparedPages(null, true);
+        if (metricsCollector != null) {
+            metricsCollector.setRetainedPages(prepared.size());
+        }
 
         processOffDocumentItems(pendingODI);
         pendingODI.clear();
         processOffDocumentItems(endDocODI);
 
+        startRendering();
         try {
             renderer.stopRenderer();
         } catch (IOException ex) {
             throw new SAXException(ex);
+        } finally {
+            endRendering();
         }
     }
 }
@@ -34,4 +34,23 @@ public class ResolvedPageNumber extends TextArea {
         ois.defaultReadObject();
     }
 
+    /**
+     * Replaces the page number by another one with the same number of characters, leaving
+     * the geometry of the area untouched. This is used when the areas of a side region are
+     * reused on another page, so the caller has to make sure both strings have the same width.
+     * @param pageNumber the new page number string
+     * @return true if the text has been replaced, false if the area's structure doesn't allow it
+     */
+    public boolean replacePageNumber(String pageNumber) {
+        if (inlines.size() != 1 || !(inlines.get(0) instanceof WordArea)) {
+            return false;
+        }
+        WordArea word = (WordArea) inlines.get(0);
+        if (word.isReversed() || word.getWord().length() != pageNumber.length()) {
+            return false;
+        }
+        word.word = pageNumber;
+        return true;
+    }
+
 }
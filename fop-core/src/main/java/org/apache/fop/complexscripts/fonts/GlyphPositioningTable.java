@@ -85,6 +85,7 @@ public class GlyphPositioningTable extends GlyphTable {
                 }
             }
             freezeSubtables();
+            assembleScriptLookups();
         }
     }
 
@@ -221,6 +222,22 @@ public class GlyphPositioningTable extends GlyphTable {
         return createSubtable(type, id, sequence, flags, format, GlyphCoverageTable.createCoverageTable(coverage), entries);
     }
 
+    /**
+     * Assemble in advance the lookups that the script processors apply for each script and
+     * language of this table, so that positioning processing needs no further table state.
+     */
+    private void assembleScriptLookups() {
+        if (processors != null) {
+            for (LookupSpec ls : getScriptLanguages()) {
+                Map<LookupSpec, List<LookupTable>> lm = matchLookups(ls.getScript(), ls.getLanguage(), "*");
+                if (lm.size() > 0) {
+                    ScriptProcessor sp = ScriptProcessor.getInstance(ls.getScript(), processors);
+                    sp.assembleLookups(this, sp.getPositioningFeatures(), lm);
+                }
+            }
+        }
+    }
+
     /**
      * Perform positioning processing using all matching lookups.
      * @param gs an input glyph sequence
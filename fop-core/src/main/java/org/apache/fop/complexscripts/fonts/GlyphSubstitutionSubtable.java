@@ -32,8 +32,6 @@ import org.apache.fop.complexscripts.util.ScriptContextTester;
  */
 public abstract class GlyphSubstitutionSubtable extends GlyphSubtable implements GlyphSubstitution {
 
-    private static final GlyphSubstitutionState STATE = new GlyphSubstitutionState();
-
     /**
      * Instantiate a <code>GlyphSubstitutionSubtable</code>.
      * @param id subtable identifier
@@ -120,9 +118,7 @@ public abstract class GlyphSubstitutionSubtable extends GlyphSubtable implements
      * @return output glyph sequence
      */
     public static final GlyphSequence substitute(GlyphSequence gs, String script, String language, String feature, GlyphSubstitutionSubtable[] sta, ScriptContextTester sct) {
-        synchronized (STATE) {
-            return substitute(STATE.reset(gs, script, language, feature, sct), sta, -1);
-        }
+        return substitute(new GlyphSubstitutionState(gs, script, language, feature, sct), sta, -1);
     }
 
 }
@@ -83,6 +83,23 @@ public class GlyphSubstitutionTable extends GlyphTable {
                 }
             }
             freezeSubtables();
+            assembleScriptLookups();
+        }
+    }
+
+    /**
+     * Assemble in advance the lookups that the script processors apply for each script and
+     * language of this table, so that substitution processing needs no further table state.
+     */
+    private void assembleScriptLookups() {
+        if (processors != null) {
+            for (LookupSpec ls : getScriptLanguages()) {
+                Map<LookupSpec, List<LookupTable>> lm = matchLookups(ls.getScript(), ls.getLanguage(), "*");
+                if (lm.size() > 0) {
+                    ScriptProcessor sp = ScriptProcessor.getInstance(ls.getScript(), processors);
+                    sp.assembleLookups(this, sp.getSubstitutionFeatures(), lm);
+                }
+            }
         }
     }
 
@@ -51,17 +51,17 @@ public abstract class GlyphSubtable implements Comparable {
     public static final int LF_INTERNAL_USE_REVERSE_SCAN = 0x10000;
 
     /** lookup identifier, having form of "lu%d" where %d is index of lookup in lookup list; shared by multiple subtables in a single lookup  */
-    private String lookupId;
+    private final String lookupId;
     /** subtable sequence (index) number in lookup, zero based */
-    private int sequence;
+    private final int sequence;
     /** subtable flags */
-    private int flags;
+    private final int flags;
     /** subtable format */
-    private int format;
+    private final int format;
     /** subtable mapping table */
-    private GlyphMappingTable mapping;
-    /** weak reference to parent (gsub or gpos) table */
-    private WeakReference table;
+    private final GlyphMappingTable mapping;
+    /** weak reference to parent (gsub or gpos) table, set while the table is being built */
+    private volatile WeakReference table;
 
     /**
      * Instantiate this glyph subtable.
@@ -161,7 +161,7 @@ public abstract class GlyphSubtable implements Comparable {
     public abstract List getEntries();
 
     /** @return this subtable's parent table (or null if undefined) */
-    public synchronized GlyphTable getTable() {
+    public GlyphTable getTable() {
         WeakReference r = this.table;
         return (r != null) ? (GlyphTable) r.get() : null;
     }
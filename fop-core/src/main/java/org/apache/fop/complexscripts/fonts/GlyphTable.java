@@ -21,14 +21,17 @@ package org.apache.fop.complexscripts.fonts;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -61,21 +64,21 @@ public class GlyphTable {
     public static final int GLYPH_TABLE_TYPE_DEFINITION = 5;
 
     // (optional) glyph definition table in table types other than glyph definition table
-    private GlyphTable gdef;
+    private final GlyphTable gdef;
 
     // map from lookup specs to lists of strings, each of which identifies a lookup table (consisting of one or more subtables)
-    private Map<LookupSpec, List<String>> lookups;
+    private final Map<LookupSpec, List<String>> lookups;
 
     // map from lookup identifiers to lookup tables
-    private Map<String, LookupTable> lookupTables;
+    private final Map<String, LookupTable> lookupTables;
 
-    // cache for lookups matching
-    private Map<LookupSpec, Map<LookupSpec, List<LookupTable>>> matchedLookups;
+    // cache for lookups matching, filled in advance for the scripts and languages of this table when it is frozen
+    private final ConcurrentMap<LookupSpec, Map<LookupSpec, List<LookupTable>>> matchedLookups;
 
     // if true, then prevent further subtable addition
     private boolean frozen;
 
-    protected Map<String, ScriptProcessor> processors;
+    protected final Map<String, ScriptProcessor> processors;
 
     /**
      * Instantiate glyph table with specified lookups.
@@ -93,7 +96,7 @@ public class GlyphTable {
             this.gdef = gdef;
             this.lookups = lookups;
             this.lookupTables = new LinkedHashMap<String, LookupTable>();
-            this.matchedLookups = new HashMap<LookupSpec, Map<LookupSpec, List<LookupTable>>>();
+            this.matchedLookups = new ConcurrentHashMap<LookupSpec, Map<LookupSpec, List<LookupTable>>>();
         }
     }
 
@@ -162,7 +165,8 @@ public class GlyphTable {
 
     /**
      * Freeze subtables, i.e., do not allow further subtable addition, and
-     * create resulting cached state.
+     * create resulting cached state, including the lookups matching each script
+     * and language of this table.
      */
     protected void freezeSubtables() {
         if (!frozen) {
@@ -171,9 +175,24 @@ public class GlyphTable {
                 lt.freezeSubtables(lookupTables);
             }
             frozen = true;
+            for (LookupSpec ls : getScriptLanguages()) {
+                matchLookups(ls.getScript(), ls.getLanguage(), "*");
+            }
         }
     }
 
+    /**
+     * Obtain the distinct script and language combinations for which this table has lookups.
+     * @return (possibly empty) list of lookup specifications having a wildcard feature
+     */
+    protected List<LookupSpec> getScriptLanguages() {
+        Set<LookupSpec> specs = new LinkedHashSet<LookupSpec>();
+        for (LookupSpec ls : lookups.keySet()) {
+            specs.add(new LookupSpec(ls.getScript(), ls.getLanguage(), "*", true, true));
+        }
+        return new ArrayList<LookupSpec>(specs);
+    }
+
     /**
      * Match lookup specifications according to &lt;script,language,feature&gt; tuple, where
      * '*' is a wildcard for a tuple component.
@@ -223,9 +242,13 @@ public class GlyphTable {
             List<LookupSpec> lsl = matchLookupSpecs(script, language, feature);
             for (Object aLsl : lsl) {
                 LookupSpec ls = (LookupSpec) aLsl;
-                lm.put(ls, findLookupTables(ls));
+                lm.put(ls, Collections.unmodifiableList(findLookupTables(ls)));
+            }
+            lm = Collections.unmodifiableMap(lm);
+            Map<LookupSpec, List<LookupTable>> lmExisting = matchedLookups.putIfAbsent(lsm, lm);
+            if (lmExisting != null) {
+                lm = lmExisting;
             }
-            matchedLookups.put(lsm, lm);
         }
         if (lm.isEmpty() && !OTFScript.isDefault(script) && !OTFScript.isWildCard(script)) {
             return matchLookups(OTFScript.DEFAULT, OTFLanguage.DEFAULT, feature);
@@ -21,9 +21,9 @@ package org.apache.fop.complexscripts.fonts;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -59,7 +59,7 @@ public final class OTFAdvancedTypographicTableReader {
     private transient GlyphMappingTable seMapping;              // subtable entry mappings
     private transient List seEntries;                           // subtable entry entries
     private transient List seSubtables;                         // subtable entry subtables
-    private Map<String, ScriptProcessor> processors = new HashMap<String, ScriptProcessor>();
+    private Map<String, ScriptProcessor> processors = new ConcurrentHashMap<String, ScriptProcessor>();
 
     /**
      * Construct an <code>OTFAdvancedTypographicTableReader</code> instance.
@@ -20,9 +20,10 @@
 package org.apache.fop.complexscripts.scripts;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.fop.complexscripts.fonts.GlyphDefinitionTable;
 import org.apache.fop.complexscripts.fonts.GlyphPositioningTable;
@@ -44,7 +45,7 @@ public abstract class ScriptProcessor {
 
     private final String script;
 
-    private final Map<AssembledLookupsKey, GlyphTable.UseSpec[]> assembledLookups;
+    private final ConcurrentMap<AssembledLookupsKey, GlyphTable.UseSpec[]> assembledLookups;
 
     /**
      * Instantiate a script processor.
@@ -55,7 +56,7 @@ public abstract class ScriptProcessor {
             throw new IllegalArgumentException("script must be non-empty string");
         } else {
             this.script = script;
-            this.assembledLookups = new HashMap<AssembledLookupsKey, GlyphTable.UseSpec[]>();
+            this.assembledLookups = new ConcurrentHashMap<AssembledLookupsKey, GlyphTable.UseSpec[]>();
         }
     }
 
@@ -218,22 +219,38 @@ public abstract class ScriptProcessor {
     }
 
     private GlyphTable.UseSpec[]  assembledLookupsPut(AssembledLookupsKey key, GlyphTable.UseSpec[] usa) {
-        assembledLookups.put(key, usa);
-        return usa;
+        GlyphTable.UseSpec[] usaExisting = assembledLookups.putIfAbsent(key, usa);
+        return (usaExisting != null) ? usaExisting : usa;
     }
 
     /**
-     * Obtain script processor instance associated with specified script.
+     * Obtain script processor instance associated with specified script. If the map of processors
+     * is a concurrent map, no locking takes place; otherwise, access is synchronized on the map.
      * @param script a script identifier
+     * @param processors map from script identifiers to processor instances
      * @return a script processor instance or null if none found
      */
-    public static synchronized ScriptProcessor getInstance(String script, Map<String, ScriptProcessor> processors) {
-        ScriptProcessor sp = null;
+    public static ScriptProcessor getInstance(String script, Map<String, ScriptProcessor> processors) {
         assert processors != null;
-        if ((sp = processors.get(script)) == null) {
-            processors.put(script, sp = createProcessor(script));
+        if (processors instanceof ConcurrentMap) {
+            ConcurrentMap<String, ScriptProcessor> cp = (ConcurrentMap<String, ScriptProcessor>) processors;
+            ScriptProcessor sp = cp.get(script);
+            if (sp == null) {
+                ScriptProcessor spExisting = cp.putIfAbsent(script, sp = createProcessor(script));
+                if (spExisting != null) {
+                    sp = spExisting;
+                }
+            }
+            return sp;
+        } else {
+            synchronized (processors) {
+                ScriptProcessor sp = null;
+                if ((sp = processors.get(script)) == null) {
+                    processors.put(script, sp = createProcessor(script));
+                }
+                return sp;
+            }
         }
-        return sp;
     }
 
     // [TBD] - rework to provide more configurable binding between script name and script processor constructor
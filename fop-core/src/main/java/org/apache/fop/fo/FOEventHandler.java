@@ -89,6 +89,7 @@ public abstract class FOEventHandler {
         this.foUserAgent = foUserAgent;
         this.fontInfo = new FontInfo();
         this.fontInfo.setEventListener(new FontEventAdapter(foUserAgent.getEventBroadcaster()));
+        this.fontInfo.setMetricsCollector(foUserAgent.getMetricsCollector());
     }
 
     /** Constructor for sub-classes that do not need an {@link FOUserAgent} instance. */
@@ -44,6 +44,7 @@ import org.apache.fop.fo.extensions.ExtensionElementMapping;
 import org.apache.fop.fo.extensions.InternalElementMapping;
 import org.apache.fop.fo.extensions.svg.SVGElementMapping;
 import org.apache.fop.fo.flow.ChangeBar;
+import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.Root;
 import org.apache.fop.util.CharUtilities;
 import org.apache.fop.util.ContentHandlerFactory;
@@ -801,6 +802,24 @@ public abstract class FONode implements Cloneable {
         return parent.getRoot();
     }
 
+    /**
+     * Returns the page-sequence that tracks the active change bars for this node. This is the
+     * enclosing page-sequence, or the last page-sequence for nodes outside of page-sequences.
+     * The enclosing page-sequence is not necessarily the last one: when the layout runs on a
+     * separate thread, it creates the nodes of retrieved markers while the FO tree builder
+     * already works on the following page-sequences.
+     *
+     * @return the page-sequence, or null if there is none
+     */
+    protected PageSequence getChangeBarPageSequence() {
+        for (FONode node = parent; node != null; node = node.parent) {
+            if (node instanceof PageSequence) {
+                return (PageSequence) node;
+            }
+        }
+        return getRoot().getLastPageSequence();
+    }
+
     /**
      * Returns the fully qualified name of the node
      *
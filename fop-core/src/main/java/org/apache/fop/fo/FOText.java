@@ -111,9 +111,9 @@ public class FOText extends FONode implements CharSequence, TextFragment {
     public FOText(FONode parent) {
         super(parent);
 
-        PageSequence pageSequence = getRoot().getLastPageSequence();
+        PageSequence pageSequence = getChangeBarPageSequence();
         if (pageSequence != null && pageSequence.hasChangeBars()) {
-            nodeChangeBarList = getRoot().getLastPageSequence().getClonedChangeBarList();
+            nodeChangeBarList = pageSequence.getClonedChangeBarList();
         }
     }
 
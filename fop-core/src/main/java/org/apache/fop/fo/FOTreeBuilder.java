@@ -37,6 +37,8 @@ import org.apache.fop.accessibility.fo.FO2StructureTreeConverter;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.PipelinedAreaTreeHandler;
 import org.apache.fop.fo.ElementMapping.Maker;
 import org.apache.fop.fo.extensions.ExtensionElementMapping;
 import org.apache.fop.fo.pagination.Root;
@@ -109,6 +111,11 @@ public class FOTreeBuilder extends DefaultHandler {
         if (userAgent.isAccessibilityEnabled()) {
             foEventHandler = new FO2StructureTreeConverter(
                     foUserAgent.getStructureTreeEventHandler(), foEventHandler);
+        } else if (userAgent.getLayoutPipelineDepth() > 0
+                && userAgent.getMetricsCollector() == null
+                && foEventHandler instanceof AreaTreeHandler) {
+            foEventHandler = new PipelinedAreaTreeHandler((AreaTreeHandler) foEventHandler,
+                    userAgent.getLayoutPipelineDepth());
         }
         builderContext = new FOTreeBuilderContext();
         builderContext.setPropertyListMaker(new PropertyListMaker() {
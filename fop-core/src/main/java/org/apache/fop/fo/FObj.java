@@ -186,7 +186,7 @@ public abstract class FObj extends FONode implements Constants {
             checkId(id);
         }
 
-        PageSequence pageSequence = getRoot().getLastPageSequence();
+        PageSequence pageSequence = getChangeBarPageSequence();
         if (pageSequence != null && pageSequence.hasChangeBars()) {
             startOfNodeChangeBarList = pageSequence.getClonedChangeBarList();
         }
@@ -200,7 +200,7 @@ public abstract class FObj extends FONode implements Constants {
 
         List<ChangeBar> endOfNodeChangeBarList = null;
 
-        PageSequence pageSequence = getRoot().getLastPageSequence();
+        PageSequence pageSequence = getChangeBarPageSequence();
         if (pageSequence != null) {
             endOfNodeChangeBarList = pageSequence.getClonedChangeBarList();
         }
@@ -312,7 +312,7 @@ public abstract class FObj extends FONode implements Constants {
         }
         if (child == lastChild) {
             if (child.siblings != null) {
-                lastChild = siblings[0];
+                lastChild = child.siblings[0];
             } else {
                 lastChild = null;
             }
@@ -603,6 +603,29 @@ public abstract class FObj extends FONode implements Constants {
      */
     public void clearChildNodes() {
         this.firstChild = null;
+        this.lastChild = null;
+    }
+
+    /**
+     * Releases the child nodes preceding the given child node. They are removed from the
+     * list of child nodes and detached from their siblings, so that their subtrees can be
+     * garbage-collected once the layout is done with them. Nothing is released if the given
+     * node is not a child of this formatting object.
+     * @param childNode the first child node to keep
+     */
+    public void releaseChildNodesBefore(FONode childNode) {
+        FONode node = firstChild;
+        while (node != null && node != childNode) {
+            node = (node.siblings != null) ? node.siblings[1] : null;
+        }
+        if (node == null) {
+            return;
+        }
+        while (firstChild != childNode) {
+            node = firstChild;
+            removeChild(node);
+            node.siblings = null;
+        }
     }
 
     /** @return the "id" property. */
@@ -191,6 +191,14 @@ public abstract class FObjMixed extends FObj {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void clearChildNodes() {
+        super.clearChildNodes();
+        this.currentTextNode = null;
+        this.lastFOTextProcessed = null;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void finalizeNode() throws FOPException {
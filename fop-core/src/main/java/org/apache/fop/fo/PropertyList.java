@@ -34,6 +34,7 @@ import org.apache.xmlgraphics.util.QName;
 
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MetricsCollector;
 import org.apache.fop.fo.expr.PropertyException;
 import org.apache.fop.fo.properties.CommonAbsolutePosition;
 import org.apache.fop.fo.properties.CommonAural;
@@ -67,6 +68,9 @@ public abstract class PropertyList {
     protected PropertyList parentPropertyList;
     private FObj fobj;
 
+    /** counts the property values created, if processing metrics are collected */
+    private MetricsCollector metricsCollector;
+
     private static Log log = LogFactory.getLog(PropertyList.class);
 
     private final UnknownPropertyHandler unknownPropertyHandler = new UnknownPropertyHandler();
@@ -89,6 +93,15 @@ public abstract class PropertyList {
         return this.fobj;
     }
 
+    /**
+     * Returns the collector for the processing metrics. It is available once the attributes
+     * have been added to this property list.
+     * @return the collector, or null if no metrics are collected
+     */
+    public MetricsCollector getMetricsCollector() {
+        return this.metricsCollector;
+    }
+
     /**
      * @return the FObj object attached to the parentPropertyList
      */
@@ -344,6 +357,9 @@ public abstract class PropertyList {
      */
     public void addAttributesToList(Attributes attributes)
                     throws ValidationException {
+        FOUserAgent userAgent = getFObj().getUserAgent();
+        metricsCollector = userAgent.getMetricsCollector();
+
         /*
          * Give writing-mode highest conversion priority.
          */
@@ -373,7 +389,6 @@ public abstract class PropertyList {
         String attributeNS;
         String attributeName;
         String attributeValue;
-        FOUserAgent userAgent = getFObj().getUserAgent();
         for (int i = 0; i < attributes.getLength(); i++) {
             /* convert all attributes with the same namespace as the fo element
              * the "xml:lang" and "xml:base" properties are special cases */
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.fo.properties.Property;
+import org.apache.fop.util.BoundedCache;
+
+/**
+ * Thread-safe cache of parsed property expressions, keyed by property ID and the
+ * specified value. Expressions whose result does not depend on the evaluation context
+ * (like "12pt" or "#000000") map directly to the resulting (shared) {@link Property}.
+ * All other expressions (like "1.2em" or "from-parent(font-size) * 0.8") map to their
+ * pre-scanned token sequence, which is evaluated against the property list each time.
+ * <p>
+ * An instance is held by the {@link org.apache.fop.apps.FopFactory}, unless caching is
+ * disabled through the "org.apache.fop.fo.properties.use-cache" system property.
+ */
+public final class PropertyExpressionCache
+        extends BoundedCache<PropertyExpressionCache.Key, PropertyExpressionCache.Entry> {
+
+    private static final Log LOG = LogFactory.getLog(PropertyExpressionCache.class);
+
+    /** The default maximum number of cached expressions. */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static final boolean ENABLED = readUseCacheProperty();
+
+    /** Creates a new cache with the default maximum number of entries. */
+    public PropertyExpressionCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxEntries the maximum number of cached expressions; when reached, the least
+     * recently used expressions are evicted
+     */
+    public PropertyExpressionCache(int maxEntries) {
+        super(maxEntries);
+    }
+
+    private static boolean readUseCacheProperty() {
+        try {
+            return Boolean.valueOf(
+                    System.getProperty("org.apache.fop.fo.properties.use-cache", "true"));
+        } catch (SecurityException e) {
+            LOG.info("Unable to access org.apache.fop.fo.properties.use-cache"
+                   + " due to security restriction; defaulting to 'true'.");
+            return true;
+        }
+    }
+
+    /**
+     * Indicates whether property expressions should be cached. As for
+     * {@link org.apache.fop.fo.properties.PropertyCache}, this is determined by the
+     * "org.apache.fop.fo.properties.use-cache" system property.
+     * @return true if expressions should be cached
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Looks up a previously parsed expression.
+     * @param propId the property ID
+     * @param expr the specified value
+     * @return the cache entry, or null if the expression is not cached
+     */
+    Entry get(int propId, String expr) {
+        return get(new Key(propId, expr));
+    }
+
+    /**
+     * Adds a parsed expression to the cache.
+     * @param propId the property ID
+     * @param expr the specified value
+     * @param property the context-free result of the expression, or null if the result
+     * depends on the evaluation context
+     * @param tokens the token sequence of the expression
+     */
+    void put(int propId, String expr, Property property, PropertyTokenizer.TokenSequence tokens) {
+        putIfAbsent(new Key(propId, expr), new Entry(property, tokens));
+    }
+
+    /** A cached expression. */
+    static final class Entry {
+
+        private final Property property;
+
+        private final PropertyTokenizer.TokenSequence tokens;
+
+        private Entry(Property property, PropertyTokenizer.TokenSequence tokens) {
+            this.property = property;
+            this.tokens = tokens;
+        }
+
+        /** @return the context-free result, or null if it must be evaluated */
+        Property getProperty() {
+            return property;
+        }
+
+        /** @return the pre-scanned tokens of the expression */
+        PropertyTokenizer.TokenSequence getTokens() {
+            return tokens;
+        }
+    }
+
+    /** The key identifying an expression. */
+    static final class Key {
+
+        private final int propId;
+
+        private final String expr;
+
+        private final int hash;
+
+        private Key(int propId, String expr) {
+            this.propId = propId;
+            this.expr = expr;
+            this.hash = 31 * propId + expr.hashCode();
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return propId == other.propId && expr.equals(other.expr);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.apache.xmlgraphics.util.UnitConv;
 
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.datatypes.Length;
 import org.apache.fop.datatypes.LengthBase;
 import org.apache.fop.datatypes.Numeric;
@@ -43,6 +44,7 @@ import org.apache.fop.fo.properties.StringProperty;
  */
 public final class PropertyParser extends PropertyTokenizer {
     private PropertyInfo propInfo;    // Maker and propertyList related info
+    private boolean contextDependent; // whether propInfo was needed to evaluate
 
     private static final String RELUNIT = "em";
     private static final HashMap FUNCTION_TABLE = new HashMap();
@@ -89,13 +91,52 @@ public final class PropertyParser extends PropertyTokenizer {
     public static Property parse(String expr, PropertyInfo propInfo)
             throws PropertyException {
         try {
-            return new PropertyParser(expr, propInfo).parseProperty();
+            PropertyExpressionCache cache = getExpressionCache(propInfo);
+            if (cache == null) {
+                return new PropertyParser(expr, propInfo).parseProperty();
+            }
+            int propId = propInfo.getPropertyMaker().getPropId();
+            PropertyExpressionCache.Entry entry = cache.get(propId, expr);
+            if (entry != null) {
+                if (entry.getProperty() != null) {
+                    return entry.getProperty();
+                }
+                return new PropertyParser(entry.getTokens(), propInfo).parseProperty();
+            }
+            PropertyParser parser = new PropertyParser(expr, propInfo);
+            parser.recordTokens();
+            Property prop = parser.parseProperty();
+            cache.put(propId, expr,
+                    (parser.contextDependent || !isShareable(prop)) ? null : prop,
+                    parser.getRecordedTokens());
+            return prop;
         } catch (PropertyException exc) {
             exc.setPropertyInfo(propInfo);
             throw exc;
         }
     }
 
+    private static PropertyExpressionCache getExpressionCache(PropertyInfo propInfo) {
+        if (propInfo.getPropertyMaker() == null) {
+            return null;
+        }
+        FOUserAgent userAgent = propInfo.getUserAgent();
+        return (userAgent != null) ? userAgent.getPropertyExpressionCache() : null;
+    }
+
+    /**
+     * Indicates whether a context-free parse result may be handed out to several
+     * property lists. Only immutable property types qualify; list properties, for
+     * instance, may be modified by shorthand parsers.
+     */
+    private static boolean isShareable(Property prop) {
+        return prop instanceof FixedLength
+                || prop instanceof NumberProperty
+                || prop instanceof StringProperty
+                || prop instanceof ColorProperty
+                || prop instanceof NCnameProperty;
+    }
+
 
     /**
      * Private constructor. Called by the static parse() method.
@@ -108,6 +149,18 @@ public final class PropertyParser extends PropertyTokenizer {
         this.propInfo = pInfo;
     }
 
+    /**
+     * Private constructor. Called by the static parse() method to evaluate
+     * a previously scanned expression.
+     * @param tokens The tokens of the specified value.
+     * @param pInfo A PropertyInfo object representing the context in
+     * which the property expression is to be evaluated.
+     */
+    private PropertyParser(TokenSequence tokens, PropertyInfo pInfo) {
+        super(tokens);
+        this.propInfo = pInfo;
+    }
+
     /**
      * Parse the property expression described in the instance variables.
      * Note: If the property expression String is empty, a StringProperty
@@ -270,6 +323,7 @@ public final class PropertyParser extends PropertyTokenizer {
              */
             double pcval = Double.parseDouble(
                     currentTokenValue.substring(0, currentTokenValue.length() - 1)) / 100.0;
+            contextDependent = true;
             PercentBase pcBase = this.propInfo.getPercentBase();
             if (pcBase != null) {
                 if (pcBase.getDimension() == 0) {
@@ -306,11 +360,13 @@ public final class PropertyParser extends PropertyTokenizer {
             String unitPart = currentTokenValue.substring(numLen);
             double numPart = Double.parseDouble(currentTokenValue.substring(0, numLen));
             if (RELUNIT.equals(unitPart)) {
+                contextDependent = true;
                 prop = (Property) NumericOp.multiply(
                                     NumberProperty.getInstance(numPart),
                                     propInfo.currentFontSize());
             } else {
                 if ("px".equals(unitPart)) {
+                    contextDependent = true;
                     //pass the ratio between target-resolution and
                     //the default resolution of 72dpi
                     float resolution = propInfo.getPropertyList().getFObj()
@@ -336,6 +392,7 @@ public final class PropertyParser extends PropertyTokenizer {
                                             + currentTokenValue);
             }
             next();
+            contextDependent = true;
             // Push new function (for function context: getPercentBase())
             propInfo.pushFunction(function);
             prop = function.eval(parseArgs(function), propInfo);
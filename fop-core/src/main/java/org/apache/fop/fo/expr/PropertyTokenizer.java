@@ -19,7 +19,8 @@
 
 package org.apache.fop.fo.expr;
 
-
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Class to tokenize XSL FO property expression.
@@ -56,6 +57,13 @@ class PropertyTokenizer {
     private int exprIndex;
     private int exprLength;
 
+    /** pre-scanned tokens to replay instead of scanning expr, or null */
+    private final TokenSequence tokenSequence;
+    private int tokenSequenceIndex;
+
+    /** recorded tokens while scanning, or null if recording is disabled */
+    private List<Object[]> recordedTokens;
+
     /**
      * Construct a new PropertyTokenizer object to tokenize the passed
      * String.
@@ -64,6 +72,35 @@ class PropertyTokenizer {
     PropertyTokenizer(String s) {
         this.expr = s;
         this.exprLength = s.length();
+        this.tokenSequence = null;
+    }
+
+    /**
+     * Construct a new PropertyTokenizer object replaying a sequence of
+     * tokens previously recorded for an expression.
+     * @param tokens the token sequence
+     */
+    PropertyTokenizer(TokenSequence tokens) {
+        this.expr = null;
+        this.tokenSequence = tokens;
+    }
+
+    /**
+     * Starts recording the tokens returned by {@link #next()}, so they can
+     * later be obtained through {@link #getRecordedTokens()}.
+     */
+    void recordTokens() {
+        if (tokenSequence == null) {
+            recordedTokens = new ArrayList<Object[]>();
+        }
+    }
+
+    /**
+     * Returns the tokens scanned so far, if recording was enabled.
+     * @return the token sequence, or null if no tokens were recorded
+     */
+    TokenSequence getRecordedTokens() {
+        return (recordedTokens != null) ? new TokenSequence(recordedTokens) : null;
     }
 
     /**
@@ -76,6 +113,18 @@ class PropertyTokenizer {
      * @throws PropertyException If un unrecognized token is encountered.
      */
     void next() throws PropertyException {
+        if (tokenSequence != null) {
+            tokenSequence.replay(this, tokenSequenceIndex++);
+            return;
+        }
+        nextToken();
+        if (recordedTokens != null) {
+            recordedTokens.add(new Object[] {currentToken, currentTokenValue,
+                    currentUnitLength});
+        }
+    }
+
+    private void nextToken() throws PropertyException {
         currentTokenValue = null;
         currentTokenStartIndex = exprIndex;
         boolean bSawDecimal;
@@ -366,5 +415,39 @@ class PropertyTokenizer {
                || c >= 0x80;
     }
 
-}
+    /**
+     * Immutable sequence of tokens scanned from a property expression, which
+     * can be replayed by a tokenizer without scanning the expression again.
+     */
+    static final class TokenSequence {
 
+        private final int[] tokens;
+        private final String[] values;
+        private final int[] unitLengths;
+
+        private TokenSequence(List<Object[]> recorded) {
+            int size = recorded.size();
+            tokens = new int[size];
+            values = new String[size];
+            unitLengths = new int[size];
+            for (int i = 0; i < size; i++) {
+                Object[] token = recorded.get(i);
+                tokens[i] = (Integer) token[0];
+                values[i] = (String) token[1];
+                unitLengths[i] = (Integer) token[2];
+            }
+        }
+
+        private void replay(PropertyTokenizer tokenizer, int index) {
+            if (index < tokens.length) {
+                tokenizer.currentToken = tokens[index];
+                tokenizer.currentTokenValue = values[index];
+                tokenizer.currentUnitLength = unitLengths[index];
+            } else {
+                tokenizer.currentToken = TOK_EOF;
+                tokenizer.currentTokenValue = null;
+            }
+        }
+    }
+
+}
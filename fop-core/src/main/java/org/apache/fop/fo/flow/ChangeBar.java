@@ -129,14 +129,14 @@ public abstract class ChangeBar extends FObj {
      * Adds the current change bar to the active change bar list.
      */
     protected void push() {
-        getRoot().getLastPageSequence().pushChangeBar(this);
+        getChangeBarPageSequence().pushChangeBar(this);
     }
 
     /**
      * Removes the starting counterpart of the current change bar from the active change bar list.
      */
     protected void pop() {
-        getRoot().getLastPageSequence().popChangeBar(this);
+        getChangeBarPageSequence().popChangeBar(this);
     }
 
     /**
@@ -145,7 +145,7 @@ public abstract class ChangeBar extends FObj {
      * @return The starting counterpart of the current (ending) change bar
      */
     protected ChangeBar getChangeBarBegin() {
-        return getRoot().getLastPageSequence().getChangeBarBegin(this);
+        return getChangeBarPageSequence().getChangeBarBegin(this);
     }
 
     /**
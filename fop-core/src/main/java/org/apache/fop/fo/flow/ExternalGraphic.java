@@ -26,11 +26,9 @@ import org.xml.sax.Locator;
 
 import org.apache.xmlgraphics.image.loader.ImageException;
 import org.apache.xmlgraphics.image.loader.ImageInfo;
-import org.apache.xmlgraphics.image.loader.ImageManager;
 
 import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOPException;
-import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.datatypes.Length;
 import org.apache.fop.datatypes.URISpecification;
 import org.apache.fop.fo.FONode;
@@ -56,6 +54,7 @@ public class ExternalGraphic extends AbstractGraphics {
     private int intrinsicWidth;
     private int intrinsicHeight;
     private Length intrinsicAlignmentAdjust;
+    private volatile boolean imageInfoLoaded;
 
     /**
      * Create a new ExternalGraphic node that is a child
@@ -74,11 +73,32 @@ public class ExternalGraphic extends AbstractGraphics {
 
         //Additional processing: obtain the image's intrinsic size and baseline information
         url = URISpecification.getURL(src);
-        FOUserAgent userAgent = getUserAgent();
-        ImageManager manager = userAgent.getImageManager();
-        ImageInfo info = null;
+        imageInfoLoaded = false;
+        if (!getUserAgent().getImagePrefetcher().prefetch(url)) {
+            loadImageInfo();
+        }
+    }
+
+    /**
+     * Obtains the image's intrinsic size and baseline information. If the image is being
+     * loaded in the background, this happens when the layout first asks for the information.
+     */
+    private void loadImageInfo() {
+        if (imageInfoLoaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!imageInfoLoaded) {
+                setImageInfo(fetchImageInfo());
+                //only set once the fields are filled in, for callers on other threads
+                imageInfoLoaded = true;
+            }
+        }
+    }
+
+    private ImageInfo fetchImageInfo() {
         try {
-            info = manager.getImageInfo(url, userAgent.getImageSessionContext());
+            return getUserAgent().getImagePrefetcher().getImageInfo(url);
         } catch (ImageException e) {
             ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
                     getUserAgent().getEventBroadcaster());
@@ -92,6 +112,10 @@ public class ExternalGraphic extends AbstractGraphics {
                     getUserAgent().getEventBroadcaster());
             eventProducer.imageIOError(this, url, ioe, getLocator());
         }
+        return null;
+    }
+
+    private void setImageInfo(ImageInfo info) {
         if (info != null) {
             this.intrinsicWidth = info.getSize().getWidthMpt();
             this.intrinsicHeight = info.getSize().getHeightMpt();
@@ -145,16 +169,19 @@ public class ExternalGraphic extends AbstractGraphics {
 
     /** {@inheritDoc} */
     public int getIntrinsicWidth() {
+        loadImageInfo();
         return this.intrinsicWidth;
     }
 
     /** {@inheritDoc} */
     public int getIntrinsicHeight() {
+        loadImageInfo();
         return this.intrinsicHeight;
     }
 
     /** {@inheritDoc} */
     public Length getIntrinsicAlignmentAdjust() {
+        loadImageInfo();
         return this.intrinsicAlignmentAdjust;
     }
 
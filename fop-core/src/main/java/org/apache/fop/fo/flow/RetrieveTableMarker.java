@@ -146,13 +146,6 @@ public class RetrieveTableMarker extends AbstractRetrieveMarker {
         return FO_RETRIEVE_TABLE_MARKER;
     }
 
-    /** {@inheritDoc} */
-    public void clearChildNodes() {
-        super.clearChildNodes();
-        this.currentTextNode = null;
-        this.lastFOTextProcessed = null;
-    }
-
     @Override
     protected void restoreFOEventHandlerState() {
         getFOEventHandler().restoreState(this);
@@ -31,6 +31,7 @@ import org.apache.fop.apps.FOPException;
 import org.apache.fop.complexscripts.bidi.DelimitedTextRange;
 import org.apache.fop.datatypes.Numeric;
 import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FOTreeBuilderContext;
 import org.apache.fop.fo.PropertyList;
 import org.apache.fop.fo.ValidationException;
 import org.apache.fop.fo.flow.ChangeBar;
@@ -85,6 +86,9 @@ public class PageSequence extends AbstractPageSequence implements WritingModeTra
      */
     private final List<ChangeBar> changeBarList = new LinkedList<ChangeBar>();
 
+    /** The builder context of this page-sequence once it has been detached from the builder */
+    private FOTreeBuilderContext builderContext;
+
     /**
      * Create a PageSequence instance that is a child of the
      * given {@link FONode}.
@@ -455,6 +459,24 @@ public class PageSequence extends AbstractPageSequence implements WritingModeTra
         return true;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public FOTreeBuilderContext getBuilderContext() {
+        return (builderContext != null ? builderContext : super.getBuilderContext());
+    }
+
+    /**
+     * Gives this page-sequence a builder context of its own. The layout creates FO nodes for the
+     * retrieved markers. If the layout runs on a separate thread, these nodes must not use the
+     * context of the FO tree builder, which already works on the following page-sequences.
+     * Must be called once the page-sequence has been fully parsed.
+     */
+    public void detachBuilderContext() {
+        FOTreeBuilderContext context = new FOTreeBuilderContext();
+        context.setPropertyListMaker(super.getBuilderContext().getPropertyListMaker());
+        this.builderContext = context;
+    }
+
     /**
      * Releases a page-sequence's children after the page-sequence has been fully processed.
      */
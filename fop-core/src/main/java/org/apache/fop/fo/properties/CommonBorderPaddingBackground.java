@@ -26,8 +26,6 @@ import java.util.Arrays;
 
 import org.apache.xmlgraphics.image.loader.ImageException;
 import org.apache.xmlgraphics.image.loader.ImageInfo;
-import org.apache.xmlgraphics.image.loader.ImageManager;
-import org.apache.xmlgraphics.image.loader.ImageSessionContext;
 
 import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOUserAgent;
@@ -90,6 +88,11 @@ public class CommonBorderPaddingBackground {
 
     private ImageInfo backgroundImageInfo;
 
+    /**
+     * the FO whose background image is being loaded in the background, if any; such an
+     * instance is never cached
+     */
+    private volatile FObj pendingImageFObj;
 
     /** the "before" edge */
     public static final int BEFORE = 0;
@@ -400,6 +403,16 @@ public class CommonBorderPaddingBackground {
      */
     public static CommonBorderPaddingBackground getInstance(PropertyList pList) throws PropertyException {
         CommonBorderPaddingBackground newInstance = new CommonBorderPaddingBackground(pList);
+        if (!"".equals(newInstance.backgroundImage)) {
+            FObj fobj = pList.getFObj();
+            String uri = URISpecification.getURL(newInstance.backgroundImage);
+            if (fobj.getUserAgent().getImagePrefetcher().prefetch(uri)) {
+                /* the image info is filled in on first use, so the instance belongs to this
+                 * FO alone and is not shared through the cache */
+                newInstance.pendingImageFObj = fobj;
+                return newInstance;
+            }
+        }
         CommonBorderPaddingBackground cachedInstance = null;
         /* if padding-* and background-position-* resolve to absolute lengths
          * the whole instance can be cached */
@@ -423,33 +436,32 @@ public class CommonBorderPaddingBackground {
                 && !("".equals(newInstance.backgroundImage))) {
                 //Additional processing: preload image
                 String uri = URISpecification.getURL(newInstance.backgroundImage);
-                FObj fobj = pList.getFObj();
-                FOUserAgent userAgent = pList.getFObj().getUserAgent();
-                ImageManager manager = userAgent.getImageManager();
-                ImageSessionContext sessionContext = userAgent.getImageSessionContext();
-                ImageInfo info;
-                try {
-                    info = manager.getImageInfo(uri, sessionContext);
-                    newInstance.backgroundImageInfo = info;
-                } catch (ImageException e) {
-                    ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
-                            fobj.getUserAgent().getEventBroadcaster());
-                    eventProducer.imageError(fobj, uri, e, fobj.getLocator());
-                } catch (FileNotFoundException fnfe) {
-                    ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
-                            fobj.getUserAgent().getEventBroadcaster());
-                    eventProducer.imageNotFound(fobj, uri, fnfe, fobj.getLocator());
-                } catch (IOException ioe) {
-                    ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
-                            fobj.getUserAgent().getEventBroadcaster());
-                    eventProducer.imageIOError(fobj, uri, ioe, fobj.getLocator());
-                }
+                newInstance.backgroundImageInfo = loadImageInfo(pList.getFObj(), uri);
             }
         }
 
         return (cachedInstance != null ? cachedInstance : newInstance);
     }
 
+    private static ImageInfo loadImageInfo(FObj fobj, String uri) {
+        try {
+            return fobj.getUserAgent().getImagePrefetcher().getImageInfo(uri);
+        } catch (ImageException e) {
+            ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
+                    fobj.getUserAgent().getEventBroadcaster());
+            eventProducer.imageError(fobj, uri, e, fobj.getLocator());
+        } catch (FileNotFoundException fnfe) {
+            ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
+                    fobj.getUserAgent().getEventBroadcaster());
+            eventProducer.imageNotFound(fobj, uri, fnfe, fobj.getLocator());
+        } catch (IOException ioe) {
+            ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
+                    fobj.getUserAgent().getEventBroadcaster());
+            eventProducer.imageIOError(fobj, uri, ioe, fobj.getLocator());
+        }
+        return null;
+    }
+
     private void initBorderInfo(PropertyList pList, int side,
             int colorProp, int styleProp, int widthProp, int paddingProp,
             int radiusStartProp, int radiusEndProp)
@@ -491,9 +503,20 @@ public class CommonBorderPaddingBackground {
 
     /**
      * @return the background image info object, null if there is
-     *     no background image.
+     *     no background image. Waits for the image if it is being
+     *     loaded in the background.
      */
     public ImageInfo getImageInfo() {
+        if (pendingImageFObj != null) {
+            synchronized (this) {
+                FObj fobj = pendingImageFObj;
+                if (fobj != null) {
+                    backgroundImageInfo = loadImageInfo(fobj,
+                            URISpecification.getURL(backgroundImage));
+                    pendingImageFObj = null;
+                }
+            }
+        }
         return this.backgroundImageInfo;
     }
 
@@ -797,7 +820,7 @@ public class CommonBorderPaddingBackground {
      * @return the background image info
      */
     public ImageInfo getBackgroundImageInfo() {
-        return backgroundImageInfo;
+        return getImageInfo();
     }
 
     /**
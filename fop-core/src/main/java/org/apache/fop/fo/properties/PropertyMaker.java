@@ -25,6 +25,7 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.MetricsCollector;
 import org.apache.fop.datatypes.CompoundDatatype;
 import org.apache.fop.datatypes.LengthBase;
 import org.apache.fop.datatypes.PercentBase;
@@ -407,6 +408,11 @@ public class PropertyMaker implements Cloneable {
      */
      public Property make(PropertyList propertyList, String value,
                          FObj fo) throws PropertyException {
+        MetricsCollector metricsCollector = (propertyList != null
+                ? propertyList.getMetricsCollector() : null);
+        if (metricsCollector != null) {
+            metricsCollector.addProperty();
+        }
         try {
             Property newProp = null;
             String pvalue = value;
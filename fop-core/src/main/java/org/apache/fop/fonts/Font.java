@@ -26,6 +26,7 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.MetricsCollector;
 import org.apache.fop.complexscripts.fonts.Positionable;
 import org.apache.fop.complexscripts.fonts.Substitutable;
 import org.apache.fop.render.java2d.CustomFontMetricsMapper;
@@ -82,6 +83,9 @@ public class Font implements Substitutable, Positionable {
 
     private final FontMetrics metric;
 
+    /** counts the glyph lookups if processing metrics are collected */
+    private MetricsCollector metricsCollector;
+
     /**
      * Main constructor
      * @param key key of the font
@@ -96,6 +100,14 @@ public class Font implements Substitutable, Positionable {
         this.fontSize = fontSize;
     }
 
+    /**
+     * Sets the collector counting the glyph lookups done with this font.
+     * @param metricsCollector the collector (may be null)
+     */
+    void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
     /**
      * Returns the associated font metrics object.
      * @return the font metrics
@@ -232,6 +244,9 @@ public class Font implements Substitutable, Positionable {
      */
     public char mapChar(char c) {
 
+        if (metricsCollector != null) {
+            metricsCollector.addGlyphLookup();
+        }
         if (metric instanceof org.apache.fop.fonts.Typeface) {
             return ((org.apache.fop.fonts.Typeface)metric).mapChar(c);
         }
@@ -258,6 +273,9 @@ public class Font implements Substitutable, Positionable {
         FontMetrics fontMetrics = getRealFontMetrics();
 
         if (fontMetrics instanceof CIDFont) {
+            if (metricsCollector != null) {
+                metricsCollector.addGlyphLookup();
+            }
             return ((CIDFont) fontMetrics).mapCodePoint(cp);
         }
 
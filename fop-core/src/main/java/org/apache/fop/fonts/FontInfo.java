@@ -30,6 +30,7 @@ import java.util.TreeSet;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.MetricsCollector;
 
 /**
  * The FontInfo holds font information for the layout and rendering of a fo document.
@@ -61,9 +62,19 @@ public class FontInfo {
     /** Cache for Font instances. */
     private Map<FontTriplet, Map<Integer, Font>> fontInstanceCache;
 
+    /** The code points supported by the fonts that have been used (key: font key) */
+    private Map<String, GlyphCoverage> glyphCoverage;
+
+    /** Results of the fuzzy font lookups by requested triplet (null values: no font found) */
+    private Map<FontTriplet, FontTriplet> fuzzyLookupCache;
+    private Map<FontTriplet, FontTriplet> substitutableFuzzyLookupCache;
+
     /** Event listener for font events */
     private FontEventListener eventListener;
 
+    /** Counts the glyph lookups of the font instances, if processing metrics are collected */
+    private MetricsCollector metricsCollector;
+
     /**
      * Main constructor
      */
@@ -83,6 +94,15 @@ public class FontInfo {
         this.eventListener = listener;
     }
 
+    /**
+     * Sets the collector that counts the glyph lookups of the font instances returned by
+     * {@link #getFontInstance(FontTriplet, int)}.
+     * @param metricsCollector the collector (may be null)
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
     /**
      * Checks if the font setup is valid (At least the ultimate fallback font
      * must be registered.)
@@ -144,6 +164,8 @@ public class FontInfo {
         }
         this.triplets.put(triplet, internalFontKey);
         this.tripletPriorities.put(triplet, newPriority);
+        fuzzyLookupCache = null;
+        substitutableFuzzyLookupCache = null;
     }
 
     /**
@@ -207,7 +229,7 @@ public class FontInfo {
         // first try given parameters
         String internalFontKey = getInternalFontKey(fontTriplet);
         if (internalFontKey == null) {
-            fontTriplet = fuzzyFontLookup(family, style, weight, startKey, substitutable);
+            fontTriplet = cachedFuzzyFontLookup(family, style, weight, startKey, substitutable);
         }
 
         if (fontTriplet != null) {
@@ -220,6 +242,28 @@ public class FontInfo {
         }
     }
 
+    private FontTriplet cachedFuzzyFontLookup(String family, String style,
+            int weight, FontTriplet startKey, boolean substitutable) {
+        Map<FontTriplet, FontTriplet> cache;
+        if (substitutable) {
+            if (substitutableFuzzyLookupCache == null) {
+                substitutableFuzzyLookupCache = new HashMap<FontTriplet, FontTriplet>();
+            }
+            cache = substitutableFuzzyLookupCache;
+        } else {
+            if (fuzzyLookupCache == null) {
+                fuzzyLookupCache = new HashMap<FontTriplet, FontTriplet>();
+            }
+            cache = fuzzyLookupCache;
+        }
+        FontTriplet fontTriplet = cache.get(startKey);
+        if (fontTriplet == null && !cache.containsKey(startKey)) {
+            fontTriplet = fuzzyFontLookup(family, style, weight, startKey, substitutable);
+            cache.put(startKey, fontTriplet);
+        }
+        return fontTriplet;
+    }
+
     private FontTriplet fuzzyFontLookup(String family, String style,
             int weight, FontTriplet startKey, boolean substitutable) {
         FontTriplet key;
@@ -311,11 +355,30 @@ public class FontInfo {
             useFont(fontKey);
             FontMetrics metrics = getMetricsFor(fontKey);
             font = new Font(fontKey, triplet, metrics, fontSize);
+            font.setMetricsCollector(metricsCollector);
             sizes.put(size, font);
         }
         return font;
     }
 
+    /**
+     * Returns the index of the code points supported by a font. The index is shared by all
+     * sizes of the font.
+     * @param font the font
+     * @return the coverage index
+     */
+    GlyphCoverage getGlyphCoverage(Font font) {
+        if (glyphCoverage == null) {
+            glyphCoverage = new HashMap<String, GlyphCoverage>();
+        }
+        GlyphCoverage coverage = glyphCoverage.get(font.getFontName());
+        if (coverage == null) {
+            coverage = new GlyphCoverage(font);
+            glyphCoverage.put(font.getFontName(), coverage);
+        }
+        return coverage;
+    }
+
     private List<FontTriplet> getTripletsForName(String fontName) {
         List<FontTriplet> matchedTriplets = new ArrayList<FontTriplet>();
         for (FontTriplet triplet : triplets.keySet()) {
@@ -52,6 +52,9 @@ public class FontManager {
     /** FontTriplet matcher for fonts that shall be referenced rather than embedded. */
     private FontTriplet.Matcher referencedFontsMatcher;
 
+    /** The cache of subset font programs shared by all documents */
+    private volatile FontSubsetCache fontSubsetCache;
+
     /**
      * Main constructor
      *
@@ -78,6 +81,23 @@ public class FontManager {
         return this.resourceResolver;
     }
 
+    /**
+     * Returns the cache of subset font programs, creating it on first use.
+     * @return the font subset cache
+     */
+    public FontSubsetCache getFontSubsetCache() {
+        FontSubsetCache cache = this.fontSubsetCache;
+        if (cache == null) {
+            synchronized (this) {
+                if (this.fontSubsetCache == null) {
+                    this.fontSubsetCache = new FontSubsetCache();
+                }
+                cache = this.fontSubsetCache;
+            }
+        }
+        return cache;
+    }
+
     /** @return true if kerning on base 14 fonts is enabled */
     public boolean isBase14KerningEnabled() {
         return this.enableBase14Kerning;
@@ -24,7 +24,6 @@ import org.apache.fop.fo.FONode;
 import org.apache.fop.fo.FOText;
 import org.apache.fop.fo.flow.Character;
 import org.apache.fop.fo.properties.CommonFont;
-import org.apache.fop.util.CharUtilities;
 
 /**
  * Helper class for automatic font selection.
@@ -44,7 +43,7 @@ public final class FontSelector {
         for (FontTriplet fontkey : fontkeys) {
             Font font = fi.getFontInstance(fontkey, commonFont.fontSize
                     .getValue(context));
-            if (font.hasChar(c)) {
+            if (fi.getGlyphCoverage(font).hasCodePoint(c)) {
                 return font;
             }
         }
@@ -108,38 +107,29 @@ public final class FontSelector {
         final FontInfo fi = text.getFOEventHandler().getFontInfo();
         final CommonFont commonFont = text.getCommonFont();
         final FontTriplet[] fontkeys = commonFont.getFontState(fi);
-        final int numFonts = fontkeys.length;
-        final Font[] fonts = new Font[numFonts];
-        final int[] fontCount = new int[numFonts];
+        final int fontSize = commonFont.fontSize.getValue(context);
 
-        for (int fontnum = 0; fontnum < numFonts; fontnum++) {
-            final Font font = fi.getFontInstance(fontkeys[fontnum],
-                    commonFont.fontSize.getValue(context));
-            fonts[fontnum] = font;
-
-            int numCodePoints = 0;
-            for (int cp : CharUtilities.codepointsIter(charSeq, firstIndex, breakIndex)) {
-                numCodePoints++;
+        // the text is decoded again for each font checked rather than into an array, as
+        // this is done for every word and usually the first font supports all characters
+        int numCodePoints = 0;
+        for (int i = firstIndex; i < breakIndex; numCodePoints++) {
+            i += java.lang.Character.charCount(java.lang.Character.codePointAt(charSeq, i));
+        }
 
-                if (font.hasCodePoint(cp)) {
-                    fontCount[fontnum]++;
-                }
-            }
+        Font font = null;
+        int max = -1;
+        for (FontTriplet fontkey : fontkeys) {
+            final Font candidate = fi.getFontInstance(fontkey, fontSize);
+            final int count = fi.getGlyphCoverage(candidate).countSupported(
+                    charSeq, firstIndex, breakIndex);
 
             // quick fall through if all codepoints can be displayed
-            if (fontCount[fontnum] == numCodePoints) {
-                return font;
+            if (count == numCodePoints) {
+                return candidate;
             }
-        }
-
-        Font font = fonts[0];
-        int max = fontCount[0];
-
-        for (int fontnum = 1; fontnum < numFonts; fontnum++) {
-            final int curCount = fontCount[fontnum];
-            if (curCount > max) {
-                font = fonts[fontnum];
-                max = curCount;
+            if (count > max) {
+                font = candidate;
+                max = count;
             }
         }
         return font;
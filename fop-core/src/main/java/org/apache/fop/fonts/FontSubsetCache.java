@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.fop.util.BoundedCache;
+
+/**
+ * Thread-safe cache of subset font programs. A subset is identified by the font file, the
+ * font name (for TrueType collections and CFF fonts, where the name is part of the font
+ * program) and the mapping from the original glyph indices to the subset glyph indices.
+ * Documents using the same glyphs of a font in the same order can therefore share the
+ * finished subset, along with its compressed form. The least recently used subsets are
+ * evicted when the cached bytes exceed a limit.
+ * <p>
+ * An instance is held by the {@link FontManager}.
+ */
+public final class FontSubsetCache extends BoundedCache<FontSubsetCache.Key, FontSubsetCache.Entry> {
+
+    /** The default maximum number of bytes held by all cached subsets. */
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    /** Creates a new cache with the default maximum size. */
+    public FontSubsetCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a new cache. Subsets are only added once per font and document, so a single
+     * segment is used and a subset may take up the whole limit.
+     * @param maxSize the maximum number of bytes held by all cached subsets and their
+     * compressed forms
+     */
+    public FontSubsetCache(long maxSize) {
+        super(maxSize, 1);
+    }
+
+    /**
+     * Creates the key identifying a subset.
+     * @param fontURI the URI of the font file
+     * @param fontName the name of the font within the file or the name written to the subset
+     * (may be null)
+     * @param usedGlyphs the map from the original glyph indices to the subset glyph indices
+     * @return the key
+     */
+    public static Key createKey(URI fontURI, String fontName, Map<Integer, Integer> usedGlyphs) {
+        int[] glyphs = new int[usedGlyphs.size() * 2];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> entry : usedGlyphs.entrySet()) {
+            glyphs[i++] = entry.getKey();
+            glyphs[i++] = entry.getValue();
+        }
+        sortPairs(glyphs);
+        return new Key(fontURI, fontName, glyphs);
+    }
+
+    private static void sortPairs(int[] pairs) {
+        //pack each pair into a long so both halves move together; glyph indices are positive
+        long[] packed = new long[pairs.length / 2];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = ((long) pairs[2 * i] << 32) | (pairs[2 * i + 1] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < packed.length; i++) {
+            pairs[2 * i] = (int) (packed[i] >>> 32);
+            pairs[2 * i + 1] = (int) packed[i];
+        }
+    }
+
+    /** {@inheritDoc} */
+    protected int weigh(Key key, Entry entry) {
+        byte[] compressedData = entry.compressedData;
+        return entry.data.length + (compressedData != null ? compressedData.length : 0);
+    }
+
+    /**
+     * Adds a subset to the cache.
+     * @param key the key identifying the subset
+     * @param data the subset font program
+     * @return the cache entry for the subset, or the entry already cached by another thread;
+     * if the subset is too large, the entry is returned but not cached
+     */
+    public Entry put(Key key, byte[] data) {
+        Entry entry = new Entry(this, key, data);
+        Entry existing = putIfAbsent(key, entry);
+        return (existing != null) ? existing : entry;
+    }
+
+    /** A cached subset font program. */
+    public static final class Entry {
+
+        private final FontSubsetCache cache;
+
+        private final Key key;
+
+        private final byte[] data;
+
+        private volatile byte[] compressedData;
+
+        private Entry(FontSubsetCache cache, Key key, byte[] data) {
+            this.cache = cache;
+            this.key = key;
+            this.data = data;
+        }
+
+        /** @return the subset font program; the array must not be modified */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * Returns the flate-compressed form of the subset font program, if already known.
+         * @return the compressed data, or null; the array must not be modified
+         */
+        public byte[] getCompressedData() {
+            return compressedData;
+        }
+
+        /**
+         * Sets the flate-compressed form of the subset font program. The entry is weighed
+         * again, so the compressed data counts towards the limit of the cache.
+         * @param compressedData the compressed data
+         */
+        public void setCompressedData(byte[] compressedData) {
+            if (this.compressedData == null) {
+                this.compressedData = compressedData;
+                cache.replace(key, this);
+            }
+        }
+    }
+
+    /** The key identifying a subset. */
+    public static final class Key {
+
+        private final URI fontURI;
+
+        private final String fontName;
+
+        private final int[] glyphs;
+
+        private final int hash;
+
+        private Key(URI fontURI, String fontName, int[] glyphs) {
+            this.fontURI = fontURI;
+            this.fontName = fontName;
+            this.glyphs = glyphs;
+            this.hash = 31 * (31 * fontURI.hashCode()
+                    + (fontName != null ? fontName.hashCode() : 0)) + Arrays.hashCode(glyphs);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && fontURI.equals(other.fontURI)
+                    && (fontName == null ? other.fontName == null : fontName.equals(other.fontName))
+                    && Arrays.equals(glyphs, other.glyphs);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+/**
+ * Remembers which code points a font supports, so each code point is only looked up once
+ * in the font per document. The information is kept in bitsets for blocks of 256 code points
+ * which are allocated when a code point of the block is first checked.
+ * <p>
+ * Code points are looked up in the font when they are first checked rather than a whole block
+ * at a time, because checking a character may add it to an additional encoding of a single-byte
+ * font. This class is not thread-safe, like the {@link FontInfo} that holds it.
+ */
+final class GlyphCoverage {
+
+    private static final int BLOCK_SHIFT = 8;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+    private static final int WORDS = (1 << BLOCK_SHIFT) / 64;
+    private static final int BLOCK_COUNT = (Character.MAX_CODE_POINT + 1) >> BLOCK_SHIFT;
+
+    private final Font font;
+
+    /** For each block, the bits of the code points checked followed by those supported */
+    private final long[][] blocks = new long[BLOCK_COUNT][];
+
+    /**
+     * Creates the coverage index of a font.
+     * @param font the font used to look up code points (the size is irrelevant)
+     */
+    GlyphCoverage(Font font) {
+        this.font = font;
+    }
+
+    /**
+     * Determines whether the font supports a code point.
+     * @param cp the code point
+     * @return true if the font has a glyph for the code point
+     * @see Font#hasCodePoint(int)
+     */
+    boolean hasCodePoint(int cp) {
+        if (cp < 0 || cp > Character.MAX_CODE_POINT) {
+            return false;
+        }
+        long[] block = blocks[cp >> BLOCK_SHIFT];
+        if (block == null) {
+            block = new long[WORDS * 2];
+            blocks[cp >> BLOCK_SHIFT] = block;
+        }
+        int bit = cp & BLOCK_MASK;
+        int word = bit >> 6;
+        long mask = 1L << (bit & 63);
+        if ((block[word] & mask) == 0) {
+            block[word] |= mask;
+            if (font.hasCodePoint(cp)) {
+                block[WORDS + word] |= mask;
+            }
+        }
+        return (block[WORDS + word] & mask) != 0;
+    }
+
+    /**
+     * Counts the code points of a text run supported by the font.
+     * @param text the text
+     * @param beginIndex the index of the first character of the run
+     * @param endIndex the index after the last character of the run
+     * @return the number of supported code points
+     */
+    int countSupported(CharSequence text, int beginIndex, int endIndex) {
+        int supported = 0;
+        for (int i = beginIndex; i < endIndex;) {
+            int cp = Character.codePointAt(text, i);
+            if (hasCodePoint(cp)) {
+                supported++;
+            }
+            i += Character.charCount(cp);
+        }
+        return supported;
+    }
+}
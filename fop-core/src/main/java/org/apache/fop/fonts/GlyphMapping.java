@@ -156,7 +156,7 @@ public class GlyphMapping {
         mcs = font.reorderCombiningMarks(mcs, gpa, script, language, associations);
 
         // 6. compute word ipd based on final position adjustments.
-        MinOptMax ipd = MinOptMax.ZERO;
+        int ipd = 0;
         for (int i = 0, n = mcs.length(); i < n; i++) {
             int c = mcs.charAt(i);
 
@@ -171,12 +171,12 @@ public class GlyphMapping {
             if (gpa != null) {
                 w += gpa[i][GlyphPositioningTable.Value.IDX_X_ADVANCE];
             }
-            ipd = ipd.plus(w);
+            ipd += w;
         }
 
         // [TBD] - handle letter spacing
 
-        return new GlyphMapping(startIndex, endIndex, 0, nLS, ipd, endsWithHyphen, false,
+        return new GlyphMapping(startIndex, endIndex, 0, nLS, MinOptMax.getInstance(ipd), endsWithHyphen, false,
                 breakOpportunityChar != 0, font, level, gpa,
                 !dontOptimizeForIdentityMapping && CharUtilities.isSameSequence(mcs, ics) ? null : mcs.toString(),
                 associations);
@@ -195,48 +195,32 @@ public class GlyphMapping {
      * @return glyph position adjustments (or null if no kerning)
      */
     private static int[][] getKerningAdjustments(CharSequence mcs, final Font font, int[][] gpa) {
-        int numCodepoints = Character.codePointCount(mcs, 0, mcs.length());
-        // extract kerning array
-        int[] kernings = new int[numCodepoints]; // kerning array
-
+        // the adjustment array is only created once a non-zero kerning is found
+        boolean hasKerning = false;
         int prevCp = -1;
-        int i = 0;
-        for (int cp : CharUtilities.codepointsIter(mcs)) {
+        for (int i = 0, index = 0, n = mcs.length(); index < n; i++) {
+            int cp = Character.codePointAt(mcs, index);
+            index += Character.charCount(cp);
             if (prevCp >= 0) {
-                kernings[i] = font.getKernValue(prevCp, cp);
-            }
-            prevCp = cp;
-            i++;
-        }
-        // was there a non-zero kerning?
-        boolean hasKerning = false;
-        for (int kerningValue : kernings) {
-            if (kerningValue != 0) {
-                hasKerning = true;
-                break;
-            }
-        }
-        // if non-zero kerning, then create and return glyph position adjustment array
-        if (hasKerning) {
-            if (gpa == null) {
-                gpa = new int[numCodepoints][4];
-            }
-            for (i = 0; i < numCodepoints; i++) {
-                if (i > 0) {
-                    gpa [i - 1][GlyphPositioningTable.Value.IDX_X_ADVANCE] += kernings[i];
+                int kerning = font.getKernValue(prevCp, cp);
+                if (kerning != 0) {
+                    if (gpa == null) {
+                        gpa = new int[Character.codePointCount(mcs, 0, n)][4];
+                    }
+                    gpa [i - 1][GlyphPositioningTable.Value.IDX_X_ADVANCE] += kerning;
+                    hasKerning = true;
                 }
             }
-            return gpa;
-        } else {
-            return null;
+            prevCp = cp;
         }
+        return hasKerning ? gpa : null;
     }
 
     private static GlyphMapping processWordNoMapping(TextFragment text, int startIndex, int endIndex,
             final Font font, MinOptMax letterSpaceIPD, MinOptMax[] letterSpaceAdjustArray,
             char precedingChar, final char breakOpportunityChar, final boolean endsWithHyphen, int level) {
         boolean kerning = font.hasKerning();
-        MinOptMax wordIPD = MinOptMax.ZERO;
+        int wordIPD = 0;
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("PW: [" + startIndex + "," + endIndex + "]: {"
@@ -247,11 +231,12 @@ public class GlyphMapping {
 
         CharSequence ics = text.subSequence(startIndex, endIndex);
         int offset = 0;
-        for (int currentChar : CharUtilities.codepointsIter(ics)) {
+        for (int index = 0, n = ics.length(); index < n; offset++) {
+            int currentChar = Character.codePointAt(ics, index);
+            index += Character.charCount(currentChar);
 
             // character width
-            int charWidth = font.getCharWidth(currentChar);
-            wordIPD = wordIPD.plus(charWidth);
+            wordIPD += font.getCharWidth(currentChar);
 
             // kerning
             if (kerning) {
@@ -264,10 +249,9 @@ public class GlyphMapping {
                 }
                 if (kern != 0) {
                     addToLetterAdjust(letterSpaceAdjustArray, startIndex + offset, kern);
-                    wordIPD = wordIPD.plus(kern);
+                    wordIPD += kern;
                 }
             }
-            offset++;
         }
         if (kerning
                 && (breakOpportunityChar != 0)
@@ -301,10 +285,13 @@ public class GlyphMapping {
             }
         }
         assert letterSpaces >= 0;
-        wordIPD = wordIPD.plus(letterSpaceIPD.mult(letterSpaces));
+        MinOptMax areaIPD = MinOptMax.getInstance(wordIPD);
+        if (letterSpaceIPD.isNonZero()) {
+            areaIPD = areaIPD.plus(letterSpaceIPD.mult(letterSpaces));
+        }
 
         // create and return the AreaInfo object
-        return new GlyphMapping(startIndex, endIndex, 0, letterSpaces, wordIPD, endsWithHyphen, false,
+        return new GlyphMapping(startIndex, endIndex, 0, letterSpaces, areaIPD, endsWithHyphen, false,
                 (breakOpportunityChar != 0) && !isSpace(breakOpportunityChar), font, level, null);
     }
 
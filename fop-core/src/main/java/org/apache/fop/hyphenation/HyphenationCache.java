@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import org.apache.fop.util.BoundedCache;
+
+/**
+ * Thread-safe cache of hyphenation results, keyed by language, country, word and the
+ * hyphenation-remain-character-count and hyphenation-push-character-count values.
+ * Words for which no hyphenation points are found (or for which no hyphenation
+ * patterns are available) are cached as well. The {@link Hyphenation} instances are
+ * shared and must not be modified.
+ * <p>
+ * An instance is held by the {@link org.apache.fop.apps.FopFactory}, as the results
+ * depend on the hyphenation patterns configured there.
+ */
+public final class HyphenationCache extends BoundedCache<HyphenationCache.Key, Hyphenation> {
+
+    /** The default maximum number of cached words. */
+    public static final int DEFAULT_MAX_ENTRIES = 50000;
+
+    /** Marks words that can't be hyphenated. */
+    static final Hyphenation NO_HYPHENATION = new Hyphenation("", new int[0]);
+
+    /** Creates a new cache with the default maximum number of entries. */
+    public HyphenationCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxEntries the maximum number of cached words; when reached, the least
+     * recently used words are evicted
+     */
+    public HyphenationCache(int maxEntries) {
+        super(maxEntries);
+    }
+
+    /**
+     * Looks up the hyphenation of a word.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param word the word
+     * @param leftMin the minimum number of characters before the hyphenation point
+     * @param rightMin the minimum number of characters after the hyphenation point
+     * @return the cached result, {@link #NO_HYPHENATION} if the word can't be hyphenated,
+     * or null if the word is not cached
+     */
+    Hyphenation get(String lang, String country, String word, int leftMin, int rightMin) {
+        return get(new Key(lang, country, word, leftMin, rightMin));
+    }
+
+    /**
+     * Adds the hyphenation of a word to the cache.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param word the word
+     * @param leftMin the minimum number of characters before the hyphenation point
+     * @param rightMin the minimum number of characters after the hyphenation point
+     * @param hyphenation the hyphenation result, or null if the word can't be hyphenated
+     */
+    void put(String lang, String country, String word, int leftMin, int rightMin,
+            Hyphenation hyphenation) {
+        putIfAbsent(new Key(lang, country, word, leftMin, rightMin),
+                (hyphenation != null) ? hyphenation : NO_HYPHENATION);
+    }
+
+    /** The key identifying a hyphenated word. */
+    static final class Key {
+
+        private final String lang;
+
+        private final String country;
+
+        private final String word;
+
+        private final int leftMin;
+
+        private final int rightMin;
+
+        private final int hash;
+
+        private Key(String lang, String country, String word, int leftMin, int rightMin) {
+            this.lang = lang;
+            this.country = country;
+            this.word = word;
+            this.leftMin = leftMin;
+            this.rightMin = rightMin;
+            int h = word.hashCode();
+            h = 31 * h + ((lang != null) ? lang.hashCode() : 0);
+            h = 31 * h + ((country != null) ? country.hashCode() : 0);
+            h = 31 * h + leftMin;
+            this.hash = 31 * h + rightMin;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash
+                    && leftMin == other.leftMin
+                    && rightMin == other.rightMin
+                    && word.equals(other.word)
+                    && equal(lang, other.lang)
+                    && equal(country, other.country);
+        }
+
+        private static boolean equal(String s1, String s2) {
+            return (s1 == null) ? s2 == null : s1.equals(s2);
+        }
+    }
+}
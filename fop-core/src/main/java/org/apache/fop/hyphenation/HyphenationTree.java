@@ -613,6 +613,25 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
         insert(pattern, (char)k);
     }
 
+    /**
+     * Returns an estimate of the heap memory used by the patterns, the character classes and
+     * the hyphenation exceptions.
+     * @return the approximate size in bytes
+     */
+    public long getMemoryUsage() {
+        long size = super.getMemoryUsage() + vspace.capacity();
+        if (classmap != null) {
+            size += classmap.getMemoryUsage();
+        }
+        if (stoplist != null) {
+            for (Object word : stoplist.keySet()) {
+                //word, hyphenated word list and map entry
+                size += 4L * ((String) word).length() + 96;
+            }
+        }
+        return size;
+    }
+
     /**
      * Print statistics.
      */
@@ -19,19 +19,54 @@
 
 package org.apache.fop.hyphenation;
 
-import java.util.Hashtable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
 
 /**
  * <p>This is a cache for HyphenationTree instances.</p>
+ *
+ * <p>An instance is held by each {@link org.apache.fop.apps.FopFactory}, which can preload the
+ * patterns for a configured list of languages in the background, so documents don't wait for
+ * all of them to be loaded one after the other. The cache is thread-safe.</p>
  */
 public class HyphenationTreeCache {
 
+    private static final Log LOG = LogFactory.getLog(HyphenationTreeCache.class);
+
     /** Contains the cached hyphenation trees */
-    private Hashtable hyphenTrees = new Hashtable();
+    private final ConcurrentMap<String, HyphenationTree> hyphenTrees
+            = new ConcurrentHashMap<String, HyphenationTree>();
+    /** Contains the estimated memory usage of the cached hyphenation trees */
+    private final ConcurrentMap<String, Long> memoryUsage = new ConcurrentHashMap<String, Long>();
     /** Used to avoid multiple error messages for the same language if a pattern file is missing. */
-    private Set missingHyphenationTrees;
+    private final Set<String> missingHyphenationTrees
+            = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    /** Contains the hyphenation trees currently being preloaded */
+    private final ConcurrentMap<String, Future<?>> pendingHyphenationTrees
+            = new ConcurrentHashMap<String, Future<?>>();
+
+    private volatile CountDownLatch preloadLatch;
 
     /**
      * Looks in the cache if a hyphenation tree is available and returns it if it is found.
@@ -43,13 +78,11 @@ public class HyphenationTreeCache {
         String key = constructLlccKey(lang, country);
 
         // first try to find it in the cache
-        if (hyphenTrees.containsKey(key)) {
-            return (HyphenationTree)hyphenTrees.get(key);
-        } else if (hyphenTrees.containsKey(lang)) {
-            return (HyphenationTree)hyphenTrees.get(lang);
-        } else {
-            return null;
+        HyphenationTree hTree = hyphenTrees.get(key);
+        if (hTree == null) {
+            hTree = hyphenTrees.get(lang);
         }
+        return hTree;
     }
 
     /**
@@ -92,6 +125,7 @@ public class HyphenationTreeCache {
      */
     public void cache(String key, HyphenationTree hTree) {
         hyphenTrees.put(key, hTree);
+        memoryUsage.put(key, hTree.getMemoryUsage());
     }
 
     /**
@@ -101,9 +135,6 @@ public class HyphenationTreeCache {
      * @param key the key (ex. "de_CH" or "en")
      */
     public void noteMissing(String key) {
-        if (missingHyphenationTrees == null) {
-            missingHyphenationTrees = new java.util.HashSet();
-        }
         missingHyphenationTrees.add(key);
     }
 
@@ -115,7 +146,189 @@ public class HyphenationTreeCache {
      * @return true if the hyphenation tree is unavailable
      */
     public boolean isMissing(String key) {
-        return (missingHyphenationTrees != null && missingHyphenationTrees.contains(key));
+        return missingHyphenationTrees.contains(key);
+    }
+
+    /**
+     * Returns the estimated memory usage of each cached hyphenation tree.
+     * @return a map from the key (ex. "de_CH" or "en") to the approximate size in bytes
+     */
+    public Map<String, Long> getMemoryUsage() {
+        return Collections.unmodifiableMap(new TreeMap<String, Long>(memoryUsage));
+    }
+
+    /**
+     * Returns the estimated memory usage of all cached hyphenation trees.
+     * @return the approximate size in bytes
+     */
+    public long getTotalMemoryUsage() {
+        long total = 0;
+        for (Long size : memoryUsage.values()) {
+            total += size;
+        }
+        return total;
+    }
+
+    /**
+     * Removes all cached hyphenation trees.<br>
+     * This method can be used if the underlying data files are changed at runtime.
+     */
+    public void clear() {
+        hyphenTrees.clear();
+        memoryUsage.clear();
+        missingHyphenationTrees.clear();
+    }
+
+    /**
+     * Creates the thread pool used to preload hyphenation trees. The threads are daemon
+     * threads, at most one per available processor.
+     * @param languageCount the number of languages to preload
+     * @return the executor
+     */
+    public static ExecutorService createPreloadExecutor(int languageCount) {
+        int threads = Math.max(1, Math.min(languageCount, Runtime.getRuntime().availableProcessors()));
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "FOP hyphenation preloader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Loads the hyphenation trees for the given languages in the background, on a thread pool
+     * created by {@link #createPreloadExecutor(int)} which ends once loading has finished.
+     * @param keys the keys of the languages to load (ex. "de_CH" or "en")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @see #preload(Collection, InternalResourceResolver, Map, Executor)
+     */
+    public void preload(Collection<String> keys, InternalResourceResolver resourceResolver,
+            Map hyphPatNames) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = createPreloadExecutor(keys.size());
+        preload(keys, resourceResolver, hyphPatNames, executor);
+        executor.shutdown();
+    }
+
+    /**
+     * Loads the hyphenation trees for the given languages in the background. Use
+     * {@link #isReady()} or {@link #awaitReady(long, TimeUnit)} to find out when loading has
+     * finished, and {@link #cancelPreload()} to stop it. Lookups for a language that is still
+     * being loaded wait for it.
+     * @param keys the keys of the languages to load (ex. "de_CH" or "en")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param executor the executor running the loading tasks
+     */
+    public synchronized void preload(Collection<String> keys,
+            final InternalResourceResolver resourceResolver, final Map hyphPatNames,
+            Executor executor) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        final CountDownLatch latch = new CountDownLatch(keys.size());
+        preloadLatch = latch;
+        for (final String key : keys) {
+            int pos = key.indexOf('_');
+            final String lang = (pos < 0) ? key : key.substring(0, pos);
+            final String country = (pos < 0) ? null : key.substring(pos + 1);
+            final String llccKey = constructLlccKey(lang, country);
+            FutureTask<Object> task = new FutureTask<Object>(new Runnable() {
+                public void run() {
+                    try {
+                        long start = System.currentTimeMillis();
+                        HyphenationTree hTree = Hyphenator.loadHyphenationTree(lang, country,
+                                resourceResolver, hyphPatNames, null, HyphenationTreeCache.this);
+                        if (hTree != null && LOG.isDebugEnabled()) {
+                            LOG.debug("Preloaded hyphenation patterns for " + llccKey + " in "
+                                    + (System.currentTimeMillis() - start) + " ms ("
+                                    + hTree.getMemoryUsage() + " bytes)");
+                        }
+                    } catch (RuntimeException e) {
+                        LOG.error("Error while preloading hyphenation patterns for " + llccKey, e);
+                    }
+                }
+            }, null) {
+                //called once the task has run or has been cancelled
+                protected void done() {
+                    pendingHyphenationTrees.remove(llccKey, this);
+                    latch.countDown();
+                }
+            };
+            pendingHyphenationTrees.putIfAbsent(llccKey, task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Stops preloading hyphenation trees. Trees which haven't been loaded yet are loaded when
+     * they are first needed.
+     */
+    public void cancelPreload() {
+        for (Future<?> future : pendingHyphenationTrees.values()) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Indicates whether all hyphenation trees requested through
+     * {@link #preload(Collection, InternalResourceResolver, Map, Executor)} have been loaded.
+     * @return true if no preloading is in progress
+     */
+    public boolean isReady() {
+        CountDownLatch latch = preloadLatch;
+        return latch == null || latch.getCount() == 0;
+    }
+
+    /**
+     * Waits until all hyphenation trees requested through
+     * {@link #preload(Collection, InternalResourceResolver, Map, Executor)} have been loaded.
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout argument
+     * @return true if preloading has finished, false if the timeout elapsed before
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        CountDownLatch latch = preloadLatch;
+        return latch == null || latch.await(timeout, unit);
+    }
+
+    /**
+     * Waits for the hyphenation tree of a language and country if it is currently being
+     * preloaded, and for the tree of the language alone, which is used if there is none for
+     * the country.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     */
+    void awaitPreload(String lang, String country) {
+        String llccKey = constructLlccKey(lang, country);
+        awaitPreload(llccKey);
+        if (!llccKey.equals(lang) && !hyphenTrees.containsKey(llccKey)) {
+            awaitPreload(lang);
+        }
+    }
+
+    private void awaitPreload(String key) {
+        Future<?> future = pendingHyphenationTrees.get(key);
+        if (future != null) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                //already reported by the preloading task
+            } catch (CancellationException e) {
+                //the caller loads the tree itself
+            }
+        }
     }
 
 }
@@ -60,7 +60,12 @@ public final class Hyphenator {
      */
     private Hyphenator() { }
 
-    /** @return the default (static) hyphenation tree cache */
+    /**
+     * Returns the default hyphenation tree cache, which is shared by the whole JVM. It is used
+     * by the methods that don't take a cache. A {@link org.apache.fop.apps.FopFactory} uses its
+     * own cache.
+     * @return the default (static) hyphenation tree cache
+     */
     public static synchronized HyphenationTreeCache getHyphenationTreeCache() {
         if (hTreeCache == null) {
             hTreeCache = new HyphenationTreeCache();
@@ -93,9 +98,35 @@ public final class Hyphenator {
 
     public static HyphenationTree getHyphenationTree(String lang, String country,
                        InternalResourceResolver resourceResolver, Map hyphPatNames, EventBroadcaster eventBroadcaster) {
-        String llccKey = HyphenationTreeCache.constructLlccKey(lang, country);
-        HyphenationTreeCache cache = getHyphenationTreeCache();
+        return getHyphenationTree(lang, country, resourceResolver, hyphPatNames, eventBroadcaster,
+                getHyphenationTreeCache());
+    }
 
+    /**
+     * Returns a hyphenation tree for a given language and country,
+     * with fallback from (lang,country) to (lang).
+     * The hyphenation trees are cached in the given cache.
+     * If the tree is being preloaded, this method waits for it.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param eventBroadcaster the event broadcaster (may be null)
+     * @param cache the hyphenation tree cache
+     * @return the hyphenation tree
+     */
+    public static HyphenationTree getHyphenationTree(String lang, String country,
+            InternalResourceResolver resourceResolver, Map hyphPatNames,
+            EventBroadcaster eventBroadcaster, HyphenationTreeCache cache) {
+        cache.awaitPreload(lang, country);
+        return loadHyphenationTree(lang, country, resourceResolver, hyphPatNames, eventBroadcaster,
+                cache);
+    }
+
+    static HyphenationTree loadHyphenationTree(String lang, String country,
+            InternalResourceResolver resourceResolver, Map hyphPatNames,
+            EventBroadcaster eventBroadcaster, HyphenationTreeCache cache) {
+        String llccKey = HyphenationTreeCache.constructLlccKey(lang, country);
         // If this hyphenation tree has been registered as missing, return immediately
         if (cache.isMissing(llccKey)) {
             return null;
@@ -103,7 +134,7 @@ public final class Hyphenator {
 
         HyphenationTree hTree;
         // first try to find it in the cache
-        hTree = getHyphenationTreeCache().getHyphenationTree(lang, country);
+        hTree = cache.getHyphenationTree(lang, country);
         if (hTree != null) {
             return hTree;
         }
@@ -120,7 +151,8 @@ public final class Hyphenator {
         }
 
         if (hTree == null && country != null && !country.equals("none")) {
-            return getHyphenationTree(lang, null, resourceResolver, hyphPatNames, eventBroadcaster);
+            return loadHyphenationTree(lang, null, resourceResolver, hyphPatNames, eventBroadcaster,
+                    cache);
         }
 
         // put it into the pattern cache
@@ -310,4 +342,59 @@ public final class Hyphenator {
         }
         return hTree.hyphenate(word, leftMin, rightMin);
     }
+
+    /**
+     * Hyphenates a word, looking up the result in the given cache first.
+     * @param lang the language
+     * @param country the optional country code (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param word the word to hyphenate
+     * @param leftMin the minimum number of characters before the hyphenation point
+     * @param rightMin the minimum number of characters after the hyphenation point
+     * @param eventBroadcaster the event broadcaster (may be null)
+     * @param cache the cache of hyphenation results (may be null); it must only be used
+     * with the given resource resolver and pattern names
+     * @return the hyphenation result, or null if the word can't be hyphenated
+     */
+    public static Hyphenation hyphenate(String lang, String country, InternalResourceResolver resourceResolver,
+                                        Map hyphPatNames, String word, int leftMin, int rightMin,
+                                        EventBroadcaster eventBroadcaster, HyphenationCache cache) {
+        return hyphenate(lang, country, resourceResolver, hyphPatNames, word, leftMin, rightMin,
+                eventBroadcaster, getHyphenationTreeCache(), cache);
+    }
+
+    /**
+     * Hyphenates a word, looking up the result in the given cache first and the hyphenation
+     * tree in the given tree cache.
+     * @param lang the language
+     * @param country the optional country code (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param word the word to hyphenate
+     * @param leftMin the minimum number of characters before the hyphenation point
+     * @param rightMin the minimum number of characters after the hyphenation point
+     * @param eventBroadcaster the event broadcaster (may be null)
+     * @param treeCache the hyphenation tree cache
+     * @param cache the cache of hyphenation results (may be null); it must only be used
+     * with the given resource resolver and pattern names
+     * @return the hyphenation result, or null if the word can't be hyphenated
+     */
+    public static Hyphenation hyphenate(String lang, String country, InternalResourceResolver resourceResolver,
+                                        Map hyphPatNames, String word, int leftMin, int rightMin,
+                                        EventBroadcaster eventBroadcaster, HyphenationTreeCache treeCache,
+                                        HyphenationCache cache) {
+        Hyphenation hyph = (cache != null) ? cache.get(lang, country, word, leftMin, rightMin) : null;
+        if (hyph == null) {
+            HyphenationTree hTree = getHyphenationTree(lang, country, resourceResolver, hyphPatNames,
+                    eventBroadcaster, treeCache);
+            if (hTree != null) {
+                hyph = hTree.hyphenate(word, leftMin, rightMin);
+            }
+            if (cache != null) {
+                cache.put(lang, country, word, leftMin, rightMin, hyph);
+            }
+        }
+        return (hyph != HyphenationCache.NO_HYPHENATION) ? hyph : null;
+    }
 }
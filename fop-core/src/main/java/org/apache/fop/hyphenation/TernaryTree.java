@@ -405,6 +405,14 @@ public class TernaryTree implements Cloneable, Serializable {
         return length;
     }
 
+    /**
+     * Returns an estimate of the heap memory used by the node arrays and the key vector.
+     * @return the approximate size in bytes
+     */
+    public long getMemoryUsage() {
+        return 2L * (lo.length + hi.length + eq.length + sc.length + kv.capacity());
+    }
+
     /** {@inheritDoc} */
     public Object clone() throws CloneNotSupportedException {
         TernaryTree t = (TernaryTree) super.clone();
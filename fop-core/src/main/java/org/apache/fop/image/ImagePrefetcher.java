@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Source;
+
+import org.apache.xmlgraphics.image.loader.ImageContext;
+import org.apache.xmlgraphics.image.loader.ImageException;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+import org.apache.xmlgraphics.image.loader.impl.AbstractImageSessionContext;
+import org.apache.xmlgraphics.image.loader.impl.AbstractImageSessionContext.FallbackResolver;
+import org.apache.xmlgraphics.io.XmlSourceUtil;
+
+import org.apache.fop.apps.FOUserAgent;
+
+/**
+ * Loads the information about the images referenced from a document in the background, so
+ * the layout doesn't have to wait for each image in turn. The FO tree calls
+ * {@link #prefetch(String)} as soon as it knows an image URI, and the layout later calls
+ * {@link #getImageInfo(String)} which only blocks if the image hasn't been loaded yet.
+ * <p>
+ * One instance exists per {@link FOUserAgent}. The threads are provided by the
+ * {@link org.apache.fop.apps.FopFactory} (see
+ * {@link org.apache.fop.apps.FopFactoryBuilder#setImagePrefetchThreads(int)}). Without them,
+ * nothing is loaded in the background and {@link #getImageInfo(String)} simply loads the image
+ * information through the user agent's image session.
+ */
+public final class ImagePrefetcher {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final FOUserAgent userAgent;
+
+    private final Executor executor;
+
+    private final FallbackResolver fallbackResolver;
+
+    private final ConcurrentMap<String, FutureTask<ImageInfo>> pendingImages
+            = new ConcurrentHashMap<String, FutureTask<ImageInfo>>();
+
+    /**
+     * Creates a new instance.
+     * @param userAgent the user agent of the document
+     * @param executor the executor loading the images, or null to disable prefetching
+     * @param fallbackResolver the fallback resolver of the image sessions
+     */
+    public ImagePrefetcher(FOUserAgent userAgent, Executor executor,
+            FallbackResolver fallbackResolver) {
+        this.userAgent = userAgent;
+        this.executor = executor;
+        this.fallbackResolver = fallbackResolver;
+    }
+
+    /**
+     * Creates the bounded thread pool used to load images in the background. The threads are
+     * daemon threads which end after being idle for a while.
+     * @param threads the maximum number of threads
+     * @return the executor, or null if threads is 0
+     */
+    public static ExecutorService createExecutor(int threads) {
+        if (threads <= 0) {
+            return null;
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "FOP image prefetcher");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** @return true if images are loaded in the background */
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * Starts loading the information about an image in the background. Does nothing if
+     * prefetching is disabled or the image is already being loaded.
+     * <p>
+     * If the layout runs on a separate thread, images that aren't loaded in the background are
+     * left to the layout thread, as the image session of the user agent is used by the
+     * renderer and is not thread-safe.
+     * @param uri the URI of the image
+     * @return true if the caller must not load the image information itself, but request it
+     *          through {@link #getImageInfo(String)} once it is needed
+     */
+    public boolean prefetch(final String uri) {
+        if (uri == null || uri.length() == 0) {
+            return false;
+        }
+        if (executor == null) {
+            return userAgent.getLayoutPipelineDepth() > 0;
+        }
+        if (pendingImages.containsKey(uri)) {
+            return true;
+        }
+        FutureTask<ImageInfo> task = new FutureTask<ImageInfo>(new Callable<ImageInfo>() {
+            public ImageInfo call() throws Exception {
+                return userAgent.getImageManager().getImageInfo(uri, createSessionContext());
+            }
+        });
+        if (pendingImages.putIfAbsent(uri, task) == null) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException ree) {
+                //The task is run on the calling thread when the information is requested
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the information about an image. If the image is still being loaded in the
+     * background, this method waits for it. If its loading hasn't started yet, it is loaded on
+     * the calling thread. Images that haven't been prefetched are loaded through the image
+     * session of the user agent.
+     * @param uri the URI of the image
+     * @return the image information
+     * @throws ImageException if the image cannot be loaded
+     * @throws IOException if an I/O error occurs while loading the image
+     */
+    public ImageInfo getImageInfo(String uri) throws ImageException, IOException {
+        FutureTask<ImageInfo> task = pendingImages.remove(uri);
+        if (task != null) {
+            //No-op if the task has already been started by the executor
+            task.run();
+            try {
+                return task.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof ImageException) {
+                    throw (ImageException) cause;
+                } else if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new ImageException("Error while loading image information for " + uri, cause);
+            }
+        }
+        return userAgent.getImageManager().getImageInfo(uri, userAgent.getImageSessionContext());
+    }
+
+    /**
+     * Creates an image session for a single background task. The user agent's image session
+     * cannot be used because it is not thread-safe. The sources aren't kept for reuse as the
+     * image itself is loaded later, on the thread that renders the document.
+     */
+    private ImageSessionContext createSessionContext() {
+        return new AbstractImageSessionContext(fallbackResolver) {
+
+            public ImageContext getParentContext() {
+                return userAgent.getImageSessionContext().getParentContext();
+            }
+
+            public float getTargetResolution() {
+                return userAgent.getTargetResolution();
+            }
+
+            public Source resolveURI(String uri) {
+                return userAgent.resolveURI(uri);
+            }
+
+            public void returnSource(String uri, Source src) {
+                XmlSourceUtil.closeQuietly(src);
+            }
+        };
+    }
+}
@@ -28,8 +28,12 @@ import java.util.ListIterator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MetricsCollector;
+import org.apache.fop.apps.ProcessingMetrics.Phase;
 import org.apache.fop.events.EventBroadcaster;
 import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FObj;
 import org.apache.fop.layoutmgr.BreakingAlgorithm.KnuthNode;
 import org.apache.fop.traits.MinOptMax;
 import org.apache.fop.util.ListUtil;
@@ -274,6 +278,13 @@ public abstract class AbstractBreaker {
         return null;
     }
 
+    private MetricsCollector getMetricsCollector() {
+        LayoutManager lm = getTopLevelLM();
+        FObj fobj = (lm != null ? lm.getFObj() : null);
+        FOUserAgent userAgent = (fobj != null ? fobj.getUserAgent() : null);
+        return (userAgent != null ? userAgent.getMetricsCollector() : null);
+    }
+
     /**
      * Creates and returns a PageBreakingLayoutListener for the PageBreakingAlgorithm to
      * notify about layout problems.
@@ -614,6 +625,21 @@ public abstract class AbstractBreaker {
      */
     protected void addAreas(PageBreakingAlgorithm alg, int startPart, int partCount,
             BlockSequence originalList, BlockSequence effectiveList, final LayoutContext childLC) {
+        MetricsCollector metricsCollector = getMetricsCollector();
+        if (metricsCollector == null) {
+            doAddAreas(alg, startPart, partCount, originalList, effectiveList, childLC);
+            return;
+        }
+        metricsCollector.startPhase(Phase.AREA_TREE);
+        try {
+            doAddAreas(alg, startPart, partCount, originalList, effectiveList, childLC);
+        } finally {
+            metricsCollector.endPhase();
+        }
+    }
+
+    private void doAddAreas(PageBreakingAlgorithm alg, int startPart, int partCount,
+            BlockSequence originalList, BlockSequence effectiveList, final LayoutContext childLC) {
         int startElementIndex = 0;
         int endElementIndex = 0;
         int lastBreak = -1;
@@ -760,6 +786,23 @@ public abstract class AbstractBreaker {
     protected int getNextBlockList(LayoutContext childLC, int nextSequenceStartsOn,
             Position positionAtIPDChange, LayoutManager restartAtLM,
             List<KnuthElement> firstElements) {
+        MetricsCollector metricsCollector = getMetricsCollector();
+        if (metricsCollector == null) {
+            return doGetNextBlockList(childLC, nextSequenceStartsOn, positionAtIPDChange,
+                    restartAtLM, firstElements);
+        }
+        metricsCollector.startPhase(Phase.ELEMENT_LIST);
+        try {
+            return doGetNextBlockList(childLC, nextSequenceStartsOn, positionAtIPDChange,
+                    restartAtLM, firstElements);
+        } finally {
+            metricsCollector.endPhase();
+        }
+    }
+
+    private int doGetNextBlockList(LayoutContext childLC, int nextSequenceStartsOn,
+            Position positionAtIPDChange, LayoutManager restartAtLM,
+            List<KnuthElement> firstElements) {
         updateLayoutContext(childLC);
         //Make sure the span change signal is reset
         childLC.signalSpanChange(Constants.NOT_SET);
@@ -69,6 +69,9 @@ public abstract class AbstractLayoutManager extends AbstractBaseLayoutManager im
 
     private boolean preserveChildrenAtEndOfLayout;
 
+    /** Number of child LMs released by {@link #releaseFinishedChildLMs()} */
+    private int releasedChildLMCount;
+
     /**
      * Abstract layout manager.
      */
@@ -133,6 +136,49 @@ public abstract class AbstractLayoutManager extends AbstractBaseLayoutManager im
         } while (curChildLM != childLM);
     }
 
+    /**
+     * Indicates whether the given LM is the first child LM of this LM. This takes
+     * into account the child LMs that may have been released already.
+     * @param childLM the child layout manager
+     * @return true if childLM is the first child LM
+     */
+    protected boolean isFirstChildLM(LayoutManager childLM) {
+        return releasedChildLMCount == 0 && childLMs.get(0) == childLM;
+    }
+
+    /**
+     * Releases the child LMs preceding the current child LM, together with the child nodes
+     * of the formatting object that precede the one of the current child LM, so they can be
+     * garbage-collected. Must only be called when all the content of these child LMs has been
+     * added to the area tree, and the layout cannot be restarted from any of them anymore.
+     * In practice this is the case at the start of a new part only, see
+     * {@link FlowLayoutManager#isReleasingChildLMs()}.
+     * @return true if child LMs have been released
+     */
+    protected boolean releaseFinishedChildLMs() {
+        if (preserveChildrenAtEndOfLayout || curChildLM == null) {
+            return false;
+        }
+        int count = childLMs.indexOf(curChildLM);
+        if (count <= 0) {
+            return false;
+        }
+        childLMs.subList(0, count).clear();
+        releasedChildLMCount += count;
+        setCurrentChildLM(curChildLM);
+
+        // find the child node the current child LM was created for; the FO of a LineLM is
+        // the block itself though, so its content isn't released while inside a paragraph
+        FONode childNode = curChildLM.getFObj();
+        while (childNode != null && childNode != fobj && childNode.getParent() != fobj) {
+            childNode = childNode.getParent();
+        }
+        if (childNode != null && childNode != fobj) {
+            fobj.releaseChildNodesBefore(childNode);
+        }
+        return true;
+    }
+
     /**
      * Return indication if getChildLM will return another LM.
      * @return true if another child LM is still available
@@ -505,6 +551,7 @@ public abstract class AbstractLayoutManager extends AbstractBaseLayoutManager im
 
     public void recreateChildrenLMs() {
         childLMs = new ArrayList();
+        releasedChildLMCount = 0;
         isFinished = false;
         if (fobj == null) {
             return;
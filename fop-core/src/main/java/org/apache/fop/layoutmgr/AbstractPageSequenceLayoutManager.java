@@ -225,8 +225,27 @@ public abstract class AbstractPageSequenceLayoutManager extends AbstractLayoutMa
      * could be found.
      */
     public RetrieveMarker resolveRetrieveMarker(RetrieveMarker rm) {
+        Marker mark = findMarker(rm);
+        if (mark == null) {
+            log.debug("found no marker with name: " + rm.getRetrieveClassName());
+            return null;
+        } else {
+            rm.bindMarker(mark);
+            return rm;
+        }
+    }
+
+    /**
+     * Looks up the Marker a RetrieveMarker refers to on the current page or
+     * the preceding pages, as described for {@link #resolveRetrieveMarker(RetrieveMarker)},
+     * but without binding it.
+     *
+     * @param rm the RetrieveMarker instance whose properties are to
+     * used to find the matching Marker.
+     * @return the matching Marker, or null if no Marker could be found.
+     */
+    protected Marker findMarker(RetrieveMarker rm) {
         AreaTreeModel areaTreeModel = areaTreeHandler.getAreaTreeModel();
-        String name = rm.getRetrieveClassName();
         int boundary = rm.getRetrieveBoundary();
 
         // get marker from the current markers on area tree
@@ -258,14 +277,7 @@ public abstract class AbstractPageSequenceLayoutManager extends AbstractLayoutMa
                 }
             }
         }
-
-        if (mark == null) {
-            log.debug("found no marker with name: " + name);
-            return null;
-        } else {
-            rm.bindMarker(mark);
-            return rm;
-        }
+        return mark;
     }
 
     /**
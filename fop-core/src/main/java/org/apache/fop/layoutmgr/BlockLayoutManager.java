@@ -110,6 +110,9 @@ public class BlockLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
     public List getNextKnuthElements(LayoutContext context, int alignment, Stack lmStack,
             Position restartPosition, LayoutManager restartAtLM) {
         resetSpaces();
+        if (lmStack == null && isReleasingChildLMs()) {
+            releaseFinishedChildLMs();
+        }
         return super.getNextKnuthElements(
                 context, alignment, lmStack, restartPosition, restartAtLM);
     }
@@ -132,7 +135,7 @@ public class BlockLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
             // nop; will have been properly set by makeChildLayoutContext()
         }
 
-        if (childLM == this.childLMs.get(0)) {
+        if (isFirstChildLM(childLM)) {
             childLC.setFlags(LayoutContext.SUPPRESS_BREAK_BEFORE);
             //Handled already by the parent (break collapsing, see above)
         }
@@ -196,6 +199,49 @@ public class BlockLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
             }
             return pos < listLMs.size();
         }
+
+        /**
+         * Removes the child LMs preceding the given one, after they have been released.
+         * @param lm the first child LM to keep
+         */
+        protected void releaseBefore(LayoutManager lm) {
+            int count = listLMs.indexOf(lm);
+            if (count > 0) {
+                listLMs.subList(0, count).clear();
+                curPos -= count;
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the finished child LMs can be released when the layout of a new part
+     * starts. This is the case for blocks that are only nested in other blocks inside the flow,
+     * as their content is then only requested again after the previous part has been added to
+     * the area tree. Nothing is released within a part, so a block without forced breaks inside
+     * keeps all of its child LMs until its layout is done.
+     * @return true if finished child LMs are released
+     */
+    private boolean isReleasingChildLMs() {
+        LayoutManager lm = getParent();
+        while (lm instanceof BlockLayoutManager) {
+            lm = lm.getParent();
+        }
+        return lm instanceof FlowLayoutManager && ((FlowLayoutManager) lm).isReleasingChildLMs();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean releaseFinishedChildLMs() {
+        if (!super.releaseFinishedChildLMs()) {
+            return false;
+        }
+        // the proxy iterator holds the complete list of child LMs as well
+        LayoutManager firstLM = curChildLM;
+        if (curChildLM instanceof LineLayoutManager && !curChildLM.getChildLMs().isEmpty()) {
+            firstLM = (LayoutManager) curChildLM.getChildLMs().get(0);
+        }
+        ((ProxyLMiter) proxyLMiter).releaseBefore(firstLM);
+        return true;
     }
 
     /** {@inheritDoc} */
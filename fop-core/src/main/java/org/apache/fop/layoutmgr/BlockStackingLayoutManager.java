@@ -488,7 +488,7 @@ public abstract class BlockStackingLayoutManager extends AbstractLayoutManager
             LayoutContext childLC, int alignment, Stack<LayoutManager> lmStack,
             Position restartPosition, LayoutManager restartAtLM) {
 
-        if (childLM == this.childLMs.get(0)) {
+        if (isFirstChildLM(childLM)) {
             childLC.setFlags(LayoutContext.SUPPRESS_BREAK_BEFORE);
             //Handled already by the parent (break collapsing, see above)
         }
@@ -22,6 +22,7 @@ package org.apache.fop.layoutmgr;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.MetricsCollector;
 import org.apache.fop.fo.Constants;
 
 /**
@@ -192,6 +193,9 @@ public abstract class BreakingAlgorithm {
     private boolean partOverflowRecoveryActivated = true;
     private KnuthNode lastRecovered;
 
+    /** counts the elements and active nodes, if processing metrics are collected */
+    private MetricsCollector metricsCollector;
+
     /**
      * Create a new instance.
      *
@@ -220,6 +224,20 @@ public abstract class BreakingAlgorithm {
         this.maxFlaggedPenaltiesCount = maxFlagCount;
     }
 
+    /**
+     * Sets the collector counting the Knuth elements and active nodes processed by
+     * this algorithm.
+     * @param metricsCollector the collector (may be null)
+     */
+    public void setMetricsCollector(MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+    }
+
+    /** @return the collector for the processing metrics, or null */
+    protected MetricsCollector getMetricsCollector() {
+        return this.metricsCollector;
+    }
+
 
     /**
      * Class recording all the informations of a feasible breaking point.
@@ -525,6 +543,9 @@ public abstract class BreakingAlgorithm {
         this.par = par;
         this.threshold = threshold;
         this.force = force;
+        if (metricsCollector != null) {
+            metricsCollector.addKnuthElements(par.size() - startIndex);
+        }
 
         // initialize the algorithm
         initialize();
@@ -1356,6 +1377,9 @@ public abstract class BreakingAlgorithm {
         }
         activeLines[headIdx + 1] = node;
         activeNodeCount++;
+        if (metricsCollector != null) {
+            metricsCollector.addActiveNode();
+        }
     }
 
     /**
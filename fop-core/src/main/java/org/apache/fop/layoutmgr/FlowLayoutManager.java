@@ -105,6 +105,10 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
             }
             setCurrentChildLM(currentChildLM);
         } else {
+            if (isReleasingChildLMs()) {
+                // the areas for the content of the previous parts have been added
+                releaseFinishedChildLMs();
+            }
             currentChildLM = getChildLM();
         }
 
@@ -135,6 +139,22 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
         return elements;
     }
 
+    /**
+     * Indicates whether the child LMs, and the FO subtrees they were created for, are released
+     * once their content has been added to the area tree. This is not possible if the layout
+     * for the last page may be redone, as it may then be restarted from an earlier part.
+     * <p>
+     * Child LMs are only released when the layout of a new part starts, i.e. after a forced
+     * break or a span change, since the element list of the current part references all of
+     * its content. A page-sequence without forced breaks therefore releases nothing. Also, the
+     * FO tree of the whole page-sequence is built before its layout starts, so this lowers the
+     * memory held while the later parts are laid out but doesn't bound the peak memory use.
+     * @return true if finished child LMs are released
+     */
+    boolean isReleasingChildLMs() {
+        return !getPSLM().getPageSequence().hasPagePositionLast();
+    }
+
     private List<ListElement> addChildElements(List<ListElement> elements,
             LayoutManager childLM, LayoutContext context, int alignment,
             Stack<LayoutManager> lmStack, Position position, LayoutManager restartAtLM) {
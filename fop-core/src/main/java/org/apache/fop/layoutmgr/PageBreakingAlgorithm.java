@@ -27,6 +27,8 @@ import java.util.ListIterator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.MetricsCollector;
+import org.apache.fop.apps.ProcessingMetrics;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.FObj;
 import org.apache.fop.layoutmgr.AbstractBreaker.FloatPosition;
@@ -145,6 +147,27 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         this.footnoteSeparatorLength = footnoteSeparatorLength;
         this.autoHeight = autoHeight;
         this.favorSinglePart = favorSinglePart;
+        FObj fobj = topLevelLM.getFObj();
+        if (fobj != null) {
+            setMetricsCollector(fobj.getUserAgent().getMetricsCollector());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int findBreakingPoints(KnuthSequence par, int startIndex,
+                                  double threshold, boolean force,
+                                  int allowedBreaks) {
+        MetricsCollector metricsCollector = getMetricsCollector();
+        if (metricsCollector == null) {
+            return super.findBreakingPoints(par, startIndex, threshold, force, allowedBreaks);
+        }
+        metricsCollector.startPhase(ProcessingMetrics.Phase.PAGE_BREAKING);
+        try {
+            return super.findBreakingPoints(par, startIndex, threshold, force, allowedBreaks);
+        } finally {
+            metricsCollector.endPhase();
+        }
     }
 
     /**
@@ -26,6 +26,7 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.area.Area;
 import org.apache.fop.area.AreaTreeHandler;
 import org.apache.fop.area.AreaTreeModel;
@@ -63,6 +64,9 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
     private int startIntrusionAdjustment;
     private int endIntrusionAdjustment;
 
+    /** Laid out side regions reused on subsequent pages (null if disabled) */
+    private StaticContentLayoutCache staticContentLayoutCache;
+
     /**
      * Constructor
      *
@@ -74,6 +78,20 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         this.pageProvider = new PageProvider(ath, pseq);
     }
 
+    /**
+     * Returns the cache of laid out side regions.
+     * @return the cache, or null if side regions are laid out on every page
+     */
+    StaticContentLayoutCache getStaticContentLayoutCache() {
+        //With accessibility, each copy would have to be tied to new structure tree elements
+        FOUserAgent userAgent = getPageSequence().getUserAgent();
+        if (staticContentLayoutCache == null && userAgent.isStaticContentCacheEnabled()
+                && !userAgent.isAccessibilityEnabled()) {
+            staticContentLayoutCache = new StaticContentLayoutCache(this, areaTreeHandler.getFontInfo());
+        }
+        return this.staticContentLayoutCache;
+    }
+
     /** @return the PageProvider applicable to this page-sequence. */
     public PageProvider getPageProvider() {
         return this.pageProvider;
@@ -173,6 +191,10 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         }
 
         if (log.isDebugEnabled()) {
+            if (staticContentLayoutCache != null) {
+                log.debug("Side regions reused from cache: " + staticContentLayoutCache.getHitCount()
+                        + ", laid out: " + staticContentLayoutCache.getMissCount());
+            }
             log.debug("Ending layout");
         }
     }
@@ -0,0 +1,428 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.awt.color.ColorSpace;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.area.Area;
+import org.apache.fop.area.Block;
+import org.apache.fop.area.BlockParent;
+import org.apache.fop.area.LineArea;
+import org.apache.fop.area.RegionReference;
+import org.apache.fop.area.Trait;
+import org.apache.fop.area.inline.InlineParent;
+import org.apache.fop.area.inline.InlineViewport;
+import org.apache.fop.area.inline.ResolvedPageNumber;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.flow.AbstractPageNumberCitation;
+import org.apache.fop.fo.flow.BasicLink;
+import org.apache.fop.fo.flow.Marker;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.flow.RetrieveTableMarker;
+import org.apache.fop.fo.pagination.SideRegion;
+import org.apache.fop.fo.pagination.StaticContent;
+import org.apache.fop.fonts.Font;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.fonts.FontTriplet;
+
+/**
+ * Cache of laid out side regions, held by a {@link PageSequenceLayoutManager}. Headers and
+ * footers are usually identical on every page, or differ only in an fo:page-number or in
+ * the content of an fo:retrieve-marker. For such static content, the block areas produced
+ * on one page are stored serialized, and each following page gets its own copy of them,
+ * since areas are mutable and renderers may change them. The text of the page-number areas
+ * in a copy is replaced as long as the new page number has the same width as the old one,
+ * so the layout is not affected. The markers retrieved on the page are part of the cache
+ * key.
+ * <p>
+ * Static content is not cached if it contains constructs that need to be registered with
+ * the page being laid out (IDs, page-number citations, internal links, table markers) or
+ * if its areas cannot be serialized.
+ */
+final class StaticContentLayoutCache {
+
+    private static final Log LOG = LogFactory.getLog(StaticContentLayoutCache.class);
+
+    /** The maximum number of laid out regions kept per page-sequence. */
+    private static final int MAX_ENTRIES = 64;
+
+    private final PageSequenceLayoutManager pslm;
+    private final FontInfo fontInfo;
+
+    /** key: StaticContent or Marker, value: retrieve-markers in the content or null if uncacheable */
+    private final Map<FObj, List<RetrieveMarker>> contentInfo
+            = new IdentityHashMap<FObj, List<RetrieveMarker>>();
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private int hits;
+    private int misses;
+
+    /**
+     * Creates a new cache.
+     * @param pslm the layout manager of the page-sequence
+     * @param fontInfo the font information, used to measure page numbers
+     */
+    StaticContentLayoutCache(PageSequenceLayoutManager pslm, FontInfo fontInfo) {
+        this.pslm = pslm;
+        this.fontInfo = fontInfo;
+    }
+
+    /**
+     * Creates the key identifying the layout of the given static content on the current page.
+     * @param sc the static content
+     * @param region the side region the content is laid out into
+     * @param target the region reference area of the current page
+     * @return the key, or null if the static content cannot be cached
+     */
+    Key createKey(StaticContent sc, SideRegion region, RegionReference target) {
+        List<RetrieveMarker> retrieveMarkers = getRetrieveMarkers(sc);
+        if (retrieveMarkers == null) {
+            return null;
+        }
+        Marker[] markers = new Marker[retrieveMarkers.size()];
+        for (int i = 0; i < markers.length; i++) {
+            markers[i] = pslm.findMarker(retrieveMarkers.get(i));
+            if (markers[i] != null && getRetrieveMarkers(markers[i]) == null) {
+                return null;
+            }
+        }
+        return new Key(sc, region, target.getIPD(), target.getBPD(), markers);
+    }
+
+    /**
+     * Adds the cached areas to the region of the current page.
+     * @param key the key
+     * @param target the region reference area of the current page
+     * @return the overflow amount of the region content (0 if it fits),
+     *          or -1 if there is no matching layout in the cache
+     */
+    int reuse(Key key, RegionReference target) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.areas == null) {
+            misses++;
+            return -1;
+        }
+        String pageNumber = pslm.getCurrentPV().getPageNumberString();
+        Block[] blocks = new Block[entry.areas.length];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = entry.areas[i].copy();
+            if (entry.areas[i].hasPageNumber && !updatePageNumbers(blocks[i], pageNumber)) {
+                misses++;
+                return -1;
+            }
+        }
+        for (Block block : blocks) {
+            target.addBlock(block);
+        }
+        hits++;
+        return entry.overflow;
+    }
+
+    /**
+     * Stores the areas that have been laid out into the region of the current page.
+     * @param key the key
+     * @param target the region reference area of the current page
+     * @param overflow the overflow amount of the region content
+     */
+    void store(Key key, RegionReference target, int overflow) {
+        Entry previous = entries.get(key);
+        if (previous != null && previous.areas == null) {
+            return;
+        }
+        List<Area> blocks = target.getBlocks();
+        SerializedBlock[] areas = new SerializedBlock[blocks.size()];
+        try {
+            for (int i = 0; i < areas.length; i++) {
+                areas[i] = new SerializedBlock(blocks.get(i));
+            }
+        } catch (IOException ioe) {
+            //Typically a NotSerializableException: remember so we don't try again
+            LOG.debug("Static content " + key.sc.getFlowName() + " is not cached: "
+                    + ioe.getMessage());
+            areas = null;
+        }
+        entries.put(key, new Entry(areas, overflow));
+    }
+
+    /** @return the number of regions copied from the cache */
+    int getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of cacheable regions that had to be laid out */
+    int getMissCount() {
+        return misses;
+    }
+
+    private List<RetrieveMarker> getRetrieveMarkers(FObj content) {
+        if (contentInfo.containsKey(content)) {
+            return contentInfo.get(content);
+        }
+        List<RetrieveMarker> retrieveMarkers = new ArrayList<RetrieveMarker>();
+        if (!collectRetrieveMarkers(content, retrieveMarkers)) {
+            retrieveMarkers = null;
+        } else if (retrieveMarkers.isEmpty()) {
+            retrieveMarkers = Collections.emptyList();
+        }
+        contentInfo.put(content, retrieveMarkers);
+        return retrieveMarkers;
+    }
+
+    private static boolean collectRetrieveMarkers(FObj fobj, List<RetrieveMarker> retrieveMarkers) {
+        FONode.FONodeIterator iter = fobj.getChildNodes();
+        while (iter != null && iter.hasNext()) {
+            FONode node = iter.next();
+            if (!(node instanceof FObj)) {
+                continue;
+            }
+            FObj child = (FObj) node;
+            if (child.hasId()
+                    || child instanceof AbstractPageNumberCitation
+                    || child instanceof RetrieveTableMarker
+                    || (child instanceof BasicLink && ((BasicLink) child).hasInternalDestination())) {
+                return false;
+            } else if (child instanceof RetrieveMarker) {
+                //The children are the marker content bound on a previous page
+                retrieveMarkers.add((RetrieveMarker) child);
+            } else if (!collectRetrieveMarkers(child, retrieveMarkers)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsPageNumber(Area area) {
+        if (area instanceof ResolvedPageNumber) {
+            return true;
+        }
+        for (Area child : getChildren(area)) {
+            if (containsPageNumber(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean updatePageNumbers(Area area, String pageNumber) {
+        if (area instanceof ResolvedPageNumber) {
+            return updatePageNumber((ResolvedPageNumber) area, pageNumber);
+        }
+        for (Area child : getChildren(area)) {
+            if (!updatePageNumbers(child, pageNumber)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<? extends Area> getChildren(Area area) {
+        if (area instanceof BlockParent) {
+            List<? extends Area> children = ((BlockParent) area).getChildAreas();
+            return children != null ? children : Collections.<Area>emptyList();
+        } else if (area instanceof LineArea) {
+            return ((LineArea) area).getInlineAreas();
+        } else if (area instanceof InlineParent) {
+            return ((InlineParent) area).getChildAreas();
+        } else if (area instanceof InlineViewport && ((InlineViewport) area).getContent() != null) {
+            return Collections.singletonList(((InlineViewport) area).getContent());
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    private boolean updatePageNumber(ResolvedPageNumber pn, String pageNumber) {
+        String text = pn.getText();
+        if (text.equals(pageNumber)) {
+            return true;
+        }
+        if (text.length() != pageNumber.length()) {
+            return false;
+        }
+        FontTriplet triplet = (FontTriplet) pn.getTrait(Trait.FONT);
+        Integer size = (Integer) pn.getTrait(Trait.FONT_SIZE);
+        if (triplet == null || size == null) {
+            return false;
+        }
+        Font font = fontInfo.getFontInstance(triplet, size);
+        if (getStringWidth(font, text) != getStringWidth(font, pageNumber)) {
+            return false;
+        }
+        for (int i = 0; i < pageNumber.length(); i++) {
+            font.mapChar(pageNumber.charAt(i));
+        }
+        return pn.replacePageNumber(pageNumber);
+    }
+
+    private static int getStringWidth(Font font, String str) {
+        int width = 0;
+        for (int i = 0; i < str.length(); i++) {
+            width += font.getCharWidth(str.charAt(i));
+        }
+        return width;
+    }
+
+    /** Identifies the layout of a static content in a side region. */
+    static final class Key {
+
+        private final StaticContent sc;
+        private final SideRegion region;
+        private final int ipd;
+        private final int bpd;
+        private final Marker[] markers;
+
+        private Key(StaticContent sc, SideRegion region, int ipd, int bpd, Marker[] markers) {
+            this.sc = sc;
+            this.region = region;
+            this.ipd = ipd;
+            this.bpd = bpd;
+            this.markers = markers;
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            int hash = System.identityHashCode(sc);
+            hash = 31 * hash + System.identityHashCode(region);
+            hash = 31 * hash + ipd;
+            hash = 31 * hash + bpd;
+            for (Marker marker : markers) {
+                hash = 31 * hash + System.identityHashCode(marker);
+            }
+            return hash;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (sc != other.sc || region != other.region || ipd != other.ipd
+                    || bpd != other.bpd || markers.length != other.markers.length) {
+                return false;
+            }
+            for (int i = 0; i < markers.length; i++) {
+                if (markers[i] != other.markers[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A block area in serialized form. Color spaces are compared by identity by some
+     * renderers, so they are kept aside rather than duplicated with every copy.
+     */
+    private static final class SerializedBlock {
+
+        private final List<Object> sharedObjects = new ArrayList<Object>();
+        private final byte[] data;
+        private final boolean hasPageNumber;
+
+        SerializedBlock(Area block) throws IOException {
+            this.hasPageNumber = containsPageNumber(block);
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bout) {
+                {
+                    enableReplaceObject(true);
+                }
+
+                protected Object replaceObject(Object obj) {
+                    if (obj instanceof ColorSpace) {
+                        sharedObjects.add(obj);
+                        return new SharedObjectRef(sharedObjects.size() - 1);
+                    }
+                    return obj;
+                }
+            };
+            out.writeObject(block);
+            out.close();
+            this.data = bout.toByteArray();
+        }
+
+        Block copy() {
+            try {
+                ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data)) {
+                    {
+                        enableResolveObject(true);
+                    }
+
+                    protected Object resolveObject(Object obj) {
+                        if (obj instanceof SharedObjectRef) {
+                            return sharedObjects.get(((SharedObjectRef) obj).index);
+                        }
+                        return obj;
+                    }
+                };
+                return (Block) in.readObject();
+            } catch (IOException ioe) {
+                throw new IllegalStateException(ioe);
+            } catch (ClassNotFoundException cnfe) {
+                throw new IllegalStateException(cnfe);
+            }
+        }
+    }
+
+    private static final class SharedObjectRef implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        SharedObjectRef(int index) {
+            this.index = index;
+        }
+    }
+
+    private static final class Entry {
+
+        /** the serialized block areas, or null if they cannot be serialized */
+        private final SerializedBlock[] areas;
+        private final int overflow;
+
+        private Entry(SerializedBlock[] areas, int overflow) {
+            this.areas = areas;
+            this.overflow = overflow;
+        }
+    }
+}
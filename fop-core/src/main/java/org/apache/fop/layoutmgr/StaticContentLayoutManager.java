@@ -136,25 +136,53 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
         }
         setContentAreaIPD(targetIPD);
         setContentAreaBPD(targetBPD);
+
+        RegionReference region = targetRegion;
+        StaticContentLayoutCache cache = null;
+        StaticContentLayoutCache.Key key = null;
+        if (region != null) {
+            cache = getPSLM().getStaticContentLayoutCache();
+            if (cache != null) {
+                key = cache.createKey(getStaticContentFO(), regionFO, region);
+            }
+            if (key != null) {
+                int overflow = cache.reuse(key, region);
+                if (overflow >= 0) {
+                    targetRegion = null;
+                    if (overflow > 0) {
+                        notifyOverflow(overflow);
+                    }
+                    return;
+                }
+            }
+        }
+
         breaker = new StaticContentBreaker(this, targetIPD, targetAlign);
         breaker.doLayout(targetBPD, autoHeight);
+        if (key != null) {
+            cache.store(key, region, breaker.getOverflowAmount());
+        }
         if (breaker.isOverflow()) {
             if (!autoHeight) {
-                String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
-
-                BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
-                        getStaticContentFO().getUserAgent().getEventBroadcaster());
-                boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
-                boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
-                        || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
-                eventProducer.staticRegionOverflow(this, regionFO.getName(),
-                        page,
-                        breaker.getOverflowAmount(), needClip, canRecover,
-                        getStaticContentFO().getLocator());
+                notifyOverflow(breaker.getOverflowAmount());
             }
         }
     }
 
+    private void notifyOverflow(int overflowAmount) {
+        String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
+
+        BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
+                getStaticContentFO().getUserAgent().getEventBroadcaster());
+        boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
+        boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
+                || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
+        eventProducer.staticRegionOverflow(this, regionFO.getName(),
+                page,
+                overflowAmount, needClip, canRecover,
+                getStaticContentFO().getLocator());
+    }
+
     /**
      * Convenience method that returns the Static Content node.
      * @return the static content node
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.fop.layoutmgr.KnuthElement;
+import org.apache.fop.layoutmgr.KnuthPenalty;
+import org.apache.fop.util.BoundedCache;
+
+/**
+ * Thread-safe cache of line breaking results. A paragraph is identified by a fingerprint
+ * of its Knuth elements (the widths, stretch and shrink values of boxes and glues and
+ * the widths and values of penalties) together with all the parameters that influence
+ * the breaking algorithm (available width, alignment, indentation, hyphenation settings).
+ * Since the fingerprint covers the complete input of the algorithm, paragraphs set in
+ * different fonts or with different properties never share a result.
+ * <p>
+ * The cached results only hold the chosen breaks, not the positions created for them,
+ * so no layout managers or FO nodes are retained. An instance is held by the
+ * {@link org.apache.fop.apps.FopFactory} unless line break caching is disabled in the
+ * configuration.
+ */
+public final class LineBreakCache extends BoundedCache<LineBreakCache.Key, LineBreakCache.Result> {
+
+    /** The default maximum number of ints held by the fingerprints of all cached paragraphs. */
+    public static final int DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+
+    private static final int BOX = 1;
+    private static final int GLUE = 2;
+    private static final int PENALTY = 3;
+    private static final int FLAGGED_PENALTY = 4;
+
+    /** Creates a new cache with the default maximum size. */
+    public LineBreakCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of ints held by the fingerprints of all cached
+     * paragraphs; when reached, the least recently used paragraphs are evicted
+     */
+    public LineBreakCache(int maxSize) {
+        super(maxSize);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of ints held by the fingerprints of all cached
+     * paragraphs
+     * @param segmentCount the number of segments the paragraphs are spread over
+     */
+    LineBreakCache(int maxSize, int segmentCount) {
+        super(maxSize, segmentCount);
+    }
+
+    /** {@inheritDoc} */
+    protected int weigh(Key key, Result result) {
+        return key.data.length;
+    }
+
+    /**
+     * Creates the key identifying a paragraph.
+     * @param par the Knuth elements of the paragraph
+     * @param params the parameters of the breaking algorithm
+     * @return the key, or null if the paragraph is too large to be cached
+     */
+    Key createKey(List<KnuthElement> par, int[] params) {
+        int n = par.size();
+        if (!fits(params.length + 4L * n)) {
+            return null;
+        }
+        int[] data = new int[params.length + 4 * n];
+        System.arraycopy(params, 0, data, 0, params.length);
+        int i = params.length;
+        for (int j = 0; j < n; j++) {
+            KnuthElement el = par.get(j);
+            data[i++] = el.getWidth();
+            if (el.isBox()) {
+                data[i++] = BOX;
+            } else if (el.isGlue()) {
+                data[i++] = GLUE;
+                data[i++] = el.getStretch();
+                data[i++] = el.getShrink();
+            } else {
+                KnuthPenalty penalty = (KnuthPenalty) el;
+                data[i++] = penalty.isPenaltyFlagged() ? FLAGGED_PENALTY : PENALTY;
+                data[i++] = penalty.getPenalty();
+            }
+        }
+        return new Key((i < data.length) ? Arrays.copyOf(data, i) : data);
+    }
+
+    /** Identifies a paragraph. */
+    static final class Key {
+
+        private final int[] data;
+
+        private final int hash;
+
+        private Key(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && Arrays.equals(data, other.data);
+        }
+    }
+
+    /**
+     * The line layout possibilities found for a paragraph. Each break is stored as the
+     * indexes of the first and last element of the line, the available shrink and
+     * stretch, the difference to the line width, the start and end indents and the
+     * adjustment ratio.
+     */
+    static final class Result {
+
+        /** The number of ints stored for each break. */
+        static final int BREAK_SIZE = 7;
+
+        private final int[] lineCounts;
+        private final double[] demerits;
+        private final int[][] breaks;
+        private final double[][] ratios;
+        private final int[] indexes;
+        private final int lastStartIndex;
+        private final int lastBreakIndex;
+
+        /**
+         * Creates a new result.
+         * @param possibilityCount the number of line layout possibilities
+         * @param indexes the minimum, optimum, maximum and chosen possibility indexes
+         * @param lastStartIndex the first element of the last line the algorithm measured
+         * @param lastBreakIndex the last element of the last line the algorithm measured
+         */
+        Result(int possibilityCount, int[] indexes, int lastStartIndex, int lastBreakIndex) {
+            this.lineCounts = new int[possibilityCount];
+            this.demerits = new double[possibilityCount];
+            this.breaks = new int[possibilityCount][];
+            this.ratios = new double[possibilityCount][];
+            this.indexes = indexes;
+            this.lastStartIndex = lastStartIndex;
+            this.lastBreakIndex = lastBreakIndex;
+        }
+
+        void setPossibility(int i, int lineCount, double dem) {
+            lineCounts[i] = lineCount;
+            demerits[i] = dem;
+            breaks[i] = new int[lineCount * BREAK_SIZE];
+            ratios[i] = new double[lineCount];
+        }
+
+        void setBreak(int i, int line, int[] values, double ratio) {
+            System.arraycopy(values, 0, breaks[i], line * BREAK_SIZE, BREAK_SIZE);
+            ratios[i][line] = ratio;
+        }
+
+        int getPossibilityCount() {
+            return lineCounts.length;
+        }
+
+        int getLineCount(int i) {
+            return lineCounts[i];
+        }
+
+        double getDemerits(int i) {
+            return demerits[i];
+        }
+
+        int getBreakValue(int i, int line, int value) {
+            return breaks[i][line * BREAK_SIZE + value];
+        }
+
+        double getRatio(int i, int line) {
+            return ratios[i][line];
+        }
+
+        int[] getIndexes() {
+            return indexes;
+        }
+
+        int getLastStartIndex() {
+            return lastStartIndex;
+        }
+
+        int getLastBreakIndex() {
+            return lastBreakIndex;
+        }
+    }
+}
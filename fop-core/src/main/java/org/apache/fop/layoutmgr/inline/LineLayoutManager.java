@@ -315,6 +315,11 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         private final int lead;
         private final int follow;
         private static final double MAX_DEMERITS = 10e6;
+        /** true if a line didn't fit even with all its shrink applied */
+        private boolean overflow;
+        /** the elements of the line for which the line height was computed last */
+        private int lastStartIndex = -1;
+        private int lastBreakIndex;
 
         public LineBreakingAlgorithm(int pageAlign, int textAlign, int textAlignLast, int indent, int fillerWidth,
                 int lh, int ld, int fl, boolean first, int maxFlagCount, LineLayoutManager llm) {
@@ -393,6 +398,9 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             }
 
             int lack = difference + bestActiveNode.availableShrink;
+            if (lack < 0) {
+                overflow = true;
+            }
             // if this LLM is nested inside a BlockContainerLayoutManager that is constraining
             // the available width and thus responsible for the overflow then we do not issue
             // warning event here and instead let the BCLM handle that at a later stage
@@ -430,6 +438,8 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         private LineBreakPosition makeLineBreakPosition(KnuthSequence par, int firstElementIndex, int lastElementIndex,
                 int availableShrink, int availableStretch, int difference, double ratio,
                 int startIndent, int endIndent) {
+            lastStartIndex = firstElementIndex;
+            lastBreakIndex = lastElementIndex;
             // line height calculation - spaceBefore may differ from spaceAfter
             // by 1mpt due to rounding
             int spaceBefore = (lineHeight - lead - follow) / 2;
@@ -844,14 +854,17 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         // use the member lineLayouts, which is read by LineBreakingAlgorithm.updateData1 and 2
         lineLayouts = new LineLayoutPossibilities();
         double maxAdjustment = 1;
+        int indent = textIndent.getValue(this);
+        int lh = lineHeight.getValue(this);
+        boolean first = (knuthParagraphs.indexOf(currPar) == 0);
+        int maxFlagCount = hyphenationLadderCount.getEnum() == EN_NO_LIMIT
+                ? 0 : hyphenationLadderCount.getValue();
         LineBreakingAlgorithm alg = new LineBreakingAlgorithm(alignment,
                                         textAlignment, textAlignmentLast,
-                                        textIndent.getValue(this), currPar.lineFiller.getOpt(),
-                                        lineHeight.getValue(this), lead, follow,
-                                        (knuthParagraphs.indexOf(currPar) == 0),
-                                        hyphenationLadderCount.getEnum() == EN_NO_LIMIT
-                                            ? 0 : hyphenationLadderCount.getValue(),
+                                        indent, currPar.lineFiller.getOpt(),
+                                        lh, lead, follow, first, maxFlagCount,
                                         this);
+        alg.setMetricsCollector(getFObj().getUserAgent().getMetricsCollector());
         alg.setConstantLineWidth(ipd);
         boolean canWrap = (wrapOption != EN_NO_WRAP);
         boolean canHyphenate = (canWrap && hyphenationProperties.hyphenate.getEnum() == EN_TRUE);
@@ -864,6 +877,25 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             findHyphenationPoints(currPar);
         }
 
+        // reuse the breaks found for an identical paragraph, if any
+        LineBreakCache cache = getFObj().getUserAgent().getLineBreakCache();
+        LineBreakCache.Key cacheKey = null;
+        if (cache != null) {
+            MinOptMax filler = currPar.lineFiller;
+            @SuppressWarnings("unchecked")
+            List<KnuthElement> elements = currPar;
+            cacheKey = cache.createKey(elements, new int[] {alignment, textAlignment,
+                    textAlignmentLast, indent, filler.getMin(), filler.getOpt(), filler.getMax(),
+                    lh, lead, follow, first ? 1 : 0, isFirstInBlock ? 1 : 0, maxFlagCount, ipd,
+                    canWrap ? 1 : 0, canHyphenate ? 1 : 0});
+            LineBreakCache.Result cached = (cacheKey != null) ? cache.get(cacheKey) : null;
+            if (cached != null) {
+                restoreLineLayouts(alg, currPar, cached);
+                return lineLayouts;
+            }
+        }
+        int parSize = currPar.size();
+
         // first try: do not consider hyphenation points as legal breaks
         int allowedBreaks = (canWrap ? BreakingAlgorithm.NO_FLAGGED_PENALTIES
                 : BreakingAlgorithm.ONLY_FORCED_BREAKS);
@@ -907,9 +939,77 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             lineLayouts.restorePossibilities();
         }
 
+        // results with overflowing lines are not cached, as they trigger events, and neither
+        // are those for which the algorithm had to modify the paragraph
+        if (cacheKey != null && !alg.overflow && currPar.size() == parSize) {
+            LineBreakCache.Result result = createCacheResult(alg);
+            if (result != null) {
+                cache.put(cacheKey, result);
+            }
+        }
         return lineLayouts;
     }
 
+    /**
+     * Creates the cacheable representation of the line layout possibilities just found.
+     * @param alg the line breaking algorithm used
+     * @return the cache result, or null if the possibilities can't be cached
+     */
+    private LineBreakCache.Result createCacheResult(LineBreakingAlgorithm alg) {
+        int count = lineLayouts.getPossibilitiesNumber();
+        LineBreakCache.Result result = new LineBreakCache.Result(count, lineLayouts.getIndexes(),
+                alg.lastStartIndex, alg.lastBreakIndex);
+        int[] values = new int[LineBreakCache.Result.BREAK_SIZE];
+        for (int i = 0; i < count; i++) {
+            int lineCount = lineLayouts.getLineCount(i);
+            if (lineLayouts.getBreakPositionCount(i) != lineCount) {
+                return null;
+            }
+            result.setPossibility(i, lineCount, lineLayouts.getDemerits(i));
+            for (int line = 0; line < lineCount; line++) {
+                LineBreakPosition lbp = lineLayouts.getBreakPosition(i, line);
+                values[0] = lbp.startIndex;
+                values[1] = lbp.getLeafPos();
+                values[2] = lbp.availableShrink;
+                values[3] = lbp.availableStretch;
+                values[4] = lbp.difference;
+                values[5] = lbp.startIndent;
+                values[6] = lbp.endIndent;
+                result.setBreak(i, line, values, lbp.ipdAdjust);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Recreates the line layout possibilities of a paragraph from a cache result. The break
+     * positions are built as the line breaking algorithm does, so the line heights reflect
+     * the content of this paragraph.
+     * @param alg the line breaking algorithm
+     * @param par the paragraph
+     * @param cached the cache result for an identical paragraph
+     */
+    private void restoreLineLayouts(LineBreakingAlgorithm alg, Paragraph par,
+            LineBreakCache.Result cached) {
+        for (int i = 0; i < cached.getPossibilityCount(); i++) {
+            lineLayouts.addPossibility(cached.getLineCount(i), cached.getDemerits(i));
+            // break positions are always added at the beginning of the list
+            for (int line = cached.getLineCount(i) - 1; line >= 0; line--) {
+                lineLayouts.addBreakPosition(alg.makeLineBreakPosition(par,
+                        cached.getBreakValue(i, line, 0), cached.getBreakValue(i, line, 1),
+                        cached.getBreakValue(i, line, 2), cached.getBreakValue(i, line, 3),
+                        cached.getBreakValue(i, line, 4), cached.getRatio(i, line),
+                        cached.getBreakValue(i, line, 5), cached.getBreakValue(i, line, 6)), i);
+            }
+        }
+        lineLayouts.setIndexes(cached.getIndexes());
+        // leave the constant line height as the line breaking algorithm did
+        if (cached.getLastStartIndex() >= 0) {
+            alg.makeLineBreakPosition(par, cached.getLastStartIndex(), cached.getLastBreakIndex(),
+                    0, 0, 0, 0, 0, 0);
+        }
+    }
+
     /**
      * Creates the element list in BP direction for the broken lines.
      * @param alignment the currently applicable vertical alignment
@@ -1435,7 +1535,9 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                                sbChars.toString(),
                                hyphenationProperties.hyphenationRemainCharacterCount.getValue(),
                                hyphenationProperties.hyphenationPushCharacterCount.getValue(),
-                               getFObj().getUserAgent().getEventBroadcaster());
+                               getFObj().getUserAgent().getEventBroadcaster(),
+                               getFObj().getUserAgent().getHyphenationTreeCache(),
+                               getFObj().getUserAgent().getHyphenationCache());
         // They hyph structure contains the information we need
         // Now start from prev: reset to that position, ask that LM to get
         // a Position for the first hyphenation offset. If the offset isn't in
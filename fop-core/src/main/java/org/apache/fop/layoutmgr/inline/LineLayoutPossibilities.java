@@ -247,6 +247,39 @@ public class LineLayoutPossibilities {
         return ((Possibility)possibilitiesList.get(chosenIndex)).getBreakPosition(i);
     }
 
+    /**
+     * @param i the possibilities list index
+     * @return the number of break positions
+     */
+    int getBreakPositionCount(int i) {
+        return ((Possibility)possibilitiesList.get(i)).breakPositions.size();
+    }
+
+    /**
+     * @param i the possibilities list index
+     * @param j the break position index
+     * @return the break position
+     */
+    LineLayoutManager.LineBreakPosition getBreakPosition(int i, int j) {
+        return ((Possibility)possibilitiesList.get(i)).getBreakPosition(j);
+    }
+
+    /** @return the minimum, optimum, maximum and chosen possibility indexes */
+    int[] getIndexes() {
+        return new int[] {minimumIndex, optimumIndex, maximumIndex, chosenIndex};
+    }
+
+    /**
+     * Sets the minimum, optimum, maximum and chosen possibility indexes.
+     * @param indexes the indexes, as returned by {@link #getIndexes()}
+     */
+    void setIndexes(int[] indexes) {
+        minimumIndex = indexes[0];
+        optimumIndex = indexes[1];
+        maximumIndex = indexes[2];
+        chosenIndex = indexes[3];
+    }
+
     /**
      * @param adj the adjustment
      * @return the adjustment or zero
@@ -132,6 +132,9 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
     private final Position auxiliaryPosition = new LeafPosition(this, -1);
 
+    /** Collects the characters of a word while its area is built, reused for all words */
+    private final StringBuilder wordChars = new StringBuilder();
+
     /**
      * Create a Text layout manager.
      *
@@ -353,13 +356,13 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         private TextArea textArea;              // text area being constructed
         private int blockProgressionDimension;  // calculated bpd
         private GlyphMapping mapping;           // current mapping when iterating over words
-        private StringBuffer wordChars;         // current word's character buffer
+        private int fullWordLength;             // current word's (possibly mapped) length
         private int[] letterSpaceAdjust;        // current word's letter space adjustments
         private int letterSpaceAdjustIndex;     // last written letter space adjustment index
-        private int[] wordLevels;               // current word's bidi levels
+        private int[] wordLevels;               // current word's bidi levels, null if none
         private int wordLevelsIndex;            // last written bidi level index
         private int wordIPD;                    // accumulated ipd of current word
-        private int[][] gposAdjustments;        // current word's glyph position adjustments
+        private int[][] gposAdjustments;        // current word's glyph position adjustments, null if none
         private int gposAdjustmentsIndex;       // last written glyph position adjustment index
 
         /**
@@ -528,19 +531,20 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         }
 
         /**
-         * Fully allocate word character buffer, letter space adjustments
-         * array, bidi levels array, and glyph position adjustments array.
-         * based on full word length, including all (possibly mapped) fragments.
+         * Clear the word character buffer and allocate the letter space adjustments array
+         * based on full word length, including all (possibly mapped) fragments. The bidi
+         * levels and glyph position adjustments arrays are only allocated once a fragment
+         * has levels or adjustments, since most words have neither.
          * @param wordLength length of word including all (possibly mapped) fragments
          */
         private void initWord(int wordLength) {
-            wordChars = new StringBuffer(wordLength);
+            fullWordLength = wordLength;
+            wordChars.setLength(0);
             letterSpaceAdjust = new int[wordLength];
             letterSpaceAdjustIndex = 0;
-            wordLevels = new int[wordLength];
+            wordLevels = null;
             wordLevelsIndex = 0;
-            Arrays.fill(wordLevels, -1);
-            gposAdjustments = new int[wordLength][4];
+            gposAdjustments = null;
             gposAdjustmentsIndex = 0;
             wordIPD = 0;
         }
@@ -620,12 +624,16 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             int numLevels = (levels != null) ? levels.length : 0;
             if (numLevels > 0) {
                 int need = wordLevelsIndex + numLevels;
-                if (need <= wordLevels.length) {
+                if (need <= fullWordLength) {
+                    if (wordLevels == null) {
+                        wordLevels = new int[fullWordLength];
+                        Arrays.fill(wordLevels, -1);
+                    }
                     System.arraycopy(levels, 0, wordLevels, wordLevelsIndex, numLevels);
                 } else {
                     throw new IllegalStateException(
                         "word levels array too short: expect at least "
-                          + need + " entries, but has only " + wordLevels.length + " entries");
+                          + need + " entries, but has only " + fullWordLength + " entries");
                 }
             }
             wordLevelsIndex += numLevels;
@@ -669,15 +677,17 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             int wordLength = wordMapping.getWordLength();
             if (numAdjusts > 0) {
                 int need = gposAdjustmentsIndex + numAdjusts;
-                if (need <= gposAdjustments.length) {
+                if (need <= fullWordLength) {
                     for (int i = 0, n = wordLength, j = 0; i < n; i++) {
                         if (i < numAdjusts) {
-                            int[] wpa1 = gposAdjustments [ gposAdjustmentsIndex + i ];
                             int[] wpa2 = gpa [ j++ ];
                             for (int k = 0; k < 4; k++) {
                                 int a = wpa2 [ k ];
                                 if (a != 0) {
-                                    wpa1 [ k ] += a;
+                                    if (gposAdjustments == null) {
+                                        gposAdjustments = new int[fullWordLength][4];
+                                    }
+                                    gposAdjustments [ gposAdjustmentsIndex + i ] [ k ] += a;
                                     adjusted = true;
                                 }
                             }
@@ -686,7 +696,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                 } else {
                     throw new IllegalStateException(
                         "gpos adjustments array too short: expect at least "
-                          + need + " entries, but has only " + gposAdjustments.length
+                          + need + " entries, but has only " + fullWordLength
                           + " entries");
                 }
             }
@@ -1205,20 +1215,19 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             if (foText.charAt(mapping.startIndex) != CharUtilities.SPACE
                     || foText.getWhitespaceTreatment() == Constants.EN_PRESERVE) {
                 // a breaking space that needs to be preserved
-                baseList.addAll(getElementsForBreakingSpace(alignment, mapping, auxiliaryPosition, 0,
-                        mainPosition, mapping.areaIPD.getOpt(), true));
+                addElementsForBreakingSpace(baseList, alignment, mapping, auxiliaryPosition, 0,
+                        mainPosition, mapping.areaIPD.getOpt(), true);
             } else {
                 // a (possible block) of breaking spaces
-                baseList.addAll(getElementsForBreakingSpace(alignment, mapping, mainPosition,
-                        mapping.areaIPD.getOpt(), auxiliaryPosition, 0, false));
+                addElementsForBreakingSpace(baseList, alignment, mapping, mainPosition,
+                        mapping.areaIPD.getOpt(), auxiliaryPosition, 0, false);
             }
         }
     }
 
-    private List getElementsForBreakingSpace(int alignment, GlyphMapping mapping, Position pos2,
-                                             int p2WidthOffset, Position pos3,
+    private void addElementsForBreakingSpace(List elements, int alignment, GlyphMapping mapping,
+                                             Position pos2, int p2WidthOffset, Position pos3,
                                              int p3WidthOffset, boolean skipZeroCheck) {
-        List elements = new ArrayList();
 
         switch (alignment) {
         case EN_CENTER:
@@ -1274,26 +1283,24 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         case EN_JUSTIFY:
             // justified text:
             // the stretch and shrink depends on the space width
-            elements.addAll(getElementsForJustifiedText(mapping, pos2, p2WidthOffset, pos3,
-                    p3WidthOffset, skipZeroCheck, mapping.areaIPD.getShrink()));
+            addElementsForJustifiedText(elements, mapping, pos2, p2WidthOffset, pos3,
+                    p3WidthOffset, skipZeroCheck, mapping.areaIPD.getShrink());
             break;
 
         default:
             // last line justified, the other lines unjustified:
             // use only the space stretch
-            elements.addAll(getElementsForJustifiedText(mapping, pos2, p2WidthOffset, pos3,
-                    p3WidthOffset, skipZeroCheck, 0));
+            addElementsForJustifiedText(elements, mapping, pos2, p2WidthOffset, pos3,
+                    p3WidthOffset, skipZeroCheck, 0);
         }
-        return elements;
     }
 
-    private List getElementsForJustifiedText(GlyphMapping mapping, Position pos2, int p2WidthOffset,
-                                             Position pos3, int p3WidthOffset, boolean skipZeroCheck,
-                                             int shrinkability) {
+    private void addElementsForJustifiedText(List elements, GlyphMapping mapping, Position pos2,
+                                             int p2WidthOffset, Position pos3, int p3WidthOffset,
+                                             boolean skipZeroCheck, int shrinkability) {
 
         int stretchability = mapping.areaIPD.getStretch();
 
-        List elements = new ArrayList();
         if (skipZeroCheck || lineStartBAP != 0 || lineEndBAP != 0) {
             elements.add(new KnuthGlue(lineEndBAP, 0, 0, auxiliaryPosition, false));
             elements.add(makeZeroWidthPenalty(0));
@@ -1306,7 +1313,6 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             elements.add(new KnuthGlue(mapping.areaIPD.getOpt(), stretchability, shrinkability,
                     pos2, false));
         }
-        return elements;
     }
 
     private void addElementsForAWordFragment(List baseList, int alignment, GlyphMapping mapping,
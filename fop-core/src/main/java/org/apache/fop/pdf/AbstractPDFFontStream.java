@@ -19,12 +19,22 @@
 
 package org.apache.fop.pdf;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.fop.fonts.FontSubsetCache;
 
 /**
  * Base class for PDF font streams.
  */
 public abstract class AbstractPDFFontStream extends AbstractPDFStream {
 
+    private FontSubsetCache.Entry cachedSubset;
+
+    private byte[] compressedData;
+
     /**
      * Main constructor.
      */
@@ -37,4 +47,51 @@ public abstract class AbstractPDFFontStream extends AbstractPDFStream {
         return PDFFilterList.FONT_FILTER;
     }
 
+    /**
+     * Sets the cache entry holding the data of this stream. If the stream is only
+     * flate-compressed, the compressed data is taken from the entry, or stored in it
+     * for the next document.
+     * @param cachedSubset the cache entry
+     */
+    public void setCachedSubset(FontSubsetCache.Entry cachedSubset) {
+        this.cachedSubset = cachedSubset;
+    }
+
+    /** {@inheritDoc} */
+    protected void setupFilterList() {
+        super.setupFilterList();
+        if (cachedSubset == null || getFilterList().isDisableAllFilters()) {
+            return;
+        }
+        List<PDFFilter> filters = getFilterList().getFilters();
+        if (filters.size() == 1 && filters.get(0).getClass() == FlateFilter.class
+                && !filters.get(0).isApplied() && filters.get(0).getDecodeParms() == null) {
+            PDFFilter flate = filters.get(0);
+            compressedData = cachedSubset.getCompressedData();
+            if (compressedData == null) {
+                ByteArrayOutputStream bout = new ByteArrayOutputStream(cachedSubset.getData().length);
+                try {
+                    OutputStream out = flate.applyFilter(bout);
+                    out.write(cachedSubset.getData());
+                    out.close();
+                } catch (IOException ioe) {
+                    //cannot happen with an in-memory stream; encode as usual
+                    return;
+                }
+                compressedData = bout.toByteArray();
+                cachedSubset.setCompressedData(compressedData);
+            }
+            flate.setApplied(true);
+        }
+    }
+
+    /**
+     * Returns the already compressed data to write instead of the font data, if the
+     * compressed form of a cached subset is used.
+     * @return the compressed data, or null if the font data is to be encoded as usual
+     */
+    protected byte[] getCompressedData() {
+        return compressedData;
+    }
+
 }
@@ -35,6 +35,8 @@ class ObjectStreamManager {
 
     private final PDFDocument pdfDocument;
 
+    private final boolean trailer;
+
     private final List<CompressedObjectReference> compressedObjectReferences;
 
     private int numObjectsInStream;
@@ -42,7 +44,17 @@ class ObjectStreamManager {
     private ObjectStream currentObjectStream;
 
     ObjectStreamManager(PDFDocument pdfDocument) {
+        this(pdfDocument, true);
+    }
+
+    /**
+     * @param trailer true to write the object streams with the trailer, false to write them
+     * with the next objects of the document, in which case all objects must be added before
+     * the document is flushed
+     */
+    ObjectStreamManager(PDFDocument pdfDocument, boolean trailer) {
         this.pdfDocument = pdfDocument;
+        this.trailer = trailer;
         createObjectStream();
         compressedObjectReferences = new ArrayList<CompressedObjectReference>();
     }
@@ -60,7 +72,11 @@ class ObjectStreamManager {
                 ? new ObjectStream()
                 : new ObjectStream(currentObjectStream);
         pdfDocument.assignObjectNumber(currentObjectStream);
-        pdfDocument.addTrailerObject(currentObjectStream);
+        if (trailer) {
+            pdfDocument.addTrailerObject(currentObjectStream);
+        } else {
+            pdfDocument.addObject(currentObjectStream);
+        }
     }
 
     List<CompressedObjectReference> getCompressedObjectReferences() {
@@ -58,7 +58,8 @@ public class PDFCFFStreamType0C extends AbstractPDFFontStream {
 
     /** {@inheritDoc} */
     protected void outputRawStreamData(OutputStream out) throws IOException {
-        out.write(this.cffData);
+        byte[] compressed = getCompressedData();
+        out.write((compressed != null) ? compressed : this.cffData);
     }
 
     /** {@inheritDoc} */
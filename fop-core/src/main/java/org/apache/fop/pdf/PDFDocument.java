@@ -29,14 +29,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.fonts.FontSubsetCache;
 import org.apache.fop.pdf.StandardStructureAttributes.Table.Scope;
+import org.apache.fop.pdf.xref.CompressedObjectReference;
 import org.apache.fop.pdf.xref.CrossReferenceStream;
 import org.apache.fop.pdf.xref.CrossReferenceTable;
 import org.apache.fop.pdf.xref.TrailerDictionary;
@@ -84,6 +88,12 @@ public class PDFDocument {
 
     protected List<PDFStructElem> structureTreeElements;
 
+    /** the structure elements not written yet, if the structure tree is written incrementally */
+    private Set<PDFStructElem> unwrittenStructureElements;
+
+    /** the structure elements written to object streams before the trailer */
+    private List<CompressedObjectReference> flushedStructureElements;
+
     /** List of objects to write in the trailer */
     protected List<PDFObject> trailerObjects = new ArrayList<PDFObject>();
 
@@ -174,6 +184,12 @@ public class PDFDocument {
 
     private boolean linearizationEnabled;
 
+    private boolean incrementalStructureTree;
+
+    private PDFSpooledLinearization spooledLinearization;
+
+    private FontSubsetCache fontSubsetCache;
+
     protected boolean outputStarted;
 
     /**
@@ -374,6 +390,10 @@ public class PDFDocument {
         addTrailerObject(structTreeRoot);
         root.setStructTreeRoot(structTreeRoot);
         structureTreeElements = new ArrayList<PDFStructElem>();
+        if (incrementalStructureTree) {
+            unwrittenStructureElements = new LinkedHashSet<PDFStructElem>();
+            flushedStructureElements = new ArrayList<CompressedObjectReference>();
+        }
         return structTreeRoot;
     }
 
@@ -382,7 +402,48 @@ public class PDFDocument {
      */
     public void registerStructureElement(PDFStructElem structElem) {
         assignObjectNumber(structElem);
-        structureTreeElements.add(structElem);
+        if (unwrittenStructureElements != null) {
+            unwrittenStructureElements.add(structElem);
+        } else {
+            structureTreeElements.add(structElem);
+        }
+    }
+
+    /**
+     * Writes the given structure elements with the next objects of this document instead of
+     * with the trailer. The elements must be complete since they can't be changed once written.
+     *
+     * @param elements structure elements registered with this document
+     * @see #setIncrementalStructureTree(boolean)
+     */
+    public void flushStructureElements(Collection<PDFStructElem> elements) {
+        if (unwrittenStructureElements == null) {
+            throw new IllegalStateException("The structure tree is not written incrementally");
+        }
+        List<PDFStructElem> finished = new ArrayList<PDFStructElem>(elements.size());
+        for (PDFStructElem structElem : elements) {
+            if (unwrittenStructureElements.remove(structElem)) {
+                finished.add(structElem);
+            }
+        }
+        if (finished.isEmpty()) {
+            return;
+        }
+        if (mayCompressStructureTreeElements()) {
+            ObjectStreamManager objectStreams = new ObjectStreamManager(this, false);
+            for (PDFStructElem structElem : finished) {
+                objectStreams.add(structElem);
+            }
+            flushedStructureElements.addAll(objectStreams.getCompressedObjectReferences());
+        } else {
+            for (PDFStructElem structElem : finished) {
+                addObject(structElem);
+            }
+        }
+    }
+
+    private Collection<PDFStructElem> getUnwrittenStructureElements() {
+        return unwrittenStructureElements != null ? unwrittenStructureElements : structureTreeElements;
     }
 
     /**
@@ -506,7 +567,11 @@ public class PDFDocument {
         }
         if (obj instanceof PDFPage) {
             this.pages.notifyKidRegistered((PDFPage)obj);
-            pageObjs.add((PDFPage) obj);
+            if (spooledLinearization != null) {
+                spooledLinearization.addPage((PDFPage) obj);
+            } else {
+                pageObjs.add((PDFPage) obj);
+            }
         }
         if (obj instanceof PDFLaunch) {
             this.launches.add((PDFLaunch) obj);
@@ -1127,7 +1192,7 @@ public class PDFDocument {
     private boolean mayCompressStructureTreeElements() {
         return accessibilityEnabled
                 && versionController.getPDFVersion().compareTo(Version.V1_5) >= 0
-                && !isLinearizationEnabled();
+                && !isLinearizationEnabled() && spooledLinearization == null;
     }
 
     private TrailerDictionary createTrailerDictionary(boolean addRoot) {
@@ -1154,6 +1219,22 @@ public class PDFDocument {
         }
     }
 
+    /**
+     * Returns the cache of subset font programs shared with other documents.
+     * @return the font subset cache, or null if subsets are not cached
+     */
+    public FontSubsetCache getFontSubsetCache() {
+        return fontSubsetCache;
+    }
+
+    /**
+     * Sets the cache of subset font programs shared with other documents.
+     * @param fontSubsetCache the font subset cache (may be null)
+     */
+    public void setFontSubsetCache(FontSubsetCache fontSubsetCache) {
+        this.fontSubsetCache = fontSubsetCache;
+    }
+
     private interface TrailerOutputHelper {
 
         void outputStructureTreeElements(OutputStream stream) throws IOException;
@@ -1170,7 +1251,7 @@ public class PDFDocument {
 
         public void outputStructureTreeElements(OutputStream stream)
                 throws IOException {
-            streamIndirectObjects(structureTreeElements, stream);
+            streamIndirectObjects(getUnwrittenStructureElements(), stream);
         }
 
         public long outputCrossReferenceObject(OutputStream stream,
@@ -1183,14 +1264,22 @@ public class PDFDocument {
 
     private class CompressedTrailerOutputHelper implements TrailerOutputHelper {
 
-        private ObjectStreamManager structureTreeObjectStreams;
+        private List<CompressedObjectReference> compressedObjectReferences;
 
         public void outputStructureTreeElements(OutputStream stream)
                 throws IOException {
-            assert structureTreeElements.size() > 0;
-            structureTreeObjectStreams = new ObjectStreamManager(PDFDocument.this);
-            for (PDFStructElem structElem : structureTreeElements) {
-                structureTreeObjectStreams.add(structElem);
+            Collection<PDFStructElem> structElems = getUnwrittenStructureElements();
+            assert structElems.size() > 0 || flushedStructureElements != null;
+            compressedObjectReferences = new ArrayList<CompressedObjectReference>();
+            if (flushedStructureElements != null) {
+                compressedObjectReferences.addAll(flushedStructureElements);
+            }
+            if (!structElems.isEmpty()) {
+                ObjectStreamManager structureTreeObjectStreams = new ObjectStreamManager(PDFDocument.this);
+                for (PDFStructElem structElem : structElems) {
+                    structureTreeObjectStreams.add(structElem);
+                }
+                compressedObjectReferences.addAll(structureTreeObjectStreams.getCompressedObjectReferences());
             }
         }
 
@@ -1199,8 +1288,7 @@ public class PDFDocument {
             // Outputting the object streams should not have created new indirect objects
             assert objects.isEmpty();
             new CrossReferenceStream(PDFDocument.this, ++objectcount, trailerDictionary, position,
-                    indirectObjectOffsets,
-                    structureTreeObjectStreams.getCompressedObjectReferences())
+                    indirectObjectOffsets, compressedObjectReferences)
                     .output(stream);
             return position;
         }
@@ -1229,4 +1317,41 @@ public class PDFDocument {
         linearizationEnabled = b;
     }
 
+    /**
+     * Indicates whether finished parts of the structure tree are written before the end of the
+     * document.
+     * @return true if the structure tree is written incrementally
+     */
+    public boolean isIncrementalStructureTree() {
+        return incrementalStructureTree;
+    }
+
+    /**
+     * Controls whether finished parts of the structure tree may be written before the end of
+     * the document, see {@link #flushStructureElements(Collection)}. Otherwise all structure
+     * elements are kept until the trailer is written. Must be set before the structure tree
+     * root is created.
+     * @param incrementalStructureTree true to write the structure tree incrementally
+     */
+    public void setIncrementalStructureTree(boolean incrementalStructureTree) {
+        this.incrementalStructureTree = incrementalStructureTree;
+    }
+
+    /**
+     * Indicates whether the document is written to a spool file and linearized at the end.
+     * @return true if the document is linearized from a spool file
+     */
+    public boolean isLinearizationSpooled() {
+        return spooledLinearization != null;
+    }
+
+    /**
+     * Sets the object linearizing the document from the spool file it is written to. The
+     * document must then be written normally, without {@link #setLinearizationEnabled(boolean)}.
+     * @param spooledLinearization the spooled linearization
+     */
+    public void setSpooledLinearization(PDFSpooledLinearization spooledLinearization) {
+        this.spooledLinearization = spooledLinearization;
+    }
+
 }
@@ -52,6 +52,7 @@ import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.EmbeddingMode;
 import org.apache.fop.fonts.FontDescriptor;
 import org.apache.fop.fonts.FontMetrics;
+import org.apache.fop.fonts.FontSubsetCache;
 import org.apache.fop.fonts.FontType;
 import org.apache.fop.fonts.LazyFont;
 import org.apache.fop.fonts.MultiByteFont;
@@ -1368,21 +1369,18 @@ public class PDFFactory {
             AbstractPDFStream embeddedFont = null;
             if (desc.getFontType() == FontType.TYPE0) {
                 MultiByteFont mbfont = (MultiByteFont) font;
-                FontFileReader reader = new FontFileReader(in);
-                byte[] fontBytes;
-                String header = OFFontLoader.readHeader(reader);
                 boolean isCFF = mbfont.isOTFFile();
                 if (font.getEmbeddingMode() == EmbeddingMode.FULL) {
-                    fontBytes = reader.getAllBytes();
+                    FontFileReader reader = new FontFileReader(in);
+                    byte[] fontBytes = reader.getAllBytes();
                     if (isCFF) {
                         //Ensure version 1.6 for full OTF CFF embedding
                         document.setPDFVersion(Version.V1_6);
                     }
+                    embeddedFont = getFontStream(font, fontBytes, isCFF);
                 } else {
-                    fontBytes = getFontSubsetBytes(reader, mbfont, header, fontPrefix, desc,
-                            isCFF);
+                    embeddedFont = getFontSubsetStream(in, mbfont, fontPrefix, desc, isCFF);
                 }
-                embeddedFont = getFontStream(font, fontBytes, isCFF);
             } else if (desc.getFontType() == FontType.TYPE1) {
                 if (font.getEmbeddingMode() != EmbeddingMode.SUBSET) {
                     embeddedFont = fullyEmbedType1Font(in);
@@ -1399,6 +1397,7 @@ public class PDFFactory {
                 }
             } else if (desc.getFontType() == FontType.TYPE1C) {
                 if (font.getEmbeddingMode() == EmbeddingMode.SUBSET) {
+                    //not cached: subsetting also records the glyph names used for the encoding
                     FontFileReader reader = new FontFileReader(in);
                     String header = OFFontLoader.readHeader(reader);
                     byte[] fontBytes = getFontSubsetBytes(reader, (MultiByteFont) font, header, fontPrefix, desc, true);
@@ -1447,6 +1446,32 @@ public class PDFFactory {
         return embeddedFont;
     }
 
+    private AbstractPDFFontStream getFontSubsetStream(InputStream in, MultiByteFont mbfont,
+            String fontPrefix, FontDescriptor desc, boolean isCFF) throws IOException {
+        FontSubsetCache cache = document.getFontSubsetCache();
+        URI fontURI = mbfont.getEmbedFileURI();
+        FontSubsetCache.Key key = null;
+        FontSubsetCache.Entry entry = null;
+        if (cache != null && fontURI != null) {
+            //the font name is only part of the font program for CFF fonts
+            String fontName = isCFF ? fontPrefix + desc.getEmbedFontName() : mbfont.getTTCName();
+            key = FontSubsetCache.createKey(fontURI, fontName, mbfont.getUsedGlyphs());
+            entry = cache.get(key);
+        }
+        if (entry == null) {
+            FontFileReader reader = new FontFileReader(in);
+            String header = OFFontLoader.readHeader(reader);
+            byte[] fontBytes = getFontSubsetBytes(reader, mbfont, header, fontPrefix, desc, isCFF);
+            if (key == null) {
+                return getFontStream(mbfont, fontBytes, isCFF);
+            }
+            entry = cache.put(key, fontBytes);
+        }
+        AbstractPDFFontStream embeddedFont = getFontStream(mbfont, entry.getData(), isCFF);
+        embeddedFont.setCachedSubset(entry);
+        return embeddedFont;
+    }
+
     private byte[] getFontSubsetBytes(FontFileReader reader, MultiByteFont mbfont, String header,
             String fontPrefix, FontDescriptor desc, boolean isCFF) throws IOException {
         if (isCFF) {
@@ -1460,9 +1485,9 @@ public class PDFFactory {
         }
     }
 
-    private AbstractPDFStream getFontStream(CustomFont font, byte[] fontBytes, boolean isCFF)
+    private AbstractPDFFontStream getFontStream(CustomFont font, byte[] fontBytes, boolean isCFF)
             throws IOException {
-        AbstractPDFStream embeddedFont;
+        AbstractPDFFontStream embeddedFont;
         if (isCFF) {
             embeddedFont = new PDFCFFStreamType0C(font);
             ((PDFCFFStreamType0C) embeddedFont).setData(fontBytes, fontBytes.length);
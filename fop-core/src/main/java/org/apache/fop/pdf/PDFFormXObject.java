@@ -65,16 +65,16 @@ public class PDFFormXObject extends PDFXObject {
         PDFArray array = (PDFArray)get("BBox");
         if (array == null) {
             array = new PDFArray(this);
-            array.add(bbox.getX());
-            array.add(bbox.getY());
-            array.add(bbox.getWidth());
-            array.add(bbox.getHeight());
+            array.add(bbox.getMinX());
+            array.add(bbox.getMinY());
+            array.add(bbox.getMaxX());
+            array.add(bbox.getMaxY());
             put("BBox", array);
         } else {
-            array.set(0, bbox.getX());
-            array.set(1, bbox.getY());
-            array.set(2, bbox.getWidth());
-            array.set(3, bbox.getHeight());
+            array.set(0, bbox.getMinX());
+            array.set(1, bbox.getMinY());
+            array.set(2, bbox.getMaxX());
+            array.set(3, bbox.getMaxY());
         }
     }
 
@@ -86,11 +86,11 @@ public class PDFFormXObject extends PDFXObject {
         PDFArray array = (PDFArray)get("BBox");
         if (array != null) {
             Rectangle2D rect = new Rectangle2D.Double();
-            double x = ((Number)array.get(0)).doubleValue();
-            double y = ((Number)array.get(1)).doubleValue();
-            double w = ((Number)array.get(2)).doubleValue();
-            double h = ((Number)array.get(3)).doubleValue();
-            rect.setFrame(x, y, w, h);
+            double llx = ((Number)array.get(0)).doubleValue();
+            double lly = ((Number)array.get(1)).doubleValue();
+            double urx = ((Number)array.get(2)).doubleValue();
+            double ury = ((Number)array.get(3)).doubleValue();
+            rect.setFrameFromDiagonal(llx, lly, urx, ury);
             return rect;
         } else {
             return null;
@@ -26,6 +26,9 @@ public class PDFParentTree extends PDFNumberTreeNode {
 
     private static final int MAX_NUMS_ARRAY_SIZE = 50;
 
+    /** The number of kids that have been written already */
+    private int releasedKids;
+
     public PDFParentTree() {
         put("Kids", new PDFArray());
     }
@@ -37,6 +40,23 @@ public class PDFParentTree extends PDFNumberTreeNode {
         insertItemToNumsArray(arrayIndex, num, object);
     }
 
+    /**
+     * Writes the kids that only hold keys lower than the given one with the next objects of
+     * the document instead of with the trailer, and keeps references to them. No key lower
+     * than the given one may be added afterwards.
+     *
+     * @param nextKey the lowest key that may still be added to this tree
+     */
+    public void releaseKids(int nextKey) {
+        int completeKids = Math.min(nextKey / MAX_NUMS_ARRAY_SIZE, getKids().length());
+        for (; releasedKids < completeKids; releasedKids++) {
+            PDFObject kid = (PDFObject) getKids().get(releasedKids);
+            getDocument().trailerObjects.remove(kid);
+            getDocument().addObject(kid);
+            getKids().set(releasedKids, new PDFReference(kid));
+        }
+    }
+
     private void setNumOfKidsArrays(int numKids) {
         for (int i = getKids().length(); i < numKids; i++) {
             PDFNumberTreeNode newArray = new PDFNumberTreeNode();
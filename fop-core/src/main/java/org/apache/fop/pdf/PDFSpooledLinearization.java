@@ -0,0 +1,940 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
+import org.apache.fop.pdf.xref.TrailerDictionary;
+
+/**
+ * Produces a linearized PDF document without keeping the objects of the document in memory
+ * until its end, as {@link PDFLinearization} does. The document is written normally to a spool
+ * file, and only the offsets of the objects and the object numbers of the pages are recorded.
+ * At the end of the document, a first pass over the spool file collects the references between
+ * the objects, which are then renumbered in linearized order. A second pass copies the objects
+ * to the final output in that order with their references rewritten, together with the
+ * linearization dictionary, the hint stream and the two cross-reference sections.
+ * <p>
+ * Only a few numbers per object are kept in memory, whatever the number of pages. As with
+ * {@link PDFLinearization}, the hint tables are simplified: each page section holds the objects
+ * first needed by that page, and the objects of the first page are listed as shared objects.
+ * Stream data is copied verbatim, so this doesn't work with encryption, whose keys depend on
+ * the object numbers.
+ */
+public class PDFSpooledLinearization {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    /** Reserves the space of the values which are only known once the layout is done */
+    private static final long RESERVED_VALUE = 9999999999L;
+
+    private static final int NO_SLOT = -1;
+
+    private final OutputStream out;
+
+    private final File spoolFile;
+
+    private final OutputStream spoolStream;
+
+    /** The page indices and object numbers of the pages, in registration order */
+    private final IntList pageIndices = new IntList();
+    private final IntList pageNumbers = new IntList();
+
+    /*
+     * The objects are identified by their slot: the spooled objects are numbered in the order
+     * of the spool file, followed by null objects replacing the referenced objects which were
+     * never written.
+     */
+
+    /** The number of spooled objects */
+    private int spooledCount;
+
+    /** The offsets of the spooled objects, followed by the end of the last object */
+    private long[] offsets;
+
+    private int[] oldNumbers;
+
+    private int[] slotOfNumber;
+
+    /** The references of slot s are in refs, from refStart[s] to refStart[s + 1] */
+    private int[] refStart;
+
+    private final IntList refs = new IntList();
+
+    /** The page position of each spooled object, or -1 if it's not a page */
+    private int[] pageOfSlot;
+
+    /** The object number of the contents of each page, by page position */
+    private int[] pageContents;
+
+    private int[] newNumbers;
+
+    /**
+     * Creates a new instance and the spool file receiving the document.
+     * @param out the stream receiving the linearized document
+     * @throws IOException if the spool file cannot be created
+     */
+    public PDFSpooledLinearization(OutputStream out) throws IOException {
+        this.out = out;
+        spoolFile = File.createTempFile("fop-linearization", ".pdf");
+        spoolFile.deleteOnExit();
+        spoolStream = new BufferedOutputStream(new FileOutputStream(spoolFile), BUFFER_SIZE);
+    }
+
+    /** @return the stream the document must be written to */
+    public OutputStream getSpoolStream() {
+        return spoolStream;
+    }
+
+    /** @return the stream receiving the linearized document */
+    public OutputStream getOutputStream() {
+        return out;
+    }
+
+    /**
+     * Records a page of the document.
+     * @param page the page, with its object number assigned
+     */
+    void addPage(PDFPage page) {
+        pageIndices.add(page.getPageIndex());
+        pageNumbers.add(page.getObjectNumber().getNumber());
+    }
+
+    /**
+     * Writes the linearized document to the output stream. The document and its trailer must
+     * have been written to the spool stream. The spool file is deleted afterwards.
+     * @param doc the document
+     * @throws IOException if an I/O error occurs
+     */
+    public void outputLinearizedDocument(PDFDocument doc) throws IOException {
+        spoolStream.close();
+        try {
+            RandomAccessFile file = new RandomAccessFile(spoolFile, "r");
+            try {
+                SpoolReader reader = new SpoolReader(file);
+                BufferedOutputStream bout = new BufferedOutputStream(out, BUFFER_SIZE);
+                if (indexObjects(doc)) {
+                    scanObjects(reader);
+                    new Layout(doc).output(reader, new CountingOutputStream(bout));
+                } else {
+                    //Nothing to linearize
+                    reader.seek(0, file.length());
+                    reader.copyTo(bout);
+                }
+                bout.flush();
+            } finally {
+                file.close();
+            }
+        } finally {
+            if (!spoolFile.delete()) {
+                spoolFile.deleteOnExit();
+            }
+        }
+    }
+
+    private boolean indexObjects(PDFDocument doc) {
+        List<Long> objectOffsets = doc.indirectObjectOffsets;
+        long[] sorted = new long[objectOffsets.size()];
+        for (Long offset : objectOffsets) {
+            if (offset != null) {
+                sorted[spooledCount++] = offset;
+            }
+        }
+        if (spooledCount == 0) {
+            return false;
+        }
+        offsets = Arrays.copyOf(sorted, spooledCount + 1);
+        Arrays.sort(offsets, 0, spooledCount);
+        offsets[spooledCount] = doc.getCurrentFileSize();
+        oldNumbers = new int[spooledCount];
+        slotOfNumber = new int[objectOffsets.size() + 1];
+        Arrays.fill(slotOfNumber, NO_SLOT);
+        for (int i = 0; i < objectOffsets.size(); i++) {
+            Long offset = objectOffsets.get(i);
+            if (offset != null) {
+                int slot = Arrays.binarySearch(offsets, 0, spooledCount, offset);
+                oldNumbers[slot] = i + 1;
+                slotOfNumber[i + 1] = slot;
+            }
+        }
+        pageOfSlot = new int[spooledCount];
+        Arrays.fill(pageOfSlot, -1);
+        boolean pages = false;
+        for (int page = 0; page < pageNumbers.size(); page++) {
+            int slot = getSlot(pageNumbers.get(page));
+            if (slot != NO_SLOT) {
+                pageOfSlot[slot] = page;
+                pages = true;
+            }
+        }
+        return pages;
+    }
+
+    private void scanObjects(SpoolReader reader) throws IOException {
+        refStart = new int[spooledCount + 1];
+        pageContents = new int[pageNumbers.size()];
+        ObjectParser parser = new ObjectParser(reader);
+        int maxNumber = slotOfNumber.length - 1;
+        for (int slot = 0; slot < spooledCount; slot++) {
+            refStart[slot] = refs.size();
+            reader.seek(offsets[slot], offsets[slot + 1]);
+            parser.parse(null);
+            if (pageOfSlot[slot] >= 0) {
+                pageContents[pageOfSlot[slot]] = parser.contents;
+            }
+        }
+        refStart[spooledCount] = refs.size();
+        for (int i = 0; i < refs.size(); i++) {
+            maxNumber = Math.max(maxNumber, refs.get(i));
+        }
+        if (maxNumber >= slotOfNumber.length) {
+            int length = slotOfNumber.length;
+            slotOfNumber = Arrays.copyOf(slotOfNumber, maxNumber + 1);
+            Arrays.fill(slotOfNumber, length, slotOfNumber.length, NO_SLOT);
+        }
+        //Referenced objects which were never written are replaced with null objects
+        IntList missing = new IntList();
+        for (int i = 0; i < refs.size(); i++) {
+            int number = refs.get(i);
+            if (number > 0 && slotOfNumber[number] == NO_SLOT) {
+                slotOfNumber[number] = spooledCount + missing.size();
+                missing.add(number);
+            }
+        }
+        oldNumbers = Arrays.copyOf(oldNumbers, spooledCount + missing.size());
+        for (int i = 0; i < missing.size(); i++) {
+            oldNumbers[spooledCount + i] = missing.get(i);
+        }
+    }
+
+    private int getSlot(int number) {
+        return number > 0 && number < slotOfNumber.length ? slotOfNumber[number] : NO_SLOT;
+    }
+
+    private int getNewNumber(int number) {
+        int slot = getSlot(number);
+        return slot == NO_SLOT ? number : newNumbers[slot];
+    }
+
+    private long getSize(int slot) {
+        if (slot >= spooledCount) {
+            return createNullObject(newNumbers[slot]).length;
+        }
+        long size = offsets[slot + 1] - offsets[slot]
+                + digits(newNumbers[slot]) - digits(oldNumbers[slot]);
+        for (int i = refStart[slot]; i < refStart[slot + 1]; i++) {
+            int number = refs.get(i);
+            size += digits(getNewNumber(number)) - digits(number);
+        }
+        return size;
+    }
+
+    private static byte[] createNullObject(int number) {
+        return PDFDocument.encode(number + " 0 obj\nnull\nendobj\n");
+    }
+
+    private static int digits(int number) {
+        int digits = 1;
+        while (number >= 10) {
+            number /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Orders and numbers the objects, and computes the offsets of the linearized document.
+     */
+    private final class Layout {
+
+        private final PDFDocument doc;
+
+        private final int rootSlot;
+        private final int infoSlot;
+        private final int pagesSlot;
+
+        /** The slots of the pages, in page order */
+        private final int[] pageSlots;
+
+        /** The slots of the objects in output order, without the root */
+        private final IntList order = new IntList();
+
+        /** The start of each page section in order, followed by the start of the other objects */
+        private final int[] sectionStart;
+
+        private final boolean[] placed;
+
+        private int restCount;
+        private int linearizationNumber;
+        private int hintNumber;
+        private int total;
+
+        private final long[] newOffsets;
+
+        private long linearizationOffset;
+        private long firstPageXrefOffset;
+        private long hintOffset;
+        private byte[] hintStream;
+        private long firstPageEnd;
+        private long mainXrefOffset;
+        private long fileLength;
+
+        private byte[] mainTrailer;
+
+        Layout(PDFDocument doc) throws IOException {
+            this.doc = doc;
+            rootSlot = getSlot(doc.getRoot().getObjectNumber().getNumber());
+            infoSlot = getSlot(doc.getInfo().getObjectNumber().getNumber());
+            pagesSlot = getSlot(doc.getPages().getObjectNumber().getNumber());
+            pageSlots = sortPages();
+            placed = new boolean[oldNumbers.length];
+            sectionStart = new int[pageSlots.length + 1];
+            orderObjects();
+            numberObjects();
+            newOffsets = new long[total + 1];
+            computeOffsets();
+        }
+
+        private int[] sortPages() {
+            long[] keys = new long[pageNumbers.size()];
+            int count = 0;
+            for (int page = 0; page < pageNumbers.size(); page++) {
+                if (getSlot(pageNumbers.get(page)) != NO_SLOT) {
+                    keys[count++] = ((long) pageIndices.get(page) << 32) | page;
+                }
+            }
+            Arrays.sort(keys, 0, count);
+            int[] slots = new int[count];
+            for (int i = 0; i < count; i++) {
+                slots[i] = getSlot(pageNumbers.get((int) keys[i]));
+            }
+            return slots;
+        }
+
+        private void orderObjects() {
+            placed[rootSlot] = true;
+            for (int page = 0; page < pageSlots.length; page++) {
+                sectionStart[page] = order.size();
+                addPageObjects(pageSlots[page]);
+            }
+            sectionStart[pageSlots.length] = order.size();
+            for (int slot = 0; slot < oldNumbers.length; slot++) {
+                if (!placed[slot]) {
+                    order.add(slot);
+                }
+            }
+        }
+
+        /**
+         * Adds a page and the objects it needs which haven't been placed yet, except other
+         * pages and the objects referring to them.
+         */
+        private void addPageObjects(int pageSlot) {
+            int next = order.size();
+            placed[pageSlot] = true;
+            order.add(pageSlot);
+            while (next < order.size()) {
+                int slot = order.get(next++);
+                if (slot >= spooledCount) {
+                    continue;
+                }
+                for (int i = refStart[slot]; i < refStart[slot + 1]; i++) {
+                    int dependency = getSlot(refs.get(i));
+                    if (dependency != NO_SLOT && !placed[dependency]
+                            && (dependency >= spooledCount || pageOfSlot[dependency] < 0)
+                            && dependency != infoSlot && dependency != pagesSlot) {
+                        placed[dependency] = true;
+                        order.add(dependency);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The objects after the first page come first, then the linearization dictionary,
+         * the root, the hint stream and the objects of the first page.
+         */
+        private void numberObjects() {
+            newNumbers = new int[oldNumbers.length];
+            int firstPageCount = sectionStart[1];
+            restCount = order.size() - firstPageCount;
+            for (int i = firstPageCount; i < order.size(); i++) {
+                newNumbers[order.get(i)] = i - firstPageCount + 1;
+            }
+            linearizationNumber = restCount + 1;
+            newNumbers[rootSlot] = restCount + 2;
+            hintNumber = restCount + 3;
+            for (int i = 0; i < firstPageCount; i++) {
+                newNumbers[order.get(i)] = hintNumber + 1 + i;
+            }
+            total = hintNumber + firstPageCount;
+        }
+
+        private void computeOffsets() throws IOException {
+            long position = offsets[0];
+            linearizationOffset = position;
+            position += createLinearizationDictionary(RESERVED_VALUE).length;
+            firstPageXrefOffset = position;
+            position += createFirstPageXref(RESERVED_VALUE).length;
+            newOffsets[newNumbers[rootSlot]] = position;
+            position += getSize(rootSlot);
+            hintOffset = position;
+            newOffsets[hintNumber] = position;
+            hintStream = createHintStream(0);
+            position += hintStream.length;
+            for (int i = 0; i < order.size(); i++) {
+                if (i == sectionStart[1]) {
+                    firstPageEnd = position;
+                }
+                int slot = order.get(i);
+                newOffsets[newNumbers[slot]] = position;
+                position += getSize(slot);
+            }
+            mainXrefOffset = position;
+            mainTrailer = createMainTrailer();
+            fileLength = position + getMainXrefHeader().length() + 20L * (restCount + 1)
+                    + mainTrailer.length;
+            if (fileLength > RESERVED_VALUE) {
+                throw new IOException("PDF file too large. PDF 1.4 cannot grow beyond approx. 9.3GB.");
+            }
+            hintStream = createHintStream(newOffsets[newNumbers[pageSlots[0]]]);
+        }
+
+        private String getMainXrefHeader() {
+            return "xref\n0 " + (restCount + 1) + "\n";
+        }
+
+        void output(SpoolReader reader, CountingOutputStream out) throws IOException {
+            reader.seek(0, offsets[0]);
+            reader.copyTo(out);
+            byte[] linearizationDictionary = createLinearizationDictionary(fileLength);
+            out.write(pad(linearizationDictionary, createLinearizationDictionary(RESERVED_VALUE).length,
+                    linearizationDictionary.length - "\nendobj\n".length()));
+            byte[] firstPageXref = createFirstPageXref(mainXrefOffset);
+            out.write(pad(firstPageXref, createFirstPageXref(RESERVED_VALUE).length, firstPageXref.length));
+            ObjectParser parser = new ObjectParser(reader);
+            copyObject(rootSlot, reader, parser, out);
+            checkPosition(hintOffset, out);
+            out.write(hintStream);
+            for (int i = 0; i < order.size(); i++) {
+                copyObject(order.get(i), reader, parser, out);
+            }
+            checkPosition(mainXrefOffset, out);
+            out.write(PDFDocument.encode(getMainXrefHeader()));
+            out.write(PDFDocument.encode("0000000000 65535 f \n"));
+            for (int number = 1; number <= restCount; number++) {
+                writeXrefEntry(newOffsets[number], out);
+            }
+            out.write(mainTrailer);
+            checkPosition(fileLength, out);
+        }
+
+        private void copyObject(int slot, SpoolReader reader, ObjectParser parser,
+                CountingOutputStream out) throws IOException {
+            checkPosition(newOffsets[newNumbers[slot]], out);
+            if (slot >= spooledCount) {
+                out.write(createNullObject(newNumbers[slot]));
+            } else {
+                reader.seek(offsets[slot], offsets[slot + 1]);
+                parser.parse(out);
+                reader.copyTo(out);
+            }
+        }
+
+        private void checkPosition(long expected, CountingOutputStream out) {
+            if (out.getByteCount() != expected) {
+                throw new IllegalStateException("Linearized object written at " + out.getByteCount()
+                        + " instead of " + expected);
+            }
+        }
+
+        /** Pads a structure to its reserved size, inserting spaces at the given position */
+        private byte[] pad(byte[] data, int reservedSize, int position) {
+            byte[] padded = new byte[reservedSize];
+            System.arraycopy(data, 0, padded, 0, position);
+            Arrays.fill(padded, position, position + reservedSize - data.length, (byte) ' ');
+            System.arraycopy(data, position, padded, position + reservedSize - data.length,
+                    data.length - position);
+            return padded;
+        }
+
+        private byte[] createLinearizationDictionary(long length) throws IOException {
+            boolean reserved = length == RESERVED_VALUE;
+            PDFDictionary dict = new PDFDictionary();
+            dict.put("Linearized", 1);
+            dict.put("/L", length);
+            PDFArray hint = new PDFArray();
+            hint.add(Long.valueOf(reserved ? RESERVED_VALUE : hintOffset));
+            hint.add(Long.valueOf(reserved ? RESERVED_VALUE : hintStream.length));
+            dict.put("/H", hint);
+            dict.put("/O", newNumbers[pageSlots[0]]);
+            dict.put("/E", reserved ? RESERVED_VALUE : firstPageEnd);
+            dict.put("/N", pageSlots.length);
+            dict.put("/T", reserved ? RESERVED_VALUE
+                    : mainXrefOffset + getMainXrefHeader().length());
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            bout.write(PDFDocument.encode(linearizationNumber + " 0 obj\n"));
+            dict.output(bout);
+            bout.write(PDFDocument.encode("\nendobj\n"));
+            return bout.toByteArray();
+        }
+
+        private byte[] createFirstPageXref(long mainXref) throws IOException {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            bout.write(PDFDocument.encode("xref\n" + linearizationNumber + " "
+                    + (total - restCount) + "\n"));
+            for (int number = linearizationNumber; number <= total; number++) {
+                writeXrefEntry(number == linearizationNumber ? linearizationOffset : newOffsets[number], bout);
+            }
+            bout.write(PDFDocument.encode("trailer\n"));
+            PDFDictionary dict = createTrailerDictionary();
+            dict.put("/Size", total + 1);
+            dict.put("/Root", new PDFReference(newNumbers[rootSlot] + " 0 R"));
+            dict.put("/Info", new PDFReference(getNewNumber(doc.getInfo().getObjectNumber().getNumber())
+                    + " 0 R"));
+            dict.put("/Prev", mainXref);
+            dict.output(bout);
+            bout.write(PDFDocument.encode("\nstartxref\n0\n%%EOF\n"));
+            return bout.toByteArray();
+        }
+
+        private byte[] createMainTrailer() throws IOException {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            bout.write(PDFDocument.encode("trailer\n"));
+            PDFDictionary dict = createTrailerDictionary();
+            dict.put("/Size", restCount + 1);
+            dict.output(bout);
+            bout.write(PDFDocument.encode("\nstartxref\n" + firstPageXrefOffset + "\n%%EOF\n"));
+            return bout.toByteArray();
+        }
+
+        private PDFDictionary createTrailerDictionary() {
+            FileIDGenerator gen = doc.getFileIDGenerator();
+            return new TrailerDictionary(doc)
+                    .setFileID(gen.getOriginalFileID(), gen.getUpdatedFileID()).getDictionary();
+        }
+
+        private void writeXrefEntry(long offset, OutputStream out) throws IOException {
+            String s = String.valueOf(offset);
+            out.write(PDFDocument.encode("0000000000".substring(s.length()) + s + " 00000 n \n"));
+        }
+
+        /**
+         * Creates the hint stream, with the page offset and shared object hint tables in the
+         * same simplified form as {@link PDFLinearization}: all the values use 32 bits.
+         */
+        private byte[] createHintStream(long firstPageOffset) throws IOException {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            DataOutputStream dout = new DataOutputStream(data);
+            int pageCount = pageSlots.length;
+            dout.writeInt(1);
+            dout.writeInt((int) firstPageOffset);
+            dout.writeShort(32);
+            dout.writeInt(0);
+            dout.writeShort(32);
+            dout.writeInt(0);
+            dout.writeShort(0);
+            dout.writeInt(0);
+            dout.writeShort(32);
+            dout.writeShort(0);
+            dout.writeShort(0);
+            dout.writeShort(0);
+            dout.writeShort(4);
+            for (int page = 0; page < pageCount; page++) {
+                dout.writeInt(sectionStart[page + 1] - sectionStart[page] - 1);
+            }
+            for (int page = 0; page < pageCount; page++) {
+                long length = 0;
+                for (int i = sectionStart[page]; i < sectionStart[page + 1]; i++) {
+                    length += getSize(order.get(i));
+                }
+                dout.writeInt((int) length);
+            }
+            for (int page = 0; page < pageCount; page++) {
+                int contents = getSlot(pageContents[pageOfSlot[pageSlots[page]]]);
+                long length = 0;
+                for (int i = sectionStart[page]; i < sectionStart[page + 1]; i++) {
+                    if (order.get(i) == contents) {
+                        length = getSize(contents);
+                        break;
+                    }
+                }
+                dout.writeInt((int) length);
+            }
+            int sharedOffset = dout.size();
+            int sharedCount = sectionStart[1];
+            dout.writeInt(0);
+            dout.writeInt(0);
+            dout.writeInt(sharedCount);
+            dout.writeInt(sharedCount);
+            dout.writeShort(0);
+            dout.writeInt(0);
+            dout.writeShort(32);
+            for (int i = 0; i < sharedCount; i++) {
+                dout.writeInt((int) getSize(order.get(i)));
+            }
+            //no signatures
+            dout.write(new byte[(sharedCount + 7) / 8]);
+            dout.flush();
+
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            bout.write(PDFDocument.encode(hintNumber + " 0 obj\n"));
+            PDFDictionary dict = new PDFDictionary();
+            dict.put("Length", data.size());
+            dict.put("S", sharedOffset);
+            dict.output(bout);
+            bout.write(PDFDocument.encode("\nstream\n"));
+            data.writeTo(bout);
+            bout.write(PDFDocument.encode("\nendstream\nendobj\n"));
+            return bout.toByteArray();
+        }
+    }
+
+    /**
+     * Parses the beginning of a spooled object, up to its stream data if it has any, either to
+     * record the objects it refers to or to copy it with the references renumbered.
+     */
+    private final class ObjectParser {
+
+        private static final int WHITESPACE = 0;
+        private static final int DELIMITER = 1;
+        private static final int NAME = 2;
+        private static final int INTEGER = 3;
+        private static final int OTHER = 4;
+
+        private final SpoolReader reader;
+
+        /** The bytes read since the last write */
+        private byte[] raw = new byte[256];
+        private int rawLength;
+
+        /** The last integers read, which may be the object number and generation of a reference */
+        private final int[] pendingStart = new int[2];
+        private final int[] pendingEnd = new int[2];
+        private final int[] pendingValue = new int[2];
+        private int pendingCount;
+
+        /** The next byte */
+        private int next;
+
+        private boolean contentsKey;
+
+        /** The first object referenced by the Contents entry, or 0 */
+        int contents;
+
+        ObjectParser(SpoolReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Parses an object up to its stream data or its end.
+         * @param out the stream receiving the renumbered object, or null to record the references
+         */
+        void parse(OutputStream out) throws IOException {
+            rawLength = 0;
+            pendingCount = 0;
+            contentsKey = false;
+            contents = 0;
+            next = reader.read();
+            while (next >= 0) {
+                while (next >= 0 && getType(next) == WHITESPACE) {
+                    if (next == '%') {
+                        while (next >= 0 && next != '\n' && next != '\r') {
+                            append();
+                        }
+                    } else {
+                        append();
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
+                int tokenStart = rawLength;
+                int type = readToken();
+                if (type == INTEGER) {
+                    if (pendingCount == 2) {
+                        int length = pendingStart[1];
+                        write(length, out);
+                        tokenStart -= length;
+                        pendingStart[0] = pendingStart[1];
+                        pendingEnd[0] = pendingEnd[1];
+                        pendingValue[0] = pendingValue[1];
+                        pendingCount = 1;
+                    }
+                    pendingStart[pendingCount] = tokenStart;
+                    pendingEnd[pendingCount] = rawLength;
+                    pendingValue[pendingCount] = parseInt(tokenStart);
+                    pendingCount++;
+                } else if (pendingCount == 2 && (isToken(tokenStart, "R") || isToken(tokenStart, "obj"))) {
+                    int number = pendingValue[0];
+                    if (out != null) {
+                        out.write(raw, 0, pendingStart[0]);
+                        writeNumber(getNewNumber(number), out);
+                        out.write(raw, pendingEnd[0], rawLength - pendingEnd[0]);
+                    } else if (raw[tokenStart] == 'R') {
+                        refs.add(number);
+                        if (contentsKey && contents == 0) {
+                            contents = number;
+                        }
+                    }
+                    rawLength = 0;
+                    pendingCount = 0;
+                } else {
+                    pendingCount = 0;
+                    if (type == NAME) {
+                        contentsKey = isToken(tokenStart, "/Contents");
+                    }
+                    boolean end = isToken(tokenStart, "stream") || isToken(tokenStart, "endobj");
+                    write(rawLength, out);
+                    if (end) {
+                        break;
+                    }
+                }
+            }
+            write(rawLength, out);
+            if (out != null && next >= 0) {
+                out.write(next);
+            }
+        }
+
+        private int readToken() throws IOException {
+            int start = rawLength;
+            int first = next;
+            append();
+            switch (first) {
+            case '(':
+                int depth = 1;
+                while (next >= 0 && depth > 0) {
+                    if (next == '\\') {
+                        append();
+                    } else if (next == '(') {
+                        depth++;
+                    } else if (next == ')') {
+                        depth--;
+                    }
+                    if (next >= 0) {
+                        append();
+                    }
+                }
+                return OTHER;
+            case '<':
+                if (next == '<') {
+                    append();
+                    return DELIMITER;
+                }
+                while (next >= 0 && next != '>') {
+                    append();
+                }
+                if (next >= 0) {
+                    append();
+                }
+                return OTHER;
+            case '>':
+                if (next == '>') {
+                    append();
+                }
+                return DELIMITER;
+            case '[':
+            case ']':
+            case '{':
+            case '}':
+            case ')':
+                return DELIMITER;
+            case '/':
+                while (next >= 0 && getType(next) == OTHER) {
+                    append();
+                }
+                return NAME;
+            default:
+                boolean digits = first >= '0' && first <= '9';
+                while (next >= 0 && getType(next) == OTHER) {
+                    digits &= next >= '0' && next <= '9';
+                    append();
+                }
+                //Only integers without leading zeros are considered parts of a reference
+                int length = rawLength - start;
+                return digits && length <= 9 && (length == 1 || first != '0') ? INTEGER : OTHER;
+            }
+        }
+
+        private int getType(int c) {
+            switch (c) {
+            case 0:
+            case '\t':
+            case '\n':
+            case '\f':
+            case '\r':
+            case ' ':
+            case '%':
+                return WHITESPACE;
+            case '(':
+            case ')':
+            case '<':
+            case '>':
+            case '[':
+            case ']':
+            case '{':
+            case '}':
+            case '/':
+                return DELIMITER;
+            default:
+                return OTHER;
+            }
+        }
+
+        private void append() throws IOException {
+            if (rawLength == raw.length) {
+                raw = Arrays.copyOf(raw, raw.length * 2);
+            }
+            raw[rawLength++] = (byte) next;
+            next = reader.read();
+        }
+
+        private boolean isToken(int start, String token) {
+            if (rawLength - start != token.length()) {
+                return false;
+            }
+            for (int i = 0; i < token.length(); i++) {
+                if (raw[start + i] != token.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int parseInt(int start) {
+            int value = 0;
+            for (int i = start; i < rawLength; i++) {
+                value = value * 10 + (raw[i] - '0');
+            }
+            return value;
+        }
+
+        /** Writes the given number of raw bytes, and keeps the others */
+        private void write(int length, OutputStream out) throws IOException {
+            if (out != null) {
+                out.write(raw, 0, length);
+            }
+            System.arraycopy(raw, length, raw, 0, rawLength - length);
+            rawLength -= length;
+            for (int i = 0; i < pendingCount; i++) {
+                pendingStart[i] -= length;
+                pendingEnd[i] -= length;
+            }
+        }
+
+        private void writeNumber(int number, OutputStream out) throws IOException {
+            out.write(PDFDocument.encode(String.valueOf(number)));
+        }
+    }
+
+    /**
+     * Reads ranges of the spool file through a buffer.
+     */
+    private static final class SpoolReader {
+
+        private final RandomAccessFile file;
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private long bufferStart;
+        private int bufferLength;
+
+        private long position;
+        private long end;
+
+        SpoolReader(RandomAccessFile file) {
+            this.file = file;
+        }
+
+        void seek(long start, long end) {
+            this.position = start;
+            this.end = end;
+        }
+
+        int read() throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int index = getBufferIndex();
+            position++;
+            return buffer[index] & 0xff;
+        }
+
+        /** Copies the rest of the range */
+        void copyTo(OutputStream out) throws IOException {
+            while (position < end) {
+                int index = getBufferIndex();
+                int length = (int) Math.min(bufferLength - index, end - position);
+                out.write(buffer, index, length);
+                position += length;
+            }
+        }
+
+        private int getBufferIndex() throws IOException {
+            long index = position - bufferStart;
+            if (index < 0 || index >= bufferLength) {
+                file.seek(position);
+                bufferStart = position;
+                bufferLength = Math.max(file.read(buffer), 0);
+                if (bufferLength == 0) {
+                    throw new EOFException("Unexpected end of the spool file at " + position);
+                }
+                index = 0;
+            }
+            return (int) index;
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -245,6 +245,52 @@ public class PDFStructElem extends StructureHierarchyMember
         return this.kids;
     }
 
+    /**
+     * Replaces the kid at the given index of {@link #getKids()} by a reference to it. The kid
+     * must have been queued for output already. This allows the kid and its descendants to be
+     * released before this element is written.
+     *
+     * @param index the index of a kid with an object number
+     */
+    public void releaseKid(int index) {
+        PDFObject kid = kids.get(index);
+        if (!kid.hasObjectNumber()) {
+            throw new IllegalArgumentException("Only indirect objects can be released");
+        }
+        kids.set(index, new ReleasedKid(kid));
+    }
+
+    /**
+     * Adds this element and all its descendants that are written as indirect objects to the
+     * given list. Kids released with {@link #releaseKid(int)} are skipped.
+     *
+     * @param structElems the list to add the structure elements to
+     */
+    public void collectSubtree(List<PDFStructElem> structElems) {
+        if (hasObjectNumber()) {
+            structElems.add(this);
+        }
+        collectSubtrees(kids, structElems);
+    }
+
+    /**
+     * Adds the given elements and all their descendants that are written as indirect objects to
+     * the given list.
+     *
+     * @param elements structure elements and other kids, may be null
+     * @param structElems the list to add the structure elements to
+     */
+    protected static void collectSubtrees(List<? extends PDFObject> elements,
+            List<PDFStructElem> structElems) {
+        if (elements != null) {
+            for (PDFObject element : elements) {
+                if (element instanceof PDFStructElem) {
+                    ((PDFStructElem) element).collectSubtree(structElems);
+                }
+            }
+        }
+    }
+
     public int output(OutputStream stream) throws IOException {
         if (getDocument().getProfile().getPDFUAMode().isEnabled()) {
             if (entries.containsKey("Alt") && "".equals(get("Alt"))) {
@@ -270,6 +316,16 @@ public class PDFStructElem extends StructureHierarchyMember
         return Arrays.asList(blseValues).contains(type);
     }
 
+    /**
+     * Stands in for a kid that has already been written, and is only output as a reference.
+     */
+    private static final class ReleasedKid extends PDFObject {
+
+        private ReleasedKid(PDFObject kid) {
+            setObjectNumber(kid.getObjectNumber());
+        }
+    }
+
     /**
      * Class representing a placeholder for a PDF Structure Element.
      */
@@ -66,7 +66,8 @@ public class PDFTTFStream extends AbstractPDFFontStream {
 
     /** {@inheritDoc} */
     protected void outputRawStreamData(OutputStream out) throws IOException {
-        out.write(this.ttfData);
+        byte[] compressed = getCompressedData();
+        out.write((compressed != null) ? compressed : this.ttfData);
     }
 
     /** {@inheritDoc} */
@@ -159,6 +159,13 @@ public interface AFPCustomizable {
      */
     void setDefaultResourceGroupUri(URI uri);
 
+    /**
+     * Controls whether the print-file resource group is spooled to a temporary file until the
+     * end of the document, along with large cached resources.
+     * @param resourceGroupSpooling true to spool the print-file resource group
+     */
+    void setResourceGroupSpooling(boolean resourceGroupSpooling);
+
     /**
      * Sets the resource level defaults. The object passed in provides information which resource
      * level shall be used by default for various kinds of resources.
@@ -113,6 +113,7 @@ public class AFPDocumentHandler extends AbstractBinaryWritingIFDocumentHandler
     public AFPDocumentHandler(IFContext context) {
         super(context);
         this.resourceManager = new AFPResourceManager(context.getUserAgent().getResourceResolver());
+        this.resourceManager.setResourceCache(context.getUserAgent().getAFPResourceCache());
         this.paintingState = new AFPPaintingState();
         this.unitConv = paintingState.getUnitConverter();
     }
@@ -553,6 +554,11 @@ public class AFPDocumentHandler extends AbstractBinaryWritingIFDocumentHandler
         resourceManager.setDefaultResourceGroupUri(uri);
     }
 
+    /** {@inheritDoc} */
+    public void setResourceGroupSpooling(boolean resourceGroupSpooling) {
+        resourceManager.setResourceGroupSpooling(resourceGroupSpooling);
+    }
+
     /** {@inheritDoc} */
     public void setResourceLevelDefaults(AFPResourceLevelDefaults defaults) {
         resourceManager.setResourceLevelDefaults(defaults);
@@ -81,11 +81,26 @@ public class AFPImageHandlerSVG implements ImageHandler {
         AFPDataObjectInfo info = createDataObjectInfo();
         assert (info instanceof AFPGraphicsObjectInfo);
         AFPGraphicsObjectInfo graphicsObjectInfo = (AFPGraphicsObjectInfo) info;
+        graphicsObjectInfo.setResourceInfo(AFPImageHandler.createResourceInformation(
+                image.getInfo().getOriginalURI(),
+                afpContext.getForeignAttributes()));
         AFPResourceInfo resourceInfo = graphicsObjectInfo.getResourceInfo();
+        //The same graphic painted at another size is a different resource
+        resourceInfo.setImageDimension(pos.getSize());
         setDefaultToInlineResourceLevel(graphicsObjectInfo);
 
-        // Create a new AFPGraphics2D
+        // Image positioning
         AFPPaintingState paintingState = afpContext.getPaintingState();
+        AFPObjectAreaInfo objectAreaInfo = AFPImageHandler.createObjectAreaInfo(paintingState, pos);
+        graphicsObjectInfo.setObjectAreaInfo(objectAreaInfo);
+
+        // If the graphic has already been placed in a resource group, only include it again
+        AFPResourceManager resourceManager = afpContext.getResourceManager();
+        if (resourceManager.tryIncludeObject(graphicsObjectInfo)) {
+            return;
+        }
+
+        // Create a new AFPGraphics2D
         final boolean textAsShapes = paintingState.isStrokeGOCAText();
         AFPGraphics2D g2d = new AFPGraphics2D(
                 textAsShapes,
@@ -116,10 +131,6 @@ public class AFPImageHandlerSVG implements ImageHandler {
             return;
         }
 
-        // Image positioning
-        AFPObjectAreaInfo objectAreaInfo = AFPImageHandler.createObjectAreaInfo(paintingState, pos);
-        graphicsObjectInfo.setObjectAreaInfo(objectAreaInfo);
-
         paintingState.save(); // save
         AffineTransform placement = new AffineTransform();
         placement.translate(pos.x, pos.y);
@@ -134,7 +145,6 @@ public class AFPImageHandlerSVG implements ImageHandler {
         graphicsObjectInfo.setPainter(painter);
 
         // Create the GOCA GraphicsObject in the DataStream
-        AFPResourceManager resourceManager = afpContext.getResourceManager();
         resourceManager.createObject(graphicsObjectInfo);
 
         paintingState.restore(); // resume
@@ -60,6 +60,7 @@ import static org.apache.fop.render.afp.AFPRendererOption.JPEG_ALLOW_JPEG_EMBEDD
 import static org.apache.fop.render.afp.AFPRendererOption.JPEG_BITMAP_ENCODING_QUALITY;
 import static org.apache.fop.render.afp.AFPRendererOption.LINE_WIDTH_CORRECTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RENDERER_RESOLUTION;
+import static org.apache.fop.render.afp.AFPRendererOption.RESOURCE_GROUP_SPOOLING;
 import static org.apache.fop.render.afp.AFPRendererOption.RESOURCE_GROUP_URI;
 import static org.apache.fop.render.afp.AFPRendererOption.SHADING;
 
@@ -162,6 +163,10 @@ public final class AFPRendererConfig implements RendererConfig {
         return getParam(DEFAULT_RESOURCE_LEVELS, AFPResourceLevelDefaults.class);
     }
 
+    public Boolean isResourceGroupSpooling() {
+        return getParam(RESOURCE_GROUP_SPOOLING, Boolean.class);
+    }
+
     public Boolean isWrapPseg() {
         return getParam(IMAGES_WRAP_PSEG, Boolean.class);
     }
@@ -270,6 +275,10 @@ public final class AFPRendererConfig implements RendererConfig {
                             || "shapes".equalsIgnoreCase(strokeGocaText));
             //TODO remove
             createResourceGroupFile();
+            Configuration resourceGroupSpoolingCfg = cfg.getChild(RESOURCE_GROUP_SPOOLING.getName(), false);
+            if (resourceGroupSpoolingCfg != null) {
+                setParam(RESOURCE_GROUP_SPOOLING, resourceGroupSpoolingCfg.getValueAsBoolean(false));
+            }
             createResourceLevel();
         }
 
@@ -114,6 +114,9 @@ public class AFPRendererConfigurator extends PrintRendererConfigurator {
         if (config.getDefaultResourceGroupUri() != null) {
             documentHandler.setDefaultResourceGroupUri(config.getDefaultResourceGroupUri());
         }
+        if (config.isResourceGroupSpooling() != null) {
+            documentHandler.setResourceGroupSpooling(config.isResourceGroupSpooling());
+        }
         AFPResourceLevelDefaults resourceLevelDefaults = config.getResourceLevelDefaults();
         if (resourceLevelDefaults != null) {
             documentHandler.setResourceLevelDefaults(resourceLevelDefaults);
@@ -39,6 +39,7 @@ public enum AFPRendererOption implements RendererConfigOption {
     JPEG_BITMAP_ENCODING_QUALITY("bitmap-encoding-quality", Float.class),
     RENDERER_RESOLUTION("renderer-resolution", Integer.class),
     RESOURCE_GROUP_URI("resource-group-file", URI.class),
+    RESOURCE_GROUP_SPOOLING("resource-group-spooling", Boolean.class),
     SHADING("shading", AFPShadingMode.class),
     LINE_WIDTH_CORRECTION("line-width-correction", Float.class),
     GOCA("goca", Boolean.class),
@@ -19,6 +19,8 @@
 
 package org.apache.fop.render.bitmap;
 
+import java.awt.AlphaComposite;
+import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
@@ -26,7 +28,15 @@ import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
@@ -72,6 +82,17 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
     private Dimension currentPageDimensions;
     private BufferedImage currentImage;
 
+    /** Page rasters that have been encoded and may be painted on again */
+    private final LinkedList<BufferedImage> recycledImages = new LinkedList<BufferedImage>();
+
+    /** Background threads encoding the pages if pipelined encoding is enabled */
+    private ExecutorService encoder;
+    private int encoderThreads;
+
+    /** Pages submitted to the encoder whose raster has not been recycled, yet */
+    private final LinkedList<Future<BufferedImage>> pendingPages
+            = new LinkedList<Future<BufferedImage>>();
+
     private BitmapRenderingSettings bitmapSettings = new BitmapRenderingSettings();
 
     private double scaleFactor = 1.0;
@@ -153,6 +174,13 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                         getUserAgent().getOutputFile());
             }
             this.pageCount = 0;
+            //Pages of a multi-image file must be written in order by a single thread
+            this.encoderThreads = (this.multiImageWriter != null)
+                    ? 1 : Math.max(1, getSettings().getEncodingThreads());
+            if (getSettings().isPipelinedEncodingEnabled() || this.encoderThreads > 1) {
+                this.encoder = Executors.newFixedThreadPool(this.encoderThreads,
+                        new EncoderThreadFactory());
+            }
         } catch (IOException e) {
             throw new IFException("I/O error in startDocument()", e);
         }
@@ -165,6 +193,18 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
     /** {@inheritDoc} */
     public void endDocument() throws IFException {
         try {
+            if (this.encoder != null) {
+                try {
+                    while (!pendingPages.isEmpty()) {
+                        recycleEncodedPage(true);
+                    }
+                } finally {
+                    this.encoder.shutdownNow();
+                    this.encoder = null;
+                }
+            }
+            this.recycledImages.clear();
+            this.currentImage = null;
             if (this.multiImageWriter != null) {
                 this.multiImageWriter.close();
             }
@@ -229,10 +269,7 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
         }
 
         //Set up bitmap to paint on
-        if (currentImage == null || currentImage.getWidth() != bitmapWidth
-                || currentImage.getHeight() != bitmapHeight) {
-            currentImage = createBufferedImage(bitmapWidth, bitmapHeight);
-        }
+        boolean recycled = obtainImage(bitmapWidth, bitmapHeight);
         Graphics2D graphics2D = this.currentImage.createGraphics();
 
         // draw page background
@@ -240,6 +277,12 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
             graphics2D.setBackground(getSettings().getPageBackgroundColor());
             graphics2D.setPaint(getSettings().getPageBackgroundColor());
             graphics2D.fillRect(0, 0, bitmapWidth, bitmapHeight);
+        } else if (recycled) {
+            //Erase the previous page
+            Composite composite = graphics2D.getComposite();
+            graphics2D.setComposite(AlphaComposite.Clear);
+            graphics2D.fillRect(0, 0, bitmapWidth, bitmapHeight);
+            graphics2D.setComposite(composite);
         }
 
         //Set rendering hints
@@ -276,6 +319,97 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
         return new Java2DPainter(graphics2D, getContext(), getFontInfo(), this);
     }
 
+    /**
+     * Sets up {@link #currentImage} for the next page, reusing the raster of a previous page
+     * of the same size if possible. If pipelined encoding is enabled, this waits until
+     * enough pages have been encoded to stay within the raster memory limit.
+     * @param bitmapWidth the desired width in pixels
+     * @param bitmapHeight the desired height in pixels
+     * @return true if the raster of a previous page is reused
+     * @throws IFException if encoding a previous page failed
+     */
+    private boolean obtainImage(int bitmapWidth, int bitmapHeight) throws IFException {
+        if (this.currentImage != null) {
+            //Not submitted for encoding (single-threaded mode)
+            this.recycledImages.add(this.currentImage);
+            this.currentImage = null;
+        }
+        while (!pendingPages.isEmpty() && pendingPages.getFirst().isDone()) {
+            recycleEncodedPage(false);
+        }
+        int maxPending = getMaxPendingPages(bitmapWidth, bitmapHeight);
+        while (pendingPages.size() > maxPending) {
+            recycleEncodedPage(true);
+        }
+        for (Iterator<BufferedImage> iter = recycledImages.iterator(); iter.hasNext();) {
+            BufferedImage image = iter.next();
+            //Rasters of other sizes are released
+            iter.remove();
+            if (image.getWidth() == bitmapWidth && image.getHeight() == bitmapHeight) {
+                this.currentImage = image;
+                return true;
+            }
+        }
+        this.currentImage = createBufferedImage(bitmapWidth, bitmapHeight);
+        return false;
+    }
+
+    /**
+     * Returns how many pages may be waiting for encoding, in addition to the page being
+     * painted, given the raster memory limit.
+     */
+    private int getMaxPendingPages(int bitmapWidth, int bitmapHeight) {
+        if (this.encoder == null) {
+            return 0;
+        }
+        long limit = getSettings().getRasterMemoryLimit();
+        if (limit <= 0) {
+            return this.encoderThreads;
+        }
+        int pixelSize;
+        switch (getSettings().getBufferedImageType()) {
+        case BufferedImage.TYPE_BYTE_BINARY:
+            pixelSize = 1;
+            break;
+        case BufferedImage.TYPE_BYTE_GRAY:
+            pixelSize = 8;
+            break;
+        default:
+            pixelSize = 32;
+        }
+        long rasterSize = Math.max(1L, (long) bitmapWidth * bitmapHeight * pixelSize / 8);
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, limit / rasterSize - 1));
+    }
+
+    /**
+     * Takes the oldest page submitted for encoding, and recycles its raster.
+     * @param wait true to wait for the page to be encoded
+     * @throws IFException if encoding the page failed
+     */
+    private void recycleEncodedPage(boolean wait) throws IFException {
+        Future<BufferedImage> page = pendingPages.getFirst();
+        if (!wait && !page.isDone()) {
+            return;
+        }
+        pendingPages.removeFirst();
+        try {
+            this.recycledImages.add(page.get());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IFException("Interrupted while waiting for a page to be encoded", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            } else if (cause instanceof IFException) {
+                throw (IFException) cause;
+            } else if (cause instanceof Exception) {
+                throw new IFException("I/O error while encoding BufferedImage", (Exception) cause);
+            }
+            throw new IFException("Error while encoding BufferedImage", ee);
+        }
+    }
+
     /**
      * Creates a new BufferedImage.
      * @param bitmapWidth the desired width in pixels
@@ -288,18 +422,40 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
 
     /** {@inheritDoc} */
     public void endPageContent() throws IFException {
+        if (this.encoder != null) {
+            final BufferedImage image = this.currentImage;
+            final int pageNumber = this.pageCount;
+            this.currentImage = null;
+            pendingPages.add(this.encoder.submit(new Callable<BufferedImage>() {
+                public BufferedImage call() throws IFException {
+                    encodePage(image, pageNumber);
+                    return image;
+                }
+            }));
+        } else {
+            encodePage(this.currentImage, this.pageCount);
+        }
+    }
+
+    /**
+     * Encodes a page.
+     * @param image the page raster
+     * @param pageNumber the page number (1-based)
+     * @throws IFException if an I/O error occurs
+     */
+    private void encodePage(BufferedImage image, int pageNumber) throws IFException {
         try {
             if (this.multiImageWriter == null) {
-                switch (this.pageCount) {
+                switch (pageNumber) {
                 case 1:
                     this.imageWriter.writeImage(
-                            this.currentImage, this.outputStream,
+                            image, this.outputStream,
                             getSettings().getWriterParams());
                     IOUtils.closeQuietly(this.outputStream);
                     this.outputStream = null;
                     break;
                 default:
-                    OutputStream out = this.multiFileUtil.createOutputStream(this.pageCount - 1);
+                    OutputStream out = this.multiFileUtil.createOutputStream(pageNumber - 1);
                     if (out == null) {
                         BitmapRendererEventProducer eventProducer
                             = BitmapRendererEventProducer.Provider.get(
@@ -308,7 +464,7 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                     } else {
                         try {
                             this.imageWriter.writeImage(
-                                    this.currentImage, out,
+                                    image, out,
                                     getSettings().getWriterParams());
                         } finally {
                             IOUtils.closeQuietly(out);
@@ -316,7 +472,7 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                     }
                 }
             } else {
-                this.multiImageWriter.writeImage(this.currentImage,
+                this.multiImageWriter.writeImage(image,
                         getSettings().getWriterParams());
             }
         } catch (IOException ioe) {
@@ -335,4 +491,14 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                     + extension + " (" + extension.getClass().getName() + ")");
     }
 
+    /** Creates the daemon threads encoding the pages in pipelined mode. */
+    private static class EncoderThreadFactory implements ThreadFactory {
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FOP bitmap encoder");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
 }
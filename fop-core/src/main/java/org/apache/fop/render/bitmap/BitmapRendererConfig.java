@@ -38,7 +38,10 @@ import org.apache.fop.util.ColorUtil;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.BACKGROUND_COLOR;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.ENCODING_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.PIPELINED_ENCODING;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RASTER_MEMORY_LIMIT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY_ELEMENT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_SPEED;
@@ -77,6 +80,21 @@ public class BitmapRendererConfig implements RendererConfig {
         return (Integer) get(COLOR_MODE);
     }
 
+    public Boolean isPipelinedEncoding() {
+        return (Boolean) get(PIPELINED_ENCODING);
+    }
+
+    /**
+     * @return the raster memory limit in megabytes, or null if not set
+     */
+    public Integer getRasterMemoryLimit() {
+        return (Integer) get(RASTER_MEMORY_LIMIT);
+    }
+
+    public Integer getEncodingThreads() {
+        return (Integer) get(ENCODING_THREADS);
+    }
+
     public boolean hasTransparentBackround() {
         Object result = get(JAVA2D_TRANSPARENT_PAGE_BACKGROUND);
         return (Boolean) (result != null ? result
@@ -134,6 +152,16 @@ public class BitmapRendererConfig implements RendererConfig {
                 String color = getValue(cfg, COLOR_MODE);
                 setParam(config, COLOR_MODE,
                         getBufferedImageIntegerFromColor(BitmapRendererOption.getValue(color)));
+
+                setParam(config, PIPELINED_ENCODING,
+                        getChild(cfg, PIPELINED_ENCODING).getValueAsBoolean(
+                                (Boolean) PIPELINED_ENCODING.getDefaultValue()));
+                setParam(config, RASTER_MEMORY_LIMIT,
+                        getChild(cfg, RASTER_MEMORY_LIMIT).getValueAsInteger(
+                                (Integer) RASTER_MEMORY_LIMIT.getDefaultValue()));
+                setParam(config, ENCODING_THREADS,
+                        getChild(cfg, ENCODING_THREADS).getValueAsInteger(
+                                (Integer) ENCODING_THREADS.getDefaultValue()));
             }
         }
 
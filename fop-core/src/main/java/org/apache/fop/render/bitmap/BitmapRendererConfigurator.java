@@ -83,6 +83,15 @@ public class BitmapRendererConfigurator extends Java2DRendererConfigurator {
         if (config.getColorMode() != null) {
             settings.setBufferedImageType(config.getColorMode());
         }
+        if (config.isPipelinedEncoding() != null) {
+            settings.setPipelinedEncoding(config.isPipelinedEncoding());
+        }
+        if (config.getRasterMemoryLimit() != null) {
+            settings.setRasterMemoryLimit(config.getRasterMemoryLimit() * 1024L * 1024L);
+        }
+        if (config.getEncodingThreads() != null) {
+            settings.setEncodingThreads(config.getEncodingThreads());
+        }
     }
 
     @Override
@@ -40,7 +40,16 @@ public enum BitmapRendererOption implements RendererConfigOption {
     COLOR_MODE_RGB("rgb"),
     COLOR_MODE_GRAY("gray"),
     COLOR_MODE_BINARY("binary"),
-    COLOR_MODE_BILEVEL("bi-level");
+    COLOR_MODE_BILEVEL("bi-level"),
+    /** encode each page on a background thread while the next one is painted */
+    PIPELINED_ENCODING("pipelined-encoding", false),
+    /**
+     * upper limit (in megabytes) for the page rasters held at the same time, 0 to let one page
+     * per encoding thread wait for encoding
+     */
+    RASTER_MEMORY_LIMIT("raster-memory-limit", 0),
+    /** number of threads encoding pages written to separate files */
+    ENCODING_THREADS("encoding-threads", 1);
 
     private final String name;
     private final Object defaultValue;
@@ -25,6 +25,9 @@ import org.apache.fop.render.java2d.Java2DRenderingSettings;
 
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.ENCODING_THREADS;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.PIPELINED_ENCODING;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RASTER_MEMORY_LIMIT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
 
 /**
@@ -44,6 +47,15 @@ public class BitmapRenderingSettings extends Java2DRenderingSettings {
     /** true if qualityRendering is set */
     private boolean qualityRendering = (Boolean) RENDERING_QUALITY.getDefaultValue();
 
+    /** true if pages are encoded on a background thread */
+    private boolean pipelinedEncoding = (Boolean) PIPELINED_ENCODING.getDefaultValue();
+
+    /** maximum number of bytes used by page rasters at the same time, 0 for one per encoding thread */
+    private long rasterMemoryLimit = (Integer) RASTER_MEMORY_LIMIT.getDefaultValue();
+
+    /** number of threads encoding pages written to separate files */
+    private int encodingThreads = (Integer) ENCODING_THREADS.getDefaultValue();
+
     /**
      * Default constructor. Initializes the settings to their default values.
      */
@@ -107,6 +119,60 @@ public class BitmapRenderingSettings extends Java2DRenderingSettings {
         return this.qualityRendering;
     }
 
+    /**
+     * Enables or disables pipelined encoding. If enabled, each page is encoded on a
+     * background thread while the next page is painted.
+     * @param value true to enable pipelined encoding
+     */
+    public void setPipelinedEncoding(boolean value) {
+        this.pipelinedEncoding = value;
+    }
+
+    /**
+     * Indicates whether pipelined encoding is enabled.
+     * @return true if pages are encoded on a background thread
+     */
+    public boolean isPipelinedEncodingEnabled() {
+        return this.pipelinedEncoding;
+    }
+
+    /**
+     * Sets the maximum amount of memory the page rasters may use at the same time. This
+     * limits how many pages may wait for encoding when pipelined encoding is enabled.
+     * Without a limit, one page per encoding thread may wait.
+     * @param bytes the limit in bytes, 0 for no limit
+     */
+    public void setRasterMemoryLimit(long bytes) {
+        this.rasterMemoryLimit = bytes;
+    }
+
+    /**
+     * Returns the maximum amount of memory the page rasters may use at the same time.
+     * @return the limit in bytes, 0 for no limit (one waiting page per encoding thread)
+     */
+    public long getRasterMemoryLimit() {
+        return this.rasterMemoryLimit;
+    }
+
+    /**
+     * Sets the number of threads encoding pages in parallel. This only applies if every
+     * page is written to its own file: multi-page output (ex. multi-page TIFF) is encoded
+     * by a single thread as the pages have to be written in order. A value greater than 1
+     * implies pipelined encoding.
+     * @param threads the number of encoding threads
+     */
+    public void setEncodingThreads(int threads) {
+        this.encodingThreads = threads;
+    }
+
+    /**
+     * Returns the number of threads encoding pages in parallel.
+     * @return the number of encoding threads
+     */
+    public int getEncodingThreads() {
+        return this.encodingThreads;
+    }
+
     /**
      * Sets the compression method for the image writer.
      * @param compressionMethod the compression method name
@@ -44,6 +44,8 @@ public final class TIFFRendererConfig extends BitmapRendererConfig {
         COMPRESSION("compression", PACKBITS),
         /** option to encode one row per strip or a all rows in a single strip*/
         SINGLE_STRIP("single-strip", Boolean.FALSE),
+        /** option to set the number of rows per strip, larger strips compress faster */
+        ROWS_PER_STRIP("rows-per-strip", 1),
         /** option to determine whether to use little or big endian encoding */
         ENDIANNESS("endianness", Endianness.DEFAULT);
 
@@ -83,6 +85,13 @@ public final class TIFFRendererConfig extends BitmapRendererConfig {
         return (Boolean) params.get(TIFFRendererOption.SINGLE_STRIP);
     }
 
+    /**
+     * @return the number of rows per strip or null if not set
+     */
+    public Integer getRowsPerStrip() {
+        return (Integer) params.get(TIFFRendererOption.ROWS_PER_STRIP);
+    }
+
     /**
      * @return returns an object to determine whether little or big endian encoding is used
      */
@@ -120,6 +129,9 @@ public final class TIFFRendererConfig extends BitmapRendererConfig {
                         TIFFCompressionValue.getType(getValue(cfg, TIFFRendererOption.COMPRESSION)));
                 setParam(TIFFRendererOption.SINGLE_STRIP, Boolean.valueOf(getValue(cfg,
                                 TIFFRendererOption.SINGLE_STRIP)));
+                setParam(TIFFRendererOption.ROWS_PER_STRIP, cfg.getChild(
+                        TIFFRendererOption.ROWS_PER_STRIP.getName()).getValueAsInteger(
+                                (Integer) TIFFRendererOption.ROWS_PER_STRIP.getDefaultValue()));
                 setParam(TIFFRendererOption.ENDIANNESS,
                         Endianness.getEndianType(getValue(cfg, TIFFRendererOption.ENDIANNESS)));
             }
@@ -83,6 +83,11 @@ public class TIFFRendererConfigurator extends BitmapRendererConfigurator {
         return singleRowPerStrip == null ? false : singleRowPerStrip;
     }
 
+    private int getRowsPerStrip(TIFFRendererConfig config) {
+        Integer rowsPerStrip = config.getRowsPerStrip();
+        return rowsPerStrip == null ? 1 : rowsPerStrip;
+    }
+
     private Endianness getEndianness(TIFFRendererConfig config) {
         Endianness endianMode = config.getEndianness();
         return endianMode == null ? Endianness.DEFAULT : endianMode;
@@ -97,6 +102,9 @@ public class TIFFRendererConfigurator extends BitmapRendererConfigurator {
             configure(documentHandler, settings, new TIFFRendererConfigParser());
             setCompressionMethod(config.getCompressionType(), settings);
             settings.getWriterParams().setSingleStrip(isSingleStrip(config));
+            if (!isSingleStrip(config) && getRowsPerStrip(config) > 1) {
+                settings.getWriterParams().setRowsPerStrip(getRowsPerStrip(config));
+            }
             settings.getWriterParams().setEndianness(getEndianness(config));
         }
     }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+/**
+ * Constants for the binary encoding of the intermediate format.
+ * <p>
+ * A binary IF file starts with {@link #MAGIC} and {@link #FORMAT_VERSION}, followed by one
+ * record per IF event. Each record is a record type byte and its operands. Integers are written
+ * as variable-length quantities (signed values zig-zag encoded), transformation matrices as
+ * doubles. Strings such as font names, IDs and URIs are written once and then referenced by
+ * their index in a string table that is built up by the writer and the reader in the same order.
+ * Content that isn't covered by the IF events (the structure tree, document navigation,
+ * extension attachments and foreign objects) is written as a recorded sequence of SAX events.
+ */
+interface IFBinaryConstants {
+
+    /** Signature of binary IF files */
+    byte[] MAGIC = {'F', 'O', 'P', 'I', 'F', 'B'};
+
+    /** Version of the binary encoding */
+    int FORMAT_VERSION = 1;
+
+    /** record type: end of document */
+    int END_DOCUMENT = 1;
+    /** record type: document locale */
+    int DOCUMENT_LOCALE = 2;
+    /** record type: start of document header */
+    int START_DOCUMENT_HEADER = 3;
+    /** record type: end of document header */
+    int END_DOCUMENT_HEADER = 4;
+    /** record type: start of document trailer */
+    int START_DOCUMENT_TRAILER = 5;
+    /** record type: end of document trailer */
+    int END_DOCUMENT_TRAILER = 6;
+    /** record type: start of page sequence */
+    int START_PAGE_SEQUENCE = 7;
+    /** record type: end of page sequence */
+    int END_PAGE_SEQUENCE = 8;
+    /** record type: start of page */
+    int START_PAGE = 9;
+    /** record type: end of page */
+    int END_PAGE = 10;
+    /** record type: start of page header */
+    int START_PAGE_HEADER = 11;
+    /** record type: end of page header */
+    int END_PAGE_HEADER = 12;
+    /** record type: start of page content */
+    int START_PAGE_CONTENT = 13;
+    /** record type: end of page content */
+    int END_PAGE_CONTENT = 14;
+    /** record type: start of page trailer */
+    int START_PAGE_TRAILER = 15;
+    /** record type: end of page trailer */
+    int END_PAGE_TRAILER = 16;
+    /** record type: start of viewport */
+    int START_VIEWPORT = 17;
+    /** record type: end of viewport */
+    int END_VIEWPORT = 18;
+    /** record type: start of group */
+    int START_GROUP = 19;
+    /** record type: end of group */
+    int END_GROUP = 20;
+    /** record type: ID of the following content */
+    int ID = 21;
+    /** record type: image referenced by URI */
+    int IMAGE = 22;
+    /** record type: image given as a DOM document, followed by an {@link #XML} record */
+    int IMAGE_DOCUMENT = 23;
+    /** record type: clip rectangle with optional rounded corners */
+    int CLIP_RECT = 24;
+    /** record type: filled rectangle */
+    int RECT = 25;
+    /** record type: border rectangle */
+    int BORDER_RECT = 26;
+    /** record type: line */
+    int LINE = 27;
+    /** record type: font change */
+    int FONT = 28;
+    /** record type: text */
+    int TEXT = 29;
+    /** record type: recorded SAX events of an XML fragment */
+    int XML = 30;
+
+    /** XML fragment event: end of the fragment */
+    int XML_END = 0;
+    /** XML fragment event: start of an element */
+    int XML_START_ELEMENT = 1;
+    /** XML fragment event: end of the current element */
+    int XML_END_ELEMENT = 2;
+    /** XML fragment event: character data */
+    int XML_CHARACTERS = 3;
+
+    /** text flag: letter spacing present */
+    int TEXT_LETTER_SPACING = 1;
+    /** text flag: word spacing present */
+    int TEXT_WORD_SPACING = 2;
+    /** text flag: x adjustments present */
+    int TEXT_DX = 4;
+    /** text flag: position adjustments present */
+    int TEXT_DP = 8;
+    /** text flag: structure reference present */
+    int TEXT_STRUCT_REF = 16;
+    /** text flag: text is hyphenated */
+    int TEXT_HYPHENATED = 32;
+
+    /** font flag: family present */
+    int FONT_FAMILY = 1;
+    /** font flag: style present */
+    int FONT_STYLE = 2;
+    /** font flag: weight present */
+    int FONT_WEIGHT = 4;
+    /** font flag: variant present */
+    int FONT_VARIANT = 8;
+    /** font flag: size present */
+    int FONT_SIZE = 16;
+    /** font flag: color present */
+    int FONT_COLOR = 32;
+
+    /** transformation type: translation by whole millipoints */
+    int TRANSFORM_TRANSLATE = 0;
+    /** transformation type: general matrix */
+    int TRANSFORM_MATRIX = 1;
+}
@@ -0,0 +1,697 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.xmlgraphics.util.QName;
+
+import org.apache.fop.accessibility.AccessibilityEventProducer;
+import org.apache.fop.accessibility.StructureTreeElement;
+import org.apache.fop.accessibility.StructureTreeEventHandler;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fo.expr.PropertyException;
+import org.apache.fop.fo.extensions.InternalElementMapping;
+import org.apache.fop.render.intermediate.extensions.DocumentNavigationExtensionConstants;
+import org.apache.fop.render.intermediate.extensions.DocumentNavigationHandler;
+import org.apache.fop.traits.BorderProps;
+import org.apache.fop.traits.RuleStyle;
+import org.apache.fop.util.ColorUtil;
+import org.apache.fop.util.ContentHandlerFactory;
+import org.apache.fop.util.LanguageTags;
+
+/**
+ * This is a parser for the binary intermediate format written by {@link IFBinarySerializer}.
+ * It sends the same events to an {@link IFDocumentHandler} as {@link IFParser} does for the
+ * equivalent intermediate format XML.
+ */
+public class IFBinaryParser implements IFBinaryConstants {
+
+    private static final AffineTransform[] EMPTY_TRANSFORMS = new AffineTransform[0];
+
+    /**
+     * Parses a binary intermediate file and paints it.
+     * @param in the input stream of the binary intermediate file (not closed by this method)
+     * @param documentHandler the intermediate format document handler used to process the IF events
+     * @param userAgent the user agent
+     * @throws IOException if an I/O error occurs or the input isn't a binary intermediate file
+     * @throws IFException if an IF-related error occurs inside the target document handler
+     */
+    public void parse(InputStream in, IFDocumentHandler documentHandler, FOUserAgent userAgent)
+            throws IOException, IFException {
+        new Reader(in, documentHandler, userAgent).parse();
+    }
+
+    private static final class Reader {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[8192];
+        private int pos;
+        private int limit;
+
+        private final List<String> strings = new ArrayList<String>();
+        private final Map<String, Color> colors = new HashMap<String, Color>();
+        private final Map<String, BorderProps> borders = new HashMap<String, BorderProps>();
+
+        private final IFDocumentHandler documentHandler;
+        private final IFContext context;
+        private final FOUserAgent userAgent;
+        private IFPainter painter;
+
+        private final Map<String, StructureTreeElement> structureTreeElements
+                = new HashMap<String, StructureTreeElement>();
+        private StructureTreeHandler structureTreeHandler;
+        private Locale pageSequenceLanguage;
+        private boolean pageSequencePending;
+        private String pageSequenceID;
+        private Map<QName, String> pageSequenceForeignAttributes;
+
+        private ContentHandler navParser;
+
+        Reader(InputStream in, IFDocumentHandler documentHandler, FOUserAgent userAgent) {
+            this.in = in;
+            this.documentHandler = documentHandler;
+            this.context = documentHandler.getContext();
+            this.userAgent = userAgent;
+        }
+
+        void parse() throws IOException, IFException {
+            for (byte b : MAGIC) {
+                if (readByte() != b) {
+                    throw new IOException("Not a binary intermediate format file");
+                }
+            }
+            int version = readUnsigned();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported binary intermediate format version: " + version);
+            }
+            documentHandler.startDocument();
+            int type = readByte();
+            while (type != END_DOCUMENT) {
+                if (type != XML) {
+                    checkPageSequenceStarted();
+                }
+                handleRecord(type);
+                type = readByte();
+            }
+            documentHandler.endDocument();
+        }
+
+        private void handleRecord(int type) throws IOException, IFException {
+            switch (type) {
+            case DOCUMENT_LOCALE:
+                documentHandler.setDocumentLocale(readLocale());
+                break;
+            case START_DOCUMENT_HEADER:
+                documentHandler.startDocumentHeader();
+                break;
+            case END_DOCUMENT_HEADER:
+                documentHandler.endDocumentHeader();
+                break;
+            case START_DOCUMENT_TRAILER:
+                documentHandler.startDocumentTrailer();
+                break;
+            case END_DOCUMENT_TRAILER:
+                documentHandler.endDocumentTrailer();
+                break;
+            case START_PAGE_SEQUENCE:
+                handleStartPageSequence();
+                break;
+            case END_PAGE_SEQUENCE:
+                documentHandler.endPageSequence();
+                context.setLanguage(null);
+                break;
+            case START_PAGE:
+                handleStartPage();
+                break;
+            case END_PAGE:
+                documentHandler.endPage();
+                break;
+            case START_PAGE_HEADER:
+                documentHandler.startPageHeader();
+                structureTreeHandler = new StructureTreeHandler(userAgent.getStructureTreeEventHandler());
+                break;
+            case END_PAGE_HEADER:
+                documentHandler.endPageHeader();
+                break;
+            case START_PAGE_CONTENT:
+                painter = documentHandler.startPageContent();
+                break;
+            case END_PAGE_CONTENT:
+                painter = null;
+                context.setID("");
+                documentHandler.endPageContent();
+                break;
+            case START_PAGE_TRAILER:
+                documentHandler.startPageTrailer();
+                break;
+            case END_PAGE_TRAILER:
+                documentHandler.endPageTrailer();
+                break;
+            case START_VIEWPORT:
+                handleStartViewport();
+                break;
+            case END_VIEWPORT:
+                painter.endViewport();
+                break;
+            case START_GROUP:
+                painter.startGroup(readTransforms(), readString());
+                break;
+            case END_GROUP:
+                painter.endGroup();
+                break;
+            case ID:
+                context.setID(readString());
+                break;
+            case IMAGE:
+            case IMAGE_DOCUMENT:
+                handleImage(type);
+                break;
+            case CLIP_RECT:
+                handleClipRect();
+                break;
+            case RECT:
+                painter.fillRect(readRect(), readColor());
+                break;
+            case BORDER_RECT:
+                painter.drawBorderRect(readRect(), readBorder(), readBorder(), readBorder(),
+                        readBorder(), readColor());
+                break;
+            case LINE:
+                handleLine();
+                break;
+            case FONT:
+                handleFont();
+                break;
+            case TEXT:
+                handleText();
+                break;
+            case XML:
+                handleXML();
+                break;
+            default:
+                throw new IOException("Invalid record type in binary intermediate format: " + type);
+            }
+        }
+
+        private void handleStartPageSequence() throws IOException, IFException {
+            pageSequenceID = readString();
+            pageSequenceLanguage = readLocale();
+            pageSequenceForeignAttributes = readForeignAttributes();
+            if (userAgent.isAccessibilityEnabled()) {
+                //The page sequence starts once its structure tree has been handled
+                structureTreeHandler = new MainStructureTreeHandler(
+                        userAgent.getStructureTreeEventHandler(), pageSequenceLanguage);
+                pageSequencePending = true;
+            } else {
+                startPageSequence();
+            }
+        }
+
+        private void checkPageSequenceStarted() throws IFException {
+            if (pageSequencePending) {
+                AccessibilityEventProducer.Provider.get(userAgent.getEventBroadcaster())
+                        .noStructureTreeInXML(this);
+                startPageSequence();
+            }
+        }
+
+        private void startPageSequence() throws IFException {
+            pageSequencePending = false;
+            if (pageSequenceLanguage != null) {
+                context.setLanguage(pageSequenceLanguage);
+            }
+            context.setForeignAttributes(pageSequenceForeignAttributes);
+            documentHandler.startPageSequence(pageSequenceID);
+            context.resetForeignAttributes();
+            pageSequenceForeignAttributes = null;
+        }
+
+        private void handleStartPage() throws IOException, IFException {
+            int index = readInt();
+            String name = readString();
+            String pageMasterName = readString();
+            int width = readInt();
+            int height = readInt();
+            context.setForeignAttributes(readForeignAttributes());
+            documentHandler.startPage(index, name, pageMasterName, new Dimension(width, height));
+            context.setPageNumber(index + 1);
+            context.resetForeignAttributes();
+        }
+
+        private void handleStartViewport() throws IOException, IFException {
+            AffineTransform[] transforms = readTransforms();
+            int width = readInt();
+            int height = readInt();
+            Rectangle clipRect = (readByte() != 0 ? readRect() : null);
+            painter.startViewport(transforms, new Dimension(width, height), clipRect);
+        }
+
+        private void handleImage(int type) throws IOException, IFException {
+            String uri = (type == IMAGE ? readString() : null);
+            Rectangle rect = readRect();
+            Map<QName, String> foreignAttributes = readForeignAttributes();
+            String structRef = readString();
+            if (structRef != null) {
+                //IFParser reports the structure reference of an image as a foreign attribute, too
+                if (foreignAttributes == null) {
+                    foreignAttributes = new HashMap<QName, String>();
+                }
+                foreignAttributes.put(new QName(InternalElementMapping.URI,
+                        InternalElementMapping.STANDARD_PREFIX + ":" + InternalElementMapping.STRUCT_REF),
+                        structRef);
+            }
+            context.setForeignAttributes(foreignAttributes);
+            establishStructureTreeElement(structRef);
+            if (type == IMAGE_DOCUMENT) {
+                if (readByte() != XML) {
+                    throw new IOException("Image document expected");
+                }
+                Document doc = (Document) readXMLObject(readString());
+                painter.drawImage(doc, rect);
+            } else {
+                painter.drawImage(uri, rect);
+            }
+            context.resetStructureTreeElement();
+            context.resetForeignAttributes();
+        }
+
+        private void handleClipRect() throws IOException, IFException {
+            Rectangle rect = readRect();
+            BorderProps before = readBorder();
+            BorderProps after = readBorder();
+            BorderProps start = readBorder();
+            BorderProps end = readBorder();
+            if (!(before == null && after == null && start == null && end == null)) {
+                painter.clipBackground(rect, before, after, start, end);
+            }
+            painter.clipRect(rect);
+        }
+
+        private void handleLine() throws IOException, IFException {
+            int x1 = readInt();
+            int y1 = readInt();
+            int x2 = readInt();
+            int y2 = readInt();
+            int width = readInt();
+            Color color = readColor();
+            RuleStyle style = RuleStyle.valueOf(readString());
+            painter.drawLine(new Point(x1, y1), new Point(x2, y2), width, color, style);
+        }
+
+        private void handleFont() throws IOException, IFException {
+            int flags = readUnsigned();
+            String family = ((flags & FONT_FAMILY) != 0 ? readString() : null);
+            String style = ((flags & FONT_STYLE) != 0 ? readString() : null);
+            Integer weight = ((flags & FONT_WEIGHT) != 0 ? Integer.valueOf(readInt()) : null);
+            String variant = ((flags & FONT_VARIANT) != 0 ? readString() : null);
+            Integer size = ((flags & FONT_SIZE) != 0 ? Integer.valueOf(readInt()) : null);
+            Color color = ((flags & FONT_COLOR) != 0 ? readColor() : null);
+            painter.setFont(family, style, weight, variant, size, color);
+        }
+
+        private void handleText() throws IOException, IFException {
+            int flags = readUnsigned();
+            int x = readInt();
+            int y = readInt();
+            int letterSpacing = ((flags & TEXT_LETTER_SPACING) != 0 ? readInt() : 0);
+            int wordSpacing = ((flags & TEXT_WORD_SPACING) != 0 ? readInt() : 0);
+            int[][] dp = null;
+            if ((flags & TEXT_DX) != 0) {
+                int[] dx = new int[readUnsigned()];
+                for (int i = 0; i < dx.length; i++) {
+                    dx[i] = readInt();
+                }
+                dp = IFUtil.convertDXToDP(dx);
+            } else if ((flags & TEXT_DP) != 0) {
+                dp = new int[readUnsigned()][4];
+                for (int[] pa : dp) {
+                    for (int k = 0; k < 4; k++) {
+                        pa[k] = readInt();
+                    }
+                }
+            }
+            if ((flags & TEXT_STRUCT_REF) != 0) {
+                establishStructureTreeElement(readString());
+            }
+            String text = readText();
+            if ((flags & TEXT_HYPHENATED) != 0) {
+                context.setHyphenated(true);
+            }
+            painter.drawText(x, y, letterSpacing, wordSpacing, dp, text);
+            context.setHyphenated(false);
+            context.resetStructureTreeElement();
+        }
+
+        private void handleXML() throws IOException, IFException {
+            String uri = readString();
+            if (IFConstants.NAMESPACE.equals(uri)) {
+                ContentHandler handler;
+                if (userAgent.isAccessibilityEnabled()) {
+                    handler = structureTreeHandler;
+                } else {
+                    handler = new DefaultHandler();
+                }
+                readXML(handler);
+                if (pageSequencePending) {
+                    startPageSequence();
+                }
+            } else if (DocumentNavigationExtensionConstants.NAMESPACE.equals(uri)) {
+                checkPageSequenceStarted();
+                if (this.navParser == null) {
+                    this.navParser = new DocumentNavigationHandler(
+                            this.documentHandler.getDocumentNavigationHandler(),
+                                    structureTreeElements);
+                }
+                readXML(navParser);
+            } else {
+                checkPageSequenceStarted();
+                Object obj = readXMLObject(uri);
+                if (obj != null) {
+                    documentHandler.handleExtensionObject(obj);
+                }
+            }
+        }
+
+        private Object readXMLObject(String uri) throws IOException, IFException {
+            ContentHandler handler;
+            try {
+                handler = IFParser.createForeignContentHandler(uri, userAgent,
+                        userAgent.getElementMappingRegistry());
+            } catch (SAXException e) {
+                throw new IFException("SAX error while creating a handler for " + uri, e);
+            }
+            readXML(handler);
+            if (handler instanceof ContentHandlerFactory.ObjectSource) {
+                return ((ContentHandlerFactory.ObjectSource) handler).getObject();
+            } else {
+                return null;
+            }
+        }
+
+        /** Replays the SAX events of an XML record to the given handler. */
+        private void readXML(ContentHandler handler) throws IOException, IFException {
+            List<String[]> elements = new ArrayList<String[]>();
+            try {
+                handler.startDocument();
+                int event = readByte();
+                while (event != XML_END) {
+                    switch (event) {
+                    case XML_START_ELEMENT:
+                        String[] name = new String[] {readString(), readString(), readString()};
+                        int count = readUnsigned();
+                        AttributesImpl atts = new AttributesImpl();
+                        for (int i = 0; i < count; i++) {
+                            atts.addAttribute(readString(), readString(), readString(),
+                                    readString(), readString());
+                        }
+                        elements.add(name);
+                        handler.startElement(name[0], name[1], name[2], atts);
+                        break;
+                    case XML_END_ELEMENT:
+                        name = elements.remove(elements.size() - 1);
+                        handler.endElement(name[0], name[1], name[2]);
+                        break;
+                    case XML_CHARACTERS:
+                        char[] ch = readText().toCharArray();
+                        handler.characters(ch, 0, ch.length);
+                        break;
+                    default:
+                        throw new IOException("Invalid XML event in binary intermediate format: " + event);
+                    }
+                    event = readByte();
+                }
+                handler.endDocument();
+            } catch (SAXException e) {
+                Exception cause = e.getException();
+                if (cause instanceof IFException) {
+                    throw (IFException) cause;
+                }
+                throw new IFException("SAX error while replaying XML content", e);
+            }
+        }
+
+        private void establishStructureTreeElement(String structRef) {
+            if (structRef != null && structRef.length() > 0) {
+                assert structureTreeElements.containsKey(structRef);
+                StructureTreeElement element = structureTreeElements.get(structRef);
+                if (element != null) {
+                    context.setStructureTreeElement(element);
+                }
+            }
+        }
+
+        private StructureTreeElement getStructureTreeElement(Attributes attributes) {
+            String structRef = attributes.getValue(InternalElementMapping.URI, InternalElementMapping.STRUCT_REF);
+            if (structRef != null && structRef.length() > 0) {
+                assert structureTreeElements.containsKey(structRef);
+                return structureTreeElements.get(structRef);
+            } else {
+                return null;
+            }
+        }
+
+        private class StructureTreeHandler extends DefaultHandler {
+
+            protected final StructureTreeEventHandler structureTreeEventHandler;
+
+            StructureTreeHandler(StructureTreeEventHandler structureTreeEventHandler) {
+                this.structureTreeEventHandler = structureTreeEventHandler;
+            }
+
+            void startStructureTree(String type) {
+            }
+
+            @Override
+            public void startElement(String uri, String localName, String qName,
+                    Attributes attributes) throws SAXException {
+                if ("structure-tree".equals(localName)) {
+                    startStructureTree(attributes.getValue("type"));
+                } else {
+                    if (localName.equals("marked-content")) {
+                        localName = "#PCDATA";
+                    }
+                    StructureTreeElement parent = getStructureTreeElement(attributes);
+                    String structID = attributes.getValue(InternalElementMapping.URI,
+                            InternalElementMapping.STRUCT_ID);
+                    if (structID == null) {
+                        structureTreeEventHandler.startNode(localName, attributes, parent);
+                    } else if (localName.equals("external-graphic")
+                            || localName.equals("instream-foreign-object")) {
+                        StructureTreeElement structureTreeElement
+                                = structureTreeEventHandler.startImageNode(localName, attributes, parent);
+                        structureTreeElements.put(structID, structureTreeElement);
+                    } else {
+                        StructureTreeElement structureTreeElement = structureTreeEventHandler
+                                    .startReferencedNode(localName, attributes, parent);
+                        structureTreeElements.put(structID, structureTreeElement);
+                    }
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName)
+                    throws SAXException {
+                if (!"structure-tree".equals(localName)) {
+                    structureTreeEventHandler.endNode(localName);
+                }
+            }
+        }
+
+        private class MainStructureTreeHandler extends StructureTreeHandler {
+
+            private final Locale pageSequenceLanguage;
+
+            MainStructureTreeHandler(StructureTreeEventHandler structureTreeEventHandler,
+                    Locale pageSequenceLanguage) {
+                super(structureTreeEventHandler);
+                this.pageSequenceLanguage = pageSequenceLanguage;
+            }
+
+            @Override
+            void startStructureTree(String type) {
+                structureTreeEventHandler.startPageSequence(pageSequenceLanguage, type);
+            }
+        }
+
+        //---=== Decoding ===---
+
+        private int readByte() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("Unexpected end of binary intermediate format");
+                }
+            }
+            return buffer[pos++] & 0xFF;
+        }
+
+        private int readUnsigned() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b = readByte();
+            while ((b & 0x80) != 0) {
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+                b = readByte();
+            }
+            return value | (b << shift);
+        }
+
+        private int readInt() throws IOException {
+            int value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private double readDouble() throws IOException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | readByte();
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private String readChars(int length) throws IOException {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) readUnsigned();
+            }
+            return new String(chars);
+        }
+
+        private String readText() throws IOException {
+            int length = readUnsigned();
+            return (length == 0 ? null : readChars(length - 1));
+        }
+
+        private String readString() throws IOException {
+            int index = readUnsigned();
+            if (index == 0) {
+                return null;
+            } else if (index == 1) {
+                String s = readChars(readUnsigned());
+                strings.add(s);
+                return s;
+            } else if (index - 2 < strings.size()) {
+                return strings.get(index - 2);
+            } else {
+                throw new IOException("Invalid string reference in binary intermediate format: " + index);
+            }
+        }
+
+        private Locale readLocale() throws IOException {
+            String languageTag = readString();
+            return (languageTag == null ? null : LanguageTags.toLocale(languageTag));
+        }
+
+        private Rectangle readRect() throws IOException {
+            int x = readInt();
+            int y = readInt();
+            int width = readInt();
+            int height = readInt();
+            return new Rectangle(x, y, width, height);
+        }
+
+        private Color readColor() throws IOException, IFException {
+            String s = readString();
+            if (s == null) {
+                return null;
+            }
+            Color color = colors.get(s);
+            if (color == null) {
+                try {
+                    color = ColorUtil.parseColorString(userAgent, s);
+                } catch (PropertyException pe) {
+                    throw new IFException("Error parsing the color " + s, pe);
+                }
+                colors.put(s, color);
+            }
+            return color;
+        }
+
+        private BorderProps readBorder() throws IOException {
+            String s = readString();
+            if (s == null) {
+                return null;
+            }
+            BorderProps border = borders.get(s);
+            if (border == null) {
+                border = BorderProps.valueOf(userAgent, s);
+                borders.put(s, border);
+            }
+            return border;
+        }
+
+        private AffineTransform[] readTransforms() throws IOException {
+            int count = readUnsigned();
+            if (count == 0) {
+                return EMPTY_TRANSFORMS;
+            }
+            AffineTransform[] transforms = new AffineTransform[count];
+            for (int i = 0; i < count; i++) {
+                if (readByte() == TRANSFORM_TRANSLATE) {
+                    transforms[i] = AffineTransform.getTranslateInstance(readInt(), readInt());
+                } else {
+                    double[] matrix = new double[6];
+                    for (int k = 0; k < 6; k++) {
+                        matrix[k] = readDouble();
+                    }
+                    transforms[i] = new AffineTransform(matrix);
+                }
+            }
+            return transforms;
+        }
+
+        private Map<QName, String> readForeignAttributes() throws IOException {
+            int count = readUnsigned();
+            if (count == 0) {
+                return null;
+            }
+            Map<QName, String> foreignAttributes = new HashMap<QName, String>();
+            for (int i = 0; i < count; i++) {
+                String ns = readString();
+                String qName = readString();
+                foreignAttributes.put(new QName(ns, qName), readString());
+            }
+            return foreignAttributes;
+        }
+    }
+}
@@ -0,0 +1,988 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Paint;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+import org.apache.xmlgraphics.util.QName;
+import org.apache.xmlgraphics.util.XMLizable;
+
+import org.apache.fop.accessibility.StructureTreeEventHandler;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.extensions.InternalElementMapping;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.DefaultRendererConfigurator;
+import org.apache.fop.render.intermediate.IFRendererConfig.IFRendererConfigParser;
+import org.apache.fop.render.intermediate.IFStructureTreeBuilder.IFStructureTreeElement;
+import org.apache.fop.render.intermediate.extensions.AbstractAction;
+import org.apache.fop.render.intermediate.extensions.Bookmark;
+import org.apache.fop.render.intermediate.extensions.BookmarkTree;
+import org.apache.fop.render.intermediate.extensions.DocumentNavigationExtensionConstants;
+import org.apache.fop.render.intermediate.extensions.Link;
+import org.apache.fop.render.intermediate.extensions.NamedDestination;
+import org.apache.fop.traits.BorderProps;
+import org.apache.fop.traits.RuleStyle;
+import org.apache.fop.util.ColorUtil;
+import org.apache.fop.util.DOM2SAX;
+import org.apache.fop.util.GenerationHelperContentHandler;
+import org.apache.fop.util.LanguageTags;
+import org.apache.fop.util.XMLConstants;
+
+/**
+ * IFPainter implementation that serializes the intermediate format to a compact binary encoding
+ * (see {@link IFBinaryConstants}). The binary form is read back by {@link IFBinaryParser} which
+ * produces the same events as {@link IFParser} does for the XML written by {@link IFSerializer},
+ * without the cost of formatting and parsing the XML. Only transformation matrices differ in that
+ * they are kept at full precision.
+ */
+public class IFBinarySerializer extends AbstractBinaryWritingIFDocumentHandler
+        implements IFBinaryConstants, IFPainter, IFDocumentNavigationHandler {
+
+    private IFDocumentHandler mimicHandler;
+    private int pageSequenceIndex; // used for accessibility
+
+    /** Holds the intermediate format state */
+    private IFState state;
+
+    private String currentID = "";
+
+    private IFStructureTreeBuilder structureTreeBuilder;
+
+    private final byte[] buffer = new byte[8192];
+    private int count;
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    /** Receives the SAX events of the content that isn't covered by the IF events */
+    private final GenerationHelperContentHandler handler;
+
+    private final Map<String, AbstractAction> incompleteActions = new HashMap<String, AbstractAction>();
+    private final List<AbstractAction> completeActions = new LinkedList<AbstractAction>();
+
+    /**
+     * Main constructor.
+     * @param context the intermediate format context
+     */
+    public IFBinarySerializer(IFContext context) {
+        super(context);
+        this.handler = new GenerationHelperContentHandler(new XMLWriter(), IFConstants.NAMESPACE, context);
+    }
+
+    /** {@inheritDoc} */
+    public boolean supportsPagesOutOfOrder() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    public String getMimeType() {
+        return MimeConstants.MIME_FOP_IF_BINARY;
+    }
+
+    /** {@inheritDoc} */
+    public IFDocumentHandlerConfigurator getConfigurator() {
+        if (this.mimicHandler != null) {
+            return getMimickedDocumentHandler().getConfigurator();
+        } else {
+            return new DefaultRendererConfigurator(getUserAgent(), new IFRendererConfigParser());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public IFDocumentNavigationHandler getDocumentNavigationHandler() {
+        return this;
+    }
+
+    /**
+     * Tells this serializer to mimic the given document handler (mostly applies to the font set
+     * that is used during layout).
+     * @param targetHandler the document handler to mimic
+     */
+    public void mimicDocumentHandler(IFDocumentHandler targetHandler) {
+        this.mimicHandler = targetHandler;
+    }
+
+    /**
+     * Returns the document handler that is being mimicked by this serializer.
+     * @return the mimicked document handler or null if no such document handler has been set
+     */
+    public IFDocumentHandler getMimickedDocumentHandler() {
+        return this.mimicHandler;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public FontInfo getFontInfo() {
+        if (this.mimicHandler != null) {
+            return this.mimicHandler.getFontInfo();
+        } else {
+            return null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setFontInfo(FontInfo fontInfo) {
+        if (this.mimicHandler != null) {
+            this.mimicHandler.setFontInfo(fontInfo);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setDefaultFontInfo(FontInfo fontInfo) {
+        if (this.mimicHandler != null) {
+            this.mimicHandler.setDefaultFontInfo(fontInfo);
+        }
+    }
+
+    @Override
+    public StructureTreeEventHandler getStructureTreeEventHandler() {
+        if (structureTreeBuilder == null) {
+            structureTreeBuilder = new IFStructureTreeBuilder();
+        }
+        return structureTreeBuilder;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startDocument() throws IFException {
+        super.startDocument();
+        try {
+            for (byte b : MAGIC) {
+                writeByte(b);
+            }
+            writeUnsigned(FORMAT_VERSION);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in startDocument()", ioe);
+        }
+    }
+
+    @Override
+    public void setDocumentLocale(Locale locale) {
+        try {
+            writeByte(DOCUMENT_LOCALE);
+            writeString(LanguageTags.toLanguageTag(locale));
+        } catch (IOException ioe) {
+            throw new RuntimeException("Unable to write the document locale.", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startDocumentHeader() throws IFException {
+        writeRecord(START_DOCUMENT_HEADER, "startDocumentHeader()");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endDocumentHeader() throws IFException {
+        writeRecord(END_DOCUMENT_HEADER, "endDocumentHeader()");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startDocumentTrailer() throws IFException {
+        writeRecord(START_DOCUMENT_TRAILER, "startDocumentTrailer()");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endDocumentTrailer() throws IFException {
+        writeRecord(END_DOCUMENT_TRAILER, "endDocumentTrailer()");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endDocument() throws IFException {
+        try {
+            writeByte(END_DOCUMENT);
+            flushBuffer();
+            this.outputStream.flush();
+            finishDocumentNavigation();
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in endDocument()", ioe);
+        }
+        super.endDocument();
+    }
+
+    /** {@inheritDoc} */
+    public void startPageSequence(String id) throws IFException {
+        try {
+            writeByte(START_PAGE_SEQUENCE);
+            writeString(id);
+            Locale lang = getContext().getLanguage();
+            writeString(lang != null ? LanguageTags.toLanguageTag(lang) : null);
+            writeForeignAttributes();
+            if (this.getUserAgent().isAccessibilityEnabled()) {
+                assert (structureTreeBuilder != null);
+                structureTreeBuilder.replayEventsForPageSequence(handler, pageSequenceIndex++);
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in startPageSequence()", ioe);
+        } catch (SAXException e) {
+            throw new IFException("SAX error in startPageSequence()", e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void endPageSequence() throws IFException {
+        writeRecord(END_PAGE_SEQUENCE, "endPageSequence()");
+    }
+
+    /** {@inheritDoc} */
+    public void startPage(int index, String name, String pageMasterName, Dimension size)
+            throws IFException {
+        try {
+            writeByte(START_PAGE);
+            writeInt(index);
+            writeString(name);
+            writeString(pageMasterName);
+            writeInt(size.width);
+            writeInt(size.height);
+            writeForeignAttributes();
+            getContext().setPageIndex(index);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in startPage()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startPageHeader() throws IFException {
+        writeRecord(START_PAGE_HEADER, "startPageHeader()");
+        if (this.getUserAgent().isAccessibilityEnabled()) {
+            try {
+                structureTreeBuilder.replayEventsForRetrievedMarkers(handler);
+            } catch (SAXException e) {
+                throw new IFException("SAX error in startPageHeader()", e);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endPageHeader() throws IFException {
+        writeRecord(END_PAGE_HEADER, "endPageHeader()");
+    }
+
+    /** {@inheritDoc} */
+    public IFPainter startPageContent() throws IFException {
+        writeRecord(START_PAGE_CONTENT, "startPageContent()");
+        this.state = IFState.create();
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    public void endPageContent() throws IFException {
+        this.state = null;
+        currentID = "";
+        writeRecord(END_PAGE_CONTENT, "endPageContent()");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startPageTrailer() throws IFException {
+        writeRecord(START_PAGE_TRAILER, "startPageTrailer()");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endPageTrailer() throws IFException {
+        commitNavigation();
+        writeRecord(END_PAGE_TRAILER, "endPageTrailer()");
+    }
+
+    /** {@inheritDoc} */
+    public void endPage() throws IFException {
+        writeRecord(END_PAGE, "endPage()");
+        getContext().setPageIndex(-1);
+    }
+
+    //---=== IFPainter ===---
+
+    /** {@inheritDoc} */
+    public void startViewport(AffineTransform transform, Dimension size, Rectangle clipRect)
+            throws IFException {
+        startViewport(new AffineTransform[] {transform}, size, clipRect);
+    }
+
+    /** {@inheritDoc} */
+    public void startViewport(AffineTransform[] transforms, Dimension size, Rectangle clipRect)
+            throws IFException {
+        try {
+            writeByte(START_VIEWPORT);
+            writeTransforms(transforms);
+            writeInt(size.width);
+            writeInt(size.height);
+            if (clipRect != null) {
+                writeByte(1);
+                writeRect(clipRect);
+            } else {
+                writeByte(0);
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in startViewport()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void endViewport() throws IFException {
+        writeRecord(END_VIEWPORT, "endViewport()");
+    }
+
+    /** {@inheritDoc} */
+    public void startGroup(AffineTransform[] transforms, String layer) throws IFException {
+        try {
+            writeByte(START_GROUP);
+            writeTransforms(transforms);
+            writeString(layer != null && layer.length() > 0 ? layer : null);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in startGroup()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void startGroup(AffineTransform transform, String layer) throws IFException {
+        startGroup(new AffineTransform[] {transform}, layer);
+    }
+
+    /** {@inheritDoc} */
+    public void endGroup() throws IFException {
+        writeRecord(END_GROUP, "endGroup()");
+    }
+
+    /** {@inheritDoc} */
+    public void drawImage(String uri, Rectangle rect) throws IFException {
+        try {
+            writeID();
+            writeByte(IMAGE);
+            writeString(uri);
+            writeRect(rect);
+            writeForeignAttributes();
+            writeStructureReference();
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawImage()", ioe);
+        } finally {
+            ImageSessionContext session = getUserAgent().getImageSessionContext();
+            ImageManager imageManager = getUserAgent().getImageManager();
+            imageManager.closeImage(uri, session);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void drawImage(Document doc, Rectangle rect) throws IFException {
+        try {
+            writeID();
+            writeByte(IMAGE_DOCUMENT);
+            writeRect(rect);
+            writeForeignAttributes();
+            writeStructureReference();
+            new DOM2SAX(handler).writeDocument(doc, true);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawImage()", ioe);
+        } catch (SAXException e) {
+            throw new IFException("SAX error in drawImage()", e);
+        }
+    }
+
+    private static Color toColor(Paint paint) {
+        if (paint instanceof Color) {
+            return (Color) paint;
+        } else {
+            throw new UnsupportedOperationException("Paint not supported: " + paint);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void clipRect(Rectangle rect) throws IFException {
+        try {
+            writeByte(CLIP_RECT);
+            writeRect(rect);
+            for (int i = 0; i < 4; i++) {
+                writeString(null);
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in clipRect()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void clipBackground(Rectangle rect, BorderProps bpsBefore, BorderProps bpsAfter,
+            BorderProps bpsStart, BorderProps bpsEnd) throws IFException {
+        if (!hasRoundedCorners(bpsBefore, bpsAfter, bpsStart, bpsEnd)) {
+            clipRect(rect);
+            return;
+        }
+        try {
+            writeByte(CLIP_RECT);
+            writeRect(rect);
+            writeBorder(bpsBefore);
+            writeBorder(bpsAfter);
+            writeBorder(bpsStart);
+            writeBorder(bpsEnd);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in clipBackground()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void fillRect(Rectangle rect, Paint fill) throws IFException {
+        if (fill == null) {
+            return;
+        }
+        try {
+            writeByte(RECT);
+            writeRect(rect);
+            writeColor(toColor(fill));
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in fillRect()", ioe);
+        }
+    }
+
+    private boolean hasRoundedCorners(BorderProps bpsBefore, BorderProps bpsAfter,
+            BorderProps bpsStart, BorderProps bpsEnd) {
+        return (bpsBefore != null && bpsBefore.getRadiusStart() > 0
+                        && bpsStart != null && bpsStart.getRadiusStart() > 0)
+                || (bpsBefore != null && bpsBefore.getRadiusEnd() > 0
+                        && bpsEnd != null && bpsEnd.getRadiusStart() > 0)
+                || (bpsEnd != null && bpsEnd.getRadiusEnd() > 0
+                        && bpsAfter != null && bpsAfter.getRadiusEnd() > 0)
+                || (bpsAfter != null && bpsAfter.getRadiusStart() > 0
+                        && bpsStart != null && bpsStart.getRadiusEnd() > 0);
+    }
+
+    /** {@inheritDoc} */
+    public void drawBorderRect(Rectangle rect, BorderProps top, BorderProps bottom,
+            BorderProps left, BorderProps right, Color innerBackgroundColor) throws IFException {
+        if (top == null && bottom == null && left == null && right == null) {
+            return;
+        }
+        try {
+            writeByte(BORDER_RECT);
+            writeRect(rect);
+            writeBorder(top);
+            writeBorder(bottom);
+            writeBorder(left);
+            writeBorder(right);
+            writeColor(innerBackgroundColor);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawBorderRect()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void drawLine(Point start, Point end, int width, Color color, RuleStyle style)
+            throws IFException {
+        try {
+            writeID();
+            writeByte(LINE);
+            writeInt(start.x);
+            writeInt(start.y);
+            writeInt(end.x);
+            writeInt(end.y);
+            writeInt(width);
+            writeColor(color);
+            writeString(style.getName());
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawLine()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void drawText(int x, int y, int letterSpacing, int wordSpacing,
+            int[][] dp, String text) throws IFException {
+        try {
+            writeID();
+            int flags = 0;
+            if (letterSpacing != 0) {
+                flags |= TEXT_LETTER_SPACING;
+            }
+            if (wordSpacing != 0) {
+                flags |= TEXT_WORD_SPACING;
+            }
+            if (dp != null && !IFUtil.isDPIdentity(dp)) {
+                flags |= IFUtil.isDPOnlyDX(dp) ? TEXT_DX : TEXT_DP;
+            }
+            IFStructureTreeElement structureTreeElement
+                    = (IFStructureTreeElement) getContext().getStructureTreeElement();
+            if (structureTreeElement != null) {
+                flags |= TEXT_STRUCT_REF;
+            }
+            if (getContext().isHyphenated()) {
+                flags |= TEXT_HYPHENATED;
+            }
+            writeByte(TEXT);
+            writeUnsigned(flags);
+            writeInt(x);
+            writeInt(y);
+            if ((flags & TEXT_LETTER_SPACING) != 0) {
+                writeInt(letterSpacing);
+            }
+            if ((flags & TEXT_WORD_SPACING) != 0) {
+                writeInt(wordSpacing);
+            }
+            if ((flags & TEXT_DX) != 0) {
+                int[] dx = IFUtil.convertDPToDX(dp);
+                writeUnsigned(dx.length);
+                for (int d : dx) {
+                    writeInt(d);
+                }
+            } else if ((flags & TEXT_DP) != 0) {
+                writeUnsigned(dp.length);
+                for (int[] pa : dp) {
+                    for (int k = 0; k < 4; k++) {
+                        writeInt(pa != null ? pa[k] : 0);
+                    }
+                }
+            }
+            if (structureTreeElement != null) {
+                writeString(structureTreeElement.getId());
+            }
+            writeText(text);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in drawText()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void setFont(String family, String style, Integer weight, String variant, Integer size,
+            Color color) throws IFException {
+        int flags = 0;
+        if (family != null && !family.equals(state.getFontFamily())) {
+            state.setFontFamily(family);
+            flags |= FONT_FAMILY;
+        }
+        if (style != null && !style.equals(state.getFontStyle())) {
+            state.setFontStyle(style);
+            flags |= FONT_STYLE;
+        }
+        if (weight != null && weight != state.getFontWeight()) {
+            state.setFontWeight(weight);
+            flags |= FONT_WEIGHT;
+        }
+        if (variant != null && !variant.equals(state.getFontVariant())) {
+            state.setFontVariant(variant);
+            flags |= FONT_VARIANT;
+        }
+        if (size != null && size != state.getFontSize()) {
+            state.setFontSize(size);
+            flags |= FONT_SIZE;
+        }
+        if (color != null && !org.apache.xmlgraphics.java2d.color.ColorUtil.isSameColor(
+                color, state.getTextColor())) {
+            state.setTextColor(color);
+            flags |= FONT_COLOR;
+        }
+        if (flags == 0) {
+            return;
+        }
+        try {
+            writeByte(FONT);
+            writeUnsigned(flags);
+            if ((flags & FONT_FAMILY) != 0) {
+                writeString(family);
+            }
+            if ((flags & FONT_STYLE) != 0) {
+                writeString(style);
+            }
+            if ((flags & FONT_WEIGHT) != 0) {
+                writeInt(weight);
+            }
+            if ((flags & FONT_VARIANT) != 0) {
+                writeString(variant);
+            }
+            if ((flags & FONT_SIZE) != 0) {
+                writeInt(size);
+            }
+            if ((flags & FONT_COLOR) != 0) {
+                writeColor(color);
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in setFont()", ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void handleExtensionObject(Object extension) throws IFException {
+        if (extension instanceof XMLizable) {
+            serializeXMLizable((XMLizable) extension);
+        } else {
+            throw new UnsupportedOperationException(
+                    "Extension must implement XMLizable: "
+                            + extension + " (" + extension.getClass().getName() + ")");
+        }
+    }
+
+    /** {@inheritDoc} */
+    public boolean isBackgroundRequired(BorderProps bpsTop, BorderProps bpsBottom,
+            BorderProps bpsLeft, BorderProps bpsRight) {
+        return true;
+    }
+
+    private void writeID() throws IOException {
+        String id = getContext().getID();
+        if (!currentID.equals(id)) {
+            writeByte(ID);
+            writeString(id);
+            currentID = id;
+        }
+    }
+
+    private void writeStructureReference() throws IOException {
+        IFStructureTreeElement structureTreeElement
+                = (IFStructureTreeElement) getContext().getStructureTreeElement();
+        writeString(structureTreeElement != null ? structureTreeElement.getId() : null);
+    }
+
+    private void writeForeignAttributes() throws IOException {
+        @SuppressWarnings("unchecked")
+        Map<QName, String> foreignAttributes = getContext().getForeignAttributes();
+        writeUnsigned(foreignAttributes.size());
+        for (Map.Entry<QName, String> entry : foreignAttributes.entrySet()) {
+            QName name = entry.getKey();
+            writeString(name.getNamespaceURI());
+            writeString(name.getQName());
+            writeString(entry.getValue());
+        }
+    }
+
+    //---=== IFDocumentNavigationHandler ===---
+
+    private void noteAction(AbstractAction action) {
+        if (action == null) {
+            throw new NullPointerException("action must not be null");
+        }
+        if (!action.isComplete()) {
+            assert action.hasID();
+            incompleteActions.put(action.getID(), action);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void renderNamedDestination(NamedDestination destination) throws IFException {
+        noteAction(destination.getAction());
+
+        AttributesImpl atts = new AttributesImpl();
+        atts.addAttribute("", "name", "name", XMLConstants.CDATA, destination.getName());
+        try {
+            handler.startElement(DocumentNavigationExtensionConstants.NAMED_DESTINATION, atts);
+            serializeXMLizable(destination.getAction());
+            handler.endElement(DocumentNavigationExtensionConstants.NAMED_DESTINATION);
+        } catch (SAXException e) {
+            throw new IFException("SAX error serializing named destination", e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void renderBookmarkTree(BookmarkTree tree) throws IFException {
+        AttributesImpl atts = new AttributesImpl();
+        try {
+            handler.startElement(DocumentNavigationExtensionConstants.BOOKMARK_TREE, atts);
+            for (Object o : tree.getBookmarks()) {
+                Bookmark b = (Bookmark) o;
+                if (b.getAction() != null) {
+                    serializeBookmark(b);
+                }
+            }
+            handler.endElement(DocumentNavigationExtensionConstants.BOOKMARK_TREE);
+        } catch (SAXException e) {
+            throw new IFException("SAX error serializing bookmark tree", e);
+        }
+    }
+
+    private void serializeBookmark(Bookmark bookmark) throws SAXException, IFException {
+        noteAction(bookmark.getAction());
+
+        AttributesImpl atts = new AttributesImpl();
+        atts.addAttribute("", "title", "title", XMLConstants.CDATA, bookmark.getTitle());
+        atts.addAttribute("", "starting-state", "starting-state",
+                XMLConstants.CDATA, bookmark.isShown() ? "show" : "hide");
+        handler.startElement(DocumentNavigationExtensionConstants.BOOKMARK, atts);
+        serializeXMLizable(bookmark.getAction());
+        for (Object o : bookmark.getChildBookmarks()) {
+            Bookmark b = (Bookmark) o;
+            if (b.getAction() != null) {
+                serializeBookmark(b);
+            }
+        }
+        handler.endElement(DocumentNavigationExtensionConstants.BOOKMARK);
+    }
+
+    /** {@inheritDoc} */
+    public void renderLink(Link link) throws IFException {
+        noteAction(link.getAction());
+
+        AttributesImpl atts = new AttributesImpl();
+        atts.addAttribute("", "rect", "rect",
+                XMLConstants.CDATA, IFUtil.toString(link.getTargetRect()));
+        if (getUserAgent().isAccessibilityEnabled()) {
+            atts.addAttribute(InternalElementMapping.URI,
+                    InternalElementMapping.STRUCT_REF,
+                    InternalElementMapping.STANDARD_PREFIX + ":" + InternalElementMapping.STRUCT_REF,
+                    XMLConstants.CDATA,
+                    ((IFStructureTreeElement) link.getAction().getStructureTreeElement()).getId());
+        }
+        try {
+            handler.startElement(DocumentNavigationExtensionConstants.LINK, atts);
+            serializeXMLizable(link.getAction());
+            handler.endElement(DocumentNavigationExtensionConstants.LINK);
+        } catch (SAXException e) {
+            throw new IFException("SAX error serializing link", e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void addResolvedAction(AbstractAction action) throws IFException {
+        assert action.isComplete();
+        assert action.hasID();
+        AbstractAction noted = incompleteActions.remove(action.getID());
+        if (noted != null) {
+            completeActions.add(action);
+        } else {
+            //ignore as it was already complete when it was first used.
+        }
+    }
+
+    /** {@inheritDoc} */
+    public int getPageIndex() {
+        return -1;
+    }
+
+    private void commitNavigation() throws IFException {
+        Iterator<AbstractAction> iter = this.completeActions.iterator();
+        while (iter.hasNext()) {
+            AbstractAction action = iter.next();
+            iter.remove();
+            serializeXMLizable(action);
+        }
+        assert this.completeActions.size() == 0;
+    }
+
+    private void finishDocumentNavigation() {
+        assert this.incompleteActions.size() == 0 : "Still holding incomplete actions!";
+    }
+
+    private void serializeXMLizable(XMLizable object) throws IFException {
+        try {
+            object.toSAX(handler);
+        } catch (SAXException e) {
+            throw new IFException("SAX error serializing object", e);
+        }
+    }
+
+    //---=== Encoding ===---
+
+    private void writeRecord(int type, String method) throws IFException {
+        try {
+            writeByte(type);
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in " + method, ioe);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        outputStream.write(buffer, 0, count);
+        count = 0;
+    }
+
+    private void writeUnsigned(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeUnsigned((value << 1) ^ (value >> 31));
+    }
+
+    private void writeDouble(double value) throws IOException {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            writeByte((int) (bits >>> shift));
+        }
+    }
+
+    private void writeChars(String s) throws IOException {
+        writeUnsigned(s.length());
+        for (int i = 0, c = s.length(); i < c; i++) {
+            writeUnsigned(s.charAt(i));
+        }
+    }
+
+    /** Writes a string that isn't expected to repeat, like the content of a text. */
+    private void writeText(String s) throws IOException {
+        if (s == null) {
+            writeUnsigned(0);
+        } else {
+            writeUnsigned(s.length() + 1);
+            for (int i = 0, c = s.length(); i < c; i++) {
+                writeUnsigned(s.charAt(i));
+            }
+        }
+    }
+
+    /** Writes a string through the string table. */
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            writeUnsigned(0);
+        } else {
+            Integer index = strings.get(s);
+            if (index != null) {
+                writeUnsigned(index + 2);
+            } else {
+                strings.put(s, strings.size());
+                writeUnsigned(1);
+                writeChars(s);
+            }
+        }
+    }
+
+    private void writeRect(Rectangle rect) throws IOException {
+        writeInt(rect.x);
+        writeInt(rect.y);
+        writeInt(rect.width);
+        writeInt(rect.height);
+    }
+
+    private void writeColor(Color color) throws IOException {
+        writeString(color != null ? ColorUtil.colorToString(color) : null);
+    }
+
+    private void writeBorder(BorderProps border) throws IOException {
+        writeString(border != null ? border.toString() : null);
+    }
+
+    /** Writes the transformations that aren't the identity (like the XML form). */
+    private void writeTransforms(AffineTransform[] transforms) throws IOException {
+        List<AffineTransform> nonIdentity = new ArrayList<AffineTransform>(transforms.length);
+        for (AffineTransform transform : transforms) {
+            if (!transform.isIdentity()) {
+                nonIdentity.add(transform);
+            }
+        }
+        writeUnsigned(nonIdentity.size());
+        double[] matrix = new double[6];
+        for (AffineTransform transform : nonIdentity) {
+            transform.getMatrix(matrix);
+            if (matrix[0] == 1 && matrix[3] == 1 && matrix[1] == 0 && matrix[2] == 0
+                    && matrix[4] == (int) matrix[4] && matrix[5] == (int) matrix[5]) {
+                writeByte(TRANSFORM_TRANSLATE);
+                writeInt((int) matrix[4]);
+                writeInt((int) matrix[5]);
+            } else {
+                writeByte(TRANSFORM_MATRIX);
+                for (double d : matrix) {
+                    writeDouble(d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the SAX events of the content that isn't covered by the IF events, one
+     * {@link IFBinaryConstants#XML} record per top-level element.
+     */
+    private class XMLWriter extends DefaultHandler {
+
+        private int depth;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts)
+                throws SAXException {
+            try {
+                if (depth == 0) {
+                    writeByte(XML);
+                    writeString(uri);
+                }
+                depth++;
+                writeByte(XML_START_ELEMENT);
+                writeString(uri);
+                writeString(localName);
+                writeString(qName);
+                writeUnsigned(atts.getLength());
+                for (int i = 0, c = atts.getLength(); i < c; i++) {
+                    writeString(atts.getURI(i));
+                    writeString(atts.getLocalName(i));
+                    writeString(atts.getQName(i));
+                    writeString(atts.getType(i));
+                    writeString(atts.getValue(i));
+                }
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            try {
+                writeByte(XML_END_ELEMENT);
+                depth--;
+                if (depth == 0) {
+                    writeByte(XML_END);
+                }
+            } catch (IOException ioe) {
+                throw new SAXException(ioe);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (depth > 0) {
+                try {
+                    writeByte(XML_CHARACTERS);
+                    writeText(new String(ch, start, length));
+                } catch (IOException ioe) {
+                    throw new SAXException(ioe);
+                }
+            }
+        }
+    }
+}
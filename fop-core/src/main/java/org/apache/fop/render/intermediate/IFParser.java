@@ -136,6 +136,34 @@ public class IFParser implements IFConstants {
         return new Handler(documentHandler, userAgent, elementMappingRegistry);
     }
 
+    /**
+     * Creates the handler for an element that isn't part of the intermediate format, which
+     * builds an extension object or a DOM document from the element's SAX events.
+     * @param uri the namespace of the element
+     * @param userAgent the user agent
+     * @param elementMappingRegistry the element mapping registry
+     * @return the content handler
+     * @throws SAXException if the content handler cannot be created
+     */
+    static ContentHandler createForeignContentHandler(String uri, FOUserAgent userAgent,
+            ElementMappingRegistry elementMappingRegistry) throws SAXException {
+        ContentHandlerFactoryRegistry registry = userAgent.getContentHandlerFactoryRegistry();
+        ContentHandlerFactory factory = registry.getFactory(uri);
+        if (factory == null) {
+            DOMImplementation domImplementation
+                = elementMappingRegistry.getDOMImplementationForNamespace(uri);
+            if (domImplementation == null) {
+                domImplementation = ElementMapping.getDefaultDOMImplementation();
+                /*
+                throw new SAXException("No DOMImplementation could be"
+                        + " identified to handle namespace: " + uri);
+                        */
+            }
+            factory = new DOMBuilderContentHandlerFactory(uri, domImplementation);
+        }
+        return factory.createContentHandler();
+    }
+
     private static class Handler extends DefaultHandler {
 
         private Map<String, ElementHandler> elementHandlers = new HashMap<String, ElementHandler>();
@@ -320,22 +348,7 @@ public class IFParser implements IFConstants {
                     delegate.startDocument();
                     delegate.startElement(uri, localName, qName, attributes);
                 } else {
-                    ContentHandlerFactoryRegistry registry
-                            = userAgent.getContentHandlerFactoryRegistry();
-                    ContentHandlerFactory factory = registry.getFactory(uri);
-                    if (factory == null) {
-                        DOMImplementation domImplementation
-                            = elementMappingRegistry.getDOMImplementationForNamespace(uri);
-                        if (domImplementation == null) {
-                            domImplementation = ElementMapping.getDefaultDOMImplementation();
-                            /*
-                            throw new SAXException("No DOMImplementation could be"
-                                    + " identified to handle namespace: " + uri);
-                                    */
-                        }
-                        factory = new DOMBuilderContentHandlerFactory(uri, domImplementation);
-                    }
-                    delegate = factory.createContentHandler();
+                    delegate = createForeignContentHandler(uri, userAgent, elementMappingRegistry);
                     delegateDepth++;
                     delegate.startDocument();
                     delegate.startElement(uri, localName, qName, attributes);
@@ -58,7 +58,9 @@ import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.FopFactoryConfig;
+import org.apache.fop.area.AreaEventProducer;
 import org.apache.fop.area.CTM;
+import org.apache.fop.area.Page;
 import org.apache.fop.area.PageViewport;
 import org.apache.fop.area.Trait;
 import org.apache.fop.area.inline.Image;
@@ -83,6 +85,7 @@ import org.apache.fop.util.CharUtilities;
 import org.apache.fop.util.ColorUtil;
 
 import static org.apache.fop.render.java2d.Java2DRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.java2d.Java2DRendererOption.MAX_PAGES_IN_MEMORY;
 
 /**
  * The <code>Java2DRenderer</code> class provides the abstract technical
@@ -144,6 +147,9 @@ public abstract class Java2DRenderer extends AbstractPathOrientedRenderer implem
 
     private GeneralPath currentPath;
 
+    /** Holds the page contents on disk if the number of pages in memory is limited */
+    private PageViewportStore pageStore;
+
     /**
      * Default constructor
      *
@@ -159,6 +165,10 @@ public abstract class Java2DRenderer extends AbstractPathOrientedRenderer implem
         if (s != null) {
             this.transparentPageBackground = "true".equalsIgnoreCase(s);
         }
+        Object maxPages = userAgent.getRendererOption(MAX_PAGES_IN_MEMORY);
+        if (maxPages != null) {
+            setMaxPagesInMemory(Integer.parseInt(maxPages.toString()));
+        }
     }
 
     /** @return the FOUserAgent */
@@ -202,6 +212,21 @@ public abstract class Java2DRenderer extends AbstractPathOrientedRenderer implem
         return this.scaleFactor;
     }
 
+    /**
+     * Limits the number of pages whose contents are held in memory. The contents of all
+     * pages are written to a temporary file when they are received and read back when a
+     * page is rendered, so that memory consumption doesn't grow with the number of pages.
+     * Must be called before the first page is rendered.
+     * @param maxPagesInMemory the maximum number of pages in memory, or 0 to keep all pages
+     * in memory (the default)
+     */
+    public void setMaxPagesInMemory(int maxPagesInMemory) {
+        if (pageStore != null) {
+            pageStore.clear();
+        }
+        this.pageStore = (maxPagesInMemory > 0 ? new PageViewportStore(maxPagesInMemory) : null);
+    }
+
     /** {@inheritDoc} */
     public void startRenderer(OutputStream out) throws IOException {
         super.startRenderer(out);
@@ -250,6 +275,9 @@ public abstract class Java2DRenderer extends AbstractPathOrientedRenderer implem
      */
     public void clearViewportList() {
         pageViewportList.clear();
+        if (pageStore != null) {
+            pageStore.clear();
+        }
         setCurrentPageNumber(0);
     }
 
@@ -285,6 +313,36 @@ public abstract class Java2DRenderer extends AbstractPathOrientedRenderer implem
     protected void rememberPage(PageViewport pageViewport) {
         assert pageViewport.getPageIndex() >= 0;
         pageViewportList.add(pageViewport);
+        if (pageStore != null) {
+            try {
+                pageStore.store(pageViewport);
+            } catch (IOException ioe) {
+                AreaEventProducer eventProducer = AreaEventProducer.Provider.get(
+                        getUserAgent().getEventBroadcaster());
+                eventProducer.pageSaveError(this, pageViewport.getPageNumberString(), ioe);
+            }
+        }
+    }
+
+    /**
+     * Returns the contents of a page, reading them back if they have been written to the
+     * page store. The caller must hold on to the returned page while rendering it, as the
+     * contents may be released again by the page viewport once other pages are loaded.
+     * @param pageViewport the page viewport
+     * @return the page
+     */
+    protected Page getPage(PageViewport pageViewport) {
+        if (pageStore == null) {
+            return pageViewport.getPage();
+        }
+        try {
+            return pageStore.load(pageViewport);
+        } catch (IOException ioe) {
+            AreaEventProducer eventProducer = AreaEventProducer.Provider.get(
+                    getUserAgent().getEventBroadcaster());
+            eventProducer.pageLoadError(this, pageViewport.getPageNumberString(), ioe);
+            return null;
+        }
     }
 
     /**
@@ -296,6 +354,7 @@ public abstract class Java2DRenderer extends AbstractPathOrientedRenderer implem
      */
     public BufferedImage getPageImage(PageViewport pageViewport) {
 
+        Page page = getPage(pageViewport);
         this.currentPageViewport = pageViewport;
         try {
             PageBoundaries boundaries = new PageBoundaries(
@@ -380,7 +439,9 @@ public abstract class Java2DRenderer extends AbstractPathOrientedRenderer implem
                 currentIPPosition = 0;
 
                 // this toggles the rendering of all areas
-                renderPageAreas(pageViewport.getPage());
+                if (page != null) {
+                    renderPageAreas(page);
+                }
             } finally {
                 state = null;
             }
@@ -1005,7 +1066,11 @@ public abstract class Java2DRenderer extends AbstractPathOrientedRenderer implem
             currentBPPosition = 0;
             currentIPPosition = 0;
 
-            renderPageAreas(viewport.getPage());
+            Page page = getPage(viewport);
+            if (page == null) {
+                return NO_SUCH_PAGE;
+            }
+            renderPageAreas(page);
             return PAGE_EXISTS;
         } catch (FOPException e) {
             log.error(e);
@@ -31,6 +31,7 @@ import org.apache.fop.fonts.FontEventAdapter;
 import org.apache.fop.render.RendererConfig;
 
 import static org.apache.fop.render.java2d.Java2DRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.java2d.Java2DRendererOption.MAX_PAGES_IN_MEMORY;
 
 /**
  * The Java2D renderer configuration data object.
@@ -54,6 +55,10 @@ public final class Java2DRendererConfig implements RendererConfig {
         return Boolean.class.cast(params.get(JAVA2D_TRANSPARENT_PAGE_BACKGROUND));
     }
 
+    public Integer getMaxPagesInMemory() {
+        return Integer.class.cast(params.get(MAX_PAGES_IN_MEMORY));
+    }
+
     /**
      * The Java2D renderer configuration data parser.
      */
@@ -74,6 +79,10 @@ public final class Java2DRendererConfig implements RendererConfig {
             boolean value = cfg.getChild(
                     JAVA2D_TRANSPARENT_PAGE_BACKGROUND.getName(), true).getValueAsBoolean(false);
             config.params.put(JAVA2D_TRANSPARENT_PAGE_BACKGROUND, value);
+            Configuration maxPages = cfg.getChild(MAX_PAGES_IN_MEMORY.getName(), false);
+            if (maxPages != null) {
+                config.params.put(MAX_PAGES_IN_MEMORY, maxPages.getValueAsInteger(0));
+            }
             return config;
         }
 
@@ -51,6 +51,9 @@ public class Java2DRendererConfigurator extends DefaultRendererConfigurator {
             if (config.isPageBackgroundTransparent() != null) {
                 java2dRenderer.setTransparentPageBackground(config.isPageBackgroundTransparent());
             }
+            if (config.getMaxPagesInMemory() != null) {
+                java2dRenderer.setMaxPagesInMemory(config.getMaxPagesInMemory());
+            }
             super.configure(renderer);
         }
     }
@@ -23,7 +23,9 @@ import org.apache.fop.render.RendererConfigOption;
 
 public enum Java2DRendererOption implements RendererConfigOption {
     /** Rendering Options key for the controlling the transparent page background option. */
-    JAVA2D_TRANSPARENT_PAGE_BACKGROUND("transparent-page-background");
+    JAVA2D_TRANSPARENT_PAGE_BACKGROUND("transparent-page-background"),
+    /** Rendering Options key for the maximum number of pages whose contents are kept in memory. */
+    MAX_PAGES_IN_MEMORY("max-pages-in-memory");
 
     private final String name;
 
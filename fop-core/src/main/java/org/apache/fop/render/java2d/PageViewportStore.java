@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.java2d;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.fop.area.Page;
+import org.apache.fop.area.PageViewport;
+
+/**
+ * Keeps the page contents of a {@link Java2DRenderer} in a temporary file, so that only a
+ * bounded number of pages is held in memory. A page is written to the file as soon as the
+ * renderer receives it and its contents are released. When the page is rendered (for
+ * preview or printing), its contents are read back and kept in memory until it becomes
+ * the least recently used of more than the configured number of loaded pages.
+ * <p>
+ * The pages are stored in the form used by {@link PageViewport#savePage(ObjectOutputStream)},
+ * as in {@link org.apache.fop.area.CachedRenderPagesModel}.
+ */
+final class PageViewportStore {
+
+    /** key: page viewport, value: position and length of the page in the file */
+    private final Map<PageViewport, long[]> positions = new IdentityHashMap<PageViewport, long[]>();
+
+    /** The pages whose contents are in memory, least recently used first */
+    private final Map<PageViewport, Boolean> loadedPages;
+
+    private File file;
+    private RandomAccessFile raf;
+
+    /**
+     * Creates a new store.
+     * @param maxPagesInMemory the maximum number of pages whose contents are kept in memory
+     */
+    PageViewportStore(final int maxPagesInMemory) {
+        if (maxPagesInMemory < 1) {
+            throw new IllegalArgumentException("maxPagesInMemory must be at least 1");
+        }
+        loadedPages = new LinkedHashMap<PageViewport, Boolean>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            protected boolean removeEldestEntry(Map.Entry<PageViewport, Boolean> eldest) {
+                if (size() > maxPagesInMemory) {
+                    //Renderings in progress hold the Page itself, so this is safe
+                    eldest.getKey().clear();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Writes the contents of a page to the store and releases them. If the contents cannot
+     * be written, the page keeps them.
+     * @param pageViewport the page viewport
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized void store(PageViewport pageViewport) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        pageViewport.savePage(out);
+        out.close();
+        byte[] data = bout.toByteArray();
+        try {
+            if (raf == null) {
+                file = File.createTempFile("fop-pages", ".tmp");
+                file.deleteOnExit();
+                raf = new RandomAccessFile(file, "rw");
+            }
+            long position = raf.length();
+            raf.seek(position);
+            raf.write(data);
+            positions.put(pageViewport, new long[] {position, data.length});
+        } catch (IOException ioe) {
+            loadPage(pageViewport, data);
+            throw ioe;
+        }
+    }
+
+    private static void loadPage(PageViewport pageViewport, byte[] data) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+        try {
+            pageViewport.loadPage(in);
+        } catch (ClassNotFoundException cnfe) {
+            throw new IOException(cnfe.getMessage());
+        }
+    }
+
+    /**
+     * Returns the contents of a page, reading them from the store if they have been released.
+     * @param pageViewport the page viewport
+     * @return the page
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized Page load(PageViewport pageViewport) throws IOException {
+        long[] position = positions.get(pageViewport);
+        if (position == null) {
+            //not a stored page
+            return pageViewport.getPage();
+        }
+        if (pageViewport.getPage() == null) {
+            byte[] data = new byte[(int) position[1]];
+            raf.seek(position[0]);
+            raf.readFully(data);
+            loadPage(pageViewport, data);
+        }
+        Page page = pageViewport.getPage();
+        loadedPages.put(pageViewport, Boolean.TRUE);
+        return page;
+    }
+
+    /** @return the number of pages whose contents are currently held in memory */
+    synchronized int getLoadedPageCount() {
+        return loadedPages.size();
+    }
+
+    /** Removes all pages from the store and deletes the temporary file. */
+    synchronized void clear() {
+        positions.clear();
+        loadedPages.clear();
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException ioe) {
+                //ignore, the file is deleted anyway
+            }
+            raf = null;
+        }
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+}
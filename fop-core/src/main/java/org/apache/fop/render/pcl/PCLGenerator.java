@@ -84,6 +84,9 @@ public class PCLGenerator {
     private boolean currentPatternTransparency = true;
 
     private int maxBitmapResolution = PCL_RESOLUTIONS[PCL_RESOLUTIONS.length - 1];
+
+    /** The raster compression methods bitmaps may be encoded with (bit n set for method n) */
+    private int rasterCompressionModes = 0x0F;
     private float ditheringQuality = 0.5f;
 
     /**
@@ -841,7 +844,7 @@ public class PCLGenerator {
 
         Raster raster = img.getData();
 
-        ColorEncoder encoder = new ColorEncoder(img);
+        RasterEncoder encoder = new RasterEncoder(w * 3, true);
         // Transfer graphics data
         if (cm.getTransferType() == DataBuffer.TYPE_BYTE) {
             DataBufferByte dataBuffer = (DataBufferByte)raster.getDataBuffer();
@@ -885,6 +888,17 @@ public class PCLGenerator {
         // End raster graphics
         writeCommand("*rB");
     }
+
+    /**
+     * Restricts the raster compression methods used when encoding bitmaps. By default, the
+     * most compact of methods 0 (unencoded), 1 (run-length), 2 (TIFF) and 3 (delta row) is
+     * chosen for each row. Method 0 is always available.
+     * @param modes a bit set of the allowed methods (bit n set for method n)
+     */
+    void setRasterCompressionModes(int modes) {
+        this.rasterCompressionModes = modes | 1;
+    }
+
     /**
      * Paint a bitmap at the current cursor position. The bitmap must be a monochrome
      * (1-bit) bitmap image.
@@ -905,7 +919,8 @@ public class PCLGenerator {
         writeCommand("*r0f" + img.getHeight() + "t" + img.getWidth() + "s1A");
         Raster raster = img.getData();
 
-        Encoder encoder = new Encoder(img);
+        RasterEncoder encoder = new RasterEncoder((img.getWidth() + 7) / 8,
+                currentSourceTransparency);
         // Transfer graphics data
         int imgw = img.getWidth();
         IndexColorModel cm = (IndexColorModel)img.getColorModel();
@@ -918,25 +933,27 @@ public class PCLGenerator {
                 //Optimized packed encoding
                 byte[] buf = dataBuffer.getData();
                 int scanlineStride = packedSampleModel.getScanlineStride();
-                int idx = 0;
                 int c0 = toGray(cm.getRGB(0));
                 int c1 = toGray(cm.getRGB(1));
                 boolean zeroIsWhite = c0 > c1;
+                byte[] line = zeroIsWhite ? null : new byte[scanlineStride];
                 for (int y = 0, maxy = img.getHeight(); y < maxy; y++) {
-                    for (int x = 0, maxx = scanlineStride; x < maxx; x++) {
-                        if (zeroIsWhite) {
-                            encoder.add8Bits(buf[idx]);
-                        } else {
-                            encoder.add8Bits((byte)~buf[idx]);
+                    int idx = y * scanlineStride;
+                    if (zeroIsWhite) {
+                        encoder.addBytes(buf, idx, scanlineStride);
+                    } else {
+                        for (int x = 0; x < scanlineStride; x++) {
+                            line[x] = (byte)~buf[idx + x];
                         }
-                        idx++;
+                        encoder.addBytes(line, 0, scanlineStride);
                     }
                     encoder.endLine();
                 }
             } else {
                 //Optimized non-packed encoding
+                byte[] line = null;
                 for (int y = 0, maxy = img.getHeight(); y < maxy; y++) {
-                    byte[] line = (byte[])raster.getDataElements(0, y, imgw, 1, null);
+                    line = (byte[])raster.getDataElements(0, y, imgw, 1, line);
                     for (int x = 0, maxx = imgw; x < maxx; x++) {
                         encoder.addBit(line[x] == 0);
                     }
@@ -944,11 +961,12 @@ public class PCLGenerator {
                 }
             }
         } else {
-            //Safe but slow fallback
+            //Row-wise fallback for other transfer types
+            int[] samples = null;
             for (int y = 0, maxy = img.getHeight(); y < maxy; y++) {
+                samples = raster.getSamples(0, y, imgw, 1, 0, samples);
                 for (int x = 0, maxx = imgw; x < maxx; x++) {
-                    int sample = raster.getSample(x, y, 0);
-                    encoder.addBit(sample == 0);
+                    encoder.addBit(samples[x] == 0);
                 }
                 encoder.endLine();
             }
@@ -958,109 +976,20 @@ public class PCLGenerator {
         writeCommand("*rB");
     }
 
-    private class Encoder {
-
-        private int imgw;
-        private int bytewidth;
-        private byte[] rle; //compressed (RLE)
-        private byte[] uncompressed; //uncompressed
-        private int lastcount = -1;
-        private byte lastbyte;
-        private int rlewidth;
-        private byte ib; //current image bits
-        private int x;
-        private boolean zeroRow = true;
-
-        public Encoder(RenderedImage img) {
-            imgw = img.getWidth();
-            bytewidth = (imgw / 8);
-            if ((imgw % 8) != 0) {
-                bytewidth++;
-            }
-            rle = new byte[bytewidth * 2];
-            uncompressed = new byte[bytewidth];
-        }
-
-        public void addBit(boolean bit) {
-            //Set image bit for black
-            if (bit) {
-                ib |= 1;
-            }
-
-            //RLE encoding
-            if ((x % 8) == 7 || ((x + 1) == imgw)) {
-                finishedByte();
-            } else {
-                ib <<= 1;
-            }
-            x++;
-        }
-
-        public void add8Bits(byte b) {
-            ib = b;
-            finishedByte();
-            x += 8;
-        }
-
-        private void finishedByte() {
-            if (rlewidth < bytewidth) {
-                if (lastcount >= 0) {
-                    if (ib == lastbyte) {
-                        lastcount++;
-                    } else {
-                        rle[rlewidth++] = (byte)(lastcount & 0xFF);
-                        rle[rlewidth++] = lastbyte;
-                        lastbyte = ib;
-                        lastcount = 0;
-                    }
-                } else {
-                    lastbyte = ib;
-                    lastcount = 0;
-                }
-                if (lastcount == 255 || ((x + 1) == imgw)) {
-                    rle[rlewidth++] = (byte)(lastcount & 0xFF);
-                    rle[rlewidth++] = lastbyte;
-                    lastbyte = 0;
-                    lastcount = -1;
-                }
-            }
-            uncompressed[x / 8] = ib;
-            if (ib != 0) {
-                zeroRow = false;
-            }
-            ib = 0;
-        }
-
-        public void endLine() throws IOException {
-            if (zeroRow && PCLGenerator.this.currentSourceTransparency) {
-                writeCommand("*b1Y");
-            } else if (rlewidth < bytewidth) {
-                writeCommand("*b1m" + rlewidth + "W");
-                out.write(rle, 0, rlewidth);
-            } else {
-                writeCommand("*b0m" + bytewidth + "W");
-                out.write(uncompressed);
-            }
-            lastcount = -1;
-            rlewidth = 0;
-            ib = 0;
-            x = 0;
-            zeroRow = true;
-        }
-
-
-    }
-
-    private class ColorEncoder {
-        private int imgw;
-        private int bytewidth;
+    /**
+     * Encodes raster rows, choosing for each row the most compact of the PCL raster
+     * compression methods 0 (unencoded), 1 (run-length), 2 (TIFF PackBits) and
+     * 3 (delta row, relative to the previous row: the seed row).
+     */
+    private class RasterEncoder {
+        private final int bytewidth;
+        private final boolean skipBlankLines;
         private byte ib; //current image bits
 
         private int currentIndex;
         private int len;
         private int shiftBit = 0x80;
         private int whiteLines;
-        final byte[] zeros;
         final byte[] buff1;
         final byte[] buff2;
         final byte[] encodedRun;
@@ -1071,24 +1000,27 @@ public class PCLGenerator {
         int compression;
         int seedLen;
 
-        public ColorEncoder(RenderedImage img) {
-            imgw = img.getWidth();
-            bytewidth = imgw * 3 + 1;
-
-            zeros         = new byte[bytewidth];
-            buff1         = new byte[bytewidth];
-            buff2         = new byte[bytewidth];
-            encodedRun    = new byte[bytewidth];
-            encodedTagged = new byte[bytewidth];
-            encodedDelta  = new byte[bytewidth];
+        /**
+         * Creates a new encoder.
+         * @param bytewidth the number of bytes per row
+         * @param skipBlankLines true if rows with only zero bytes are skipped rather than
+         * transferred
+         */
+        public RasterEncoder(int bytewidth, boolean skipBlankLines) {
+            this.bytewidth = bytewidth;
+            this.skipBlankLines = skipBlankLines;
+
+            buff1         = new byte[bytewidth + 1];
+            buff2         = new byte[bytewidth + 1];
+            encodedRun    = new byte[bytewidth + 1];
+            encodedTagged = new byte[bytewidth + 1];
+            encodedDelta  = new byte[bytewidth + 1];
 
             seed    = buff1;
             current = buff2;
 
             seedLen = 0;
             compression = (-1);
-            System.arraycopy(zeros, 0, seed, 0, zeros.length);
-
         }
 
         private int runCompression(byte[] buff, int len) {
@@ -1192,7 +1124,7 @@ public class PCLGenerator {
                 }
                 if (literalCount > 0) {
                     encodedTagged[bytes++] = (byte)(literalCount - 1);
-                    System.arraycopy(current, (3 * len) - literalCount, encodedTagged, bytes, literalCount);
+                    System.arraycopy(current, len - literalCount, encodedTagged, bytes, literalCount);
                     bytes += literalCount;
                 }
             } catch (ArrayIndexOutOfBoundsException e) {
@@ -1221,19 +1153,53 @@ public class PCLGenerator {
             }
         }
 
+        /**
+         * Adds a row of bytes.
+         * @param row the buffer holding the row
+         * @param offset the offset of the row in the buffer
+         * @param length the number of bytes to add
+         */
+        public void addBytes(byte[] row, int offset, int length) {
+            System.arraycopy(row, offset, current, currentIndex, length);
+            for (int i = currentIndex + length - 1; i >= currentIndex; i--) {
+                if (current[i] != 0) {
+                    len = i + 1;
+                    break;
+                }
+            }
+            currentIndex += length;
+        }
+
         public void endLine() throws IOException {
-            if (len == 0) {
+            if (shiftBit != 0x80) {
+                //Partial last byte
+                add8Bits(ib);
+            }
+            //Clear the rest of the row, so no bits of older rows are left over
+            for (int i = currentIndex; i < bytewidth; i++) {
+                current[i] = 0;
+            }
+            if (len == 0 && skipBlankLines) {
                 whiteLines++;
             } else {
                 if (whiteLines > 0) {
                     writeCommand("*b" + whiteLines + "Y");
                     whiteLines = 0;
+                    //Moving down the cursor clears the seed row
+                    for (int i = 0; i < seedLen; i++) {
+                        seed[i] = 0;
+                    }
+                    seedLen = 0;
                 }
 
                 int unencodedCount = len;
-                int runCount = runCompression(encodedRun, len);
-                int tiffCount = tiffCompression(encodedTagged, len);
-                int deltaCount = deltaCompression(seed, encodedDelta, Math.max(len, seedLen));
+                int runCount = (rasterCompressionModes & (1 << 1)) != 0
+                        ? runCompression(encodedRun, len) : Integer.MAX_VALUE;
+                int tiffCount = (rasterCompressionModes & (1 << 2)) != 0
+                        ? tiffCompression(encodedTagged, len) : Integer.MAX_VALUE;
+                int deltaCount = (rasterCompressionModes & (1 << 3)) != 0
+                        ? deltaCompression(seed, encodedDelta, Math.max(len, seedLen))
+                        : Integer.MAX_VALUE;
 
                 int bestCount = Math.min(unencodedCount, Math.min(runCount, Math.min(tiffCount, deltaCount)));
                 int bestCompression;
@@ -40,9 +40,11 @@ import org.apache.fop.fo.extensions.xmp.XMPMetadata;
 import org.apache.fop.pdf.PDFAnnotList;
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFormXObject;
 import org.apache.fop.pdf.PDFPage;
 import org.apache.fop.pdf.PDFReference;
 import org.apache.fop.pdf.PDFResources;
+import org.apache.fop.pdf.PDFSpooledLinearization;
 import org.apache.fop.pdf.PDFStream;
 import org.apache.fop.render.extensions.prepress.PageBoundaries;
 import org.apache.fop.render.extensions.prepress.PageScale;
@@ -79,6 +81,9 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
      */
     private final PDFRenderingUtil pdfUtil;
 
+    /** linearizes the document from the spool file it is written to, if enabled */
+    private PDFSpooledLinearization spooledLinearization;
+
     /** the /Resources object of the PDF document being created */
     private PDFResources pdfResources;
 
@@ -99,6 +104,7 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     private Map<Integer, PDFArray> pageNumbers = new HashMap<Integer, PDFArray>();
     private Map<String, PDFReference> contents = new HashMap<String, PDFReference>();
+    private Map<Object, PDFFormXObject> formXObjects = new HashMap<Object, PDFFormXObject>();
 
     /**
      * Default constructor.
@@ -156,7 +162,14 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     public void startDocument() throws IFException {
         super.startDocument();
         try {
+            if (pdfUtil.isLinearizationSpooled()) {
+                spooledLinearization = new PDFSpooledLinearization(this.outputStream);
+                this.outputStream = spooledLinearization.getSpoolStream();
+            }
             this.pdfDoc = pdfUtil.setupPDFDocument(this.outputStream);
+            if (spooledLinearization != null) {
+                pdfDoc.setSpooledLinearization(spooledLinearization);
+            }
             this.accessEnabled = getUserAgent().isAccessibilityEnabled();
             if (accessEnabled) {
                 setupAccessibility();
@@ -187,6 +200,11 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         try {
             if (pdfDoc.isLinearizationEnabled()) {
                 generator.flushPDFDoc();
+            } else if (spooledLinearization != null) {
+                pdfDoc.outputTrailer(this.outputStream);
+                this.outputStream = spooledLinearization.getOutputStream();
+                spooledLinearization.outputLinearizedDocument(pdfDoc);
+                spooledLinearization = null;
             } else {
                 pdfDoc.outputTrailer(this.outputStream);
             }
@@ -208,7 +226,9 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** {@inheritDoc} */
     public void endPageSequence() throws IFException {
-        //nop
+        if (accessEnabled) {
+            logicalStructureHandler.endPageSequence();
+        }
     }
 
     /** {@inheritDoc} */
@@ -380,4 +400,13 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     public Map<Integer, PDFArray> getPageNumbers() {
         return pageNumbers;
     }
+
+    /**
+     * Returns the Form XObjects generated for reusable graphics (like SVG images placed
+     * more than once), keyed by the image handler that created them.
+     * @return the Form XObject cache for this document
+     */
+    Map<Object, PDFFormXObject> getFormXObjects() {
+        return formXObjects;
+    }
 }
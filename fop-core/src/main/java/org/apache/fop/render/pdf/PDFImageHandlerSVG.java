@@ -22,7 +22,9 @@ package org.apache.fop.render.pdf;
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
+import java.util.Map;
 
 import org.w3c.dom.Document;
 
@@ -44,6 +46,12 @@ import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.events.EventBroadcaster;
 import org.apache.fop.image.loader.batik.BatikImageFlavors;
 import org.apache.fop.image.loader.batik.BatikUtil;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFFormXObject;
+import org.apache.fop.pdf.PDFPaintingState;
+import org.apache.fop.pdf.PDFResourceContext;
+import org.apache.fop.pdf.PDFStream;
 import org.apache.fop.pdf.TransparencyDisallowedException;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.ImageHandlerUtil;
@@ -80,34 +88,7 @@ public class PDFImageHandlerSVG implements ImageHandler {
         }
 
         final float uaResolution = userAgent.getSourceResolution();
-        SVGUserAgent ua = new SVGUserAgent(userAgent, new FOPFontFamilyResolverImpl(pdfContext.getFontInfo()),
-                new AffineTransform());
-
-        GVTBuilder builder = new GVTBuilder();
-
-        //Controls whether text painted by Batik is generated using text or path operations
-        boolean strokeText = PSImageHandlerSVG.shouldStrokeText(imageSVG.getDocument().getChildNodes());
-        //TODO connect with configuration elsewhere.
 
-        BridgeContext ctx = new PDFBridgeContext(ua,
-                (strokeText ? null : pdfContext.getFontInfo()),
-                userAgent.getImageManager(),
-                userAgent.getImageSessionContext(),
-                new AffineTransform());
-
-        //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
-        //to it.
-        Document clonedDoc = BatikUtil.cloneSVGDocument(imageSVG.getDocument());
-
-        GraphicsNode root;
-        try {
-            root = builder.build(ctx, clonedDoc);
-        } catch (Exception e) {
-            SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
-                    context.getUserAgent().getEventBroadcaster());
-            eventProducer.svgNotBuilt(this, e, image.getInfo().getOriginalURI());
-            return;
-        }
         // get the 'width' and 'height' attributes of the SVG document
         float w = image.getSize().getWidthMpt();
         float h = image.getSize().getHeightMpt();
@@ -145,6 +126,31 @@ public class PDFImageHandlerSVG implements ImageHandler {
             log.trace("image transform: " + resolutionScaling);
         }
 
+        Map<Object, PDFFormXObject> forms = pdfContext.getFormXObjects();
+        if (forms != null) {
+            FormKey key = new FormKey(imageSVG, pos, uaResolution, deviceResolution);
+            PDFFormXObject form = forms.get(key);
+            if (form != null) {
+                generator.getResourceContext().addXObject(form);
+                placeForm(pdfContext, form, pos);
+                return;
+            } else if (isReusable(imageSVG)) {
+                form = createForm(pdfContext, imageSVG, pos, scaling, resolutionScaling,
+                        "SVG:" + forms.size());
+                if (form != null) {
+                    forms.put(key, form);
+                    placeForm(pdfContext, form, pos);
+                }
+                return;
+            }
+        }
+
+        BridgeContext ctx = createBridgeContext(pdfContext, imageSVG);
+        GraphicsNode root = buildGraphicsNode(context, ctx, imageSVG);
+        if (root == null) {
+            return;
+        }
+
         /*
          * Clip to the svg area.
          * Note: To have the svg overlay (under) a text area then use
@@ -204,27 +210,206 @@ public class PDFImageHandlerSVG implements ImageHandler {
 
         graphics.setPaintingState(generator.getState());
         graphics.setOutputStream(generator.getOutputStream());
+        if (paint(context, imageSVG, root, ctx, graphics)) {
+            generator.add(graphics.getString());
+        }
+        generator.getState().restore();
+        if (context.getUserAgent().isAccessibilityEnabled()) {
+            generator.restoreGraphicsStateAccess();
+        } else {
+            generator.restoreGraphicsState();
+        }
+        if (log.isTraceEnabled()) {
+            generator.comment("SVG end");
+        }
+    }
+
+    /**
+     * Indicates whether an SVG graphic can be painted once into a Form XObject which is then
+     * reused for every placement. That is not the case if it contains links as their
+     * annotations have to be generated for each placement.
+     */
+    private static boolean isReusable(ImageXMLDOM imageSVG) {
+        return imageSVG.getDocument().getElementsByTagNameNS(
+                SVGDOMImplementation.SVG_NAMESPACE_URI, SVGConstants.SVG_A_TAG).getLength() == 0;
+    }
+
+    private BridgeContext createBridgeContext(PDFRenderingContext pdfContext, ImageXMLDOM imageSVG) {
+        FOUserAgent userAgent = pdfContext.getUserAgent();
+        SVGUserAgent ua = new SVGUserAgent(userAgent, new FOPFontFamilyResolverImpl(pdfContext.getFontInfo()),
+                new AffineTransform());
+
+        //Controls whether text painted by Batik is generated using text or path operations
+        boolean strokeText = PSImageHandlerSVG.shouldStrokeText(imageSVG.getDocument().getChildNodes());
+        //TODO connect with configuration elsewhere.
+
+        return new PDFBridgeContext(ua,
+                (strokeText ? null : pdfContext.getFontInfo()),
+                userAgent.getImageManager(),
+                userAgent.getImageSessionContext(),
+                new AffineTransform());
+    }
+
+    private GraphicsNode buildGraphicsNode(RenderingContext context, BridgeContext ctx,
+            ImageXMLDOM imageSVG) {
+        //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
+        //to it.
+        Document clonedDoc = BatikUtil.cloneSVGDocument(imageSVG.getDocument());
+
+        try {
+            return new GVTBuilder().build(ctx, clonedDoc);
+        } catch (Exception e) {
+            SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
+                    context.getUserAgent().getEventBroadcaster());
+            eventProducer.svgNotBuilt(this, e, imageSVG.getInfo().getOriginalURI());
+            return null;
+        }
+    }
+
+    private boolean paint(RenderingContext context, ImageXMLDOM imageSVG, GraphicsNode root,
+            BridgeContext ctx, PDFGraphics2D graphics) {
         try {
             root.paint(graphics);
             ctx.dispose();
-            generator.add(graphics.getString());
+            return true;
         } catch (TransparencyDisallowedException e) {
             SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
                     context.getUserAgent().getEventBroadcaster());
-            eventProducer.bitmapWithTransparency(this, e.getProfile(), image.getInfo().getOriginalURI());
+            eventProducer.bitmapWithTransparency(this, e.getProfile(), imageSVG.getInfo().getOriginalURI());
         } catch (Exception e) {
             SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
                     context.getUserAgent().getEventBroadcaster());
-            eventProducer.svgRenderingError(this, e, image.getInfo().getOriginalURI());
+            eventProducer.svgRenderingError(this, e, imageSVG.getInfo().getOriginalURI());
         }
-        generator.getState().restore();
-        if (context.getUserAgent().isAccessibilityEnabled()) {
+        return false;
+    }
+
+    /**
+     * Paints the SVG graphic into a new Form XObject. The form's coordinate system has its origin
+     * at the upper left corner of the image's viewport, so only a translation is needed to
+     * place it.
+     * @return the Form XObject, or null if the graphic could not be painted
+     */
+    private PDFFormXObject createForm(PDFRenderingContext pdfContext, ImageXMLDOM imageSVG,
+            Rectangle pos, AffineTransform scaling, AffineTransform resolutionScaling, String key)
+                throws IOException {
+        BridgeContext ctx = createBridgeContext(pdfContext, imageSVG);
+        GraphicsNode root = buildGraphicsNode(pdfContext, ctx, imageSVG);
+        if (root == null) {
+            return null;
+        }
+        PDFContentGenerator generator = pdfContext.getGenerator();
+        PDFDocument pdfDoc = generator.getDocument();
+
+        AffineTransform formScaling = new AffineTransform(scaling);
+        formScaling.preConcatenate(AffineTransform.getTranslateInstance(-pos.x / 1000f, -pos.y / 1000f));
+
+        //The form uses the document's resources like the pages do
+        PDFResourceContext formResourceContext = new PDFResourceContext(pdfDoc.getResources());
+        PDFGraphics2D graphics = new PDFGraphics2D(true, pdfContext.getFontInfo(),
+                pdfDoc, formResourceContext, pdfContext.getPage().makeReference(),
+                "", 0, new TransparencyIgnoredEventListener(pdfContext, imageSVG));
+        graphics.setGraphicContext(new org.apache.xmlgraphics.java2d.GraphicContext());
+
+        StringBuffer content = new StringBuffer();
+        if (!formScaling.isIdentity()) {
+            content.append(CTMHelper.toPDFString(formScaling, false)).append(" cm\n");
+        }
+        if (!resolutionScaling.isIdentity()) {
+            content.append(CTMHelper.toPDFString(resolutionScaling, false)).append(" cm\n");
+            graphics.scale(
+                    1.0 / resolutionScaling.getScaleX(),
+                    1.0 / resolutionScaling.getScaleY());
+        }
+
+        //The colors are set to black before the form is used, see placeForm()
+        PDFPaintingState state = new PDFPaintingState();
+        state.setColor(Color.black);
+        state.setBackColor(Color.black);
+        state.concatenate(formScaling);
+        state.concatenate(resolutionScaling);
+        graphics.setPaintingState(state);
+        graphics.setOutputStream(generator.getOutputStream());
+        if (!paint(pdfContext, imageSVG, root, ctx, graphics)) {
+            return null;
+        }
+        content.append(graphics.getString());
+
+        PDFStream stream = pdfDoc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+        stream.add(content.toString());
+        PDFFormXObject form = pdfDoc.addFormXObject(generator.getResourceContext(), stream,
+                pdfDoc.getResources().makeReference(), key);
+
+        Rectangle2D bbox = new Rectangle2D.Float(0, 0, pos.width / 1000f, pos.height / 1000f);
+        Rectangle2D bounds = root.getTransformedBounds(formScaling);
+        if (bounds != null) {
+            bbox.add(bounds);
+        }
+        form.setBBox(bbox);
+        return form;
+    }
+
+    private void placeForm(PDFRenderingContext pdfContext, PDFFormXObject form, Rectangle pos) {
+        PDFContentGenerator generator = pdfContext.getGenerator();
+        generator.saveGraphicsState();
+        if (pdfContext.getUserAgent().isAccessibilityEnabled()) {
+            MarkedContentInfo mci = pdfContext.getMarkedContentInfo();
+            generator.beginMarkedContentSequence(mci.tag, mci.mcid);
+        }
+        generator.updateColor(Color.black, false, null);
+        generator.updateColor(Color.black, true, null);
+        AffineTransform translation = AffineTransform.getTranslateInstance(pos.x / 1000f, pos.y / 1000f);
+        if (!translation.isIdentity()) {
+            generator.add(CTMHelper.toPDFString(translation, false) + " cm\n");
+        }
+        generator.add(form.getName() + " Do\n");
+        if (pdfContext.getUserAgent().isAccessibilityEnabled()) {
             generator.restoreGraphicsStateAccess();
         } else {
             generator.restoreGraphicsState();
         }
-        if (log.isTraceEnabled()) {
-            generator.comment("SVG end");
+    }
+
+    /**
+     * Identifies an SVG graphic painted at a certain size and resolution. Graphics loaded from
+     * a URI are identified by their URI, embedded ones by the identity of their DOM.
+     */
+    private static final class FormKey {
+
+        private final Object source;
+        private final int width;
+        private final int height;
+        private final float sourceResolution;
+        private final float targetResolution;
+
+        FormKey(ImageXMLDOM imageSVG, Rectangle pos, float sourceResolution, float targetResolution) {
+            String uri = imageSVG.getInfo().getOriginalURI();
+            this.source = (uri != null ? uri : imageSVG.getDocument());
+            this.width = pos.width;
+            this.height = pos.height;
+            this.sourceResolution = sourceResolution;
+            this.targetResolution = targetResolution;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FormKey)) {
+                return false;
+            }
+            FormKey other = (FormKey)obj;
+            return (source instanceof String ? source.equals(other.source) : source == other.source)
+                    && width == other.width && height == other.height
+                    && sourceResolution == other.sourceResolution
+                    && targetResolution == other.targetResolution;
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            int hash = (source instanceof String ? source.hashCode() : System.identityHashCode(source));
+            hash = 31 * hash + width;
+            hash = 31 * hash + height;
+            hash = 31 * hash + Float.floatToIntBits(sourceResolution);
+            return 31 * hash + Float.floatToIntBits(targetResolution);
         }
     }
 
@@ -19,11 +19,15 @@
 
 package org.apache.fop.render.pdf;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFLink;
 import org.apache.fop.pdf.PDFName;
+import org.apache.fop.pdf.PDFObject;
 import org.apache.fop.pdf.PDFPage;
 import org.apache.fop.pdf.PDFParentTree;
 import org.apache.fop.pdf.PDFStructElem;
@@ -56,6 +60,21 @@ public class PDFLogicalStructureHandler {
      */
     private PDFArray pageParentTreeArray;
 
+    /** Whether finished parts of the structure tree are written before the end of the document */
+    private boolean incremental;
+
+    /** The page-sequence whose content is currently being rendered */
+    private PageSequenceStructElem currentPageSequence;
+
+    /**
+     * The index of the child of the flow currently receiving content. The children before it
+     * are finished, except for those with content that is rendered out of document order.
+     */
+    private int currentFlowChild;
+
+    /** Structure elements that are finished and may be written */
+    private List<PDFStructElem> finishedElements = new ArrayList<PDFStructElem>();
+
     /**
      * Class providing the necessary information for bracketing content
      * associated to a structure element as a marked-content sequence.
@@ -90,6 +109,7 @@ public class PDFLogicalStructureHandler {
      */
     PDFLogicalStructureHandler(PDFDocument pdfDoc) {
         this.pdfDoc = pdfDoc;
+        this.incremental = pdfDoc.isIncrementalStructureTree();
     }
 
     public PDFArray getPageParentTree() {
@@ -128,7 +148,87 @@ public class PDFLogicalStructureHandler {
         // being output to the PDF.
         // This should really be handled by PDFNumsArray
         pdfDoc.registerObject(pageParentTreeArray);
-        parentTree.addToNums(currentPage.getStructParents(), pageParentTreeArray);
+        if (incremental) {
+            parentTree.addToNums(currentPage.getStructParents(), pageParentTreeArray.makeReference());
+            parentTree.releaseKids(parentTreeKey);
+            flushFinishedElements();
+        } else {
+            parentTree.addToNums(currentPage.getStructParents(), pageParentTreeArray);
+        }
+    }
+
+    /**
+     * Receive notification of the end of the current page-sequence. The structure elements of
+     * the page-sequence are written if the structure tree is written incrementally.
+     */
+    void endPageSequence() {
+        if (currentPageSequence != null) {
+            currentPageSequence.collectSubtree(finishedElements);
+            PDFStructElem parent = currentPageSequence.getParentStructElem();
+            List<PDFObject> kids = parent.getKids();
+            for (int i = kids.size() - 1; i >= 0; i--) {
+                if (kids.get(i) == currentPageSequence) {
+                    parent.releaseKid(i);
+                    break;
+                }
+            }
+            currentPageSequence = null;
+            flushFinishedElements();
+        }
+    }
+
+    /**
+     * Finds the structure elements that are finished now that the given element receives
+     * content. The content of a page-sequence's flow is rendered in document order, so the
+     * children of the flow before the one receiving content are finished, unless they contain
+     * footnotes or floats.
+     */
+    private void updateFinishedElements(PDFStructElem structElem) {
+        PageSequenceStructElem pageSequence = getPageSequence(structElem);
+        if (pageSequence == null) {
+            return;
+        }
+        if (pageSequence != currentPageSequence) {
+            currentPageSequence = pageSequence;
+            currentFlowChild = 0;
+        }
+        PDFStructElem flowChild = pageSequence.getFlowChild(structElem);
+        if (flowChild == null || pageSequence.hasOutOfOrderContent(flowChild)) {
+            return;
+        }
+        PDFStructElem flow = flowChild.getParentStructElem();
+        List<PDFObject> kids = flow.getKids();
+        int index = currentFlowChild;
+        while (index < kids.size() && kids.get(index) != flowChild) {
+            index++;
+        }
+        if (index == kids.size()) {
+            return;
+        }
+        for (int i = currentFlowChild; i < index; i++) {
+            PDFObject kid = kids.get(i);
+            if (kid instanceof PDFStructElem && kid.hasObjectNumber()
+                    && !pageSequence.hasOutOfOrderContent((PDFStructElem) kid)) {
+                ((PDFStructElem) kid).collectSubtree(finishedElements);
+                flow.releaseKid(i);
+            }
+        }
+        currentFlowChild = index;
+    }
+
+    private PageSequenceStructElem getPageSequence(PDFStructElem structElem) {
+        PDFStructElem elem = structElem;
+        while (elem != null && !(elem instanceof PageSequenceStructElem)) {
+            elem = elem.getParentStructElem();
+        }
+        return (PageSequenceStructElem) elem;
+    }
+
+    private void flushFinishedElements() {
+        if (!finishedElements.isEmpty()) {
+            pdfDoc.flushStructureElements(finishedElements);
+            finishedElements.clear();
+        }
     }
 
     private MarkedContentInfo addToParentTree(PDFStructElem structureTreeElement) {
@@ -137,6 +237,9 @@ public class PDFLogicalStructureHandler {
             parent = parent.getParentStructElem();
         }
         pageParentTreeArray.add(parent);
+        if (incremental) {
+            updateFinishedElements(structureTreeElement);
+        }
         String type = parent.getStructureType().getName().toString();
         int mcid = pageParentTreeArray.length() - 1;
         return new MarkedContentInfo(type, mcid, structureTreeElement);
@@ -203,7 +306,13 @@ public class PDFLogicalStructureHandler {
         contentItem.put("Type", OBJR);
         contentItem.put("Pg", this.currentPage);
         contentItem.put("Obj", link);
-        parentTree.addToNums(structParent, structureTreeElement);
+        if (incremental) {
+            updateFinishedElements(structureTreeElement);
+            parentTree.addToNums(structParent, structureTreeElement.hasObjectNumber()
+                    ? structureTreeElement.makeReference() : structureTreeElement);
+        } else {
+            parentTree.addToNums(structParent, structureTreeElement);
+        }
         structureTreeElement.addKid(contentItem);
     }
 
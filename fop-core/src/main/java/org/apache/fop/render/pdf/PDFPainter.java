@@ -245,6 +245,7 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
                 getUserAgent(), generator, getDocumentHandler().getCurrentPage(), getFontInfo());
         pdfContext.setMarkedContentInfo(imageMCI);
         pdfContext.setPageNumbers(getDocumentHandler().getPageNumbers());
+        pdfContext.setFormXObjects(getDocumentHandler().getFormXObjects());
         pdfContext.setPdfLogicalStructureHandler(logicalStructureHandler);
         pdfContext.setCurrentSessionStructElem((PDFStructElem) getContext().getStructureTreeElement());
         return pdfContext;
@@ -58,7 +58,9 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.INCREMENTAL_STRUCTURE_TREE;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
+import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION_SPOOLING;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
@@ -151,6 +153,8 @@ public final class PDFRendererConfig implements RendererConfig {
                 parseAndPut(DISABLE_SRGB_COLORSPACE, cfg);
                 parseAndPut(MERGE_FONTS, cfg);
                 parseAndPut(LINEARIZATION, cfg);
+                parseAndPut(LINEARIZATION_SPOOLING, cfg);
+                parseAndPut(INCREMENTAL_STRUCTURE_TREE, cfg);
 
                 parseAndPut(VERSION, cfg);
             } catch (ConfigurationException e) {
@@ -93,6 +93,20 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /** Rendering Options key for linearizing the document from a spool file instead of memory. */
+    LINEARIZATION_SPOOLING("linearization-spooling", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
+    /** Rendering Options key for writing finished parts of the structure tree early. */
+    INCREMENTAL_STRUCTURE_TREE("incremental-structure-tree", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
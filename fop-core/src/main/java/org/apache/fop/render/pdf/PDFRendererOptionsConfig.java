@@ -33,7 +33,9 @@ import org.apache.fop.pdf.Version;
 
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.INCREMENTAL_STRUCTURE_TREE;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
+import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION_SPOOLING;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
@@ -142,4 +144,12 @@ public final class PDFRendererOptionsConfig {
     public Boolean getLinearizationEnabled() {
         return (Boolean)properties.get(LINEARIZATION);
     }
+
+    public Boolean getLinearizationSpooled() {
+        return (Boolean)properties.get(LINEARIZATION_SPOOLING);
+    }
+
+    public Boolean getIncrementalStructureTree() {
+        return (Boolean)properties.get(INCREMENTAL_STRUCTURE_TREE);
+    }
 }
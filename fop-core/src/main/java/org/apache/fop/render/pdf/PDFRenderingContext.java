@@ -26,6 +26,7 @@ import org.apache.xmlgraphics.util.MimeConstants;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.pdf.PDFArray;
+import org.apache.fop.pdf.PDFFormXObject;
 import org.apache.fop.pdf.PDFPage;
 import org.apache.fop.pdf.PDFStructElem;
 import org.apache.fop.render.AbstractRenderingContext;
@@ -43,6 +44,7 @@ public class PDFRenderingContext extends AbstractRenderingContext {
     private Map<Integer, PDFArray> pageNumbers;
     private PDFLogicalStructureHandler pdfLogicalStructureHandler;
     private PDFStructElem currentSessionStructElem;
+    private Map<Object, PDFFormXObject> formXObjects;
 
     /**
      * Main constructor.
@@ -119,4 +121,17 @@ public class PDFRenderingContext extends AbstractRenderingContext {
     public void setCurrentSessionStructElem(PDFStructElem currentSessionStructElem) {
         this.currentSessionStructElem = currentSessionStructElem;
     }
+
+    /**
+     * Returns the cache of Form XObjects generated for graphics that can be reused on
+     * later placements in the same document.
+     * @return the cache, or null if graphics shall always be painted inline
+     */
+    public Map<Object, PDFFormXObject> getFormXObjects() {
+        return formXObjects;
+    }
+
+    void setFormXObjects(Map<Object, PDFFormXObject> formXObjects) {
+        this.formXObjects = formXObjects;
+    }
 }
@@ -152,6 +152,17 @@ class PDFRenderingUtil {
         rendererConfig = rendererConfig.merge(config);
     }
 
+    /**
+     * Indicates whether a linearized document is first written to a spool file and reordered
+     * at the end, rather than kept in memory until the end of the document. Encrypted documents
+     * are always linearized in memory as their encryption keys depend on the object numbers.
+     * @return true if the document is linearized from a spool file
+     */
+    boolean isLinearizationSpooled() {
+        return rendererConfig.getLinearizationEnabled() && rendererConfig.getLinearizationSpooled()
+                && rendererConfig.getEncryptionParameters() == null;
+    }
+
     private void updateInfo() {
         PDFInfo info = pdfDoc.getInfo();
         info.setCreator(userAgent.getCreator());
@@ -620,7 +631,21 @@ class PDFRenderingUtil {
 
         this.pdfDoc.enableAccessibility(userAgent.isAccessibilityEnabled());
         pdfDoc.setMergeFontsEnabled(rendererConfig.getMergeFontsEnabled());
-        pdfDoc.setLinearizationEnabled(rendererConfig.getLinearizationEnabled());
+        boolean linearization = rendererConfig.getLinearizationEnabled();
+        if (linearization && rendererConfig.getLinearizationSpooled() && !isLinearizationSpooled()) {
+            log.warn("Encrypted documents cannot be linearized from a spool file."
+                    + " The document is linearized in memory.");
+        }
+        pdfDoc.setLinearizationEnabled(linearization && !isLinearizationSpooled());
+        if (rendererConfig.getIncrementalStructureTree()) {
+            if (pdfDoc.isLinearizationEnabled()) {
+                log.warn("The structure tree of a document linearized in memory"
+                        + " cannot be written incrementally.");
+            } else {
+                pdfDoc.setIncrementalStructureTree(true);
+            }
+        }
+        pdfDoc.setFontSubsetCache(userAgent.getFontManager().getFontSubsetCache());
 
         return this.pdfDoc;
     }
@@ -396,10 +396,23 @@ public class PDFStructureTreeBuilder implements StructureTreeEventHandler {
         PDFStructElem parentElem = parent == null ? ancestors.getFirst() : (PDFStructElem) parent;
         PDFStructElem structElem = createStructureElement(name, parentElem, attributes,
                 pdfFactory, eventBroadcaster);
+        if (name.equals("footnote") || name.equals("float")) {
+            addOutOfOrderContent(structElem);
+        }
         ancestors.addFirst(structElem);
         return structElem;
     }
 
+    private void addOutOfOrderContent(PDFStructElem structElem) {
+        for (PDFStructElem parent = structElem.getParentStructElem(); parent != null;
+                parent = parent.getParentStructElem()) {
+            if (parent instanceof PageSequenceStructElem) {
+                ((PageSequenceStructElem) parent).addOutOfOrderContent(structElem);
+                return;
+            }
+        }
+    }
+
     public void endNode(String name) {
         if (isPDFA1Safe(name)) {
             ancestors.removeFirst();
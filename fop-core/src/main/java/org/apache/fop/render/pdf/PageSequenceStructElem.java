@@ -20,7 +20,9 @@
 package org.apache.fop.render.pdf;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFObject;
@@ -39,6 +41,9 @@ public class PageSequenceStructElem extends PDFStructElem {
 
     private List<PDFStructElem> footnoteSeparator = new ArrayList<PDFStructElem>();
 
+    /** Children of the flow that may receive content out of document order */
+    private Set<PDFStructElem> outOfOrderContent;
+
     PageSequenceStructElem(PDFObject parent, StructureType structureType) {
         super(parent, structureType);
     }
@@ -59,6 +64,60 @@ public class PageSequenceStructElem extends PDFStructElem {
         }
     }
 
+    /**
+     * Records that the content of the given element, like a footnote or a float, may not be
+     * rendered in document order relative to the rest of the flow.
+     *
+     * @param structElem a descendant of the flow of this page-sequence
+     */
+    void addOutOfOrderContent(PDFStructElem structElem) {
+        PDFStructElem flowChild = getFlowChild(structElem);
+        if (flowChild != null) {
+            if (outOfOrderContent == null) {
+                outOfOrderContent = new HashSet<PDFStructElem>();
+            }
+            outOfOrderContent.add(flowChild);
+        }
+    }
+
+    /**
+     * Indicates whether the given child of the flow contains content that may be rendered out
+     * of document order.
+     *
+     * @param flowChild a child of the flow of this page-sequence
+     * @return true if the child must be kept until the end of the page-sequence
+     */
+    boolean hasOutOfOrderContent(PDFStructElem flowChild) {
+        return outOfOrderContent != null && outOfOrderContent.contains(flowChild);
+    }
+
+    /**
+     * Returns the child of the flow that the given element belongs to.
+     *
+     * @param structElem a structure element
+     * @return the given element or the ancestor of it that is a child of the flow, null if the
+     * element is not part of the flow of this page-sequence
+     */
+    PDFStructElem getFlowChild(PDFStructElem structElem) {
+        PDFStructElem child = structElem;
+        PDFStructElem parent = child.getParentStructElem();
+        while (parent != null && parent.getParentStructElem() != this) {
+            child = parent;
+            parent = parent.getParentStructElem();
+        }
+        return parent != null && kids != null && kids.contains(parent) ? child : null;
+    }
+
+    @Override
+    public void collectSubtree(List<PDFStructElem> structElems) {
+        super.collectSubtree(structElems);
+        collectSubtrees(regionBefores, structElems);
+        collectSubtrees(regionAfters, structElems);
+        collectSubtrees(regionStarts, structElems);
+        collectSubtrees(regionEnds, structElems);
+        collectSubtrees(footnoteSeparator, structElems);
+    }
+
     @Override
     protected boolean attachKids() {
         assert !kids.isEmpty();
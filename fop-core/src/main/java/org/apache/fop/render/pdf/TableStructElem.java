@@ -19,6 +19,8 @@
 
 package org.apache.fop.render.pdf;
 
+import java.util.List;
+
 import org.apache.fop.pdf.PDFObject;
 import org.apache.fop.pdf.PDFStructElem;
 import org.apache.fop.pdf.StructureType;
@@ -36,6 +38,14 @@ class TableStructElem extends PDFStructElem {
         tableFooter = footer;
     }
 
+    @Override
+    public void collectSubtree(List<PDFStructElem> structElems) {
+        super.collectSubtree(structElems);
+        if (tableFooter != null) {
+            tableFooter.collectSubtree(structElems);
+        }
+    }
+
     @Override
     protected boolean attachKids() {
         assert !kids.isEmpty();
@@ -20,6 +20,7 @@
 package org.apache.fop.render.ps;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
 import java.io.BufferedInputStream;
@@ -37,9 +38,11 @@ import java.util.Map;
 import javax.xml.transform.Source;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.xmlgraphics.image.loader.ImageInfo;
 import org.apache.xmlgraphics.io.TempResourceURIGenerator;
 import org.apache.xmlgraphics.java2d.Dimension2DDouble;
 import org.apache.xmlgraphics.ps.DSCConstants;
@@ -90,6 +93,13 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     private static final TempResourceURIGenerator TEMP_URI_GENERATOR
             = new TempResourceURIGenerator("ps-optimize");
 
+    /** the spooled page bodies in case of single-pass resource optimization */
+    private PageSpool pageSpool;
+    /** the positions of the forms in the page spool */
+    private List<FormPlacement> formPlacements;
+    /** the number of bytes of page content held in memory before spilling to a temporary file */
+    private static final int PAGE_SPOOL_MEMORY_THRESHOLD = 4 * 1024 * 1024;
+
     private int currentPageNumber;
     private PageDefinition currentPageDefinition;
 
@@ -153,7 +163,12 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         this.fontResources = new FontResourceCache(getFontInfo());
         try {
             final OutputStream out;
-            if (psUtil.isOptimizeResources()) {
+            if (psUtil.isOptimizeResources() && psUtil.isSinglePassResources()) {
+                pageSpool = new PageSpool(getUserAgent().getResourceResolver(),
+                        TEMP_URI_GENERATOR.generate(), PAGE_SPOOL_MEMORY_THRESHOLD);
+                formPlacements = new ArrayList<FormPlacement>();
+                out = pageSpool;
+            } else if (psUtil.isOptimizeResources()) {
                 tempURI = TEMP_URI_GENERATOR.generate();
                 out = new BufferedOutputStream(getUserAgent().getResourceResolver().getOutputStream(tempURI));
             } else {
@@ -207,18 +222,33 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         }
     }
 
-    private void writeHeader() throws IOException {
+    /**
+     * Writes the document header, prolog and setup.
+     * @param gen the PostScript generator to write to
+     * @param resources the resource handler providing the used resources in case of
+     *          single-pass resource optimization, null otherwise
+     * @throws IOException In case of an I/O error.
+     */
+    private void writeHeader(PSGenerator gen, ResourceHandler resources) throws IOException {
         //PostScript Header
         gen.writeln(DSCConstants.PS_ADOBE_30);
         gen.writeDSCComment(DSCConstants.CREATOR, new String[] {getUserAgent().getProducer()});
         gen.writeDSCComment(DSCConstants.CREATION_DATE, new Object[] {new java.util.Date()});
         gen.writeDSCComment(DSCConstants.LANGUAGE_LEVEL, gen.getPSLevel());
-        gen.writeDSCComment(DSCConstants.PAGES, new Object[] {DSCConstants.ATEND});
-        gen.writeDSCComment(DSCConstants.BBOX, DSCConstants.ATEND);
-        gen.writeDSCComment(DSCConstants.HIRES_BBOX, DSCConstants.ATEND);
-        gen.writeDSCComment(DSCConstants.DOCUMENT_SUPPLIED_RESOURCES,
-                new Object[] {DSCConstants.ATEND});
-        writeExtensions(COMMENT_DOCUMENT_HEADER);
+        if (resources != null) {
+            //All pages are done, so everything is known already
+            gen.writeDSCComment(DSCConstants.PAGES, this.currentPageNumber);
+            new DSCCommentBoundingBox(this.documentBoundingBox).generate(gen);
+            new DSCCommentHiResBoundingBox(this.documentBoundingBox).generate(gen);
+            resources.writeDocumentResources(gen);
+        } else {
+            gen.writeDSCComment(DSCConstants.PAGES, new Object[] {DSCConstants.ATEND});
+            gen.writeDSCComment(DSCConstants.BBOX, DSCConstants.ATEND);
+            gen.writeDSCComment(DSCConstants.HIRES_BBOX, DSCConstants.ATEND);
+            gen.writeDSCComment(DSCConstants.DOCUMENT_SUPPLIED_RESOURCES,
+                    new Object[] {DSCConstants.ATEND});
+        }
+        writeExtensions(COMMENT_DOCUMENT_HEADER, gen);
         gen.writeDSCComment(DSCConstants.END_COMMENTS);
 
         //Defaults
@@ -237,7 +267,9 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         //Setup
         gen.writeDSCComment(DSCConstants.BEGIN_SETUP);
         PSRenderingUtil.writeSetupCodeList(gen, setupCodeList, "SetupCode");
-        if (!psUtil.isOptimizeResources()) {
+        if (resources != null) {
+            resources.writeSetupResources(gen);
+        } else if (!psUtil.isOptimizeResources()) {
             this.fontResources.addAll(PSFontUtils.writeFontDict(gen, fontInfo, eventProducer));
         } else {
             gen.commentln("%FOPFontSetup"); //Place-holder, will be replaced in the second pass
@@ -247,8 +279,12 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** {@inheritDoc} */
     public void endDocumentHeader() throws IFException {
+        if (pageSpool != null) {
+            //The header is written last, once all used resources are known
+            return;
+        }
         try {
-            writeHeader();
+            writeHeader(gen, null);
         } catch (IOException ioe) {
             throw new IFException("I/O error writing the PostScript header", ioe);
         }
@@ -260,14 +296,18 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             //Write trailer
             gen.writeDSCComment(DSCConstants.TRAILER);
             writeExtensions(COMMENT_DOCUMENT_TRAILER);
-            gen.writeDSCComment(DSCConstants.PAGES, this.currentPageNumber);
-            new DSCCommentBoundingBox(this.documentBoundingBox).generate(gen);
-            new DSCCommentHiResBoundingBox(this.documentBoundingBox).generate(gen);
-            gen.getResourceTracker().writeResources(false, gen);
+            if (pageSpool == null) {
+                gen.writeDSCComment(DSCConstants.PAGES, this.currentPageNumber);
+                new DSCCommentBoundingBox(this.documentBoundingBox).generate(gen);
+                new DSCCommentHiResBoundingBox(this.documentBoundingBox).generate(gen);
+                gen.getResourceTracker().writeResources(false, gen);
+            }
             gen.writeDSCComment(DSCConstants.EOF);
             gen.flush();
             log.debug("Rendering to PostScript complete.");
-            if (psUtil.isOptimizeResources()) {
+            if (pageSpool != null) {
+                assemblePostScriptFile();
+            } else if (psUtil.isOptimizeResources()) {
                 IOUtils.closeQuietly(gen.getOutputStream());
                 rewritePostScriptFile();
             }
@@ -309,6 +349,73 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         }
     }
 
+    /**
+     * Used for single-pass production. This will write the PostScript file from the header,
+     * the resources collected while painting and the spooled page bodies.
+     * @throws IOException In case of an I/O error.
+     */
+    private void assemblePostScriptFile() throws IOException {
+        log.debug("Assembling PostScript file...");
+        long startTime = System.currentTimeMillis();
+        ResourceTracker resTracker = gen.getResourceTracker();
+        //The prolog is only written after the header comments listing the supplied resources
+        resTracker.registerSuppliedResource(PSProcSets.STD_PROCSET);
+        resTracker.registerSuppliedResource(PSProcSets.EPS_PROCSET);
+        resTracker.registerSuppliedResource(FOPProcSet.INSTANCE);
+        //Determine the needed resources (done while writing the trailer in two-pass mode)
+        resTracker.writeDocumentResources(new PSGenerator(new NullOutputStream()));
+        ResourceHandler resources = new ResourceHandler(getUserAgent(), eventProducer,
+                this.fontInfo, resTracker, this.formResources);
+        PSGenerator out = new FOPPSGeneratorImpl(this.outputStream);
+        out.setPSLevel(gen.getPSLevel());
+        out.setAcrobatDownsample(psUtil.isAcrobatDownsample());
+        writeHeader(out, resources);
+        out.flush();
+
+        InputStream in = pageSpool.getInputStream();
+        try {
+            long position = 0;
+            for (FormPlacement placement : formPlacements) {
+                if (resources.isInlineForm(placement.form)) {
+                    //Create an inline form
+                    //Wrap in save/restore pair to release memory
+                    copy(in, placement.start - position);
+                    out.writeln("save");
+                    resources.generateInlineForm(out, placement.form);
+                    out.flush();
+                    copy(in, placement.end - placement.start);
+                    out.writeln("restore");
+                    out.flush();
+                    position = placement.end;
+                }
+            }
+            IOUtils.copyLarge(in, this.outputStream);
+            this.outputStream.flush();
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        if (log.isDebugEnabled()) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.debug("PostScript file assembled in " + duration + " ms"
+                    + (pageSpool.isSpilled() ? " (page bodies spilled to temporary file)." : "."));
+        }
+        pageSpool = null;
+        formPlacements = null;
+    }
+
+    private void copy(InputStream in, long length) throws IOException {
+        byte[] buf = new byte[8192];
+        long remaining = length;
+        while (remaining > 0) {
+            int len = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+            if (len < 0) {
+                throw new IOException("Unexpected end of spooled PostScript content");
+            }
+            this.outputStream.write(buf, 0, len);
+            remaining -= len;
+        }
+    }
+
     /** {@inheritDoc} */
     public void startPageSequence(String id) throws IFException {
         //nop
@@ -454,6 +561,10 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     }
 
     private void writeExtensions(int which) throws IOException {
+        writeExtensions(which, gen);
+    }
+
+    private void writeExtensions(int which, PSGenerator gen) throws IOException {
         Collection extensions = comments[which];
         if (extensions != null) {
             PSRenderingUtil.writeEnclosedExtensionAttachments(gen, extensions);
@@ -601,6 +712,48 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         return form;
     }
 
+    /**
+     * Draws an image that has been registered as a form through {@link #getFormForImage(String)}.
+     * @param form the form resource
+     * @param info the image info object representing the image in the form
+     * @param rect the target rectangle (coordinates in millipoints)
+     * @throws IOException if an I/O error occurs
+     */
+    void drawForm(PSResource form, ImageInfo info, Rectangle rect) throws IOException {
+        if (pageSpool == null) {
+            PSImageUtils.drawForm(form, info, rect, gen);
+            return;
+        }
+        //Without the second pass, no %%IncludeResource marker is needed. Instead, the position
+        //is remembered in case the form turns out to be used only once and must be inlined.
+        Rectangle2D targetRect = new Rectangle2D.Double(
+            rect.getMinX() / 1000.0,
+            rect.getMinY() / 1000.0,
+            rect.getWidth() / 1000.0,
+            rect.getHeight() / 1000.0);
+        gen.saveGraphicsState();
+        PSImageUtils.translateAndScale(gen, info.getSize().getDimensionPt(), targetRect);
+        gen.getResourceTracker().notifyResourceUsageOnPage(form);
+        gen.flush();
+        long start = pageSpool.getPosition();
+        gen.writeln(form.getName() + " execform");
+        gen.flush();
+        formPlacements.add(new FormPlacement(form, start, pageSpool.getPosition()));
+        gen.restoreGraphicsState();
+    }
+
+    private static final class FormPlacement {
+        private final PSResource form;
+        private final long start;
+        private final long end;
+
+        private FormPlacement(PSResource form, long start, long end) {
+            this.form = form;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
     private static final class PageDefinition {
         private Dimension2D dimensions;
         private boolean rotate;
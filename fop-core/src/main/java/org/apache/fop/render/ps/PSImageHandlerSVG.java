@@ -23,6 +23,7 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
@@ -51,14 +52,15 @@ import org.apache.batik.transcoder.image.PNGTranscoder;
 
 import org.apache.xmlgraphics.image.loader.Image;
 import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
 import org.apache.xmlgraphics.image.loader.impl.ImageXMLDOM;
+import org.apache.xmlgraphics.ps.FormGenerator;
 import org.apache.xmlgraphics.ps.ImageEncoder;
 import org.apache.xmlgraphics.ps.ImageEncodingHelper;
 import org.apache.xmlgraphics.ps.PSGenerator;
 
 import org.apache.fop.image.loader.batik.BatikImageFlavors;
 import org.apache.fop.image.loader.batik.BatikUtil;
-import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.render.ps.svg.PSSVGGraphics2D;
 import org.apache.fop.svg.SVGEventProducer;
@@ -68,7 +70,7 @@ import org.apache.fop.svg.font.FOPFontFamilyResolverImpl;
 /**
  * Image handler implementation which handles SVG images for PostScript output.
  */
-public class PSImageHandlerSVG implements ImageHandler {
+public class PSImageHandlerSVG implements PSImageHandler {
 
     private static final Color FALLBACK_COLOR = new Color(255, 33, 117);
     private HashMap<String, String> gradientsFound = new HashMap<String, String>();
@@ -175,6 +177,51 @@ public class PSImageHandlerSVG implements ImageHandler {
         }
     }
 
+    /** {@inheritDoc} */
+    public void generateForm(RenderingContext context, Image image, final PSImageFormResource form)
+            throws IOException {
+        final PSRenderingContext psContext = (PSRenderingContext)context;
+        PSGenerator gen = psContext.getGenerator();
+        final ImageXMLDOM imageSVG = (ImageXMLDOM)image;
+        ImageInfo info = image.getInfo();
+        String imageDescription = info.getMimeType() + " " + info.getOriginalURI();
+        final Dimension2D dimensionsPt = info.getSize().getDimensionPt();
+        final Dimension2D dimensionsMpt = info.getSize().getDimensionMpt();
+        //The form is painted at the intrinsic size of the image and scaled when it is used
+        final Rectangle area = new Rectangle(0, 0,
+                (int) Math.round(dimensionsMpt.getWidth()),
+                (int) Math.round(dimensionsMpt.getHeight()));
+
+        FormGenerator formGen;
+        if (gen.getPSLevel() <= 2) {
+            formGen = new FormGenerator(form.getName(), imageDescription, dimensionsPt) {
+
+                protected void generatePaintProc(PSGenerator gen) throws IOException {
+                    handleImage(psContext, imageSVG, area);
+                }
+            };
+        } else {
+            formGen = new FormGenerator(form.getName(), imageDescription, dimensionsPt) {
+
+                protected void generateAdditionalDataStream(PSGenerator gen) throws IOException {
+                    gen.writeln("/" + form.getName() + ":Data currentfile <<");
+                    gen.writeln("  /Filter /SubFileDecode");
+                    gen.writeln("  /DecodeParms << /EODCount 0 /EODString (%FOPEndOfData) >>");
+                    gen.writeln(">> /ReusableStreamDecode filter");
+                    handleImage(psContext, imageSVG, area);
+                    gen.writeln("%FOPEndOfData");
+                    gen.writeln("def");
+                }
+
+                protected void generatePaintProc(PSGenerator gen) throws IOException {
+                    gen.writeln(form.getName() + ":Data 0 setfileposition");
+                    gen.writeln(form.getName() + ":Data cvx exec");
+                }
+            };
+        }
+        formGen.generate(gen);
+    }
+
     private InputStream renderSVGToInputStream(RenderingContext context, ImageXMLDOM imageSVG) throws IOException {
         PNGTranscoder png = new PNGTranscoder();
         Float width = getDimension(imageSVG.getDocument(), "width") * 8;
@@ -358,9 +405,7 @@ public class PSImageHandlerSVG implements ImageHandler {
     /** {@inheritDoc} */
     public boolean isCompatible(RenderingContext targetContext, Image image) {
         if (targetContext instanceof PSRenderingContext) {
-            PSRenderingContext psContext = (PSRenderingContext)targetContext;
-            return !psContext.isCreateForms()
-                && (image == null || (image instanceof ImageXMLDOM
+            return (image == null || (image instanceof ImageXMLDOM
                         && image.getFlavor().isCompatible(BatikImageFlavors.SVG_DOM)));
         }
         return false;
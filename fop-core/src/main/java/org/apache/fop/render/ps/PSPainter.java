@@ -165,7 +165,7 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
             }
             //Don't load image at this time, just put a form placeholder in the stream
             PSResource form = getDocumentHandler().getFormForImage(info.getOriginalURI());
-            PSImageUtils.drawForm(form, info, rect, getGenerator());
+            getDocumentHandler().drawForm(form, info, rect);
         }
     }
 
@@ -49,6 +49,9 @@ public class PSRendererConfigurator extends DefaultRendererConfigurator {
         if (psConfig.isOptimizeResources() != null) {
             psUtil.setOptimizeResources(psConfig.isOptimizeResources());
         }
+        if (psConfig.isSinglePassResources() != null) {
+            psUtil.setSinglePassResources(psConfig.isSinglePassResources());
+        }
         if (psConfig.isSafeSetPageDevice() != null) {
             psUtil.setSafeSetPageDevice(psConfig.isSafeSetPageDevice());
         }
@@ -33,6 +33,11 @@ public enum PSRendererOption implements RendererConfigOption {
     LANGUAGE_LEVEL("language-level", PSGenerator.DEFAULT_LANGUAGE_LEVEL),
     /** Whether resources should be optimized in a post-processing run, default: false */
     OPTIMIZE_RESOURCES("optimize-resources", false),
+    /**
+     * Whether optimized resources are collected while painting, so the document is written
+     * in a single pass without a post-processing run, default: false
+     */
+    SINGLE_PASS_RESOURCES("single-pass-resources", false),
     /** Indicates whether the "safe setpagedevice" mode is active, default: false */
     SAFE_SET_PAGE_DEVICE("safe-set-page-device", false),
     /** Indicates whether the PostScript output should be DSC compliant, default: true*/
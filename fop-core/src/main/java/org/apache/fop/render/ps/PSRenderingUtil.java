@@ -37,6 +37,7 @@ import static org.apache.fop.render.ps.PSRendererOption.ACROBAT_DOWNSAMPLE;
 import static org.apache.fop.render.ps.PSRendererOption.AUTO_ROTATE_LANDSCAPE;
 import static org.apache.fop.render.ps.PSRendererOption.LANGUAGE_LEVEL;
 import static org.apache.fop.render.ps.PSRendererOption.OPTIMIZE_RESOURCES;
+import static org.apache.fop.render.ps.PSRendererOption.SINGLE_PASS_RESOURCES;
 
 /**
  * Utility class which enables all sorts of features that are not directly connected to the
@@ -62,6 +63,9 @@ public class PSRenderingUtil {
     /** Determines whether the PS file is generated in two passes to minimize file size */
     private boolean optimizeResources;
 
+    /** Determines whether optimized resources are collected while painting (single pass) */
+    private boolean singlePassResources;
+
     /**
      * Determines whether the generated PostScript code is optimized for minimum file size
      * of best quality.
@@ -88,6 +92,10 @@ public class PSRenderingUtil {
         if (obj != null) {
             setOptimizeResources(booleanValueOf(obj));
         }
+        obj = userAgent.getRendererOptions().get(SINGLE_PASS_RESOURCES.getName());
+        if (obj != null) {
+            setSinglePassResources(booleanValueOf(obj));
+        }
         obj = userAgent.getRendererOptions().get(ACROBAT_DOWNSAMPLE.getName());
         if (obj != null) {
             setAcrobatDownsample(booleanValueOf(obj));
@@ -312,6 +320,25 @@ public class PSRenderingUtil {
         return optimizeResources;
     }
 
+    /**
+     * Controls whether optimized PostScript resources are collected while painting instead of
+     * in a second pass over the document. The page bodies are spooled and the final file is
+     * assembled once all pages are done, so the document doesn't need to be parsed again.
+     * Only effective if resource optimization is enabled.
+     * @param value true to enable single-pass resource optimization
+     */
+    public void setSinglePassResources(boolean value) {
+        this.singlePassResources = value;
+    }
+
+    /**
+     * Indicates whether optimized PostScript resources are collected while painting.
+     * @return true if single-pass resource optimization is enabled
+     */
+    public boolean isSinglePassResources() {
+        return singlePassResources;
+    }
+
     /**
      * Sets the rendering mode.
      * @param renderingMode the rendering mode
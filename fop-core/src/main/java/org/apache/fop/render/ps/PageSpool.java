@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.ps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Output stream holding the page bodies of a PostScript document produced in a single pass
+ * with resource optimization. The content is kept in memory up to a threshold and spilled to
+ * a temporary resource beyond that. Once all pages are written, the content is read back
+ * sequentially while the final document is assembled.
+ */
+final class PageSpool extends OutputStream {
+
+    private static Log log = LogFactory.getLog(PageSpool.class);
+
+    private final InternalResourceResolver resourceResolver;
+    private final URI tempURI;
+    private final int memoryThreshold;
+
+    private ByteArrayOutputStream memory;
+    private OutputStream file;
+    private long position;
+    private boolean closed;
+
+    /**
+     * Creates a new spool.
+     * @param resourceResolver the resource resolver used to access the temporary resource
+     * @param tempURI the URI of the temporary resource used once the threshold is exceeded
+     * @param memoryThreshold the maximum number of bytes held in memory
+     */
+    PageSpool(InternalResourceResolver resourceResolver, URI tempURI, int memoryThreshold) {
+        this.resourceResolver = resourceResolver;
+        this.tempURI = tempURI;
+        this.memoryThreshold = memoryThreshold;
+        this.memory = new ByteArrayOutputStream(Math.min(memoryThreshold, 65536));
+    }
+
+    /**
+     * Returns the number of bytes written so far, i.e. the offset the next byte is written to.
+     * @return the current position
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Indicates whether the content has been spilled to the temporary resource.
+     * @return true if the content doesn't fit in memory
+     */
+    boolean isSpilled() {
+        return file != null;
+    }
+
+    private OutputStream target(int len) throws IOException {
+        if (closed) {
+            throw new IOException("Page spool already closed");
+        }
+        if (file == null && memory.size() + len > memoryThreshold) {
+            log.debug("Spilling PostScript page bodies to " + tempURI);
+            file = new BufferedOutputStream(resourceResolver.getOutputStream(tempURI));
+            memory.writeTo(file);
+            memory = null;
+        }
+        return (file != null) ? file : memory;
+    }
+
+    /** {@inheritDoc} */
+    public void write(int b) throws IOException {
+        target(1).write(b);
+        position++;
+    }
+
+    /** {@inheritDoc} */
+    public void write(byte[] b, int off, int len) throws IOException {
+        target(len).write(b, off, len);
+        position += len;
+    }
+
+    /** {@inheritDoc} */
+    public void flush() throws IOException {
+        if (file != null) {
+            file.flush();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Closes the spool and returns a stream to read back its content from the start.
+     * @return the input stream
+     * @throws IOException if an I/O error occurs
+     */
+    InputStream getInputStream() throws IOException {
+        close();
+        if (file != null) {
+            return new BufferedInputStream(resourceResolver.getResource(tempURI));
+        } else {
+            return new ByteArrayInputStream(memory.toByteArray());
+        }
+    }
+}
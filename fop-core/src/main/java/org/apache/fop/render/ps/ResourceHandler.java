@@ -70,7 +70,8 @@ import org.apache.fop.render.ImageHandlerRegistry;
  * This class is used when two-pass production is used to generate the PostScript file (setting
  * "optimize-resources"). It uses the DSC parser from XML Graphics Commons to go over the
  * temporary file generated by the PSRenderer and adds all used fonts and images as resources
- * to the PostScript file.
+ * to the PostScript file. In single-pass mode ("single-pass-resources"), the
+ * {@link PSDocumentHandler} uses it to write the resources directly while assembling the file.
  */
 public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
 
@@ -191,20 +192,7 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
                 new DSCCommentBoundingBox(documentBoundingBox).generate(gen);
                 new DSCCommentHiResBoundingBox(documentBoundingBox).generate(gen);
 
-                PSFontUtils.determineSuppliedFonts(resTracker, fontInfo, fontInfo.getUsedFonts());
-                registerSuppliedForms(resTracker, globalFormResources);
-
-                //Supplied Resources
-                DSCCommentDocumentSuppliedResources supplied
-                    = new DSCCommentDocumentSuppliedResources(
-                            resTracker.getDocumentSuppliedResources());
-                supplied.generate(gen);
-
-                //Needed Resources
-                DSCCommentDocumentNeededResources needed
-                    = new DSCCommentDocumentNeededResources(
-                            resTracker.getDocumentNeededResources());
-                needed.generate(gen);
+                writeDocumentResources(gen);
 
                 //Write original comment that ends the header comments
                 event.generate(gen);
@@ -225,8 +213,7 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
         if (fontSetupPlaceholder == null) {
             throw new DSCException("Didn't find %FOPFontSetup comment in stream");
         }
-        PSFontUtils.writeFontDict(gen, fontInfo, fontInfo.getUsedFonts(), eventProducer);
-        generateForms(globalFormResources, gen);
+        writeSetupResources(gen);
 
         //Skip the prolog and to the first page
         DSCComment pageOrTrailer = parser.nextDSCComment(DSCConstants.PAGE, gen);
@@ -255,6 +242,59 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
         gen.flush();
     }
 
+    /**
+     * Registers the resources supplied by the document and writes the
+     * %%DocumentSuppliedResources and %%DocumentNeededResources header comments.
+     * @param gen the PostScript generator
+     * @throws IOException In case of an I/O error
+     */
+    void writeDocumentResources(PSGenerator gen) throws IOException {
+        PSFontUtils.determineSuppliedFonts(resTracker, fontInfo, fontInfo.getUsedFonts());
+        registerSuppliedForms(resTracker, globalFormResources);
+
+        //Supplied Resources
+        DSCCommentDocumentSuppliedResources supplied
+            = new DSCCommentDocumentSuppliedResources(
+                    resTracker.getDocumentSuppliedResources());
+        supplied.generate(gen);
+
+        //Needed Resources
+        DSCCommentDocumentNeededResources needed
+            = new DSCCommentDocumentNeededResources(
+                    resTracker.getDocumentNeededResources());
+        needed.generate(gen);
+    }
+
+    /**
+     * Writes the used fonts and the forms referenced more than once, to be placed in the
+     * document's setup section.
+     * @param gen the PostScript generator
+     * @throws IOException In case of an I/O error
+     */
+    void writeSetupResources(PSGenerator gen) throws IOException {
+        PSFontUtils.writeFontDict(gen, fontInfo, fontInfo.getUsedFonts(), eventProducer);
+        generateForms(globalFormResources, gen);
+    }
+
+    /**
+     * Indicates whether a form is only used once and is therefore defined where it is used.
+     * @param res the form resource
+     * @return true if the form is inlined
+     */
+    boolean isInlineForm(PSResource res) {
+        return inlineFormResources.containsKey(res);
+    }
+
+    /**
+     * Writes the definition of an inlined form.
+     * @param gen the PostScript generator
+     * @param res the form resource
+     * @throws IOException In case of an I/O error
+     */
+    void generateInlineForm(PSGenerator gen, PSResource res) throws IOException {
+        generateFormForImage(gen, (PSImageFormResource) inlineFormResources.get(res));
+    }
+
     private static void reportInvalidDSC() throws DSCException {
         throw new DSCException("File is not DSC-compliant: Unexpected end of file");
     }
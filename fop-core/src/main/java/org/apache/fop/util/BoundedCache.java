@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache that evicts the least recently used entries once the total weight of
+ * its entries exceeds a limit. By default every entry weighs 1, so the limit is the number
+ * of entries; subclasses override {@link #weigh(Object, Object)} to limit the cache by
+ * another measure, like the number of bytes held.
+ * <p>
+ * The entries are spread over several segments by the hash code of their keys. Each segment
+ * has its own lock and an equal share of the limit, so concurrent lookups rarely wait on
+ * each other. An entry weighing more than the share of a segment is never cached.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BoundedCache<K, V> {
+
+    /** The default number of segments. */
+    public static final int DEFAULT_SEGMENT_COUNT = 16;
+
+    private final Segment<K, V>[] segments;
+
+    private final long maxWeight;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new cache with the default number of segments.
+     * @param maxWeight the maximum total weight of the cached entries
+     */
+    public BoundedCache(long maxWeight) {
+        this(maxWeight, DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxWeight the maximum total weight of the cached entries
+     * @param segmentCount the number of segments, 1 for a strict LRU order over all entries;
+     * it is reduced for caches too small to give every segment a share
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BoundedCache(long maxWeight, int segmentCount) {
+        this.maxWeight = maxWeight;
+        int count = (int) Math.max(1, Math.min(segmentCount, maxWeight));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<K, V>(this, maxWeight / count);
+        }
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[(h & Integer.MAX_VALUE) % segments.length];
+    }
+
+    /**
+     * Returns the weight of an entry. It is determined once, when the entry is added.
+     * @param key the key
+     * @param value the value
+     * @return the weight, 1 unless overridden
+     */
+    protected int weigh(K key, V value) {
+        return 1;
+    }
+
+    /**
+     * Called after an entry has been removed from the cache, either to make room for other
+     * entries, because it was replaced or by {@link #clear()}. It is not called for values
+     * which were too heavy to be cached in the first place.
+     * @param key the key
+     * @param value the removed value
+     */
+    protected void evicted(K key, V value) {
+    }
+
+    /**
+     * Looks up an entry and marks it as recently used.
+     * @param key the key
+     * @return the cached value, or null if there is none
+     */
+    public V get(K key) {
+        V value = segmentFor(key).get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Adds an entry unless the key is already mapped, evicting other entries if necessary.
+     * @param key the key
+     * @param value the value
+     * @return the value already cached for the key, or null if there was none (even if the
+     * new value was too heavy to be cached)
+     */
+    public V putIfAbsent(K key, V value) {
+        return segmentFor(key).put(key, value, true, false);
+    }
+
+    /**
+     * Adds or replaces an entry, evicting other entries if necessary. This can also be used
+     * to have the weight of a cached value determined again after it has changed.
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        segmentFor(key).put(key, value, false, false);
+    }
+
+    /**
+     * Replaces an entry only if the key is currently cached. Unlike {@link #put(Object, Object)},
+     * this doesn't add an entry which has been evicted in the meantime.
+     * @param key the key
+     * @param value the value
+     * @return the value previously cached for the key, or null if there was none
+     */
+    public V replace(K key, V value) {
+        return segmentFor(key).put(key, value, false, true);
+    }
+
+    /**
+     * Indicates whether a value of the given weight is light enough to be cached at all.
+     * @param weight the weight
+     * @return true if the weight does not exceed the share of a segment
+     */
+    public boolean fits(long weight) {
+        return weight <= maxWeight / segments.length;
+    }
+
+    /** @return the number of cached entries */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /** @return the total weight of the cached entries */
+    public long getWeight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            weight += segment.getWeight();
+        }
+        return weight;
+    }
+
+    /** @return the number of lookups that found a cached entry */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /** @return the number of lookups that did not find a cached entry */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /** Removes all entries and resets the statistics. */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + ", weight=" + getWeight()
+                + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private final V value;
+
+        private final int weight;
+
+        private Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Segment<K, V> {
+
+        private final BoundedCache<K, V> cache;
+
+        private final LinkedHashMap<K, Node<K, V>> map = new LinkedHashMap<K, Node<K, V>>(16, 0.75f, true);
+
+        private final long maxWeight;
+
+        private long weight;
+
+        private Segment(BoundedCache<K, V> cache, long maxWeight) {
+            this.cache = cache;
+            this.maxWeight = maxWeight;
+        }
+
+        private synchronized V get(K key) {
+            Node<K, V> node = map.get(key);
+            return (node != null) ? node.value : null;
+        }
+
+        private V put(K key, V value, boolean onlyIfAbsent, boolean onlyIfPresent) {
+            List<Node<K, V>> removed = new ArrayList<Node<K, V>>(1);
+            V existing = null;
+            synchronized (this) {
+                Node<K, V> old = map.get(key);
+                if (old != null && onlyIfAbsent) {
+                    existing = old.value;
+                } else if (old != null || !onlyIfPresent) {
+                    if (old != null) {
+                        existing = old.value;
+                        map.remove(key);
+                        weight -= old.weight;
+                        if (old.value != value) {
+                            removed.add(old);
+                        }
+                    }
+                    int w = cache.weigh(key, value);
+                    if (w <= maxWeight) {
+                        map.put(key, new Node<K, V>(key, value, w));
+                        weight += w;
+                        Iterator<Node<K, V>> iter = map.values().iterator();
+                        while (weight > maxWeight) {
+                            Node<K, V> eldest = iter.next();
+                            iter.remove();
+                            weight -= eldest.weight;
+                            removed.add(eldest);
+                        }
+                    }
+                }
+            }
+            notifyEvicted(removed);
+            return existing;
+        }
+
+        private synchronized int size() {
+            return map.size();
+        }
+
+        private synchronized long getWeight() {
+            return weight;
+        }
+
+        private void clear() {
+            List<Node<K, V>> removed;
+            synchronized (this) {
+                removed = new ArrayList<Node<K, V>>(map.values());
+                map.clear();
+                weight = 0;
+            }
+            notifyEvicted(removed);
+        }
+
+        private void notifyEvicted(List<Node<K, V>> removed) {
+            for (Node<K, V> node : removed) {
+                cache.evicted(node.key, node.value);
+            }
+        }
+    }
+}
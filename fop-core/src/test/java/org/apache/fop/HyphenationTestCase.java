@@ -22,16 +22,28 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.hyphenation.Hyphenation;
+import org.apache.fop.hyphenation.HyphenationCache;
 import org.apache.fop.hyphenation.HyphenationException;
 import org.apache.fop.hyphenation.HyphenationTree;
+import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.hyphenation.Hyphenator;
 
 public class HyphenationTestCase {
@@ -68,4 +80,101 @@ public class HyphenationTestCase {
         hyp.delete();
         f.delete();
     }
+
+    @Test
+    public void testHyphenatorCache() {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        HyphenationCache cache = new HyphenationCache();
+        String lang = "fr.xml" + Hyphenator.XMLTYPE;
+        Hyphenation hyph = Hyphenator.hyphenate(lang, null, resourceResolver, null, "hello", 0, 0, null, cache);
+        assertEquals("-hel-lo", hyph.toString());
+        assertSame(hyph, Hyphenator.hyphenate(lang, null, resourceResolver, null, "hello", 0, 0, null, cache));
+        assertEquals("hel-lo", Hyphenator.hyphenate(lang, null, resourceResolver, null, "hello", 1, 1, null,
+                cache).toString());
+        assertNull(Hyphenator.hyphenate("xx", null, resourceResolver, null, "hello", 0, 0, null, cache));
+        assertNull(Hyphenator.hyphenate("xx", null, resourceResolver, null, "hello", 0, 0, null, cache));
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testHyphenationTreePreload() throws InterruptedException {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        HyphenationTreeCache treeCache = new HyphenationTreeCache();
+        assertTrue(treeCache.isReady());
+        String lang = "fr.xml" + Hyphenator.XMLTYPE;
+        treeCache.preload(Arrays.asList(lang, "xx"), resourceResolver, null);
+        assertTrue(treeCache.awaitReady(30, TimeUnit.SECONDS));
+        assertTrue(treeCache.isReady());
+        assertTrue(treeCache.isMissing("xx"));
+        HyphenationTree hTree = treeCache.getHyphenationTree(lang, null);
+        assertSame(hTree, Hyphenator.getHyphenationTree(lang, null, resourceResolver, null, null, treeCache));
+        assertEquals(1, treeCache.getMemoryUsage().size());
+        assertEquals(hTree.getMemoryUsage(), treeCache.getTotalMemoryUsage());
+        assertTrue(treeCache.getTotalMemoryUsage() > 0);
+        assertEquals("-hel-lo", Hyphenator.hyphenate(lang, null, resourceResolver, null, "hello", 0, 0, null,
+                treeCache, null).toString());
+    }
+
+    @Test
+    public void testHyphenationTreePreloadCancelled() {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        HyphenationTreeCache treeCache = new HyphenationTreeCache();
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        String lang = "fr.xml" + Hyphenator.XMLTYPE;
+        treeCache.preload(Arrays.asList(lang), resourceResolver, null, new Executor() {
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        });
+        assertEquals(1, queued.size());
+        assertFalse(treeCache.isReady());
+        treeCache.cancelPreload();
+        assertTrue(treeCache.isReady());
+        //the cancelled task doesn't block the lookup, which loads the tree itself
+        assertNotNull(Hyphenator.getHyphenationTree(lang, null, resourceResolver, null, null, treeCache));
+        queued.get(0).run();
+        assertEquals(1, treeCache.getMemoryUsage().size());
+    }
+
+    @Test
+    public void testLookupForCountryWaitsForPreloadedLanguage() throws InterruptedException {
+        File f = new File("test/resources/fop");
+        final InternalResourceResolver resourceResolver
+                = ResourceResolverFactory.createDefaultInternalResourceResolver(f.toURI());
+        final HyphenationTreeCache treeCache = new HyphenationTreeCache();
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        final String lang = "fr.xml" + Hyphenator.XMLTYPE;
+        treeCache.preload(Arrays.asList(lang), resourceResolver, null, new Executor() {
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        });
+        final HyphenationTree[] found = new HyphenationTree[1];
+        Thread lookup = new Thread() {
+            public void run() {
+                found[0] = Hyphenator.getHyphenationTree(lang, "CH", resourceResolver, null, null, treeCache);
+            }
+        };
+        lookup.start();
+        //there are no patterns for the country, so the lookup waits for those of the language
+        long end = System.currentTimeMillis() + 30000;
+        while (lookup.getState() != Thread.State.WAITING && lookup.isAlive()
+                && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, lookup.getState());
+        queued.get(0).run();
+        lookup.join(30000);
+        assertNotNull(found[0]);
+        assertSame(treeCache.getHyphenationTree(lang, null), found[0]);
+        assertEquals(1, treeCache.getMemoryUsage().size());
+    }
 }
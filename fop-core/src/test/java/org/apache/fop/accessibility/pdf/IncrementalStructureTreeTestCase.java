@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.accessibility.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+public class IncrementalStructureTreeTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\" xml:lang=\"en\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+            + " page-height=\"100pt\" page-width=\"200pt\">"
+            + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block>First<fo:footnote><fo:inline>1</fo:inline><fo:footnote-body>"
+            + "<fo:block>Note</fo:block></fo:footnote-body></fo:footnote></fo:block>"
+            + "<fo:block break-before=\"page\">Second</fo:block>"
+            + "<fo:block break-before=\"page\">Third</fo:block></fo:flow></fo:page-sequence>"
+            + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block>Last</fo:block></fo:flow></fo:page-sequence></fo:root>";
+
+    private static final Pattern STRUCTURE_TYPE = Pattern.compile("/S /(\\w+)");
+
+    @Test
+    public void testSameStructureTree() throws Exception {
+        String expected = renderPDF(false, "1.4");
+        String actual = renderPDF(true, "1.4");
+        assertEquals(getStructureTypes(expected), getStructureTypes(actual));
+        assertTrue(actual.lastIndexOf("/Type /Page\n") > actual.indexOf("/S /P\n"));
+        assertTrue(expected.lastIndexOf("/Type /Page\n") < expected.indexOf("/S /P\n"));
+    }
+
+    @Test
+    public void testObjectStreams() throws Exception {
+        String actual = renderPDF(true, "1.5");
+        assertTrue(actual.lastIndexOf("/Type /Page\n") > actual.indexOf("/Type /ObjStm"));
+    }
+
+    private List<String> getStructureTypes(String pdf) {
+        List<String> structureTypes = new ArrayList<String>();
+        Matcher matcher = STRUCTURE_TYPE.matcher(pdf);
+        while (matcher.find()) {
+            structureTypes.add(matcher.group(1));
+        }
+        Collections.sort(structureTypes);
+        return structureTypes;
+    }
+
+    private String renderPDF(boolean incremental, String version) throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        userAgent.setAccessibility(true);
+        userAgent.getRendererOptions().put("version", version);
+        userAgent.getRendererOptions().put("incremental-structure-tree", String.valueOf(incremental));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = userAgent.newFop(MimeConstants.MIME_PDF, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)), new SAXResult(fop.getDefaultHandler()));
+        return out.toString("ISO-8859-1");
+    }
+}
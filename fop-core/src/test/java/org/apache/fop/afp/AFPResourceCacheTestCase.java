@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.fop.afp.AFPResourceLevel.ResourceType;
+import org.apache.fop.afp.modca.ResourceObject;
+import org.apache.fop.afp.util.AFPResourceAccessor;
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+/**
+ * Tests the {@link AFPResourceCache} and its use by the {@link AFPResourceManager}.
+ */
+public class AFPResourceCacheTestCase {
+
+    private static final String PSEG_A = "XFEATHER";
+
+    private InternalResourceResolver resourceResolver;
+
+    private URI resourceUri;
+
+    @Before
+    public void setUp() throws Exception {
+        resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI());
+        resourceUri = getClass().getResource("expected_resource.afp").toURI();
+    }
+
+    @Test
+    public void testSharedBetweenDocuments() throws IOException {
+        byte[] expected = render(null, false);
+        AFPResourceCache cache = new AFPResourceCache();
+        assertArrayEquals(expected, render(cache, false));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getHitCount());
+        assertArrayEquals(expected, render(cache, false));
+        assertEquals(1, cache.getHitCount());
+        assertTrue(cache.getMemoryUsage() > 0);
+        assertEquals(0, cache.getSpoolUsage());
+    }
+
+    @Test
+    public void testSpooledResourceGroup() throws IOException {
+        byte[] expected = render(null, false);
+        assertArrayEquals(expected, render(null, true));
+        AFPResourceCache cache = new AFPResourceCache(AFPResourceCache.DEFAULT_MAX_SIZE,
+                AFPResourceCache.DEFAULT_MAX_SPOOL_SIZE, 0);
+        assertArrayEquals(expected, render(cache, true));
+        assertEquals(0, cache.getMemoryUsage());
+        assertTrue(cache.getSpoolUsage() > 0);
+        assertArrayEquals(expected, render(cache, true));
+        //A spooled resource can also be written without spooling the resource group
+        assertArrayEquals(expected, render(cache, false));
+        assertEquals(2, cache.getHitCount());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getSpoolUsage());
+    }
+
+    @Test
+    public void testSpooledEntry() throws IOException {
+        AFPResourceCache cache = new AFPResourceCache(0, 1024, 4);
+        byte[] data = {1, 2, 3, 4, 5};
+        AFPResourceCache.Entry entry = cache.put(createKey("A"), data, true);
+        assertTrue(entry.isSpooled());
+        assertArrayEquals(data, entry.getData());
+        File file = File.createTempFile("AFPResourceCacheTestCase", ".afp");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(0);
+                entry.writeTo(out);
+            } finally {
+                out.close();
+            }
+            InputStream in = new FileInputStream(file);
+            try {
+                assertArrayEquals(new byte[] {0, 1, 2, 3, 4, 5}, IOUtils.toByteArray(in));
+            } finally {
+                in.close();
+            }
+        } finally {
+            file.delete();
+        }
+        entry.release();
+        cache.clear();
+        assertFalse(entry.getSpoolFile().exists());
+    }
+
+    @Test
+    public void testLimits() throws IOException {
+        AFPResourceCache cache = new AFPResourceCache(4, 0, 2);
+        AFPResourceCache.Entry entry = cache.put(createKey("A"), new byte[] {1, 2, 3}, true);
+        assertFalse(entry.isSpooled());
+        assertEquals(1, cache.size());
+        //the least recently used resource makes room for the new one
+        cache.put(createKey("B"), new byte[] {1, 2}, false);
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getMemoryUsage());
+        assertNull(cache.get(createKey("A")));
+        assertNotNull(cache.get(createKey("B")));
+        //too large to be cached at all
+        cache.put(createKey("C"), new byte[5], false);
+        assertNull(cache.get(createKey("C")));
+    }
+
+    @Test
+    public void testEvictedSpoolFileIsKeptWhileInUse() throws IOException {
+        AFPResourceCache cache = new AFPResourceCache(0, 8, 0);
+        AFPResourceCache.Entry entry = cache.put(createKey("A"), new byte[] {1, 2, 3, 4, 5}, true);
+        File spoolFile = entry.getSpoolFile();
+        cache.put(createKey("B"), new byte[] {6, 7, 8, 9}, true).release();
+        assertNull(cache.get(createKey("A")));
+        //still retained by the caller
+        assertTrue(spoolFile.exists());
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, entry.getData());
+        entry.release();
+        assertFalse(spoolFile.exists());
+        AFPResourceCache.Entry other = cache.get(createKey("B"));
+        File otherFile = other.getSpoolFile();
+        cache.shutdown();
+        assertEquals(0, cache.size());
+        assertFalse(otherFile.exists());
+    }
+
+    @Test
+    public void testKeyChangesWithFile() throws IOException {
+        File file = File.createTempFile("AFPResourceCacheTestCase", ".afp");
+        try {
+            AFPResourceLevel level = new AFPResourceLevel(ResourceType.PRINT_FILE);
+            AFPResourceCache.Key key = AFPResourceCache.createKey(file.toURI(), level, "A",
+                    ResourceObject.TYPE_PAGE_SEGMENT);
+            assertEquals(key, AFPResourceCache.createKey(file.toURI(), level, "A",
+                    ResourceObject.TYPE_PAGE_SEGMENT));
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(1);
+            } finally {
+                out.close();
+            }
+            assertFalse(key.equals(AFPResourceCache.createKey(file.toURI(), level, "A",
+                    ResourceObject.TYPE_PAGE_SEGMENT)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private AFPResourceCache.Key createKey(String name) {
+        return AFPResourceCache.createKey(resourceUri, new AFPResourceLevel(ResourceType.PRINT_FILE),
+                name, ResourceObject.TYPE_PAGE_SEGMENT);
+    }
+
+    private byte[] render(AFPResourceCache cache, boolean spooling) throws IOException {
+        AFPResourceManager resourceManager = new AFPResourceManager(resourceResolver);
+        resourceManager.setResourceCache(cache);
+        resourceManager.setResourceGroupSpooling(spooling);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataStream dataStream = resourceManager.createDataStream(new AFPPaintingState(), out);
+        dataStream.startDocument();
+        dataStream.startPage(0, 0, 0, 10, 10);
+        resourceManager.createIncludedResourceFromExternal(PSEG_A, resourceUri,
+                new AFPResourceAccessor(resourceResolver));
+        dataStream.endPage();
+        dataStream.endDocument();
+        resourceManager.writeToStream();
+        return out.toByteArray();
+    }
+}
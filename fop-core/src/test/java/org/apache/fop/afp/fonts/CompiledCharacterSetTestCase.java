@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp.fonts;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import org.apache.fop.afp.AFPEventProducer;
+import org.apache.fop.afp.util.AFPResourceAccessor;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class CompiledCharacterSetTestCase {
+
+    private final AFPEventProducer eventProducer = mock(AFPEventProducer.class);
+
+    private CharacterSet createCharacterSet(AFPResourceAccessor accessor) {
+        CharacterSet characterSet = new CharacterSet("T1V10500", "Cp500",
+                CharacterSetType.SINGLE_BYTE, "C0TEST", accessor, eventProducer);
+        characterSet.setNominalVerticalSize(10000);
+        CharacterSetOrientation cso = new CharacterSetOrientation(0, 250, 1000, 500);
+        cso.setAscender(700);
+        cso.setDescender(-200);
+        cso.setCapHeight(680);
+        cso.setXHeight(450);
+        cso.setUnderscoreWidth(50);
+        cso.setUnderscorePosition(-100);
+        cso.setCharacterMetrics('A', 667, new Rectangle(10, 0, 640, 680));
+        cso.setCharacterMetrics('\u20AC', 556, new Rectangle(5, -10, 540, 700));
+        cso.setCharacterMetrics('-', 333, null);
+        characterSet.addCharacterSetOrientation(cso);
+        return characterSet;
+    }
+
+    private static AFPResourceAccessor createAccessor(File dir) {
+        return new AFPResourceAccessor(
+                ResourceResolverFactory.createDefaultInternalResourceResolver(dir.toURI()));
+    }
+
+    private static void assertSameMetrics(CharacterSet expected, CharacterSet actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getNominalVerticalSize(), actual.getNominalVerticalSize());
+        assertEquals(expected.getAscender(), actual.getAscender());
+        assertEquals(expected.getDescender(), actual.getDescender());
+        assertEquals(expected.getCapHeight(), actual.getCapHeight());
+        assertEquals(expected.getXHeight(), actual.getXHeight());
+        assertEquals(expected.getUnderscoreWidth(), actual.getUnderscoreWidth());
+        assertEquals(expected.getUnderscorePosition(), actual.getUnderscorePosition());
+        assertEquals(expected.getSpaceIncrement(), actual.getSpaceIncrement());
+        assertEquals(expected.getEmSpaceIncrement(), actual.getEmSpaceIncrement());
+        assertEquals(expected.getNominalCharIncrement(), actual.getNominalCharIncrement());
+        for (char c : new char[] {'A', '\u20AC', '-', 'B'}) {
+            assertEquals(expected.getWidth(c, 12), actual.getWidth(c, 12));
+            assertEquals(expected.getCharacterBox(c, 12), actual.getCharacterBox(c, 12));
+        }
+    }
+
+    @Test
+    public void testCharacterMetrics() {
+        CharacterSet characterSet = createCharacterSet(null);
+        assertEquals(12 * 667, characterSet.getWidth('A', 12));
+        assertEquals(-1, characterSet.getWidth('B', 12));
+        assertEquals(new Rectangle(120, 0, 7680, 8160), characterSet.getCharacterBox('A', 12));
+        assertEquals(new Rectangle(0, 0, 0, 0), characterSet.getCharacterBox('B', 12));
+        assertNull(characterSet.getCharacterBox('-', 12));
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        CharacterSet characterSet = createCharacterSet(null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledCharacterSet.write(characterSet, out);
+        CharacterSet compiled = CompiledCharacterSet.read(ByteBuffer.wrap(out.toByteArray()),
+                "C0TEST", "T1V10500", "Cp500", CharacterSetType.SINGLE_BYTE, null, eventProducer);
+        assertSameMetrics(characterSet, compiled);
+        try {
+            CompiledCharacterSet.read(ByteBuffer.wrap(out.toByteArray()), "C0TEST", "T1V10500",
+                    "Cp850", CharacterSetType.SINGLE_BYTE, null, eventProducer);
+            fail("Metrics compiled for another encoding must not be used");
+        } catch (IOException ioe) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testBuilderUsesCompiledMetrics() throws IOException {
+        File dir = File.createTempFile("fop", "afp");
+        dir.delete();
+        dir.mkdir();
+        File file = new File(dir, CompiledCharacterSet.getFileName("C0TEST", "T1V10500"));
+        try {
+            AFPResourceAccessor accessor = createAccessor(dir);
+            CharacterSet characterSet = createCharacterSet(accessor);
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                CompiledCharacterSet.write(characterSet, out);
+            } finally {
+                out.close();
+            }
+            //there are no AFP font files in the directory, only the compiled metrics
+            CharacterSet built = CharacterSetBuilder.getSingleByteInstance().buildSBCS(
+                    "C0TEST", "T1V10500", "Cp500", accessor, eventProducer);
+            assertSameMetrics(characterSet, built);
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testBuilderCachesByLocation() throws IOException {
+        File dir1 = File.createTempFile("fop", "afp");
+        dir1.delete();
+        dir1.mkdir();
+        File dir2 = File.createTempFile("fop", "afp");
+        dir2.delete();
+        dir2.mkdir();
+        String fileName = CompiledCharacterSet.getFileName("C0TEST", "T1V10500");
+        try {
+            CharacterSet characterSet1 = createCharacterSet(createAccessor(dir1));
+            writeCompiled(characterSet1, new File(dir1, fileName));
+            CharacterSet characterSet2 = createCharacterSet(createAccessor(dir2));
+            characterSet2.getCharacterSetOrientation().setCharacterMetrics('A', 700, null);
+            writeCompiled(characterSet2, new File(dir2, fileName));
+            //the same names in another directory must not be served from the cache
+            CharacterSet built1 = CharacterSetBuilder.getSingleByteInstance().buildSBCS(
+                    "C0TEST", "T1V10500", "Cp500", createAccessor(dir1), eventProducer);
+            CharacterSet built2 = CharacterSetBuilder.getSingleByteInstance().buildSBCS(
+                    "C0TEST", "T1V10500", "Cp500", createAccessor(dir2), eventProducer);
+            assertEquals(12 * 667, built1.getWidth('A', 12));
+            assertEquals(12 * 700, built2.getWidth('A', 12));
+        } finally {
+            new File(dir1, fileName).delete();
+            new File(dir2, fileName).delete();
+            dir1.delete();
+            dir2.delete();
+        }
+    }
+
+    private static void writeCompiled(CharacterSet characterSet, File file) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            CompiledCharacterSet.write(characterSet, out);
+        } finally {
+            out.close();
+        }
+    }
+}
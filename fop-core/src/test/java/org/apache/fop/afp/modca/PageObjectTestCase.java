@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp.modca;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.afp.Factory;
+
+/**
+ * Test {@link PageObject}
+ */
+public class PageObjectTestCase {
+
+    private static PageObject createPage() {
+        return new Factory().createPage(1000, 2000, 0, 1440, 1440);
+    }
+
+    private static void fillPage(PageObject page) {
+        page.createIncludePageOverlay("OVL00001", 10, 20, 0);
+        page.createNoOperation("no operation");
+        page.createIncludePageSegment("S1000001", 30, 40, true);
+        page.createIncludePageOverlay("OVL00002", 50, 60, 90);
+        page.endPage();
+    }
+
+    private static byte[] toByteArray(PageObject page) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        page.writeToStream(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Tests that a page buffering its finished objects is written the same way as one that
+     * keeps all objects until the end of the page, including the page segment map that is
+     * added to the active environment group after the first objects have been buffered.
+     * @throws IOException -
+     */
+    @Test
+    public void testContentBuffer() throws IOException {
+        PageObject page = createPage();
+        fillPage(page);
+
+        PageObject bufferedPage = createPage();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        bufferedPage.setContentBuffer(buffer);
+        fillPage(bufferedPage);
+        assertTrue(buffer.size() > 0);
+        assertEquals(1, bufferedPage.objects.size());
+
+        assertArrayEquals(toByteArray(page), toByteArray(bufferedPage));
+        assertEquals(0, buffer.size());
+    }
+
+    /**
+     * Tests that a page that cannot be written yet keeps its content when the shared buffer
+     * is reused for the next page.
+     * @throws IOException -
+     */
+    @Test
+    public void testReleaseContentBuffer() throws IOException {
+        PageObject page = createPage();
+        fillPage(page);
+
+        PageObject bufferedPage = createPage();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        bufferedPage.setContentBuffer(buffer);
+        fillPage(bufferedPage);
+        bufferedPage.releaseContentBuffer();
+        assertEquals(0, buffer.size());
+        buffer.write(new byte[] {1, 2, 3}, 0, 3);
+
+        assertArrayEquals(toByteArray(page), toByteArray(bufferedPage));
+    }
+}
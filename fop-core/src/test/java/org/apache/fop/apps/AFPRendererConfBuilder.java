@@ -42,6 +42,7 @@ import static org.apache.fop.render.afp.AFPRendererOption.JPEG_ALLOW_JPEG_EMBEDD
 import static org.apache.fop.render.afp.AFPRendererOption.JPEG_BITMAP_ENCODING_QUALITY;
 import static org.apache.fop.render.afp.AFPRendererOption.LINE_WIDTH_CORRECTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RENDERER_RESOLUTION;
+import static org.apache.fop.render.afp.AFPRendererOption.RESOURCE_GROUP_SPOOLING;
 import static org.apache.fop.render.afp.AFPRendererOption.RESOURCE_GROUP_URI;
 import static org.apache.fop.render.afp.AFPRendererOption.SHADING;
 
@@ -92,6 +93,11 @@ public final class AFPRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public AFPRendererConfBuilder setResourceGroupSpooling(boolean value) {
+        createTextElement(RESOURCE_GROUP_SPOOLING, String.valueOf(value));
+        return this;
+    }
+
     public AFPRendererConfBuilder setDefaultResourceLevels(Map<String, String> levels) {
         Element e = createElement(DEFAULT_RESOURCE_LEVELS.getName());
         for (Map.Entry<String, String> stringStringEntry : levels.entrySet()) {
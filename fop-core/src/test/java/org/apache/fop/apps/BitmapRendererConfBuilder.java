@@ -24,7 +24,10 @@ import org.apache.fop.apps.FopConfBuilder.RendererConfBuilder;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.BACKGROUND_COLOR;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.ENCODING_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.PIPELINED_ENCODING;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RASTER_MEMORY_LIMIT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY_ELEMENT;
 
 public class BitmapRendererConfBuilder extends RendererConfBuilder {
@@ -62,6 +65,21 @@ public class BitmapRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public BitmapRendererConfBuilder setPipelinedEncoding(boolean pipelined) {
+        createTextElement(PIPELINED_ENCODING, String.valueOf(pipelined));
+        return this;
+    }
+
+    public BitmapRendererConfBuilder setRasterMemoryLimit(int megabytes) {
+        createTextElement(RASTER_MEMORY_LIMIT, String.valueOf(megabytes));
+        return this;
+    }
+
+    public BitmapRendererConfBuilder setEncodingThreads(int threads) {
+        createTextElement(ENCODING_THREADS, String.valueOf(threads));
+        return this;
+    }
+
     public static String getMimeType() {
         return "Bitmap";
     }
@@ -186,6 +186,26 @@ public class FopConfBuilder implements FontConfigurator<FopConfBuilder> {
         return createElement("prefer-renderer", String.valueOf(value));
     }
 
+    /**
+     * Set the &lt;line-break-cache&gt; tag within the fop.xconf.
+     *
+     * @param value false to disable the line break cache
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setLineBreakCache(boolean value) {
+        return createElement("line-break-cache", String.valueOf(value));
+    }
+
+    /**
+     * Set the &lt;static-content-cache&gt; tag within the fop.xconf.
+     *
+     * @param value false to disable the static content cache
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setStaticContentCache(boolean value) {
+        return createElement("static-content-cache", String.valueOf(value));
+    }
+
     /**
      * Set the &lt;default-page-settings&gt; tag within the fop.xconf.
      *
@@ -30,6 +30,8 @@ import org.xml.sax.SAXException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -129,6 +131,20 @@ public class FopConfParserTestCase {
         assertTrue(buildFactory().getRendererFactory().isRendererPreferred());
     }
 
+    @Test
+    public void testLineBreakCache() {
+        assertNotNull(buildFactory().getLineBreakCache());
+        builder.setLineBreakCache(false);
+        assertNull(buildFactory().getLineBreakCache());
+    }
+
+    @Test
+    public void testStaticContentCache() {
+        assertTrue(buildFactory().isStaticContentCacheEnabled());
+        builder.setStaticContentCache(false);
+        assertFalse(buildFactory().isStaticContentCacheEnabled());
+    }
+
     @Test
     public void testRelativeURINoBaseNoFont() throws Exception {
         checkRelativeURIs("test/config/relative-uri/no-base_no-font.xconf",
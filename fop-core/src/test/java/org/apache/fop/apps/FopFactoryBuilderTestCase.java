@@ -19,10 +19,16 @@
 
 package org.apache.fop.apps;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -33,6 +39,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.apache.xmlgraphics.io.Resource;
+import org.apache.xmlgraphics.io.ResourceResolver;
+
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.area.AreaTreeHandler;
 import org.apache.fop.area.Block;
@@ -279,6 +288,31 @@ public class FopFactoryBuilderTestCase {
         });
     }
 
+    @Test
+    public void testBuildStartsHyphenationPreload() throws InterruptedException {
+        final CountDownLatch requested = new CountDownLatch(1);
+        ResourceResolver resolver = new ResourceResolver() {
+            public Resource getResource(URI uri) throws IOException {
+                requested.countDown();
+                throw new FileNotFoundException(uri.toString());
+            }
+
+            public OutputStream getOutputStream(URI uri) throws IOException {
+                throw new UnsupportedOperationException();
+            }
+        };
+        defaultBuilder.setHyphenBaseResourceResolver(
+                ResourceResolverFactory.createInternalResourceResolver(URI.create("."), resolver));
+        defaultBuilder.setHyphenationPreloadLanguages(Arrays.asList("xx"));
+        FopFactory fopFactory = defaultBuilder.build();
+        try {
+            //the patterns are looked up without anything asking for the hyphenation tree cache
+            assertTrue(requested.await(30, TimeUnit.SECONDS));
+        } finally {
+            fopFactory.shutdown();
+        }
+    }
+
     private void runSetterTest(Runnable setterTest) {
         setterTest.run();
         try {
@@ -22,6 +22,7 @@ package org.apache.fop.apps;
 import org.apache.fop.apps.FopConfBuilder.RendererConfBuilder;
 
 import static org.apache.fop.render.java2d.Java2DRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.java2d.Java2DRendererOption.MAX_PAGES_IN_MEMORY;
 
 public class Java2DRendererConfBuilder extends RendererConfBuilder {
 
@@ -33,4 +34,9 @@ public class Java2DRendererConfBuilder extends RendererConfBuilder {
         createTextElement(JAVA2D_TRANSPARENT_PAGE_BACKGROUND, String.valueOf(value));
         return this;
     }
+
+    public Java2DRendererConfBuilder setMaxPagesInMemory(int value) {
+        createTextElement(MAX_PAGES_IN_MEMORY, String.valueOf(value));
+        return this;
+    }
 }
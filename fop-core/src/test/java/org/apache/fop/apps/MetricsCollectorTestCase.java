@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.ProcessingMetrics.Phase;
+
+public class MetricsCollectorTestCase {
+
+    private static class RecordingListener implements MetricsListener {
+        private final List<ProcessingMetrics> pageSequences = new ArrayList<ProcessingMetrics>();
+        private ProcessingMetrics document;
+
+        public void pageSequenceFinished(ProcessingMetrics metrics) {
+            pageSequences.add(metrics);
+        }
+
+        public void documentFinished(ProcessingMetrics metrics) {
+            document = metrics;
+        }
+    }
+
+    @Test
+    public void testCounters() {
+        RecordingListener listener = new RecordingListener();
+        MetricsCollector collector = new MetricsCollector(listener);
+        collector.startDocument();
+        collector.addKnuthElements(10);
+        collector.addActiveNode();
+        collector.addProperty();
+        collector.addGlyphLookup();
+        collector.setRetainedPages(3);
+        collector.setRetainedPages(1);
+        collector.endPageSequence("seq1", 2);
+        collector.addKnuthElements(5);
+        collector.endPageSequence("", 1);
+        collector.endDocument(3);
+
+        assertEquals(2, listener.pageSequences.size());
+        ProcessingMetrics first = listener.pageSequences.get(0);
+        assertEquals("seq1", first.getId());
+        assertEquals(2, first.getPageCount());
+        assertEquals(10, first.getKnuthElementCount());
+        assertEquals(1, first.getActiveNodeCount());
+        assertEquals(1, first.getPropertyCount());
+        assertEquals(1, first.getGlyphLookupCount());
+        assertEquals(3, first.getPeakRetainedPages());
+        ProcessingMetrics second = listener.pageSequences.get(1);
+        assertNull(second.getId());
+        assertEquals(5, second.getKnuthElementCount());
+        assertEquals(0, second.getActiveNodeCount());
+        assertEquals(1, second.getPeakRetainedPages());
+
+        assertNull(listener.document.getId());
+        assertEquals(3, listener.document.getPageCount());
+        assertEquals(15, listener.document.getKnuthElementCount());
+        assertEquals(3, listener.document.getPeakRetainedPages());
+    }
+
+    @Test
+    public void testNestedPhases() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        MetricsCollector collector = new MetricsCollector(listener);
+        collector.startDocument();
+        collector.startPhase(Phase.AREA_TREE);
+        collector.startPhase(Phase.RENDERING);
+        Thread.sleep(20);
+        collector.endPhase();
+        collector.endPhase();
+        collector.endDocument(0);
+
+        ProcessingMetrics metrics = listener.document;
+        assertTrue(metrics.getTime(Phase.RENDERING) >= 20000000L);
+        assertTrue(metrics.getTime(Phase.AREA_TREE) < metrics.getTime(Phase.RENDERING));
+        assertEquals(0, metrics.getTime(Phase.PAGE_BREAKING));
+        long sum = 0;
+        for (Phase phase : Phase.values()) {
+            sum += metrics.getTime(phase);
+        }
+        assertEquals(sum, metrics.getTotalTime());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnbalancedPhases() {
+        new MetricsCollector(new RecordingListener()).endPhase();
+    }
+
+    @Test
+    public void testDocumentMetrics() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new java.io.File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        RecordingListener listener = new RecordingListener();
+        userAgent.setMetricsListener(listener);
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, new ByteArrayOutputStream());
+        InputStream in = getClass().getResourceAsStream("/org/apache/fop/fo/complete_document.fo");
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.transform(new StreamSource(in), new SAXResult(fop.getDefaultHandler()));
+        } finally {
+            in.close();
+        }
+
+        assertEquals(fop.getResults().getPageSequences().size(), listener.pageSequences.size());
+        ProcessingMetrics metrics = listener.document;
+        assertEquals(fop.getResults().getPageCount(), metrics.getPageCount());
+        assertTrue(metrics.getKnuthElementCount() > 0);
+        assertTrue(metrics.getActiveNodeCount() > 0);
+        assertTrue(metrics.getPropertyCount() > 0);
+        assertTrue(metrics.getGlyphLookupCount() > 0);
+        assertTrue(metrics.getTime(Phase.FO_TREE) > 0);
+        assertTrue(metrics.getTime(Phase.RENDERING) > 0);
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.fop.apps;
 
 import java.net.URI;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,7 +37,7 @@ import org.apache.fop.layoutmgr.LayoutManagerMaker;
  * This is also an example of how to make the seemingly immutable {@link FopFactory} mutable should
  * a client need to, though this is ill-advised.
  */
-public final class MutableConfig implements FopFactoryConfig {
+public final class MutableConfig implements FopFactoryConfig, FopFactoryTuning {
 
     private final FopFactoryConfig delegate;
 
@@ -137,6 +138,22 @@ public final class MutableConfig implements FopFactoryConfig {
         return delegate.getHyphenationResourceResolver();
     }
 
+    public Collection<String> getHyphenationPreloadLanguages() {
+        return FopFactory.getTuning(delegate).getHyphenationPreloadLanguages();
+    }
+
+    public int getImagePrefetchThreads() {
+        return FopFactory.getTuning(delegate).getImagePrefetchThreads();
+    }
+
+    public boolean isLineBreakCacheEnabled() {
+        return FopFactory.getTuning(delegate).isLineBreakCacheEnabled();
+    }
+
+    public boolean isStaticContentCacheEnabled() {
+        return FopFactory.getTuning(delegate).isStaticContentCacheEnabled();
+    }
+
     public FallbackResolver getFallbackResolver() {
         return delegate.getFallbackResolver();
     }
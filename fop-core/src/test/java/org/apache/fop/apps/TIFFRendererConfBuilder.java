@@ -21,6 +21,7 @@ package org.apache.fop.apps;
 
 import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.COMPRESSION;
 import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.ENDIANNESS;
+import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.ROWS_PER_STRIP;
 import static org.apache.fop.render.bitmap.TIFFRendererConfig.TIFFRendererOption.SINGLE_STRIP;
 public class TIFFRendererConfBuilder extends BitmapRendererConfBuilder {
 
@@ -38,6 +39,11 @@ public class TIFFRendererConfBuilder extends BitmapRendererConfBuilder {
         return this;
     }
 
+    public TIFFRendererConfBuilder setRowsPerStrip(int rows) {
+        createTextElement(ROWS_PER_STRIP, String.valueOf(rows));
+        return this;
+    }
+
     public TIFFRendererConfBuilder setEndianness(String endianness) {
         createTextElement(ENDIANNESS, endianness);
         return this;
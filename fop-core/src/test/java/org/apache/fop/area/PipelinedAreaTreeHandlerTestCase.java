@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.pagination.PageSequence;
+
+public class PipelinedAreaTreeHandlerTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+            + " page-height=\"100pt\" page-width=\"200pt\">"
+            + "<fo:region-body margin-top=\"20pt\"/><fo:region-before extent=\"20pt\"/>"
+            + "</fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\">"
+            + "<fo:static-content flow-name=\"xsl-region-before\"><fo:block>"
+            + "<fo:retrieve-marker retrieve-class-name=\"title\"/></fo:block></fo:static-content>"
+            + "<fo:flow flow-name=\"xsl-region-body\"><fo:block><fo:marker marker-class-name=\"title\">"
+            + "<fo:inline id=\"marked\">First</fo:inline></fo:marker>"
+            + "See page <fo:page-number-citation ref-id=\"last\"/>.</fo:block></fo:flow></fo:page-sequence>"
+            + "<fo:page-sequence master-reference=\"page\">"
+            + "<fo:static-content flow-name=\"xsl-region-before\"><fo:block>"
+            + "<fo:retrieve-marker retrieve-class-name=\"title\"/></fo:block></fo:static-content>"
+            + "<fo:flow flow-name=\"xsl-region-body\"><fo:block><fo:marker marker-class-name=\"title\">"
+            + "<fo:inline id=\"marked2\">Second</fo:inline></fo:marker>Text</fo:block>"
+            + "<fo:block break-before=\"page\">More</fo:block></fo:flow></fo:page-sequence>"
+            + "<fo:page-sequence master-reference=\"page\" initial-page-number=\"auto-odd\">"
+            + "<fo:flow flow-name=\"xsl-region-body\"><fo:block id=\"last\">Last</fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    private FOUserAgent createUserAgent(int depth) {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        userAgent.setLayoutPipelineDepth(depth);
+        return userAgent;
+    }
+
+    @Test
+    public void testSameAreaTree() throws Exception {
+        String expected = renderAreaTree(createUserAgent(0));
+        assertTrue(expected.contains("First"));
+        assertTrue(expected.contains("Second"));
+        assertEquals(expected, renderAreaTree(createUserAgent(1)));
+        assertEquals(expected, renderAreaTree(createUserAgent(3)));
+    }
+
+    @Test
+    public void testLayoutFailure() throws Exception {
+        final Thread[] layoutThread = new Thread[1];
+        AreaTreeHandler failing = new AreaTreeHandler(createUserAgent(1),
+                MimeConstants.MIME_FOP_AREA_TREE, new ByteArrayOutputStream()) {
+            @Override
+            public void startPageSequence(PageSequence pageSequence) {
+                layoutThread[0] = Thread.currentThread();
+            }
+
+            @Override
+            public void endPageSequence(PageSequence pageSequence) {
+                throw new IllegalStateException("layout failed");
+            }
+        };
+        PipelinedAreaTreeHandler handler = new PipelinedAreaTreeHandler(failing, 1);
+        handler.endPageSequence(mock(PageSequence.class));
+        try {
+            handler.endDocument();
+            fail("The layout failure must be thrown on the parsing thread");
+        } catch (IllegalStateException ise) {
+            assertEquals("layout failed", ise.getMessage());
+        }
+        assertNotSame(Thread.currentThread(), layoutThread[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDepth() throws FOPException {
+        new PipelinedAreaTreeHandler(new AreaTreeHandler(createUserAgent(0),
+                MimeConstants.MIME_FOP_AREA_TREE, new ByteArrayOutputStream()), 0);
+    }
+
+    private String renderAreaTree(FOUserAgent userAgent) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = userAgent.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+}
@@ -34,6 +34,7 @@ import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.events.EventBroadcaster;
 import org.apache.fop.fo.flow.table.ColumnNumberManager;
 import org.apache.fop.fo.flow.table.ColumnNumberManagerHolder;
+import org.apache.fop.image.ImagePrefetcher;
 
 /**
  * A helper class for creating mocks of {@link FONode} and its descendants.
@@ -46,7 +47,8 @@ public final class FONodeMocks {
      * Creates and returns a mock {@link FONode} configured with a mock
      * {@link FOEventHandler}. The FO event handler returns a mock {@link FOUserAgent},
      * which in turn returns a mock {@link org.apache.fop.apps.FopFactory}, which returns a mock
-     * {@link ImageManager}.
+     * {@link ImageManager}. Image information requested through the {@link ImagePrefetcher}
+     * of the user agent is obtained from that image manager.
      *
      * @return a mock FO node
      */
@@ -82,6 +84,8 @@ public final class FONodeMocks {
             when(mockImageManager.getImageInfo(anyString(), any(ImageSessionContext.class)))
                     .thenReturn(null);
             when(mockFOUserAgent.getImageManager()).thenReturn(mockImageManager);
+            when(mockFOUserAgent.getImagePrefetcher()).thenReturn(
+                    new ImagePrefetcher(mockFOUserAgent, null, null));
             return mockImageManager;
         } catch (ImageException e) {
             throw new RuntimeException(e);
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.properties.FixedLength;
+import org.apache.fop.fo.properties.Property;
+
+public class PropertyExpressionCacheTestCase {
+
+    @Test
+    public void testLookupCountsHitsAndMisses() throws PropertyException {
+        PropertyExpressionCache cache = new PropertyExpressionCache();
+        assertNull(cache.get(Constants.PR_FONT_SIZE, "12pt"));
+        Property prop = FixedLength.getInstance(12, "pt");
+        cache.put(Constants.PR_FONT_SIZE, "12pt", prop, tokenize("12pt"));
+        assertSame(prop, cache.get(Constants.PR_FONT_SIZE, "12pt").getProperty());
+        assertNull(cache.get(Constants.PR_LINE_HEIGHT, "12pt"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws PropertyException {
+        PropertyExpressionCache cache = new PropertyExpressionCache(1);
+        cache.put(Constants.PR_FONT_SIZE, "1em", null, tokenize("1em"));
+        cache.put(Constants.PR_FONT_SIZE, "2em", null, tokenize("2em"));
+        assertEquals(1, cache.size());
+        assertNull(cache.get(Constants.PR_FONT_SIZE, "1em"));
+        assertNotNull(cache.get(Constants.PR_FONT_SIZE, "2em"));
+    }
+
+    @Test
+    public void testReplayedTokensMatchScannedTokens() throws PropertyException {
+        String expr = "from-parent(font-size) * 0.8";
+        PropertyTokenizer replayed = new PropertyTokenizer(tokenize(expr));
+        PropertyTokenizer scanned = new PropertyTokenizer(expr);
+        do {
+            scanned.next();
+            replayed.next();
+            assertEquals(scanned.currentToken, replayed.currentToken);
+            assertEquals(scanned.currentTokenValue, replayed.currentTokenValue);
+            assertEquals(scanned.currentUnitLength, replayed.currentUnitLength);
+        } while (scanned.currentToken != PropertyTokenizer.TOK_EOF);
+    }
+
+    private PropertyTokenizer.TokenSequence tokenize(String expr) throws PropertyException {
+        PropertyTokenizer tokenizer = new PropertyTokenizer(expr);
+        tokenizer.recordTokens();
+        do {
+            tokenizer.next();
+        } while (tokenizer.currentToken != PropertyTokenizer.TOK_EOF);
+        return tokenizer.getRecordedTokens();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.Constants;
+
+/**
+ * Checks that expressions whose value depends on the property context are evaluated again
+ * in each context when they are served from the expression cache.
+ */
+public class PropertyParserTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+            + " page-height=\"400pt\" page-width=\"400pt\"><fo:region-body/>"
+            + "</fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block font-size=\"10pt\"><fo:block font-size=\"1.5em\">A</fo:block>"
+            + "<fo:block font-size=\"from-parent(font-size) * 0.8\">B</fo:block></fo:block>"
+            + "<fo:block font-size=\"20pt\"><fo:block font-size=\"1.5em\">C</fo:block>"
+            + "<fo:block font-size=\"from-parent(font-size) * 0.8\">D</fo:block></fo:block>"
+            + "<fo:block-container width=\"200pt\"><fo:block-container width=\"50%\">"
+            + "<fo:block>E</fo:block></fo:block-container></fo:block-container>"
+            + "<fo:block-container width=\"300pt\"><fo:block-container width=\"50%\">"
+            + "<fo:block>F</fo:block></fo:block-container></fo:block-container>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    /** The width of the block holding a line, and the font size of the line's text */
+    private static final Pattern LINE = Pattern.compile(
+            "<block ipd=\"(\\d+)\"[^>]*><lineArea[^>]*><text [^>]*font-size=\"(\\d+)\"");
+
+    @Test
+    public void testContextDependentExpressionsAreEvaluatedInTheirContext() throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = userAgent.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)), new SAXResult(fop.getDefaultHandler()));
+
+        List<String> lines = new ArrayList<String>();
+        Matcher matcher = LINE.matcher(out.toString("UTF-8"));
+        while (matcher.find()) {
+            lines.add(matcher.group(1) + " " + matcher.group(2));
+        }
+        assertEquals(6, lines.size());
+        assertEquals("400000 15000", lines.get(0));
+        assertEquals("400000 8000", lines.get(1));
+        assertEquals("400000 30000", lines.get(2));
+        assertEquals("400000 16000", lines.get(3));
+        assertEquals("100000 12000", lines.get(4));
+        assertEquals("150000 12000", lines.get(5));
+
+        //the expressions were cached, but only as tokens to be evaluated again
+        PropertyExpressionCache cache = userAgent.getPropertyExpressionCache();
+        assertContextDependent(cache.get(Constants.PR_FONT_SIZE, "1.5em"));
+        assertContextDependent(cache.get(Constants.PR_FONT_SIZE, "from-parent(font-size) * 0.8"));
+        assertContextDependent(cache.get(Constants.PR_WIDTH, "50%"));
+        assertNotNull(cache.get(Constants.PR_FONT_SIZE, "10pt").getProperty());
+    }
+
+    private void assertContextDependent(PropertyExpressionCache.Entry entry) {
+        assertNotNull(entry);
+        assertNull(entry.getProperty());
+    }
+}
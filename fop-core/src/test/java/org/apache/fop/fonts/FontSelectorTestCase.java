@@ -28,6 +28,8 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.apache.fop.datatypes.PercentBaseContext;
@@ -74,6 +76,10 @@ public class FontSelectorTestCase {
         when(fontInfo.getFontInstance(eq(EMOJI_FONT_TRIPLET), anyInt())).thenReturn(emojiFont);
         when(latinFont.hasCodePoint(anyInt())).thenAnswer(new LatinFontAnswer());
         when(emojiFont.hasCodePoint(anyInt())).thenAnswer(new EmojiFontAnswer());
+        final GlyphCoverage latinCoverage = new GlyphCoverage(latinFont);
+        final GlyphCoverage emojiCoverage = new GlyphCoverage(emojiFont);
+        when(fontInfo.getGlyphCoverage(latinFont)).thenReturn(latinCoverage);
+        when(fontInfo.getGlyphCoverage(emojiFont)).thenReturn(emojiCoverage);
     }
 
     @Test
@@ -98,6 +104,17 @@ public class FontSelectorTestCase {
         assertEquals(emojiFont, f);
     }
 
+    @Test
+    public void testCodePointsAreLookedUpOnce() throws Exception {
+        String text = "abab\uD83D\uDE48";
+        FontSelector.selectFontForCharactersInText(text, 0, text.length(), foText, context);
+        FontSelector.selectFontForCharactersInText(text, 0, text.length(), foText, context);
+        verify(latinFont, times(1)).hasCodePoint('a');
+        verify(latinFont, times(1)).hasCodePoint('b');
+        verify(latinFont, times(1)).hasCodePoint(0x1F648);
+        verify(emojiFont, times(1)).hasCodePoint('a');
+    }
+
     private static class LatinFontAnswer implements Answer<Boolean> {
 
         @Override
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FontSubsetCacheTestCase {
+
+    private static final URI FONT = URI.create("file:/fonts/font.ttf");
+
+    @Test
+    public void testKeyIgnoresMapOrder() {
+        Map<Integer, Integer> glyphs = new LinkedHashMap<Integer, Integer>();
+        glyphs.put(0, 0);
+        glyphs.put(70, 1);
+        glyphs.put(12, 2);
+        Map<Integer, Integer> sameGlyphs = new HashMap<Integer, Integer>(glyphs);
+        assertEquals(FontSubsetCache.createKey(FONT, null, glyphs),
+                FontSubsetCache.createKey(FONT, null, sameGlyphs));
+        Map<Integer, Integer> otherOrder = new HashMap<Integer, Integer>(glyphs);
+        otherOrder.put(70, 2);
+        otherOrder.put(12, 1);
+        assertFalse(FontSubsetCache.createKey(FONT, null, glyphs).equals(
+                FontSubsetCache.createKey(FONT, null, otherOrder)));
+        assertFalse(FontSubsetCache.createKey(FONT, null, glyphs).equals(
+                FontSubsetCache.createKey(FONT, "EAAAAA+Font", glyphs)));
+    }
+
+    @Test
+    public void testLookup() {
+        FontSubsetCache cache = new FontSubsetCache();
+        Map<Integer, Integer> glyphs = new HashMap<Integer, Integer>();
+        glyphs.put(0, 0);
+        FontSubsetCache.Key key = FontSubsetCache.createKey(FONT, null, glyphs);
+        assertNull(cache.get(key));
+        byte[] data = new byte[] {1, 2, 3};
+        FontSubsetCache.Entry entry = cache.put(key, data);
+        assertSame(entry, cache.get(FontSubsetCache.createKey(FONT, null, glyphs)));
+        assertSame(data, entry.getData());
+        entry.setCompressedData(new byte[] {4, 5});
+        assertEquals(5, cache.getWeight());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        FontSubsetCache cache = new FontSubsetCache(10);
+        FontSubsetCache.Key tooLarge = createKey(0);
+        FontSubsetCache.Entry entry = cache.put(tooLarge, new byte[12]);
+        assertEquals(12, entry.getData().length);
+        assertEquals(0, cache.size());
+        assertNull(cache.get(tooLarge));
+
+        FontSubsetCache.Key first = createKey(1);
+        FontSubsetCache.Key second = createKey(2);
+        cache.put(first, new byte[4]);
+        cache.put(second, new byte[4]);
+        assertEquals(8, cache.getWeight());
+        //the compressed data of the second subset makes room by evicting the first one
+        cache.get(second).setCompressedData(new byte[3]);
+        assertNull(cache.get(first));
+        assertNotNull(cache.get(second));
+        assertEquals(7, cache.getWeight());
+    }
+
+    private static FontSubsetCache.Key createKey(int glyph) {
+        Map<Integer, Integer> glyphs = new HashMap<Integer, Integer>();
+        glyphs.put(glyph, 0);
+        return FontSubsetCache.createKey(FONT, null, glyphs);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.flow.Block;
+import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
+
+public class ImagePrefetcherTestCase {
+
+    private static final String IMAGE = "test/resources/images/bgimg72dpi.png";
+
+    private FOUserAgent createUserAgent(int threads) {
+        FopFactoryBuilder builder = new FopFactoryBuilder(new File(".").toURI());
+        builder.setImagePrefetchThreads(threads);
+        return builder.build().newFOUserAgent();
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        ImagePrefetcher prefetcher = fopFactory.newFOUserAgent().getImagePrefetcher();
+        assertFalse(prefetcher.isEnabled());
+        assertFalse(prefetcher.prefetch(IMAGE));
+        ImageInfo info = prefetcher.getImageInfo(IMAGE);
+        assertEquals("image/png", info.getMimeType());
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        ImagePrefetcher prefetcher = createUserAgent(2).getImagePrefetcher();
+        assertTrue(prefetcher.isEnabled());
+        assertTrue(prefetcher.prefetch(IMAGE));
+        assertTrue(prefetcher.prefetch(IMAGE));
+        ImageInfo info = prefetcher.getImageInfo(IMAGE);
+        assertEquals("image/png", info.getMimeType());
+        assertEquals(IMAGE, info.getOriginalURI());
+        //The second request is served by the image cache
+        assertEquals(info.getSize().getWidthMpt(),
+                prefetcher.getImageInfo(IMAGE).getSize().getWidthMpt());
+    }
+
+    @Test
+    public void testPrefetchError() throws Exception {
+        ImagePrefetcher prefetcher = createUserAgent(1).getImagePrefetcher();
+        String uri = "test/resources/images/does-not-exist.png";
+        assertTrue(prefetcher.prefetch(uri));
+        try {
+            prefetcher.getImageInfo(uri);
+            fail("The error of the background task must be rethrown");
+        } catch (FileNotFoundException fnfe) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testDocumentWithPrefetching() throws Exception {
+        String fo = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\">"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+                + "<fo:block background-image=\"" + IMAGE + "\">"
+                + "<fo:external-graphic src=\"" + IMAGE + "\"/>"
+                + "<fo:external-graphic src=\"test/resources/images/box1.png\"/>"
+                + "</fo:block></fo:flow></fo:page-sequence></fo:root>";
+        String expected = renderAreaTree(fo, 0);
+        assertTrue(expected.contains("box1.png"));
+        assertEquals(expected, renderAreaTree(fo, 2));
+    }
+
+    @Test
+    public void testPendingBackgroundIsNotShared() throws Exception {
+        String fo = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\">"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+                + "<fo:block background-image=\"" + IMAGE + "\">A</fo:block>"
+                + "<fo:block background-image=\"" + IMAGE + "\">B</fo:block>"
+                + "</fo:flow></fo:page-sequence></fo:root>";
+        List<CommonBorderPaddingBackground> backgrounds = parseBackgrounds(fo, 0);
+        assertSame(backgrounds.get(0), backgrounds.get(1));
+        //instances completed on first use hold their FO, so they must not be cached for others
+        backgrounds = parseBackgrounds(fo, 2);
+        assertEquals(2, backgrounds.size());
+        assertNotSame(backgrounds.get(0), backgrounds.get(1));
+        for (CommonBorderPaddingBackground background : backgrounds) {
+            assertEquals("image/png", background.getImageInfo().getMimeType());
+        }
+    }
+
+    private List<CommonBorderPaddingBackground> parseBackgrounds(String fo, int threads)
+            throws Exception {
+        final List<CommonBorderPaddingBackground> backgrounds
+                = new ArrayList<CommonBorderPaddingBackground>();
+        FOUserAgent userAgent = createUserAgent(threads);
+        userAgent.setFOEventHandlerOverride(new FOEventHandler(userAgent) {
+            public void endBlock(Block bl) {
+                backgrounds.add(bl.getCommonBorderPaddingBackground());
+            }
+        });
+        Fop fop = userAgent.newFop(MimeConstants.MIME_FOP_AREA_TREE, new ByteArrayOutputStream());
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        return backgrounds;
+    }
+
+    private String renderAreaTree(String fo, int threads) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = createUserAgent(threads).newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+}
@@ -27,6 +27,9 @@ import org.junit.runners.Suite.SuiteClasses;
  * JUnit test suite for the intermediate format
  */
 @RunWith(Suite.class)
-@SuiteClasses(IFParserTestCase.class)
+@SuiteClasses({
+    IFParserTestCase.class,
+    IFBinaryParserTestCase.class
+})
 public final class LayoutIFTestSuite {
 }
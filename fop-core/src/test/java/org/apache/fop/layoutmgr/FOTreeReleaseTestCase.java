@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FONode.FONodeIterator;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.pagination.Flow;
+import org.apache.fop.fo.pagination.PageSequence;
+
+public class FOTreeReleaseTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+            + " page-height=\"100pt\" page-width=\"200pt\">"
+            + "<fo:region-body margin-top=\"20pt\"/><fo:region-before extent=\"20pt\"/>"
+            + "</fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\">"
+            + "<fo:static-content flow-name=\"xsl-region-before\"><fo:block>"
+            + "<fo:retrieve-marker retrieve-class-name=\"title\"/></fo:block></fo:static-content>"
+            + "<fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block id=\"first\"><fo:marker marker-class-name=\"title\">Alpha</fo:marker>One</fo:block>"
+            + "<fo:block break-before=\"page\"><fo:marker marker-class-name=\"title\">Beta</fo:marker>"
+            + "Two</fo:block>"
+            + "<fo:block break-before=\"page\"><fo:marker marker-class-name=\"title\">Gamma</fo:marker>"
+            + "<fo:block>Three</fo:block><fo:block break-before=\"page\">Four</fo:block>"
+            + "<fo:block>See page <fo:page-number-citation ref-id=\"first\"/></fo:block></fo:block>"
+            + "<fo:block id=\"last\" break-before=\"page\">Five</fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    private static final Pattern PAGE = Pattern.compile("<pageViewport .*?</pageViewport>", Pattern.DOTALL);
+
+    private static final Pattern WORD = Pattern.compile("<word[^>]*>([^<]*)</word>");
+
+    @Test
+    public void testFinishedContentReleased() throws Exception {
+        List<Flow> flows = new ArrayList<Flow>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        render(FO, flows, out);
+
+        //Only the block laid out on the last page is still attached to the flow
+        List<FONode> children = getChildNodes(flows.get(0));
+        assertEquals(1, children.size());
+        assertEquals("last", ((FObj) children.get(0)).getId());
+
+        //Markers and page number citations still work on the pages of the released content
+        List<String> pages = new ArrayList<String>();
+        Matcher matcher = PAGE.matcher(out.toString("UTF-8"));
+        while (matcher.find()) {
+            pages.add(getWords(matcher.group()));
+        }
+        assertEquals(5, pages.size());
+        assertEquals("Alpha One", pages.get(0));
+        assertEquals("Beta Two", pages.get(1));
+        assertEquals("Gamma Three", pages.get(2));
+        assertEquals("Gamma Four See page 1", pages.get(3));
+        assertEquals("Gamma Five", pages.get(4));
+    }
+
+    @Test
+    public void testNothingReleasedWithinPart() throws Exception {
+        StringBuilder fo = new StringBuilder("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"100pt\" page-width=\"200pt\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < 30; i++) {
+            fo.append("<fo:block>Block ").append(i).append("</fo:block>");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+        List<Flow> flows = new ArrayList<Flow>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        render(fo.toString(), flows, out);
+
+        //Without forced breaks the whole flow is one part, so its content is kept until the end
+        Matcher matcher = PAGE.matcher(out.toString("UTF-8"));
+        int pageCount = 0;
+        while (matcher.find()) {
+            pageCount++;
+        }
+        assertTrue(pageCount > 1);
+        assertEquals(30, getChildNodes(flows.get(0)).size());
+    }
+
+    private void render(String fo, final List<Flow> flows, ByteArrayOutputStream out) throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        userAgent.setFOEventHandlerOverride(new AreaTreeHandler(userAgent, MimeConstants.MIME_FOP_AREA_TREE, out) {
+            @Override
+            public void endPageSequence(PageSequence pageSequence) {
+                flows.add(pageSequence.getMainFlow());
+                super.endPageSequence(pageSequence);
+            }
+        });
+        Fop fop = userAgent.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)), new SAXResult(fop.getDefaultHandler()));
+    }
+
+    private List<FONode> getChildNodes(FONode node) {
+        List<FONode> children = new ArrayList<FONode>();
+        FONodeIterator iter = node.getChildNodes();
+        while (iter != null && iter.hasNext()) {
+            children.add(iter.next());
+        }
+        return children;
+    }
+
+    private String getWords(String areaTree) {
+        StringBuilder sb = new StringBuilder();
+        Matcher matcher = WORD.matcher(areaTree);
+        while (matcher.find()) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(matcher.group(1));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.Area;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.render.txt.TXTRenderer;
+
+/**
+ * Checks that reusing laid out side regions doesn't change the output.
+ */
+public class StaticContentLayoutCacheTestCase {
+
+    private static final String FO;
+
+    static {
+        StringBuilder fo = new StringBuilder("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"200pt\" page-width=\"300pt\">"
+                + "<fo:region-body margin-top=\"40pt\" margin-bottom=\"40pt\"/>"
+                + "<fo:region-before extent=\"40pt\"/><fo:region-after extent=\"40pt\"/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\" initial-page-number=\"7\">"
+                + "<fo:static-content flow-name=\"xsl-region-before\">"
+                + "<fo:block color=\"red\" background-color=\"#E0E0FF\" border-bottom=\"1pt solid blue\">"
+                + "Chapter <fo:retrieve-marker retrieve-class-name=\"chapter\"/></fo:block>"
+                + "<fo:block/></fo:static-content>"
+                + "<fo:static-content flow-name=\"xsl-region-after\">"
+                + "<fo:block text-align=\"end\" color=\"green\">Page <fo:page-number/></fo:block>"
+                + "</fo:static-content><fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < 12; i++) {
+            fo.append("<fo:block break-before=\"page\">");
+            if (i % 5 == 0) {
+                fo.append("<fo:marker marker-class-name=\"chapter\">" + (i / 5 + 1) + "</fo:marker>");
+            }
+            fo.append("Text on page " + i + "</fo:block>");
+        }
+        FO = fo.append("</fo:flow></fo:page-sequence></fo:root>").toString();
+    }
+
+    @Test
+    public void testSameAFPOutput() throws Exception {
+        assertSameOutput(MimeConstants.MIME_AFP);
+    }
+
+    @Test
+    public void testSamePDFOutput() throws Exception {
+        String uncached = new String(render(MimeConstants.MIME_PDF, false), "ISO-8859-1");
+        String cached = new String(render(MimeConstants.MIME_PDF, true), "ISO-8859-1");
+        //The metadata date is the current time, and the file ID is derived from it
+        assertEquals(maskTimestamps(uncached), maskTimestamps(cached));
+    }
+
+    @Test
+    public void testSameAreaTree() throws Exception {
+        assertSameOutput(MimeConstants.MIME_FOP_AREA_TREE);
+    }
+
+    @Test
+    public void testEachPageGetsItsOwnAreas() throws Exception {
+        final List<Area> blocks = new ArrayList<Area>();
+        FOUserAgent userAgent = createUserAgent(true);
+        userAgent.setRendererOverride(new TXTRenderer(userAgent) {
+            public void renderPage(PageViewport page) throws IOException, FOPException {
+                for (int region : new int[] {Constants.FO_REGION_BEFORE, Constants.FO_REGION_AFTER}) {
+                    blocks.addAll(page.getPage().getRegionViewport(region).getRegionReference().getBlocks());
+                }
+                super.renderPage(page);
+            }
+        });
+        render(userAgent, MimeConstants.MIME_PLAIN_TEXT);
+        //three blocks on each of the twelve pages, none of them shared with another page
+        assertEquals(36, blocks.size());
+        Set<Area> distinct = Collections.newSetFromMap(new IdentityHashMap<Area, Boolean>());
+        distinct.addAll(blocks);
+        assertEquals(blocks.size(), distinct.size());
+    }
+
+    private void assertSameOutput(String mime) throws Exception {
+        byte[] uncached = render(mime, false);
+        byte[] cached = render(mime, true);
+        assertFalse(uncached.length == 0);
+        assertArrayEquals(uncached, cached);
+    }
+
+    private String maskTimestamps(String pdf) {
+        return pdf.replaceAll("<xmp:MetadataDate>[^<]*</xmp:MetadataDate>", "")
+                .replaceAll("/ID \\[[^\\]]*\\]", "");
+    }
+
+    private byte[] render(String mime, boolean cache) throws Exception {
+        return render(createUserAgent(cache), mime);
+    }
+
+    private FOUserAgent createUserAgent(boolean cache) {
+        FopFactoryBuilder builder = new FopFactoryBuilder(new File(".").toURI());
+        builder.setStaticContentCacheEnabled(cache);
+        FOUserAgent userAgent = builder.build().newFOUserAgent();
+        userAgent.setCreationDate(new Date(0));
+        return userAgent;
+    }
+
+    private byte[] render(FOUserAgent userAgent, String mime) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = userAgent.newFop(mime, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.layoutmgr.KnuthBox;
+import org.apache.fop.layoutmgr.KnuthElement;
+import org.apache.fop.layoutmgr.KnuthGlue;
+import org.apache.fop.layoutmgr.KnuthPenalty;
+
+public class LineBreakCacheTestCase {
+
+    private static final int[] PARAMS = {1, 2, 3};
+
+    private List<KnuthElement> createParagraph(int wordWidth) {
+        List<KnuthElement> par = new ArrayList<KnuthElement>();
+        for (int i = 0; i < 10; i++) {
+            par.add(new KnuthBox(wordWidth, null, false));
+            par.add(new KnuthGlue(3000, 1500, 1000, null, false));
+        }
+        par.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        return par;
+    }
+
+    private LineBreakCache.Result createResult() {
+        LineBreakCache.Result result = new LineBreakCache.Result(1, new int[4], 0, 20);
+        result.setPossibility(0, 1, 100.0);
+        result.setBreak(0, 0, new int[] {0, 20, 0, 0, 1000, 0, 0}, 0.5);
+        return result;
+    }
+
+    @Test
+    public void testIdenticalParagraphsShareResult() {
+        LineBreakCache cache = new LineBreakCache();
+        LineBreakCache.Key key = cache.createKey(createParagraph(10000), PARAMS);
+        assertNull(cache.get(key));
+        LineBreakCache.Result result = createResult();
+        cache.put(key, result);
+        assertSame(result, cache.get(cache.createKey(createParagraph(10000), PARAMS)));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testDifferentWidthsOrParametersDontShareResult() {
+        LineBreakCache cache = new LineBreakCache();
+        cache.put(cache.createKey(createParagraph(10000), PARAMS), createResult());
+        assertNull(cache.get(cache.createKey(createParagraph(10001), PARAMS)));
+        assertNull(cache.get(cache.createKey(createParagraph(10000), new int[] {1, 2, 4})));
+        List<KnuthElement> par = createParagraph(10000);
+        par.set(19, new KnuthGlue(3000, 1500, 999, null, false));
+        assertNull(cache.get(cache.createKey(par, PARAMS)));
+        par = createParagraph(10000);
+        par.set(19, new KnuthPenalty(3000, 50, true, null, false));
+        assertNull(cache.get(cache.createKey(par, PARAMS)));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        LineBreakCache cache = new LineBreakCache(100, 1);
+        LineBreakCache.Key key = cache.createKey(createParagraph(10000), PARAMS);
+        assertNotNull(key);
+        cache.put(key, createResult());
+        LineBreakCache.Key otherKey = cache.createKey(createParagraph(20000), PARAMS);
+        LineBreakCache.Result otherResult = createResult();
+        cache.put(otherKey, otherResult);
+        assertEquals(1, cache.size());
+        assertNull(cache.get(key));
+        assertSame(otherResult, cache.get(otherKey));
+        List<KnuthElement> par = createParagraph(10000);
+        par.addAll(createParagraph(10000));
+        assertNull(cache.createKey(par, PARAMS));
+    }
+}
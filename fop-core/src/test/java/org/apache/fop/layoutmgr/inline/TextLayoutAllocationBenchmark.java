@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.io.File;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Debug tool measuring the memory allocated and the time taken to lay out a text-only
+ * document of about 100 pages, written as an area tree to a null stream. The allocated bytes
+ * are only reported on JVMs that provide per-thread allocation counters.
+ */
+public final class TextLayoutAllocationBenchmark {
+
+    private static final int PARAGRAPHS = 750;
+
+    private static final String[] WORDS = {
+        "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+        "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua",
+        "enim", "ad", "minim", "veniam", "quis", "nostrud", "exercitation", "ullamco", "laboris",
+        "nisi", "aliquip", "ex", "ea", "commodo", "consequat"};
+
+    private TextLayoutAllocationBenchmark() {
+    }
+
+    private static String createDocument() {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"A4\""
+                + " page-height=\"29.7cm\" page-width=\"21cm\" margin=\"2cm\">"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"A4\"><fo:flow flow-name=\"xsl-region-body\">");
+        int word = 0;
+        for (int i = 0; i < PARAGRAPHS; i++) {
+            fo.append("<fo:block text-align=\"justify\" space-after=\"6pt\">");
+            for (int j = 0; j < 80; j++) {
+                fo.append(WORDS[word++ % WORDS.length]).append(j % 13 == 12 ? ". " : " ");
+                //Vary the sequence of the words
+                word += j % 3;
+            }
+            fo.append("</fo:block>");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+        return fo.toString();
+    }
+
+    private static int layout(FopFactory fopFactory, String fo) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, new NullOutputStream());
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)), new SAXResult(fop.getDefaultHandler()));
+        return fop.getResults().getPageCount();
+    }
+
+    private static long getAllocatedBytes(ThreadMXBean threadBean) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of runs (default: 10)
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        String fo = createDocument();
+        //Warm-up
+        int pages = layout(fopFactory, fo);
+        layout(fopFactory, fo);
+        long allocated = 0;
+        long time = 0;
+        for (int run = 0; run < runs; run++) {
+            long bytesBefore = getAllocatedBytes(threadBean);
+            long start = System.nanoTime();
+            layout(fopFactory, fo);
+            time += System.nanoTime() - start;
+            allocated += getAllocatedBytes(threadBean) - bytesBefore;
+        }
+        System.out.println(pages + " pages, " + (time / runs / 1000000.0) + " ms per run");
+        if (getAllocatedBytes(threadBean) >= 0) {
+            System.out.println((allocated / runs / 1024 / 1024) + " MB allocated per run, "
+                    + (allocated / runs / pages / 1024) + " KB per page");
+        } else {
+            System.out.println("Allocated bytes are not available on this JVM");
+        }
+    }
+}
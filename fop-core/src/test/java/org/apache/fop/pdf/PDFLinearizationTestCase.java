@@ -94,6 +94,74 @@ public class PDFLinearizationTestCase {
         Assert.assertTrue(out.toString().contains("/Subtype /Image"));
     }
 
+    @Test
+    public void testSpooledPDF() throws Exception {
+        String fopxconf = "<fop version=\"1.0\"><renderers>"
+                + "<renderer mime=\"application/pdf\">"
+                + "<linearization>true</linearization>"
+                + "<linearization-spooling>true</linearization-spooling>"
+                + "</renderer></renderers></fop>";
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI(),
+                new ByteArrayInputStream(fopxconf.getBytes()));
+        FOUserAgent foUserAgent = fopFactory.newFOUserAgent();
+        IFContext ifContext = new IFContext(foUserAgent);
+        PDFDocumentHandler documentHandler = new PDFDocumentHandler(ifContext);
+        documentHandler.getConfigurator().configure(documentHandler);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        documentHandler.setFontInfo(new FontInfo());
+        documentHandler.setResult(new StreamResult(out));
+        documentHandler.startDocument();
+        for (int i = 0; i < 3; i++) {
+            documentHandler.startPage(i, "", "", new Dimension());
+            PDFPainter pdfPainter = new PDFPainter(documentHandler, null);
+            pdfPainter.drawImage("test/resources/fop/svg/logo.jpg", new Rectangle());
+            documentHandler.endPage();
+        }
+        //The pages are written as they are finished
+        Assert.assertEquals(0, out.size());
+        documentHandler.endDocument();
+        byte[] data = out.toByteArray();
+
+        String firstObj = getFirstObj(data);
+        Assert.assertTrue(firstObj.startsWith("<<  /Linearized 1  /L " + data.length));
+        Assert.assertEquals(3, getValue("/N", firstObj));
+        checkFirstObj(data);
+        checkTrailer(data);
+        Map<String, StringBuilder> objs = readObjs(new ByteArrayInputStream(data));
+        int pageObjNumber = getValue("/O", firstObj);
+        Assert.assertTrue(objs.get(pageObjNumber + " 0 obj").toString().contains("/Type /Page"));
+        //The image shared by the pages belongs to the first page section, numbered after its page
+        for (Map.Entry<String, StringBuilder> obj : objs.entrySet()) {
+            if (obj.getValue().toString().contains("/Subtype /Image")) {
+                Assert.assertTrue(Integer.parseInt(obj.getKey().split(" ")[0]) > pageObjNumber);
+            }
+        }
+        Assert.assertEquals(objs.size(), checkCrossReferences(data));
+    }
+
+    private int checkCrossReferences(byte[] data) throws IOException {
+        String pdf = new String(data, "ISO-8859-1");
+        int count = 0;
+        int xref = pdf.indexOf("\nxref\n");
+        while (xref >= 0) {
+            int sectionStart = xref + "\nxref\n".length();
+            int entriesStart = pdf.indexOf('\n', sectionStart) + 1;
+            String[] section = pdf.substring(sectionStart, entriesStart - 1).split(" ");
+            int first = Integer.parseInt(section[0]);
+            int entries = Integer.parseInt(section[1]);
+            for (int i = 0; i < entries; i++) {
+                String entry = pdf.substring(entriesStart + 20 * i, entriesStart + 20 * (i + 1));
+                if (entry.endsWith(" n \n")) {
+                    int offset = Integer.parseInt(entry.substring(0, 10));
+                    Assert.assertTrue(pdf.startsWith((first + i) + " 0 obj\n", offset));
+                    count++;
+                }
+            }
+            xref = pdf.indexOf("\nxref\n", entriesStart);
+        }
+        return count;
+    }
+
     private void checkPDF(byte[] data) throws IOException {
         checkHintTable(data);
         InputStream is = new ByteArrayInputStream(data);
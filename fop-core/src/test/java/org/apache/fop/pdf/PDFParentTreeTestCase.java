@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -91,6 +92,22 @@ public class PDFParentTreeTestCase {
         }
     }
 
+    /**
+     * Ensures that only the nums arrays that can't receive any more items are released, and
+     * that they are replaced by references in the kids array.
+     * @throws Exception
+     */
+    @Test
+    public void testReleaseKids() throws Exception {
+        assertEquals(getArrayNumber(120), 3);
+        parentTree.releaseKids(99);
+        assertTrue(parentTree.getKids().get(0) instanceof PDFReference);
+        assertFalse(parentTree.getKids().get(1) instanceof PDFReference);
+        parentTree.releaseKids(120);
+        assertTrue(parentTree.getKids().get(1) instanceof PDFReference);
+        assertTrue(parentTree.getKids().get(2) instanceof PDFNumberTreeNode);
+    }
+
     /**
      * Gets the number of arrays created for a given number of elements
      * @param elementNumber The number of elements to be added to the nums array
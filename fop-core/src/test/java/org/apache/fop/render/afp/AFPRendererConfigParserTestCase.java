@@ -85,6 +85,14 @@ public class AFPRendererConfigParserTestCase
         }
     }
 
+    @Test
+    public void testResourceGroupSpooling() throws Exception {
+        parseConfig(createRenderer());
+        assertNull(conf.isResourceGroupSpooling());
+        parseConfig(createRenderer().setResourceGroupSpooling(true));
+        assertEquals(true, conf.isResourceGroupSpooling());
+    }
+
     @Test
     public void testResourceLevelDefaults() throws Exception {
         parseConfig(createRenderer());
@@ -149,6 +149,12 @@ public class AFPRendererConfiguratorTestCase extends
         verify(getDocHandler()).setDefaultResourceGroupUri(uri);
     }
 
+    @Test
+    public void testResourceGroupSpooling() throws Exception {
+        parseConfig(createBuilder().setResourceGroupSpooling(true));
+        verify(getDocHandler()).setResourceGroupSpooling(true);
+    }
+
     @Test
     public void testResourceLevelDefaults() throws Exception {
         testResourceLevelDefault(ResourceType.DOCUMENT);
@@ -122,4 +122,19 @@ public class AbstractBitmapRendererConfigParserTester
         parseConfig(createRenderer());
         assertEquals(BufferedImage.TYPE_INT_ARGB, (int) conf.getColorMode());
     }
+
+    @Test
+    public void testPipelinedEncoding() throws Exception {
+        parseConfig(createRenderer().setPipelinedEncoding(true)
+                .setRasterMemoryLimit(256)
+                .setEncodingThreads(4));
+        assertTrue(conf.isPipelinedEncoding());
+        assertEquals(256, (int) conf.getRasterMemoryLimit());
+        assertEquals(4, (int) conf.getEncodingThreads());
+
+        parseConfig(createRenderer());
+        assertFalse(conf.isPipelinedEncoding());
+        assertEquals(0, (int) conf.getRasterMemoryLimit());
+        assertEquals(1, (int) conf.getEncodingThreads());
+    }
 }
@@ -117,4 +117,14 @@ public abstract class AbstractBitmapRendererConfiguratorTest extends
         parseConfig(createBuilder());
         assertEquals(BufferedImage.TYPE_INT_ARGB, settings.getBufferedImageType());
     }
+
+    @Test
+    public void testPipelinedEncoding() throws Exception {
+        parseConfig(createBuilder().setPipelinedEncoding(true)
+                .setRasterMemoryLimit(256)
+                .setEncodingThreads(4));
+        assertTrue(settings.isPipelinedEncodingEnabled());
+        assertEquals(256L * 1024 * 1024, settings.getRasterMemoryLimit());
+        assertEquals(4, settings.getEncodingThreads());
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.intermediate.IFContext;
+
+/**
+ * Checks that encoding pages on several threads writes the same pages as encoding them
+ * one after the other.
+ */
+public class EncodingThreadsTestCase {
+
+    private static final int PAGE_COUNT = 8;
+
+    private static final String FO;
+
+    static {
+        StringBuilder fo = new StringBuilder("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"200pt\" page-width=\"200pt\"><fo:region-body margin=\"20pt\"/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 1; i <= PAGE_COUNT; i++) {
+            fo.append("<fo:block break-before=\"page\" font-size=\"" + (8 + 4 * i) + "pt\">Page " + i
+                    + "</fo:block>");
+        }
+        FO = fo.append("</fo:flow></fo:page-sequence></fo:root>").toString();
+    }
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("fop-encoding-threads", "");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testSamePagesWithSeveralThreads() throws Exception {
+        List<byte[]> expected = render("single", 1, false, 0);
+        assertEquals(PAGE_COUNT, expected.size());
+        assertSamePages(expected, render("pipelined", 1, true, 0));
+        assertSamePages(expected, render("threads", 4, false, 0));
+        //a limit below two rasters lets at most one page wait for encoding
+        assertSamePages(expected, render("limited", 4, false, 300 * 1024));
+    }
+
+    @Test
+    public void testEncoderErrorIsRethrown() throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        PNGDocumentHandler handler = new PNGDocumentHandler(new IFContext(userAgent));
+        handler.getSettings().setPipelinedEncoding(true);
+        final OutOfMemoryError error = new OutOfMemoryError();
+        handler.setResult(new StreamResult(new OutputStream() {
+            public void write(int b) {
+                throw error;
+            }
+        }));
+        handler.setFontInfo(new FontInfo());
+        handler.startDocument();
+        handler.startPage(0, "", "", new Dimension(20000, 20000));
+        handler.startPageContent();
+        handler.endPageContent();
+        handler.endPage();
+        try {
+            handler.endDocument();
+            fail("The error of the encoder thread must be rethrown");
+        } catch (OutOfMemoryError e) {
+            assertSame(error, e);
+        }
+    }
+
+    private void assertSamePages(List<byte[]> expected, List<byte[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals("page " + (i + 1), expected.get(i), actual.get(i));
+        }
+    }
+
+    private List<byte[]> render(String name, int threads, boolean pipelined, long memoryLimit)
+            throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        File outputFile = new File(dir, name + ".png");
+        userAgent.setOutputFile(outputFile);
+        PNGDocumentHandler handler = new PNGDocumentHandler(new IFContext(userAgent));
+        handler.getSettings().setEncodingThreads(threads);
+        handler.getSettings().setPipelinedEncoding(pipelined);
+        handler.getSettings().setRasterMemoryLimit(memoryLimit);
+        userAgent.setDocumentHandlerOverride(handler);
+        OutputStream out = new FileOutputStream(outputFile);
+        try {
+            Fop fop = userAgent.newFop(MimeConstants.MIME_PNG, out);
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.transform(new StreamSource(new StringReader(FO)),
+                    new SAXResult(fop.getDefaultHandler()));
+        } finally {
+            out.close();
+        }
+        List<byte[]> pages = new ArrayList<byte[]>();
+        pages.add(FileUtils.readFileToByteArray(outputFile));
+        for (int i = 2; i <= PAGE_COUNT + 1; i++) {
+            File page = new File(dir, name + i + ".png");
+            if (page.exists()) {
+                pages.add(FileUtils.readFileToByteArray(page));
+            }
+        }
+        for (byte[] page : pages) {
+            assertFalse(page.length == 0);
+        }
+        return pages;
+    }
+}
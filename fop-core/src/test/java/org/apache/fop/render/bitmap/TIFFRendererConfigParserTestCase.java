@@ -65,6 +65,14 @@ extends AbstractBitmapRendererConfigParserTester {
         assertFalse(getConfig().isSingleStrip());
     }
 
+    @Test
+    public void testRowsPerStrip() throws Exception {
+        parseConfig(createRenderer().setRowsPerStrip(64));
+        assertEquals(64, (int) getConfig().getRowsPerStrip());
+        parseConfig(createRenderer());
+        assertEquals(1, (int) getConfig().getRowsPerStrip());
+    }
+
     @Test
     public void testEndianness() throws Exception {
         for (Endianness value : Endianness.values()) {
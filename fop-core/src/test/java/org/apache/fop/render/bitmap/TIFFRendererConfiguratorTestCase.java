@@ -74,6 +74,14 @@ public class TIFFRendererConfiguratorTestCase extends AbstractBitmapRendererConf
         assertFalse(settings.getWriterParams().isSingleStrip());
     }
 
+    @Test
+    public void testRowsPerStrip() throws Exception {
+        parseConfig(createBuilder().setRowsPerStrip(64));
+        assertEquals(64, settings.getWriterParams().getRowsPerStrip());
+        parseConfig(createBuilder().setRowsPerStrip(64).setSingleStrip(true));
+        assertTrue(settings.getWriterParams().isSingleStrip());
+    }
+
     @Test
     public void testEndianness() throws Exception {
         for (Endianness value : Endianness.values()) {
@@ -21,6 +21,7 @@ package org.apache.fop.render.java2d;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -50,4 +51,13 @@ public class Java2DRendererConfigParserTestcase
         parseConfig(createRenderer());
         assertNull(conf.isPageBackgroundTransparent());
     }
+
+    @Test
+    public void testMaxPagesInMemory() throws Exception {
+        parseConfig(createRenderer().setMaxPagesInMemory(5));
+        assertEquals(Integer.valueOf(5), conf.getMaxPagesInMemory());
+
+        parseConfig(createRenderer());
+        assertNull(conf.getMaxPagesInMemory());
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.java2d;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.area.Page;
+import org.apache.fop.area.PageViewport;
+
+public class PageViewportStoreTestCase {
+
+    private static PageViewport createPageViewport(int pageNumber) {
+        PageViewport pageViewport = new PageViewport(new Rectangle(0, 0, 595000, 842000),
+                pageNumber, String.valueOf(pageNumber), "simple", false);
+        pageViewport.setPage(new Page());
+        return pageViewport;
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        PageViewportStore store = new PageViewportStore(2);
+        try {
+            PageViewport[] pages = new PageViewport[3];
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = createPageViewport(i + 1);
+                store.store(pages[i]);
+                assertNull(pages[i].getPage());
+            }
+            assertEquals(0, store.getLoadedPageCount());
+
+            Page page = store.load(pages[0]);
+            assertNotNull(page);
+            assertSame(page, pages[0].getPage());
+            assertSame(page, store.load(pages[0]));
+            store.load(pages[1]);
+            assertEquals(2, store.getLoadedPageCount());
+
+            //loading a third page releases the least recently used one
+            assertNotNull(store.load(pages[2]));
+            assertEquals(2, store.getLoadedPageCount());
+            assertNull(pages[0].getPage());
+            assertNotNull(pages[1].getPage());
+            assertNotNull(store.load(pages[0]));
+            assertNull(pages[1].getPage());
+        } finally {
+            store.clear();
+        }
+    }
+
+    @Test
+    public void testPageNotInStore() throws IOException {
+        PageViewportStore store = new PageViewportStore(1);
+        PageViewport pageViewport = createPageViewport(1);
+        Page page = pageViewport.getPage();
+        assertSame(page, store.load(pageViewport));
+        assertEquals(0, store.getLoadedPageCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() {
+        new PageViewportStore(0);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pcl;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Debug tool comparing output size and encoding time of the PCL raster compression
+ * methods for a 300 dpi A4 monochrome page with text and rules.
+ */
+public final class PCLRasterCompressionBenchmark {
+
+    private static final int WIDTH = 2480;
+    private static final int HEIGHT = 3508;
+
+    private static final int[] MODES = {0x01, 0x03, 0x07, 0x0F};
+    private static final String[] MODE_NAMES = {
+        "0 (unencoded)", "0-1 (run-length)", "0-2 (+ TIFF)", "0-3 (+ delta row)"};
+
+    private PCLRasterCompressionBenchmark() {
+    }
+
+    private static BufferedImage createPage() {
+        BufferedImage img = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g2d = img.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, WIDTH, HEIGHT);
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(new Font("Serif", Font.PLAIN, 42));
+        for (int y = 300; y < HEIGHT - 300; y += 60) {
+            g2d.drawString("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod"
+                    + " tempor incididunt ut labore.", 250, y);
+            if (y % 600 == 0) {
+                g2d.fillRect(250, y + 10, WIDTH - 500, 4);
+            }
+        }
+        g2d.dispose();
+        return img;
+    }
+
+    private static long encode(BufferedImage img, int modes, CountingOutputStream out)
+            throws IOException {
+        PCLGenerator gen = new PCLGenerator(out);
+        gen.setRasterCompressionModes(modes);
+        long start = System.nanoTime();
+        gen.paintMonochromeBitmap(img, 300);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Main method.
+     * @param args the command-line arguments: the number of runs per method (default: 20)
+     * @throws IOException if an I/O error occurs
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+        BufferedImage img = createPage();
+        for (int i = 0; i < MODES.length; i++) {
+            //Warm-up
+            encode(img, MODES[i], new CountingOutputStream(new NullOutputStream()));
+            long total = 0;
+            long size = 0;
+            for (int run = 0; run < runs; run++) {
+                CountingOutputStream out = new CountingOutputStream(new NullOutputStream());
+                total += encode(img, MODES[i], out);
+                size = out.getByteCount();
+            }
+            System.out.println("Methods " + MODE_NAMES[i] + ": " + size + " bytes, "
+                    + (total / runs / 1000000.0) + " ms per page");
+        }
+    }
+}
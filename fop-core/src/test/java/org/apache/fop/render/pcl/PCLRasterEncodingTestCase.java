@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pcl;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Decodes the raster rows written by {@link PCLGenerator#paintMonochromeBitmap} and compares
+ * them with the source bitmap, for every set of compression methods.
+ */
+public class PCLRasterEncodingTestCase {
+
+    private static final int BYTE_WIDTH = 320;
+
+    private final byte[][] rows = createRows();
+
+    /** The compression methods used for the rows, by method */
+    private final int[] methodCounts = new int[4];
+
+    private static byte[][] createRows() {
+        Random random = new Random(1234);
+        byte[][] rows = new byte[9][BYTE_WIDTH];
+        //a literal run longer than 128 bytes followed by a repeated byte
+        for (int i = 0; i < 200; i++) {
+            rows[0][i] = (byte) (random.nextInt(255) + 1);
+        }
+        Arrays.fill(rows[0], 200, BYTE_WIDTH, (byte) 0x55);
+        //a few differences to the seed row, some more than 31 bytes apart, some longer than 8 bytes
+        rows[1] = rows[0].clone();
+        rows[1][5] ^= 0x01;
+        for (int i = 40; i < 52; i++) {
+            rows[1][i] ^= 0x10;
+        }
+        rows[1][300] = 0x00;
+        rows[1][BYTE_WIDTH - 1] = (byte) 0xF0;
+        //rows[2] is blank, which clears the seed row, so rows[3] can't be encoded against rows[1]
+        rows[3] = rows[1].clone();
+        rows[3][0] ^= 0x01;
+        //a repeated byte longer than 128 bytes
+        Arrays.fill(rows[4], 0, 300, (byte) 0xFF);
+        Arrays.fill(rows[4], 300, BYTE_WIDTH, (byte) 0x0F);
+        rows[5] = rows[4].clone();
+        rows[5][310] = 0x00;
+        //shorter than the seed row, so trailing bytes of the seed must be cleared
+        Arrays.fill(rows[6], 0, 10, (byte) 0x80);
+        //exactly 128 literal bytes followed by 128 repeated bytes, then exactly 129 literal bytes
+        for (int i = 0; i < 128; i++) {
+            rows[7][i] = (byte) (i % 2 == 0 ? 0x12 : 0x34);
+            rows[8][i] = (byte) (i % 2 == 0 ? 0x56 : 0x78);
+        }
+        Arrays.fill(rows[7], 128, 256, (byte) 0x3C);
+        rows[8][128] = 0x01;
+        return rows;
+    }
+
+    @Test
+    public void testAllMethods() throws IOException {
+        assertDecodedRowsMatch(0xF);
+        assertTrue(methodCounts[3] > 0);
+    }
+
+    @Test
+    public void testRunLength() throws IOException {
+        assertDecodedRowsMatch(1 << 1);
+        assertTrue(methodCounts[1] > 0);
+    }
+
+    @Test
+    public void testTIFF() throws IOException {
+        assertDecodedRowsMatch(1 << 2);
+        assertTrue(methodCounts[2] > 0);
+    }
+
+    @Test
+    public void testDeltaRow() throws IOException {
+        assertDecodedRowsMatch(1 << 3);
+        assertTrue(methodCounts[3] > 0);
+    }
+
+    private void assertDecodedRowsMatch(int modes) throws IOException {
+        BufferedImage img = new BufferedImage(BYTE_WIDTH * 8, rows.length, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] data = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < BYTE_WIDTH; x++) {
+                //index 0 of the default palette is black, while set bits are black in PCL
+                data[y * BYTE_WIDTH + x] = (byte) ~rows[y][x];
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PCLGenerator gen = new PCLGenerator(out);
+        gen.setRasterCompressionModes(modes);
+        gen.paintMonochromeBitmap(img, 300);
+
+        List<byte[]> decoded = decode(out.toByteArray());
+        assertEquals(rows.length, decoded.size());
+        for (int y = 0; y < rows.length; y++) {
+            assertArrayEquals("row " + y, rows[y], decoded.get(y));
+        }
+    }
+
+    private List<byte[]> decode(byte[] pcl) {
+        List<byte[]> decoded = new ArrayList<byte[]>();
+        byte[] seed = new byte[BYTE_WIDTH];
+        int method = 0;
+        int pos = 0;
+        while (pos < pcl.length) {
+            assertEquals(0x1B, pcl[pos++]);
+            String group = new String(pcl, pos, 2);
+            pos += 2;
+            char command;
+            do {
+                int start = pos;
+                while (pcl[pos] == '-' || pcl[pos] == '.' || Character.isDigit(pcl[pos])) {
+                    pos++;
+                }
+                int value = (pos > start) ? (int) Double.parseDouble(new String(pcl, start, pos - start)) : 0;
+                command = (char) pcl[pos++];
+                if (!"*b".equals(group)) {
+                    continue;
+                }
+                switch (Character.toUpperCase(command)) {
+                case 'M':
+                    method = value;
+                    break;
+                case 'Y':
+                    for (int i = 0; i < value; i++) {
+                        decoded.add(new byte[BYTE_WIDTH]);
+                    }
+                    seed = new byte[BYTE_WIDTH];
+                    break;
+                case 'W':
+                    seed = decodeRow(method, pcl, pos, value, seed);
+                    methodCounts[method]++;
+                    decoded.add(seed);
+                    pos += value;
+                    break;
+                default:
+                    throw new AssertionError("Unexpected command: " + group + value + command);
+                }
+            } while (Character.isLowerCase(command));
+        }
+        return decoded;
+    }
+
+    private byte[] decodeRow(int method, byte[] data, int offset, int length, byte[] seed) {
+        byte[] row = new byte[BYTE_WIDTH];
+        int end = offset + length;
+        int pos = offset;
+        int x = 0;
+        switch (method) {
+        case 0:
+            System.arraycopy(data, pos, row, 0, length);
+            break;
+        case 1:
+            while (pos < end) {
+                int count = (data[pos++] & 0xFF) + 1;
+                byte b = data[pos++];
+                for (int i = 0; i < count; i++) {
+                    row[x++] = b;
+                }
+            }
+            break;
+        case 2:
+            while (pos < end) {
+                int control = data[pos++];
+                if (control >= 0) {
+                    System.arraycopy(data, pos, row, x, control + 1);
+                    pos += control + 1;
+                    x += control + 1;
+                } else if (control != -128) {
+                    byte b = data[pos++];
+                    for (int i = 0; i < 1 - control; i++) {
+                        row[x++] = b;
+                    }
+                }
+            }
+            break;
+        case 3:
+            System.arraycopy(seed, 0, row, 0, BYTE_WIDTH);
+            while (pos < end) {
+                int command = data[pos++] & 0xFF;
+                int count = (command >> 5) + 1;
+                int skip = command & 0x1F;
+                if (skip == 31) {
+                    int more;
+                    do {
+                        more = data[pos++] & 0xFF;
+                        skip += more;
+                    } while (more == 255);
+                }
+                x += skip;
+                System.arraycopy(data, pos, row, x, count);
+                pos += count;
+                x += count;
+            }
+            break;
+        default:
+            throw new AssertionError("Unexpected compression method: " + method);
+        }
+        return row;
+    }
+}
@@ -53,6 +53,7 @@ import org.apache.fop.pdf.PDFTextUtil;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.render.intermediate.IFContext;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPainter;
 import org.apache.fop.traits.BorderProps;
 
 public class PDFPainterTestCase {
@@ -211,6 +212,33 @@ public class PDFPainterTestCase {
         return pdfDocumentHandler;
     }
 
+    @Test
+    public void testSVGIsReusedAsFormXObject() throws IFException {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        foUserAgent = fopFactory.newFOUserAgent();
+        pdfDocumentHandler = new PDFDocumentHandler(new IFContext(foUserAgent));
+        pdfDocumentHandler.setResult(new StreamResult(new ByteArrayOutputStream()));
+        pdfDocumentHandler.setFontInfo(new FontInfo());
+        pdfDocumentHandler.startDocument();
+        for (int i = 0; i < 2; i++) {
+            pdfDocumentHandler.startPage(i, "", "", new Dimension(200000, 200000));
+            IFPainter painter = pdfDocumentHandler.startPageContent();
+            painter.drawImage("test/resources/images/circles.svg", new Rectangle(10000, 10000, 50000, 50000));
+            painter.drawImage("test/resources/images/circles.svg", new Rectangle(70000, 10000, 50000, 50000));
+            pdfDocumentHandler.endPageContent();
+            pdfDocumentHandler.endPage();
+        }
+        assertEquals(1, pdfDocumentHandler.getFormXObjects().size());
+
+        pdfDocumentHandler.startPage(2, "", "", new Dimension(200000, 200000));
+        IFPainter painter = pdfDocumentHandler.startPageContent();
+        painter.drawImage("test/resources/images/circles.svg", new Rectangle(10000, 10000, 100000, 100000));
+        pdfDocumentHandler.endPageContent();
+        pdfDocumentHandler.endPage();
+        assertEquals(2, pdfDocumentHandler.getFormXObjects().size());
+        pdfDocumentHandler.endDocument();
+    }
+
     private static class FontMapCodepointAnswer implements Answer<Integer> {
 
         @Override
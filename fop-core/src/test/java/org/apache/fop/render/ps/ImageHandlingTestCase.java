@@ -36,6 +36,8 @@ import org.apache.commons.io.IOUtils;
 
 import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
 
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageSize;
 import org.apache.xmlgraphics.image.loader.impl.ImageXMLDOM;
 import org.apache.xmlgraphics.ps.DSCConstants;
 import org.apache.xmlgraphics.ps.PSGenerator;
@@ -192,4 +194,29 @@ public class ImageHandlingTestCase extends AbstractPostScriptTest {
                 new Rectangle());
         assertTrue(bos.toString().contains("/DataSource Data"));
     }
+
+    @Test
+    public void testPSImageHandlerSVGForm() throws IOException {
+        FOUserAgent ua = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"100\" height=\"50\">\n"
+                + "  <rect x=\"10\" y=\"10\" width=\"80\" height=\"30\" fill=\"blue\"/>\n"
+                + "</svg>";
+        SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(null);
+        Document doc = factory.createDocument(null, IOUtils.toInputStream(svg));
+        ImageInfo info = new ImageInfo("logo.svg", "image/svg+xml");
+        ImageSize size = new ImageSize(100, 50, 72);
+        size.calcSizeFromPixels();
+        info.setSize(size);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PSImageHandlerSVG handler = new PSImageHandlerSVG();
+        PSRenderingContext formContext = new PSRenderingContext(ua, new PSGenerator(bos), new FontInfo(), true);
+        ImageXMLDOM image = new ImageXMLDOM(info, doc, "");
+        assertTrue(handler.isCompatible(formContext, image));
+        handler.generateForm(formContext, image, new PSImageFormResource(1, "logo.svg"));
+        String form = bos.toString();
+        assertContains(form, "/FOPForm:1");
+        assertContains(form, "/FormType 1");
+        assertContains(form, "/ReusableStreamDecode filter");
+        assertContains(form, "%FOPBeginSVG");
+    }
 }
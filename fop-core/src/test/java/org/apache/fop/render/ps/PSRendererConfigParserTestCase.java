@@ -85,4 +85,14 @@ public class PSRendererConfigParserTestCase
         parseConfig(createRenderer().setOptimizeResources(configuredVal));
         assertEquals(configuredVal, conf.isOptimizeResources());
     }
+
+    @Test
+    public void testSinglePassResources() throws Exception {
+        boolean defaultVal = false;
+        boolean configuredVal = !defaultVal;
+        parseConfig(createRenderer());
+        assertEquals(defaultVal, conf.isSinglePassResources());
+        parseConfig(createRenderer().setSinglePassResources(configuredVal));
+        assertEquals(configuredVal, conf.isSinglePassResources());
+    }
 }
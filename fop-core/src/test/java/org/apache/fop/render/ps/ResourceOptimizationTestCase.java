@@ -78,6 +78,23 @@ public class ResourceOptimizationTestCase extends AbstractPostScriptTest {
         verifyPostScriptFile(outputFile);
     }
 
+    /**
+     * Tests resource optimization while painting, without a second pass over the document.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSinglePassResourceOptimization() throws Exception {
+        FOUserAgent ua = fopFactory.newFOUserAgent();
+        PSDocumentHandler handler = new PSDocumentHandler(new IFContext(ua));
+        handler.getPSUtil().setOptimizeResources(true);
+        handler.getPSUtil().setSinglePassResources(true);
+        ua.setDocumentHandlerOverride(handler);
+
+        File outputFile = renderFile(ua, "ps-resources.fo",
+                "-sp-if-l" + handler.getPSUtil().getLanguageLevel());
+        verifyPostScriptFile(outputFile);
+    }
+
     private void verifyPostScriptFile(File psFile) throws IOException, DSCException {
         InputStream in = new java.io.FileInputStream(psFile);
         in = new java.io.BufferedInputStream(in);
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedCacheTestCase {
+
+    private final List<String> evicted = new ArrayList<String>();
+
+    private final BoundedCache<String, String> cache = new BoundedCache<String, String>(10, 1) {
+        protected int weigh(String key, String value) {
+            return value.length();
+        }
+
+        protected void evicted(String key, String value) {
+            evicted.add(key);
+        }
+    };
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals("aaaa", cache.get("a"));
+        cache.put("c", "cccc");
+        assertNull(cache.get("b"));
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals("cccc", cache.get("c"));
+        assertEquals(8, cache.getWeight());
+        assertEquals(1, evicted.size());
+        assertEquals("b", evicted.get(0));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testPutIfAbsentKeepsExistingValue() {
+        assertNull(cache.putIfAbsent("a", "aa"));
+        assertEquals("aa", cache.putIfAbsent("a", "aaa"));
+        assertEquals("aa", cache.get("a"));
+        assertEquals(2, cache.getWeight());
+    }
+
+    @Test
+    public void testPutReplacesValueAndWeight() {
+        cache.put("a", "aa");
+        cache.put("a", "aaaaa");
+        assertEquals(1, cache.size());
+        assertEquals(5, cache.getWeight());
+        assertEquals("a", evicted.get(0));
+    }
+
+    @Test
+    public void testReplaceOnlyReplacesCachedEntries() {
+        assertNull(cache.replace("a", "aa"));
+        assertEquals(0, cache.size());
+        cache.put("a", "aa");
+        assertEquals("aa", cache.replace("a", "aaa"));
+        assertEquals("aaa", cache.get("a"));
+        assertEquals(3, cache.getWeight());
+    }
+
+    @Test
+    public void testTooHeavyValueIsNotCached() {
+        assertFalse(cache.fits(11));
+        cache.put("a", "aaaaaaaaaaa");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    public void testClearEvictsAllEntries() {
+        cache.put("a", "aa");
+        cache.put("b", "bb");
+        cache.get("a");
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, evicted.size());
+    }
+
+    @Test
+    public void testSegmentCountIsLimitedByMaximumWeight() {
+        BoundedCache<String, String> small = new BoundedCache<String, String>(2);
+        small.put("a", "a");
+        small.put("b", "b");
+        small.put("c", "c");
+        assertEquals(2, small.size());
+    }
+}
@@ -68,7 +68,8 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
     }
 
     private static List<EventModel> eventModels = new java.util.ArrayList();
-    private Map proxies = new java.util.HashMap();
+    //Event producers may be requested by several threads working on the same document
+    private Map proxies = new java.util.concurrent.ConcurrentHashMap();
 
     /**
      * Loads an event model and returns its instance.